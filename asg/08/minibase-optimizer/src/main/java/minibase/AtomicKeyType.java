@@ -67,6 +67,53 @@ public abstract class AtomicKeyType extends SearchKeyType {
       return new SearchKey(this, this.readObject(data, offset));
    }
 
+   /**
+    * {@inheritDoc} The raw data of most atomic types is a big-endian two's complement number, which is ordered
+    * like an unsigned number once its sign bit is flipped.
+    */
+   @Override
+   public void encodeSortable(final byte[] data, final int offset) {
+      data[offset] ^= 0x80;
+   }
+
+   @Override
+   public void decodeSortable(final byte[] data, final int offset) {
+      data[offset] ^= 0x80;
+   }
+
+   /**
+    * Transforms a big-endian IEEE 754 number in place into its order-preserving encoding. Positive numbers are
+    * ordered like unsigned numbers once their sign bit is flipped, negative ones inversely to their bits.
+    * @param data the data containing the number
+    * @param offset the position of the number
+    * @param length the length of the number, in bytes
+    */
+   static void encodeFloatingPoint(final byte[] data, final int offset, final int length) {
+      if (data[offset] < 0) {
+         for (int i = offset; i < offset + length; i++) {
+            data[i] = (byte) ~data[i];
+         }
+      } else {
+         data[offset] ^= 0x80;
+      }
+   }
+
+   /**
+    * Transforms an IEEE 754 number in place from its order-preserving encoding back into its big-endian form.
+    * @param data the data containing the encoded number
+    * @param offset the position of the number
+    * @param length the length of the number, in bytes
+    */
+   static void decodeFloatingPoint(final byte[] data, final int offset, final int length) {
+      if (data[offset] < 0) {
+         data[offset] ^= 0x80;
+      } else {
+         for (int i = offset; i < offset + length; i++) {
+            data[i] = (byte) ~data[i];
+         }
+      }
+   }
+
    /**
     * Recursive helper.
     *
@@ -342,6 +389,16 @@ public abstract class AtomicKeyType extends SearchKeyType {
          Convert.writeFloat(data, offset, (Float) values[index]);
       }
 
+      @Override
+      public void encodeSortable(final byte[] data, final int offset) {
+         AtomicKeyType.encodeFloatingPoint(data, offset, Float.BYTES);
+      }
+
+      @Override
+      public void decodeSortable(final byte[] data, final int offset) {
+         AtomicKeyType.decodeFloatingPoint(data, offset, Float.BYTES);
+      }
+
       @Override
       public int getHashCode(final Object[] values, final int index) {
          return Float.floatToIntBits((Float) values[index]);
@@ -395,6 +452,16 @@ public abstract class AtomicKeyType extends SearchKeyType {
          Convert.writeDouble(data, offset, (Double) values[index]);
       }
 
+      @Override
+      public void encodeSortable(final byte[] data, final int offset) {
+         AtomicKeyType.encodeFloatingPoint(data, offset, Double.BYTES);
+      }
+
+      @Override
+      public void decodeSortable(final byte[] data, final int offset) {
+         AtomicKeyType.decodeFloatingPoint(data, offset, Double.BYTES);
+      }
+
       @Override
       public int getHashCode(final Object[] values, final int index) {
          final long l = Double.doubleToLongBits((Double) values[index]);
@@ -630,6 +697,18 @@ public abstract class AtomicKeyType extends SearchKeyType {
          Convert.writeString(data, offset, (String) values[index], this.getKeyLength());
       }
 
+      /**
+       * {@inheritDoc} Strings are stored as UTF-8 bytes padded with zeroes, whose byte order is the order of their
+       * code points, so they need no transformation.
+       */
+      @Override
+      public void encodeSortable(final byte[] data, final int offset) {
+      }
+
+      @Override
+      public void decodeSortable(final byte[] data, final int offset) {
+      }
+
       @Override
       public int getHashCode(final Object[] values, final int index) {
          return values[index].hashCode();
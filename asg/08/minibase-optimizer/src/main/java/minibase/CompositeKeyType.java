@@ -110,6 +110,24 @@ public final class CompositeKeyType extends SearchKeyType {
       }
    }
 
+   @Override
+   public void encodeSortable(final byte[] data, final int offset) {
+      int curOffset = offset;
+      for (final AtomicKeyType type : this.types) {
+         type.encodeSortable(data, curOffset);
+         curOffset += type.getKeyLength();
+      }
+   }
+
+   @Override
+   public void decodeSortable(final byte[] data, final int offset) {
+      int curOffset = offset;
+      for (final AtomicKeyType type : this.types) {
+         type.decodeSortable(data, curOffset);
+         curOffset += type.getKeyLength();
+      }
+   }
+
    @Override
    public int getHashCode(final Object[] values, final int index) {
       int hash = 0;
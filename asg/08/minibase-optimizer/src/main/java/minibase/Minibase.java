@@ -18,8 +18,10 @@ import java.nio.file.Files;
 import minibase.catalog.PersistentSystemCatalog;
 import minibase.catalog.SystemCatalog;
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.FrameStorage;
 import minibase.storage.buffer.ReplacementStrategy;
 import minibase.storage.file.DiskFile;
+import minibase.storage.file.DiskFileBackend;
 import minibase.storage.file.DiskManager;
 
 /**
@@ -68,6 +70,51 @@ public final class Minibase implements Closeable {
     */
    public static Minibase create(final String dbFile, final int numPages, final int bufferPoolSize,
          final ReplacementStrategy replacementPolicy) {
+      return create(dbFile, numPages, DiskManager.DEFAULT_PAGE_SIZE, bufferPoolSize, replacementPolicy);
+   }
+
+   /**
+    * Creates a new Minibase database with the given page size.
+    *
+    * @param dbFile
+    *           name of the data file
+    * @param numPages
+    *           number of pages to allocate
+    * @param pageSize
+    *           page size (in bytes), a power of two between {@link DiskManager#MIN_PAGE_SIZE} and
+    *           {@link DiskManager#MAX_PAGE_SIZE}
+    * @param bufferPoolSize
+    *           buffer pool size (in pages)
+    * @param replacementPolicy
+    *           buffer pool replacement policy
+    * @return minibase instance
+    */
+   public static Minibase create(final String dbFile, final int numPages, final int pageSize,
+         final int bufferPoolSize, final ReplacementStrategy replacementPolicy) {
+      return create(dbFile, numPages, pageSize, bufferPoolSize, replacementPolicy, FrameStorage.HEAP);
+   }
+
+   /**
+    * Creates a new Minibase database with the given page size and frame storage.
+    *
+    * @param dbFile
+    *           name of the data file
+    * @param numPages
+    *           number of pages to allocate
+    * @param pageSize
+    *           page size (in bytes), a power of two between {@link DiskManager#MIN_PAGE_SIZE} and
+    *           {@link DiskManager#MAX_PAGE_SIZE}
+    * @param bufferPoolSize
+    *           buffer pool size (in pages)
+    * @param replacementPolicy
+    *           buffer pool replacement policy
+    * @param frameStorage
+    *           memory the buffer pool frames are stored in
+    * @return minibase instance
+    */
+   public static Minibase create(final String dbFile, final int numPages, final int pageSize,
+         final int bufferPoolSize, final ReplacementStrategy replacementPolicy, final FrameStorage frameStorage) {
+      checkPageSize(pageSize);
       try {
          // delete any old database with the same name
          final File file = new File(dbFile);
@@ -76,8 +123,10 @@ public final class Minibase implements Closeable {
          }
 
          // load the static layers
-         final DiskManager diskManager = DiskManager.create(DiskFile.create(file, numPages));
-         final BufferManager bufferManager = new BufferManager(diskManager, bufferPoolSize, replacementPolicy);
+         final DiskManager diskManager = DiskManager.create(
+               DiskFile.create(file, numPages, pageSize, DiskFileBackend.RANDOM_ACCESS));
+         final BufferManager bufferManager = new BufferManager(diskManager, bufferPoolSize, replacementPolicy,
+               frameStorage);
          final SystemCatalog catalog = PersistentSystemCatalog.create(bufferManager);
          return new Minibase(diskManager.getDatabaseFile(), bufferManager, catalog);
       } catch (final Exception exc) {
@@ -100,12 +149,59 @@ public final class Minibase implements Closeable {
     */
    public static Minibase createTemporary(final String prefix, final int numPages, final int bufferPoolSize,
          final ReplacementStrategy replacementPolicy) {
+      return createTemporary(prefix, numPages, DiskManager.DEFAULT_PAGE_SIZE, bufferPoolSize, replacementPolicy);
+   }
+
+   /**
+    * Creates a new temporary Minibase database with the given page size.
+    *
+    * @param prefix
+    *           name prefix for the temporary file
+    * @param numPages
+    *           number of pages to allocate
+    * @param pageSize
+    *           page size (in bytes), a power of two between {@link DiskManager#MIN_PAGE_SIZE} and
+    *           {@link DiskManager#MAX_PAGE_SIZE}
+    * @param bufferPoolSize
+    *           buffer pool size (in pages)
+    * @param replacementPolicy
+    *           buffer pool replacement policy
+    * @return minibase instance
+    */
+   public static Minibase createTemporary(final String prefix, final int numPages, final int pageSize,
+         final int bufferPoolSize, final ReplacementStrategy replacementPolicy) {
+      return createTemporary(prefix, numPages, pageSize, bufferPoolSize, replacementPolicy, FrameStorage.HEAP);
+   }
+
+   /**
+    * Creates a new temporary Minibase database with the given page size and frame storage.
+    *
+    * @param prefix
+    *           name prefix for the temporary file
+    * @param numPages
+    *           number of pages to allocate
+    * @param pageSize
+    *           page size (in bytes), a power of two between {@link DiskManager#MIN_PAGE_SIZE} and
+    *           {@link DiskManager#MAX_PAGE_SIZE}
+    * @param bufferPoolSize
+    *           buffer pool size (in pages)
+    * @param replacementPolicy
+    *           buffer pool replacement policy
+    * @param frameStorage
+    *           memory the buffer pool frames are stored in
+    * @return minibase instance
+    */
+   public static Minibase createTemporary(final String prefix, final int numPages, final int pageSize,
+         final int bufferPoolSize, final ReplacementStrategy replacementPolicy, final FrameStorage frameStorage) {
+      checkPageSize(pageSize);
       try {
          // load the static layers
          final File temp = File.createTempFile("temp_" + prefix, ".minibase");
          temp.deleteOnExit();
-         final DiskManager diskManager = DiskManager.create(DiskFile.create(temp, numPages));
-         final BufferManager bufferManager = new BufferManager(diskManager, bufferPoolSize, replacementPolicy);
+         final DiskManager diskManager = DiskManager.create(
+               DiskFile.create(temp, numPages, pageSize, DiskFileBackend.RANDOM_ACCESS));
+         final BufferManager bufferManager = new BufferManager(diskManager, bufferPoolSize, replacementPolicy,
+               frameStorage);
          final SystemCatalog catalog = PersistentSystemCatalog.create(bufferManager);
          return new Minibase(diskManager.getDatabaseFile(), bufferManager, catalog);
       } catch (final Exception exc) {
@@ -114,7 +210,21 @@ public final class Minibase implements Closeable {
    }
 
    /**
-    * Opens an existing Minibase database.
+    * Checks that the given page size is supported.
+    *
+    * @param pageSize
+    *           page size (in bytes)
+    * @throws IllegalArgumentException
+    *            if the page size is not supported
+    */
+   private static void checkPageSize(final int pageSize) {
+      if (!DiskManager.isValidPageSize(pageSize)) {
+         throw new IllegalArgumentException("Unsupported page size: " + pageSize);
+      }
+   }
+
+   /**
+    * Opens an existing Minibase database. The page size is read from the database file.
     *
     * @param dbFile
     *           name of the data file
@@ -175,6 +285,7 @@ public final class Minibase implements Closeable {
 
    @Override
    public void close() throws IOException {
+      this.bufferManager.stopPageWriter();
       this.flush();
       this.bufferManager.getDiskManager().close();
    }
@@ -185,6 +296,7 @@ public final class Minibase implements Closeable {
     * @throws IOException if the database cannot be deleted
     */
    public void delete() throws IOException {
+      this.bufferManager.stopPageWriter();
       this.flush();
       this.bufferManager.getDiskManager().destroy();
    }
@@ -171,6 +171,26 @@ public class SearchKey implements Comparable<SearchKey> {
       this.values = values;
    }
 
+   /**
+    * Returns the number of values of this key, which is greater than one for composite keys.
+    *
+    * @return number of values
+    */
+   public int getValueCount() {
+      return this.values.length;
+   }
+
+   /**
+    * Returns the value of this key at the given index.
+    *
+    * @param index
+    *           index of the value, {@code 0} for atomic keys
+    * @return the value
+    */
+   public Object getValue(final int index) {
+      return this.values[index];
+   }
+
    /**
     * Writes the SearchKey's value into the given data buffer.
     *
@@ -183,6 +203,20 @@ public class SearchKey implements Comparable<SearchKey> {
       this.type.writeRawData(data, offset, this.values);
    }
 
+   /**
+    * Writes the SearchKey's value into the given page, padding it with zeroes to the key length of its type.
+    *
+    * @param page
+    *           the page to write to
+    * @param offset
+    *           write offset
+    */
+   public void writeRawData(final Page<? extends PageType> page, final int offset) {
+      final byte[] data = new byte[this.size];
+      this.writeRawData(data, 0);
+      page.write(offset, data, 0, data.length);
+   }
+
    /**
     * Gets the total length of the search key (in bytes).
     *
@@ -208,7 +242,9 @@ public class SearchKey implements Comparable<SearchKey> {
     */
    public static SearchKey getKey(final Page<? extends PageType> page,
          final SearchKeyType keyType, final int offset) {
-      return keyType.readSearchKey(page.getData(), offset);
+      final byte[] data = new byte[keyType.getKeyLength()];
+      page.read(offset, data, 0, data.length);
+      return keyType.readSearchKey(data, 0);
    }
 
    // --------------------------------------------------------------------------
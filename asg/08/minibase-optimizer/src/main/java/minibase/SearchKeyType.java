@@ -87,6 +87,13 @@ public abstract class SearchKeyType {
       return this.length;
    }
 
+   /**
+    * @return the kind of the key
+    */
+   public final Kind getKind() {
+      return this.kind;
+   }
+
    /**
     * @return the id of the key class
     */
@@ -192,6 +199,21 @@ public abstract class SearchKeyType {
     */
    public abstract void writeRawData(byte[] data, int offset, Object[] values, int index);
 
+   /**
+    * Transforms the raw data of a key of this type in place into an order-preserving encoding, whose unsigned
+    * lexicographic byte order is the order of the keys. Such keys can be compared without reading them.
+    * @param data the data containing the raw key
+    * @param offset the position of the key
+    */
+   public abstract void encodeSortable(byte[] data, int offset);
+
+   /**
+    * Transforms a key of this type in place from its order-preserving encoding back into its raw data.
+    * @param data the data containing the encoded key
+    * @param offset the position of the key
+    */
+   public abstract void decodeSortable(byte[] data, int offset);
+
    /**
     * @param values the values to get the hashcode from
     * @param index the index to look at
@@ -67,7 +67,19 @@ final class BTreeBranch extends BTreePage {
     * @return the key's value
     */
    static SearchKey getKey(final Page<BTreeBranch> page, final int pos, final SearchKeyType keyType) {
-      return SearchKey.getKey(page, keyType, keyOffset(pos, keyType.getKeyLength()));
+      return BTreePage.readKey(page, keyOffset(pos, keyType.getKeyLength()), keyType);
+   }
+
+   /**
+    * Compares the key stored at the given position with an encoded key.
+    * @param page the page
+    * @param pos position of the key
+    * @param key the key, encoded by {@link BTreePage#encodeKey(SearchKey)}
+    * @return a negative integer, zero, or a positive integer as the stored key is less than, equal to, or
+    *         greater than the given key
+    */
+   static int compareKey(final Page<BTreeBranch> page, final int pos, final byte[] key) {
+      return page.compare(keyOffset(pos, key.length), key, 0, key.length);
    }
 
    /**
@@ -78,7 +90,8 @@ final class BTreeBranch extends BTreePage {
     * @param keySize size of the key in bytes
     */
    static void setKey(final Page<BTreeBranch> page, final int pos, final SearchKey key, final int keySize) {
-      key.writeRawData(page.getData(), keyOffset(pos, keySize));
+      final byte[] data = BTreePage.encodeKey(key);
+      page.write(keyOffset(pos, keySize), data, 0, data.length);
    }
 
    /**
@@ -91,7 +104,7 @@ final class BTreeBranch extends BTreePage {
     * @return the child page ID
     */
    static PageID getChildID(final Page<BTreeBranch> page, final int pos) {
-      return page.readPageID(childIDOffset(pos));
+      return page.readPageID(childIDOffset(page, pos));
    }
 
    /**
@@ -105,7 +118,7 @@ final class BTreeBranch extends BTreePage {
     *           the new ID
     */
    static void setChildID(final Page<BTreeBranch> page, final int pos, final PageID childID) {
-      page.writePageID(childIDOffset(pos), childID);
+      page.writePageID(childIDOffset(page, pos), childID);
    }
 
    /**
@@ -127,12 +140,11 @@ final class BTreeBranch extends BTreePage {
          final SearchKey searchKey, final PageID childID, final SearchKeyType keyType) {
       final int keySize = keyType.getKeyLength();
       final int keyOffset = keyOffset(pos, keySize);
-      final int pageIDOffset = childIDOffset(pos);
+      final int pageIDOffset = childIDOffset(page, pos);
       final int numKeys = BTreePage.getNumKeys(page);
-      final byte[] data = page.getData();
-      System.arraycopy(data, keyOffset, data, keyOffset + keySize, (numKeys - pos) * keySize);
+      page.move(keyOffset, keyOffset + keySize, (numKeys - pos) * keySize);
       final int length = (numKeys + 1 - pos) * PageID.BYTES;
-      System.arraycopy(data, pageIDOffset - length + PageID.BYTES, data, pageIDOffset - length, length);
+      page.move(pageIDOffset - length + PageID.BYTES, pageIDOffset - length, length);
       setKey(page, pos, searchKey, keySize);
       setChildID(page, pos + 1, childID);
       BTreePage.setNumKeys(page, numKeys + 1);
@@ -153,12 +165,11 @@ final class BTreeBranch extends BTreePage {
    static void deleteEntry(final Page<BTreeBranch> page, final int pos, final int keySize) {
       final int keyOffset = keyOffset(pos, keySize);
       // We want the childID right of the deleted key
-      final int pageIDOffset = childIDOffset(pos + 1);
+      final int pageIDOffset = childIDOffset(page, pos + 1);
       final int numKeys = BTreePage.getNumKeys(page);
-      final byte[] data = page.getData();
-      System.arraycopy(data, keyOffset + keySize, data, keyOffset, (numKeys - pos - 1) * keySize);
+      page.move(keyOffset + keySize, keyOffset, (numKeys - pos - 1) * keySize);
       final int length = (numKeys - pos) * PageID.BYTES;
-      System.arraycopy(data, pageIDOffset - length, data, pageIDOffset - length + PageID.BYTES, length);
+      page.move(pageIDOffset - length, pageIDOffset - length + PageID.BYTES, length);
       BTreePage.setNumKeys(page, numKeys - 1);
    }
 
@@ -187,20 +198,20 @@ final class BTreeBranch extends BTreePage {
     */
    static void copyEntries(final Page<BTreeBranch> src, final int srcPos,
          final Page<BTreeBranch> dest, final int destPos, final int n, final int keySize) {
-      System.arraycopy(src.getData(), keyOffset(srcPos, keySize), dest.getData(), keyOffset(destPos, keySize),
-            n * keySize);
+      src.copyTo(keyOffset(srcPos, keySize), dest, keyOffset(destPos, keySize), n * keySize);
       final int length = (n + 1) * PageID.BYTES;
-      System.arraycopy(src.getData(), childIDOffset(srcPos) - length + PageID.BYTES, dest.getData(),
-            childIDOffset(destPos) - length + PageID.BYTES, n * PageID.BYTES);
+      src.copyTo(childIDOffset(src, srcPos) - length + PageID.BYTES, dest,
+            childIDOffset(dest, destPos) - length + PageID.BYTES, n * PageID.BYTES);
    }
 
    /**
     * Returns the offset of the child page ID at the given position.
+    * @param page the page
     * @param pos child page ID position
     * @return offset in the page
     */
-   private static int childIDOffset(final int pos) {
-      return BTreePage.META_POS - (pos + 1) * PageID.BYTES;
+   private static int childIDOffset(final Page<BTreeBranch> page, final int pos) {
+      return BTreePage.metaPos(page) - (pos + 1) * PageID.BYTES;
    }
 
    /**
@@ -0,0 +1,292 @@
+/*
+ * @(#)BTreeBuilder.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.btree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.SearchKeyType;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.ExternalSort;
+import minibase.query.evaluator.Operator;
+import minibase.query.evaluator.TupleIterator;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.Page;
+import minibase.storage.buffer.PageID;
+import minibase.storage.buffer.UnpinMode;
+
+/**
+ * Bottom-up bulk loader of a {@link BTreeIndex}. The entries are sorted by key using an external sort and
+ * written into leaf pages from left to right, filling each of them up to the fill factor of its bytes, which
+ * depends on the prefix its keys share. The keys are
+ * encoded like on the pages of the tree before sorting, so that they are sorted by their bytes in the order of
+ * the tree and can be copied to the pages as they are. The branch levels
+ * are then built from the first keys and IDs of the pages of the level below, until a single root page is left.
+ * Only the two pages written last on each level are pinned at the same time.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class BTreeBuilder {
+
+   /** Minimum number of pages of the external sort, which merges at least two runs into an output run. */
+   static final int MIN_SORT_PAGES = 3;
+
+   /** The index to load. */
+   private final BTreeIndex index;
+
+   /** The index's buffer manager. */
+   private final BufferManager bufferManager;
+
+   /** Type of the keys. */
+   private final SearchKeyType type;
+
+   /** Number of bytes of each leaf page that are filled, unless it holds fewer than the minimum of entries. */
+   private final int leafBytes;
+
+   /** Number of children written into each branch page. */
+   private final int branchChildren;
+
+   /** Number of pages used by the external sort. */
+   private final int sortPages;
+
+   /**
+    * Creates a bulk loader for the given empty index.
+    * @param index the empty index
+    * @param fillFactor fraction of the leaf and branch pages to fill, which is at least the minimum fill of the tree
+    * @param sortPages number of pages used by the external sort, at least {@link #MIN_SORT_PAGES}
+    */
+   BTreeBuilder(final BTreeIndex index, final double fillFactor, final int sortPages) {
+      this.index = index;
+      this.sortPages = sortPages;
+      this.bufferManager = index.getBufferManager();
+      this.type = index.getKeyType();
+      this.leafBytes = (int) Math.round(fillFactor * index.getLeafCapacity());
+      this.branchChildren = Math.max(index.getMinBranchKeys(),
+            Math.min((int) Math.round(fillFactor * index.getMaxBranchKeys()), index.getMaxBranchKeys())) + 1;
+   }
+
+   /**
+    * Sorts the given entries and loads them into the index, replacing its empty root page. If a key occurs more
+    * than once, only one of its entries is stored and it is unspecified which one.
+    * @param entries iterator over entries in the format of {@link minibase.access.index.IndexEntry#writeData}
+    */
+   void load(final TupleIterator entries) {
+      final int keySize = this.type.getKeyLength();
+      final Schema schema = new SchemaBuilder()
+            .addField("key", DataType.CHAR, keySize)
+            .addField("rid", DataType.CHAR, RecordID.BYTES).build();
+      final Operator input = new Operator() {
+         @Override
+         public TupleIterator open() {
+            return new TupleIterator() {
+               @Override
+               public boolean hasNext() {
+                  return entries.hasNext();
+               }
+
+               @Override
+               public byte[] next() {
+                  final byte[] entry = entries.next().clone();
+                  BTreeBuilder.this.type.encodeSortable(entry, 0);
+                  return entry;
+               }
+
+               @Override
+               public void reset() {
+                  entries.reset();
+               }
+
+               @Override
+               public void close() {
+                  entries.close();
+               }
+            };
+         }
+
+         @Override
+         public Schema getSchema() {
+            return schema;
+         }
+      };
+      // the encoded keys are compared byte-wise as unsigned bytes, like on the pages of the tree
+      final TupleComparator order = new TupleComparator(schema, 0);
+      final ExternalSort sort = new ExternalSort(this.bufferManager, input, order, this.sortPages,
+            this.sortPages - 1);
+
+      // write the leaf pages from left to right
+      final List<SearchKey> keys = new ArrayList<>();
+      final List<PageID> children = new ArrayList<>();
+      int size = 0;
+      try (TupleIterator sorted = sort.open()) {
+         final int capacity = this.index.getLeafCapacity();
+         final int minKeys = this.index.getMinLeafKeys();
+         final List<byte[]> pending = new ArrayList<>();
+         Page<BTreeLeaf> leaf = null;
+         byte[] last = null;
+         while (sorted.hasNext()) {
+            final byte[] entry = sorted.next();
+            if (last != null && order.compare(entry, 0, last, 0) == 0) {
+               continue;
+            }
+            if (!pending.isEmpty()) {
+               final int bytes = BTreeLeaf.bytesUsed(BTreeLeaf.commonPrefix(pending.get(0), entry, keySize),
+                     pending.size() + 1, keySize);
+               if (bytes > capacity || bytes > this.leafBytes && pending.size() >= minKeys) {
+                  leaf = this.writeLeaf(leaf, pending, keys, children);
+                  pending.clear();
+               }
+            }
+            pending.add(entry);
+            last = entry;
+            size++;
+         }
+         if (pending.isEmpty()) {
+            // nothing to load, keep the empty root page
+            return;
+         }
+         leaf = this.writeLeaf(leaf, pending, keys, children);
+         this.bufferManager.unpinPage(leaf, UnpinMode.DIRTY);
+      }
+      this.balanceLastLeaf(keys, children);
+
+      // build the branch levels bottom-up
+      while (children.size() > 1) {
+         this.buildLevel(keys, children);
+      }
+      this.bufferManager.freePage(this.bufferManager.pinPage(this.index.getRootID()));
+      this.index.setRootID(children.get(0));
+      BTreeHeader.setSize(this.index.getHeader(), size);
+   }
+
+   /**
+    * Writes the given entries onto a new leaf page and links it to the previous one, which is unpinned.
+    * @param prev the previous leaf page, {@code null} if this is the first one
+    * @param entries the entries, each consisting of an encoded key followed by a record ID
+    * @param keys first keys of the leaf pages, the one of the new page is appended
+    * @param children IDs of the leaf pages, the one of the new page is appended
+    * @return the new leaf page, which is still pinned
+    */
+   private Page<BTreeLeaf> writeLeaf(final Page<BTreeLeaf> prev, final List<byte[]> entries,
+         final List<SearchKey> keys, final List<PageID> children) {
+      final PageID prevID = prev == null ? PageID.INVALID : prev.getPageID();
+      final Page<BTreeLeaf> leaf = BTreeLeaf.newPage(this.bufferManager, prevID, PageID.INVALID);
+      if (prev != null) {
+         BTreeLeaf.setNextPage(prev, leaf.getPageID());
+         this.bufferManager.unpinPage(prev, UnpinMode.DIRTY);
+      }
+      BTreeLeaf.writeEntries(leaf, entries, 0, entries.size(), this.type.getKeyLength());
+      keys.add(BTreeLeaf.getKey(leaf, 0, this.type));
+      children.add(leaf.getPageID());
+      return leaf;
+   }
+
+   /**
+    * Makes sure that the last leaf page is not under-full, by merging it into its predecessor if their entries
+    * fit into one page or by distributing their entries over both pages by the bytes they use.
+    * @param keys first keys of the leaf pages
+    * @param children IDs of the leaf pages
+    */
+   private void balanceLastLeaf(final List<SearchKey> keys, final List<PageID> children) {
+      final int numLeaves = children.size();
+      if (numLeaves < 2) {
+         return;
+      }
+      final int keySize = this.type.getKeyLength();
+      final Page<BTreeLeaf> last = this.bufferManager.pinPage(children.get(numLeaves - 1));
+      if (BTreePage.getNumKeys(last) >= this.index.getMinLeafKeys()) {
+         this.bufferManager.unpinPage(last, UnpinMode.CLEAN);
+         return;
+      }
+      final Page<BTreeLeaf> prev = this.bufferManager.pinPage(children.get(numLeaves - 2));
+      final List<byte[]> entries = BTreeLeaf.readEntries(prev, keySize);
+      entries.addAll(BTreeLeaf.readEntries(last, keySize));
+      if (BTreeLeaf.bytesUsed(entries, 0, entries.size(), keySize) <= this.index.getLeafCapacity()) {
+         // merge the last leaf page into its predecessor
+         BTreeLeaf.writeEntries(prev, entries, 0, entries.size(), keySize);
+         BTreeLeaf.setNextPage(prev, PageID.INVALID);
+         this.bufferManager.freePage(last);
+         keys.remove(numLeaves - 1);
+         children.remove(numLeaves - 1);
+      } else {
+         // the entries do not fit into one page, so there are enough to fill both
+         final int split = BTreeLeaf.split(entries, this.index.getMinLeafKeys(), keySize,
+               this.index.getLeafCapacity());
+         BTreeLeaf.writeEntries(prev, entries, 0, split, keySize);
+         BTreeLeaf.writeEntries(last, entries, split, entries.size(), keySize);
+         keys.set(numLeaves - 1, BTreeLeaf.getKey(last, 0, this.type));
+         this.bufferManager.unpinPage(last, UnpinMode.DIRTY);
+      }
+      this.bufferManager.unpinPage(prev, UnpinMode.DIRTY);
+   }
+
+   /**
+    * Builds a level of branch pages above the given pages and replaces the contents of the lists with the first
+    * keys and IDs of the new branch pages.
+    * @param keys first keys of the pages of the level below
+    * @param children IDs of the pages of the level below
+    */
+   private void buildLevel(final List<SearchKey> keys, final List<PageID> children) {
+      final int[] sizes = distribute(children.size(), this.branchChildren, this.index.getMinBranchKeys() + 1,
+            this.index.getMaxBranchKeys() + 1);
+      final List<SearchKey> parentKeys = new ArrayList<>(sizes.length);
+      final List<PageID> parents = new ArrayList<>(sizes.length);
+      int pos = 0;
+      for (final int numChildren : sizes) {
+         final Page<BTreeBranch> branch = BTreeBranch.newPage(this.bufferManager);
+         BTreeBranch.setChildID(branch, 0, children.get(pos));
+         for (int i = 1; i < numChildren; i++) {
+            BTreeBranch.insertEntry(branch, i - 1, keys.get(pos + i), children.get(pos + i), this.type);
+         }
+         parentKeys.add(keys.get(pos));
+         parents.add(branch.getPageID());
+         this.bufferManager.unpinPage(branch, UnpinMode.DIRTY);
+         pos += numChildren;
+      }
+      keys.clear();
+      keys.addAll(parentKeys);
+      children.clear();
+      children.addAll(parents);
+   }
+
+   /**
+    * Distributes the given number of children over pages, so that all pages but the last two hold
+    * {@code target} children and none holds fewer than {@code min} or more than {@code max} children.
+    * @param numChildren number of children
+    * @param target number of children per page
+    * @param min minimum number of children per page
+    * @param max maximum number of children per page
+    * @return the numbers of children of the pages
+    */
+   private static int[] distribute(final int numChildren, final int target, final int min, final int max) {
+      final int numPages = (numChildren + target - 1) / target;
+      final int[] sizes = new int[numPages];
+      Arrays.fill(sizes, target);
+      sizes[numPages - 1] = numChildren - (numPages - 1) * target;
+      if (numPages > 1 && sizes[numPages - 1] < min) {
+         final int total = target + sizes[numPages - 1];
+         if (total <= max) {
+            final int[] merged = Arrays.copyOf(sizes, numPages - 1);
+            merged[numPages - 2] = total;
+            return merged;
+         }
+         sizes[numPages - 2] = total - total / 2;
+         sizes[numPages - 1] = total / 2;
+      }
+      return sizes;
+   }
+}
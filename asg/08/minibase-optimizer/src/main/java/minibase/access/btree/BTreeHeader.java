@@ -17,7 +17,9 @@ import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.PageType;
 
 /**
- * The header page of a {@link BTreeIndex}. It contains the root page ID and the size of the index.
+ * The header page of a {@link BTreeIndex}. It contains the root page ID, the size of the index, the type of its
+ * keys and, in its last four bytes, the version of the format of the index's pages. Headers written before the
+ * version was introduced are zero there.
  *
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
  */
@@ -29,6 +31,15 @@ final class BTreeHeader implements PageType {
    /** Offset to the type of the keys. */
    private static final int KEY_TYPE_OFFSET = 8;
 
+   /** Format version of indexes whose pages store the keys unencoded. */
+   static final int VERSION_RAW_KEYS = 0;
+
+   /** Format version of indexes whose pages store the keys uncompressed in their order-preserving encoding. */
+   static final int VERSION_ENCODED_KEYS = 1;
+
+   /** Format version of indexes whose leaf pages store the keys prefix-compressed. */
+   static final int VERSION = 2;
+
    /** Hidden default constructor. */
    private BTreeHeader() {
       throw new AssertionError();
@@ -45,9 +56,37 @@ final class BTreeHeader implements PageType {
       final Page<BTreeHeader> header = (Page<BTreeHeader>) bufferManager.newPage();
       setRootID(header, rootID);
       setSize(header, 0);
+      setVersion(header, VERSION);
       return header;
    }
 
+   /**
+    * Gets the format version of the index.
+    * @param page the header page
+    * @return the format version
+    */
+   static int getVersion(final Page<BTreeHeader> page) {
+      return page.readInt(versionOffset(page));
+   }
+
+   /**
+    * Sets the format version of the index.
+    * @param page the header page
+    * @param version the format version
+    */
+   static void setVersion(final Page<BTreeHeader> page, final int version) {
+      page.writeInt(versionOffset(page), version);
+   }
+
+   /**
+    * Returns the offset of the format version, which is stored at the end of the page.
+    * @param page the header page
+    * @return offset of the format version
+    */
+   private static int versionOffset(final Page<BTreeHeader> page) {
+      return page.getSize() - Integer.BYTES;
+   }
+
    /**
     * Gets the current root ID of the B+-tree.
     * @param page the header page
@@ -90,8 +129,9 @@ final class BTreeHeader implements PageType {
     * @return the size of the index
     */
    static SearchKeyType getKeyType(final Page<BTreeHeader> page) {
-      final byte[] data = page.getData();
-      return SearchKeyType.readFrom(data, KEY_TYPE_OFFSET);
+      final byte[] data = new byte[versionOffset(page) - KEY_TYPE_OFFSET];
+      page.read(KEY_TYPE_OFFSET, data, 0, data.length);
+      return SearchKeyType.readFrom(data, 0);
    }
 
    /**
@@ -100,6 +140,8 @@ final class BTreeHeader implements PageType {
     * @param type the type id
     */
    public static void setKeyType(final Page<BTreeHeader> page, final SearchKeyType type) {
-      type.writeTo(page.getData(), KEY_TYPE_OFFSET);
+      final byte[] data = new byte[versionOffset(page) - KEY_TYPE_OFFSET];
+      type.writeTo(data, 0);
+      page.write(KEY_TYPE_OFFSET, data, 0, data.length);
    }
 }
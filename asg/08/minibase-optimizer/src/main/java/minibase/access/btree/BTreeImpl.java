@@ -11,6 +11,8 @@
 package minibase.access.btree;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -90,16 +92,28 @@ public final class BTreeImpl extends BTreeIndex {
 
    @Override
    protected int findKey(final Page<? extends BTreePage> page, final SearchKey key, final boolean leaf) {
+      return findKey(page, BTreePage.encodeKey(key), leaf);
+   }
+
+   /**
+    * Searches for the given encoded key in a page, comparing it to the stored keys without reading them.
+    * @param page the page
+    * @param key the key, encoded by {@link BTreePage#encodeKey(SearchKey)}
+    * @param leaf whether the page is a leaf page
+    * @return position of the key if found, {@code -(insertion point + 1)} otherwise
+    */
+   private static int findKey(final Page<? extends BTreePage> page, final byte[] key, final boolean leaf) {
+      if (leaf) {
+         return BTreeLeaf.findKey(BTreeLeaf.cast(page), key);
+      }
       int leftIncl = 0;
       int rightExcl = BTreePage.getNumKeys(page);
       while (leftIncl < rightExcl) {
          final int mid = leftIncl + (rightExcl - leftIncl) / 2;
-         final SearchKey currKey = leaf
-               ? BTreeLeaf.getKey(BTreeLeaf.cast(page), mid, this.getKeyType())
-               : BTreeBranch.getKey(BTreeBranch.cast(page), mid, this.getKeyType());
-         if (currKey.compareTo(key) < 0) {
+         final int cmp = BTreeBranch.compareKey(BTreeBranch.cast(page), mid, key);
+         if (cmp < 0) {
             leftIncl = mid + 1;
-         } else if (currKey.compareTo(key) == 0) {
+         } else if (cmp == 0) {
             return mid;
          } else {
             rightExcl = mid;
@@ -111,13 +125,14 @@ public final class BTreeImpl extends BTreeIndex {
    @Override
    protected Page<BTreeLeaf> search(final PageID rootID, final SearchKey key) {
       final BufferManager bufferManager = this.getBufferManager();
+      final byte[] encoded = BTreePage.encodeKey(key);
       // get page from disk
       PageID pageID = rootID;
       Page<BTreePage> page = bufferManager.pinPage(pageID);
       while (!BTreePage.isLeafPage(page)) {
          // continue with child page
          final Page<BTreeBranch> branch = BTreeBranch.cast(page);
-         pageID = BTreeBranch.getChildID(branch, Math.abs(this.findKey(branch, key, false) + 1));
+         pageID = BTreeBranch.getChildID(branch, Math.abs(findKey(branch, encoded, false) + 1));
          bufferManager.unpinPage(page, UnpinMode.CLEAN);
          page = bufferManager.pinPage(pageID);
       }
@@ -301,7 +316,8 @@ public final class BTreeImpl extends BTreeIndex {
    }
 
    /**
-    * Inserts the given entry into the given leaf page.
+    * Inserts the given entry into the given leaf page. If it does not fit, the entries of the page are
+    * redistributed with a neighboring page first, and the page is split only if they do not fit into both.
     *
     * @param pageID
     *           leaf page's ID
@@ -325,8 +341,8 @@ public final class BTreeImpl extends BTreeIndex {
          final int parNumKeys) {
       // check if the leaf value is found
       final BufferManager bufferManager = this.getBufferManager();
-      final int numKeys = BTreePage.getNumKeys(page);
-      final int found = this.findKey(page, key, true);
+      final byte[] encoded = BTreePage.encodeKey(key);
+      final int found = BTreeLeaf.findKey(page, encoded);
       final int rawKeySize = this.getKeyType().getKeyLength();
       if (found >= 0) {
          // key already exists
@@ -339,78 +355,52 @@ public final class BTreeImpl extends BTreeIndex {
       // key will be inserted, update index size
       this.incrementSize();
 
-      if (numKeys < this.getMaxLeafKeys()) {
-         // some space is left - insert the value and return
-         BTreeLeaf.insertEntry(page, pos, key, value, rawKeySize);
+      if (BTreeLeaf.insertEntry(page, pos, encoded, value, this.getLeafCapacity())) {
+         // some space is left
          bufferManager.unpinPage(page, UnpinMode.DIRTY);
          return null;
       }
+      final List<byte[]> entries = BTreeLeaf.readEntries(page, rawKeySize);
+      entries.add(pos, BTreeLeaf.entry(encoded, value));
 
       // try to avoid splitting the page by filling a neighboring one
       final PageID nextID = BTreeLeaf.getNextPage(page);
       if (parPos < parNumKeys) {
          final Page<BTreeLeaf> next = bufferManager.pinPage(nextID);
-         final int nextNumKeys = BTreePage.getNumKeys(next);
-         final int move = (numKeys - nextNumKeys + 1) / 2;
-         if (move > 0) {
-            // push values to the right node
-            final Page<BTreeBranch> parent = bufferManager.pinPage(parentID);
-            final int newNumKeys = numKeys - move + 1;
-            if (pos < newNumKeys) {
-               rotateRight(parent, parPos, page, next, move, this.getKeyType());
-               BTreeLeaf.insertEntry(page, pos, key, value, rawKeySize);
-            } else if (pos == newNumKeys) {
-               rotateRight(parent, parPos, page, next, move - 1, this.getKeyType());
-               BTreeLeaf.insertEntry(next, 0, key, value, rawKeySize);
-               BTreeBranch.setKey(parent, parPos, key, rawKeySize);
-            } else {
-               rotateRight(parent, parPos, page, next, move - 1, this.getKeyType());
-               BTreeLeaf.insertEntry(next, pos - newNumKeys, key, value, rawKeySize);
-            }
+         final List<byte[]> both = new ArrayList<>(entries);
+         both.addAll(BTreeLeaf.readEntries(next, rawKeySize));
+         final Page<BTreeBranch> parent = bufferManager.pinPage(parentID);
+         if (this.redistribute(parent, parPos, page, next, both)) {
             bufferManager.unpinPage(parent, UnpinMode.DIRTY);
             bufferManager.unpinPage(next, UnpinMode.DIRTY);
             bufferManager.unpinPage(page, UnpinMode.DIRTY);
             return null;
          }
+         bufferManager.unpinPage(parent, UnpinMode.CLEAN);
          bufferManager.unpinPage(next, UnpinMode.CLEAN);
       }
 
       final PageID prevID = BTreeLeaf.getPrevPage(page);
       if (parPos > 0) {
          final Page<BTreeLeaf> prev = bufferManager.pinPage(prevID);
-         final int prevNumKeys = BTreePage.getNumKeys(prev);
-         final int move = (numKeys - prevNumKeys + 1) / 2;
-         if (move > 0) {
-            // push values to the left node
-            final Page<BTreeBranch> parent = bufferManager.pinPage(parentID);
-            if (pos == 0 && move == 1) {
-               // no rotation, entry goes to the left page
-               BTreeLeaf.insertEntry(prev, prevNumKeys, key, value, rawKeySize);
-               BTreeBranch.setKey(parent, parPos - 1, BTreeLeaf.getKey(page, 0, this.getKeyType()),
-                     rawKeySize);
-               bufferManager.unpinPage(page, UnpinMode.CLEAN);
-            } else {
-               if (pos < move) {
-                  rotateLeft(parent, parPos - 1, prev, page, move - 1, this.getKeyType());
-                  BTreeLeaf.insertEntry(prev, prevNumKeys + pos, key, value, rawKeySize);
-               } else if (pos == move) {
-                  rotateLeft(parent, parPos - 1, prev, page, move, this.getKeyType());
-                  BTreeLeaf.insertEntry(page, 0, key, value, rawKeySize);
-                  BTreeBranch.setKey(parent, parPos - 1, key, rawKeySize);
-               } else {
-                  rotateLeft(parent, parPos - 1, prev, page, move, this.getKeyType());
-                  BTreeLeaf.insertEntry(page, pos - move, key, value, rawKeySize);
-               }
-               bufferManager.unpinPage(page, UnpinMode.DIRTY);
-            }
+         final List<byte[]> both = BTreeLeaf.readEntries(prev, rawKeySize);
+         both.addAll(entries);
+         final Page<BTreeBranch> parent = bufferManager.pinPage(parentID);
+         if (this.redistribute(parent, parPos - 1, prev, page, both)) {
             bufferManager.unpinPage(parent, UnpinMode.DIRTY);
             bufferManager.unpinPage(prev, UnpinMode.DIRTY);
+            bufferManager.unpinPage(page, UnpinMode.DIRTY);
             return null;
          }
+         bufferManager.unpinPage(parent, UnpinMode.CLEAN);
          bufferManager.unpinPage(prev, UnpinMode.CLEAN);
       }
 
       // no space is left - allocate new page and distribute entries
+      final int split = BTreeLeaf.split(entries, this.getMinLeafKeys(), rawKeySize, this.getLeafCapacity());
+      if (split < 0) {
+         throw new IllegalStateException("Leaf page " + pageID + " cannot be split.");
+      }
       final Page<BTreeLeaf> right = BTreeLeaf.newPage(bufferManager, pageID, nextID);
       final PageID rightID = right.getPageID();
       BTreeLeaf.setNextPage(page, rightID);
@@ -423,16 +413,8 @@ public final class BTreeImpl extends BTreeIndex {
       }
 
       // distribute the entries
-      BTreeLeaf.copyEntries(page, this.getMinLeafKeys(), right, 0, this.getMinLeafKeys(), rawKeySize);
-      BTreePage.setNumKeys(page, this.getMinLeafKeys());
-      BTreePage.setNumKeys(right, this.getMinLeafKeys());
-
-      // choose page in which the new entry will be inserted
-      if (pos < this.getMinLeafKeys()) {
-         BTreeLeaf.insertEntry(page, pos, key, value, rawKeySize);
-      } else {
-         BTreeLeaf.insertEntry(right, pos - this.getMinLeafKeys(), key, value, rawKeySize);
-      }
+      BTreeLeaf.writeEntries(page, entries, 0, split, rawKeySize);
+      BTreeLeaf.writeEntries(right, entries, split, entries.size(), rawKeySize);
 
       final SearchKey midKey = BTreeLeaf.getKey(right, 0, this.getKeyType());
       bufferManager.unpinPage(page, UnpinMode.DIRTY);
@@ -440,12 +422,89 @@ public final class BTreeImpl extends BTreeIndex {
       return new Entry(midKey, rightID);
    }
 
+   /**
+    * Distributes the entries of two neighboring leaf pages over them, so that both use about the same number
+    * of bytes, and updates the key between them in the parent page. The pages are left unchanged if the
+    * entries cannot be distributed so that they fit into both pages.
+    *
+    * @param parent
+    *           parent page
+    * @param leftPos
+    *           position of the child page ID for {@code left} in {@code parent}
+    * @param left
+    *           left leaf page
+    * @param right
+    *           right leaf page
+    * @param entries
+    *           the entries of both pages in order, each consisting of an encoded key and a record ID
+    * @return {@code true} if the entries were distributed, {@code false} otherwise
+    */
+   private boolean redistribute(final Page<BTreeBranch> parent, final int leftPos, final Page<BTreeLeaf> left,
+         final Page<BTreeLeaf> right, final List<byte[]> entries) {
+      final int keySize = this.getKeyType().getKeyLength();
+      final int split = BTreeLeaf.split(entries, this.getMinLeafKeys(), keySize, this.getLeafCapacity());
+      if (split < 0) {
+         return false;
+      }
+      BTreeLeaf.writeEntries(left, entries, 0, split, keySize);
+      BTreeLeaf.writeEntries(right, entries, split, entries.size(), keySize);
+      BTreeBranch.setKey(parent, leftPos, BTreeLeaf.getKey(right, 0, this.getKeyType()), keySize);
+      return true;
+   }
+
    @Override
    public boolean remove(final SearchKey key, final RecordID recordID) {
       Objects.requireNonNull(key);
       Objects.requireNonNull(recordID);
-      final PageID rootID = BTreeHeader.getRootID(this.getHeader());
-      return this.delete(key, recordID, rootID) != DeleteResponse.FAILURE;
+      final DeleteResponse response = this.removeFromLeaf(key);
+      if (response != DeleteResponse.MERGE) {
+         return response == DeleteResponse.NOMERGE;
+      }
+      final Page<BTreeHeader> header = this.getHeader();
+      header.latchExclusive();
+      try {
+         final PageID rootID = BTreeHeader.getRootID(header);
+         return this.delete(key, recordID, rootID) != DeleteResponse.FAILURE;
+      } finally {
+         header.unlatchExclusive();
+      }
+   }
+
+   /**
+    * Tries to delete the entry with the given key without modifying the structure of the tree, while holding the
+    * tree latch in shared mode. This succeeds if the key is not present or its leaf page stays full enough.
+    * @param key key to delete
+    * @return {@link DeleteResponse#FAILURE} if the key was not found, {@link DeleteResponse#NOMERGE} if the
+    *         entry was deleted and {@link DeleteResponse#MERGE} if the leaf page would have to be merged, in which
+    *         case it is left unchanged
+    */
+   private DeleteResponse removeFromLeaf(final SearchKey key) {
+      final BufferManager bufferManager = this.getBufferManager();
+      final Page<BTreeHeader> header = this.getHeader();
+      header.latchShared();
+      try {
+         final Page<BTreeLeaf> leaf = this.search(BTreeHeader.getRootID(header), key);
+         final DeleteResponse response;
+         leaf.latchExclusive();
+         try {
+            final int pos = this.findKey(leaf, key, true);
+            if (pos < 0) {
+               response = DeleteResponse.FAILURE;
+            } else if (BTreePage.getNumKeys(leaf) > this.getMinLeafKeys()) {
+               BTreeLeaf.deleteEntry(leaf, pos, this.getKeyType().getKeyLength());
+               this.decrementSize();
+               response = DeleteResponse.NOMERGE;
+            } else {
+               response = DeleteResponse.MERGE;
+            }
+         } finally {
+            leaf.unlatchExclusive();
+         }
+         bufferManager.unpinPage(leaf, response == DeleteResponse.NOMERGE ? UnpinMode.DIRTY : UnpinMode.CLEAN);
+         return response;
+      } finally {
+         header.unlatchShared();
+      }
    }
 
    @Override
@@ -495,6 +554,15 @@ public final class BTreeImpl extends BTreeIndex {
 
       // child is under-full
       final Page<BTreePage> child = bufferManager.pinPage(childID);
+      if (BTreePage.isLeafPage(child)) {
+         bufferManager.unpinPage(child, UnpinMode.CLEAN);
+         final int leftPos = this.balanceLeaf(branch, pos, numKeys);
+         if (leftPos < 0) {
+            bufferManager.unpinPage(branch, UnpinMode.DIRTY);
+            return DeleteResponse.NOMERGE;
+         }
+         return this.mergeChildren(branch, leftPos, numKeys);
+      }
       final int childSize = BTreePage.getNumKeys(child);
 
       if (pos > 0) {
@@ -530,8 +598,81 @@ public final class BTreeImpl extends BTreeIndex {
       }
 
       // merge with a neighbor
-      final int leftPos = pos > 0 ? pos - 1 : pos;
       bufferManager.unpinPage(child, UnpinMode.CLEAN);
+      return this.mergeChildren(branch, pos > 0 ? pos - 1 : pos, numKeys);
+   }
+
+   /**
+    * Finds a neighbor of an under-full leaf page that it can be merged with, i.e., whose entries fit into one
+    * page together with its own. If there is none, the entries of the leaf page and a neighbor are
+    * redistributed.
+    *
+    * @param branch
+    *           parent page
+    * @param pos
+    *           position of the under-full leaf page's ID in the parent page
+    * @param numKeys
+    *           number of keys in the parent page
+    * @return position of the left one of the two leaf pages to merge, {@code -1} if entries were redistributed
+    */
+   private int balanceLeaf(final Page<BTreeBranch> branch, final int pos, final int numKeys) {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int keySize = this.getKeyType().getKeyLength();
+      final Page<BTreeLeaf> child = bufferManager.pinPage(BTreeBranch.getChildID(branch, pos));
+      final List<byte[]> entries = BTreeLeaf.readEntries(child, keySize);
+      List<byte[]> leftEntries = null;
+      if (pos > 0) {
+         final Page<BTreeLeaf> left = bufferManager.pinPage(BTreeBranch.getChildID(branch, pos - 1));
+         leftEntries = BTreeLeaf.readEntries(left, keySize);
+         bufferManager.unpinPage(left, UnpinMode.CLEAN);
+         leftEntries.addAll(entries);
+         if (BTreeLeaf.bytesUsed(leftEntries, 0, leftEntries.size(), keySize) <= this.getLeafCapacity()) {
+            bufferManager.unpinPage(child, UnpinMode.CLEAN);
+            return pos - 1;
+         }
+      }
+      List<byte[]> rightEntries = null;
+      if (pos < numKeys) {
+         final Page<BTreeLeaf> right = bufferManager.pinPage(BTreeBranch.getChildID(branch, pos + 1));
+         rightEntries = new ArrayList<>(entries);
+         rightEntries.addAll(BTreeLeaf.readEntries(right, keySize));
+         bufferManager.unpinPage(right, UnpinMode.CLEAN);
+         if (BTreeLeaf.bytesUsed(rightEntries, 0, rightEntries.size(), keySize) <= this.getLeafCapacity()) {
+            bufferManager.unpinPage(child, UnpinMode.CLEAN);
+            return pos;
+         }
+      }
+
+      // the entries do not fit into one page, so there are enough to fill both
+      final int leftPos = leftEntries != null ? pos - 1 : pos;
+      final Page<BTreeLeaf> left = leftEntries != null
+            ? bufferManager.pinPage(BTreeBranch.getChildID(branch, pos - 1)) : child;
+      final Page<BTreeLeaf> right = leftEntries != null
+            ? child : bufferManager.pinPage(BTreeBranch.getChildID(branch, pos + 1));
+      if (!this.redistribute(branch, leftPos, left, right, leftEntries != null ? leftEntries : rightEntries)) {
+         throw new IllegalStateException("Leaf pages " + left.getPageID() + " and " + right.getPageID()
+               + " cannot be balanced.");
+      }
+      bufferManager.unpinPage(left, UnpinMode.DIRTY);
+      bufferManager.unpinPage(right, UnpinMode.DIRTY);
+      return -1;
+   }
+
+   /**
+    * Merges two children of the given page, namely those at positions {@code leftPos} and {@code leftPos + 1},
+    * and removes the key between them from the page, which is unpinned.
+    *
+    * @param branch
+    *           parent page
+    * @param leftPos
+    *           position of the left child to be merged
+    * @param numKeys
+    *           number of keys in the parent page
+    * @return {@link DeleteResponse#MERGE} if the parent page is under-full afterwards,
+    *         {@link DeleteResponse#NOMERGE} otherwise
+    */
+   private DeleteResponse mergeChildren(final Page<BTreeBranch> branch, final int leftPos, final int numKeys) {
+      final BufferManager bufferManager = this.getBufferManager();
       this.mergeChildren(branch, leftPos);
 
       if (numKeys == 1) {
@@ -542,7 +683,7 @@ public final class BTreeImpl extends BTreeIndex {
          return DeleteResponse.NOMERGE;
       }
 
-      BTreeBranch.deleteEntry(branch, leftPos, rawKeySize);
+      BTreeBranch.deleteEntry(branch, leftPos, this.getKeyType().getKeyLength());
       bufferManager.unpinPage(branch, UnpinMode.DIRTY);
       if (numKeys > this.getMinBranchKeys()) {
          return DeleteResponse.NOMERGE;
@@ -571,8 +712,9 @@ public final class BTreeImpl extends BTreeIndex {
          // just concatenate the entries
          final Page<BTreeLeaf> lLeaf = BTreeLeaf.cast(left);
          final Page<BTreeLeaf> rLeaf = BTreeLeaf.cast(right);
-         BTreeLeaf.copyEntries(rLeaf, 0, lLeaf, leftSize, rightSize, rawKeySize);
-         BTreePage.setNumKeys(lLeaf, leftSize + rightSize);
+         final List<byte[]> entries = BTreeLeaf.readEntries(lLeaf, rawKeySize);
+         entries.addAll(BTreeLeaf.readEntries(rLeaf, rawKeySize));
+         BTreeLeaf.writeEntries(lLeaf, entries, 0, entries.size(), rawKeySize);
 
          // fix the previous- and next-pointers
          final PageID nextID = BTreeLeaf.getNextPage(rLeaf);
@@ -598,7 +740,7 @@ public final class BTreeImpl extends BTreeIndex {
    }
 
    /**
-    * Rotates {@code n} entries from page {@code right} over {@code page} to {@code left},
+    * Rotates {@code n} entries from branch page {@code right} over {@code page} to {@code left},
     * where {@code leftPos} is the position of the reference to {@code left} in the parent
     * page {@code page}. After this operation, {@code left} has {@code n} entries more and
     * {@code right} less than before.
@@ -623,23 +765,14 @@ public final class BTreeImpl extends BTreeIndex {
       if (n > 0) {
          final int leftSize = BTreePage.getNumKeys(left);
          final int rightSize = BTreePage.getNumKeys(right);
-         final SearchKey newMidKey;
-         if (BTreePage.isLeafPage(left)) {
-            final Page<BTreeLeaf> lLeaf = BTreeLeaf.cast(left);
-            final Page<BTreeLeaf> rLeaf = BTreeLeaf.cast(right);
-            newMidKey = BTreeLeaf.getKey(rLeaf, n, keyType);
-            BTreeLeaf.copyEntries(rLeaf, 0, lLeaf, leftSize, n, keySize);
-            BTreeLeaf.shiftEntries(rLeaf, n, 0, rightSize - n, keySize);
-         } else {
-            final Page<BTreeBranch> lBranch = BTreeBranch.cast(left);
-            final Page<BTreeBranch> rBranch = BTreeBranch.cast(right);
-            newMidKey = BTreeBranch.getKey(rBranch, n - 1, keyType);
-            BTreeBranch.insertEntry(lBranch, leftSize, BTreeBranch.getKey(page, leftPos, keyType),
-                  BTreeBranch.getChildID(rBranch, 0), keyType);
-            BTreeBranch.copyEntries(rBranch, 0, lBranch, leftSize + 1, n - 1, keySize);
-            BTreeBranch.setChildID(rBranch, 0, BTreeBranch.getChildID(rBranch, n));
-            BTreeBranch.shiftEntries(rBranch, n, 0, rightSize - n, keySize);
-         }
+         final Page<BTreeBranch> lBranch = BTreeBranch.cast(left);
+         final Page<BTreeBranch> rBranch = BTreeBranch.cast(right);
+         final SearchKey newMidKey = BTreeBranch.getKey(rBranch, n - 1, keyType);
+         BTreeBranch.insertEntry(lBranch, leftSize, BTreeBranch.getKey(page, leftPos, keyType),
+               BTreeBranch.getChildID(rBranch, 0), keyType);
+         BTreeBranch.copyEntries(rBranch, 0, lBranch, leftSize + 1, n - 1, keySize);
+         BTreeBranch.setChildID(rBranch, 0, BTreeBranch.getChildID(rBranch, n));
+         BTreeBranch.shiftEntries(rBranch, n, 0, rightSize - n, keySize);
          BTreeBranch.setKey(page, leftPos, newMidKey, keySize);
          BTreePage.setNumKeys(left, leftSize + n);
          BTreePage.setNumKeys(right, rightSize - n);
@@ -647,7 +780,7 @@ public final class BTreeImpl extends BTreeIndex {
    }
 
    /**
-    * Rotates {@code n} entries from page {@code left} over {@code page} to {@code right},
+    * Rotates {@code n} entries from branch page {@code left} over {@code page} to {@code right},
     * where {@code leftPos} is the position of the reference to {@code left} in the parent
     * page {@code page}. After this operation, {@code right} has {@code n} entries more and
     * {@code left} less than before.
@@ -673,24 +806,15 @@ public final class BTreeImpl extends BTreeIndex {
          final int leftSize = BTreePage.getNumKeys(left);
          final int rightSize = BTreePage.getNumKeys(right);
          final SearchKey midKey = BTreeBranch.getKey(page, leftPos, keyType);
-         final SearchKey newMidKey;
-         if (BTreePage.isLeafPage(left)) {
-            final Page<BTreeLeaf> lLeaf = BTreeLeaf.cast(left);
-            final Page<BTreeLeaf> rLeaf = BTreeLeaf.cast(right);
-            newMidKey = BTreeLeaf.getKey(lLeaf, leftSize - n, keyType);
-            BTreeLeaf.shiftEntries(rLeaf, 0, n, rightSize, keySize);
-            BTreeLeaf.copyEntries(lLeaf, leftSize - n, rLeaf, 0, n, keySize);
-         } else {
-            final Page<BTreeBranch> lBranch = BTreeBranch.cast(left);
-            final Page<BTreeBranch> rBranch = BTreeBranch.cast(right);
-            newMidKey = BTreeBranch.getKey(lBranch, leftSize - n, keyType);
-            BTreeBranch.shiftEntries(rBranch, 0, n, rightSize, keySize);
-            BTreeBranch.setKey(rBranch, n - 1, midKey, keySize);
-            BTreeBranch.setChildID(rBranch, n, BTreeBranch.getChildID(rBranch, 0));
-            BTreeBranch.copyEntries(lBranch, leftSize - n + 1, rBranch, 0, n - 1, keySize);
-            BTreeBranch.setChildID(rBranch, 0,
-                  BTreeBranch.getChildID(lBranch, leftSize - n + 1));
-         }
+         final Page<BTreeBranch> lBranch = BTreeBranch.cast(left);
+         final Page<BTreeBranch> rBranch = BTreeBranch.cast(right);
+         final SearchKey newMidKey = BTreeBranch.getKey(lBranch, leftSize - n, keyType);
+         BTreeBranch.shiftEntries(rBranch, 0, n, rightSize, keySize);
+         BTreeBranch.setKey(rBranch, n - 1, midKey, keySize);
+         BTreeBranch.setChildID(rBranch, n, BTreeBranch.getChildID(rBranch, 0));
+         BTreeBranch.copyEntries(lBranch, leftSize - n + 1, rBranch, 0, n - 1, keySize);
+         BTreeBranch.setChildID(rBranch, 0,
+               BTreeBranch.getChildID(lBranch, leftSize - n + 1));
          BTreeBranch.setKey(page, leftPos, newMidKey, keySize);
          BTreePage.setNumKeys(left, leftSize - n);
          BTreePage.setNumKeys(right, rightSize + n);
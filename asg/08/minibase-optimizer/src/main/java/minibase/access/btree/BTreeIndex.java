@@ -13,6 +13,7 @@ package minibase.access.btree;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -23,14 +24,21 @@ import minibase.access.btree.BTreeImpl.DeleteResponse;
 import minibase.access.index.Index;
 import minibase.access.index.IndexEntry;
 import minibase.access.index.IndexScan;
+import minibase.query.evaluator.TupleIterator;
 import minibase.storage.buffer.BufferManager;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.UnpinMode;
-import minibase.storage.file.DiskManager;
 
 /**
  * A B+-Tree index structure.
+ * <p>
+ * Several threads may search, insert and remove entries at the same time. The latch of the header page serves
+ * as the tree latch: Lookups and updates that only change a single leaf page hold it in shared mode and descend
+ * optimistically, latching only the leaf page, shared for lookups and exclusively for updates. Branch pages are
+ * not latched, since only structure modifications change them. An update that would split, merge or
+ * redistribute pages releases its latches and is retried while holding the tree latch exclusively, so that
+ * structure modifications run one at a time. Scans and bulk loading are not synchronized with updates.
  *
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
  */
@@ -99,14 +107,75 @@ public abstract class BTreeIndex implements Index {
       return new BTreeImpl(bufferManager, indexName, header, type);
    }
 
+   /**
+    * Creates and opens a new B+-tree index with the given name and loads the given entries into it bottom-up.
+    * The entries are sorted by key first, then packed into leaf pages from left to right, before the branch
+    * levels are built. This is much faster than inserting them one by one and produces fuller pages.
+    * If a key occurs more than once, only one of its entries is stored and it is unspecified which one. The sort
+    * uses half of the currently unpinned buffer frames as its memory budget, see {@link #defaultSortPages}.
+    * @param bufferManager buffer manager
+    * @param indexName the index's name
+    * @param type the type of the keys
+    * @param entries iterator over the entries in the format of {@link IndexEntry#writeData(byte[], int)}, in any
+    *        order
+    * @param fillFactor fraction of each page to fill, values below one leave room for later insertions
+    * @return the newly created index
+    * @throws IllegalArgumentException if an index with the given name already exists or if the fill factor is not
+    *         in {@code (0, 1]}
+    */
+   public static final BTreeIndex bulkLoad(final BufferManager bufferManager, final Optional<String> indexName,
+         final SearchKeyType type, final TupleIterator entries, final double fillFactor) {
+      return bulkLoad(bufferManager, indexName, type, entries, fillFactor, defaultSortPages(bufferManager));
+   }
+
+   /**
+    * Returns the default memory budget of the sort of a bulk load, which is half of the unpinned buffer frames.
+    * @param bufferManager the buffer manager
+    * @return number of pages for the sort
+    */
+   private static int defaultSortPages(final BufferManager bufferManager) {
+      return Math.max(bufferManager.getNumUnpinned() / 2, BTreeBuilder.MIN_SORT_PAGES);
+   }
 
+   /**
+    * Creates and opens a new B+-tree index with the given name and loads the given entries into it bottom-up,
+    * sorting them with the given memory budget. It is used for the initial runs of the sort, which are merged
+    * with one buffer page per run and one for the output. See
+    * {@link #bulkLoad(BufferManager, Optional, SearchKeyType, TupleIterator, double)} for details.
+    * @param bufferManager buffer manager
+    * @param indexName the index's name
+    * @param type the type of the keys
+    * @param entries iterator over the entries in the format of {@link IndexEntry#writeData(byte[], int)}, in any
+    *        order
+    * @param fillFactor fraction of each page to fill, values below one leave room for later insertions
+    * @param sortPages number of pages the sort may use, at least {@code 3}
+    * @return the newly created index
+    * @throws IllegalArgumentException if an index with the given name already exists, if the fill factor is not
+    *         in {@code (0, 1]} or if the number of sort pages is smaller than three
+    */
+   public static final BTreeIndex bulkLoad(final BufferManager bufferManager, final Optional<String> indexName,
+         final SearchKeyType type, final TupleIterator entries, final double fillFactor, final int sortPages) {
+      if (!(fillFactor > 0 && fillFactor <= 1)) {
+         throw new IllegalArgumentException("The fill factor must be in (0, 1], was " + fillFactor + ".");
+      }
+      if (sortPages < BTreeBuilder.MIN_SORT_PAGES) {
+         throw new IllegalArgumentException("The sort needs at least " + BTreeBuilder.MIN_SORT_PAGES
+               + " pages, got " + sortPages + ".");
+      }
+      final BTreeIndex index = createIndex(bufferManager, indexName, type);
+      new BTreeBuilder(index, fillFactor, sortPages).load(entries);
+      return index;
+   }
 
    /**
-    * Tries to open an existing B+-tree index with the given name.
+    * Tries to open an existing B+-tree index with the given name. An index in an older format, whose leaf
+    * pages store the keys uncompressed and, in the oldest format, unencoded, is converted to the current format
+    * first.
     * @param bufferManager the buffer manager
     * @param indexName the index's name
     * @return the index if it exists, {@code null} otherwise
     * @throws IllegalArgumentException if the index does not exist
+    * @throws IllegalStateException if the index has an unknown format version
     */
    public static final BTreeIndex openIndex(final BufferManager bufferManager, final String indexName) {
       final PageID headerID = bufferManager.getDiskManager().getFileEntry(indexName);
@@ -114,7 +183,98 @@ public abstract class BTreeIndex implements Index {
          throw new IllegalArgumentException("There is no index with the name '" + indexName + "'.");
       }
       final Page<BTreeHeader> header = bufferManager.pinPage(headerID);
-      return new BTreeImpl(bufferManager, Optional.of(indexName), header, BTreeHeader.getKeyType(header));
+      final int version = BTreeHeader.getVersion(header);
+      if (version < BTreeHeader.VERSION_RAW_KEYS || version > BTreeHeader.VERSION) {
+         bufferManager.unpinPage(header, UnpinMode.CLEAN);
+         throw new IllegalStateException("Index '" + indexName + "' has the unknown format version " + version
+               + ".");
+      }
+      final BTreeIndex index = new BTreeImpl(bufferManager, Optional.of(indexName), header,
+            BTreeHeader.getKeyType(header));
+      if (version != BTreeHeader.VERSION) {
+         index.convert(version);
+      }
+      return index;
+   }
+
+   /**
+    * Converts an index in an older format into the current format. The entries of its leaf pages are bulk
+    * loaded into a new tree, which sorts them in the order of the encoded keys and compresses them, and the
+    * pages of the old tree are freed afterwards.
+    * @param version format version of the index
+    */
+   private void convert(final int version) {
+      final PageID oldRootID = BTreeHeader.getRootID(this.header);
+      final Page<BTreeLeaf> root = BTreeLeaf.newPage(this.bufferManager, PageID.INVALID, PageID.INVALID);
+      BTreeHeader.setRootID(this.header, root.getPageID());
+      BTreeHeader.setSize(this.header, 0);
+      this.bufferManager.unpinPage(root, UnpinMode.DIRTY);
+      new BTreeBuilder(this, 1.0, defaultSortPages(this.bufferManager))
+            .load(this.leafEntries(oldRootID, version == BTreeHeader.VERSION_ENCODED_KEYS));
+      freePages(this.bufferManager, oldRootID);
+      BTreeHeader.setVersion(this.header, BTreeHeader.VERSION);
+   }
+
+   /**
+    * Returns an iterator over the entries of the uncompressed leaf pages of a tree in an older format with the
+    * given root, in the format of index entries. Only the current leaf page is pinned.
+    * @param rootID ID of the root page
+    * @param encoded whether the keys are stored in their order-preserving encoding
+    * @return the iterator
+    */
+   private TupleIterator leafEntries(final PageID rootID, final boolean encoded) {
+      Page<BTreePage> page = this.bufferManager.pinPage(rootID);
+      while (!BTreePage.isLeafPage(page)) {
+         final PageID childID = BTreeBranch.getChildID(BTreeBranch.cast(page), 0);
+         this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+         page = this.bufferManager.pinPage(childID);
+      }
+      final Page<BTreeLeaf> first = BTreeLeaf.cast(page);
+      final int keySize = this.type.getKeyLength();
+      return new TupleIterator() {
+
+         /** Current leaf page, {@code null} after the last one. */
+         private Page<BTreeLeaf> leaf = first;
+
+         /** Position of the next entry in the current leaf page. */
+         private int pos;
+
+         @Override
+         public boolean hasNext() {
+            while (this.leaf != null && this.pos == BTreePage.getNumKeys(this.leaf)) {
+               final PageID nextID = BTreeLeaf.getNextPage(this.leaf);
+               BTreeIndex.this.bufferManager.unpinPage(this.leaf, UnpinMode.CLEAN);
+               this.leaf = nextID.isValid() ? BTreeIndex.this.bufferManager.pinPage(nextID) : null;
+               this.pos = 0;
+            }
+            return this.leaf != null;
+         }
+
+         @Override
+         public byte[] next() {
+            if (!this.hasNext()) {
+               throw new NoSuchElementException("No more entries.");
+            }
+            final byte[] entry = BTreeLeaf.readPlainEntry(this.leaf, this.pos++, keySize);
+            if (encoded) {
+               BTreeIndex.this.type.decodeSortable(entry, 0);
+            }
+            return entry;
+         }
+
+         @Override
+         public void reset() {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public void close() {
+            if (this.leaf != null) {
+               BTreeIndex.this.bufferManager.unpinPage(this.leaf, UnpinMode.CLEAN);
+               this.leaf = null;
+            }
+         }
+      };
    }
 
    /**
@@ -134,8 +294,18 @@ public abstract class BTreeIndex implements Index {
       final Page<BTreeHeader> header = bufferManager.pinPage(headerID);
       final PageID rootID = BTreeHeader.getRootID(header);
       bufferManager.freePage(header);
+      freePages(bufferManager, rootID);
+
+      // delete the logical file
+      bufferManager.getDiskManager().deleteFileEntry(indexName);
+   }
 
-      // delete the tree pages
+   /**
+    * Frees all pages of the tree with the given root.
+    * @param bufferManager the buffer manager
+    * @param rootID ID of the root page
+    */
+   private static void freePages(final BufferManager bufferManager, final PageID rootID) {
       final ArrayDeque<PageID> stack = new ArrayDeque<>();
       stack.add(rootID);
       do {
@@ -150,9 +320,6 @@ public abstract class BTreeIndex implements Index {
          }
          bufferManager.freePage(page);
       } while (!stack.isEmpty());
-
-      // delete the logical file
-      bufferManager.getDiskManager().deleteFileEntry(indexName);
    }
 
    // public interface
@@ -169,10 +336,27 @@ public abstract class BTreeIndex implements Index {
     * Returns the number of entries stored in this index.
     * @return the number of entries
     */
-   public final int size() {
+   public final synchronized int size() {
       return BTreeHeader.getSize(this.header);
    }
 
+   /**
+    * Returns the height of this index, i.e. the number of pages on a path from the root to a leaf.
+    * @return the height
+    */
+   public final int getHeight() {
+      int height = 1;
+      Page<BTreePage> page = this.bufferManager.pinPage(BTreeHeader.getRootID(this.header));
+      while (!BTreePage.isLeafPage(page)) {
+         final PageID childID = BTreeBranch.getChildID(BTreeBranch.cast(page), 0);
+         this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+         page = this.bufferManager.pinPage(childID);
+         height++;
+      }
+      this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      return height;
+   }
+
    /**
     * Retrieves the record ID stored with the given key.
     *
@@ -182,11 +366,21 @@ public abstract class BTreeIndex implements Index {
     */
    public final Optional<IndexEntry> search(final SearchKey key) {
       Objects.requireNonNull(key);
-      final PageID rootID = BTreeHeader.getRootID(this.header);
-      final Page<BTreeLeaf> leaf = this.search(rootID, key);
-      final int pos = this.findKey(leaf, key, true);
-      final RecordID result = pos >= 0 ? BTreeLeaf.getRecordID(leaf, pos, this.type.getKeyLength()) : null;
-      this.bufferManager.unpinPage(leaf, UnpinMode.CLEAN);
+      final RecordID result;
+      this.header.latchShared();
+      try {
+         final Page<BTreeLeaf> leaf = this.search(BTreeHeader.getRootID(this.header), key);
+         leaf.latchShared();
+         try {
+            final int pos = this.findKey(leaf, key, true);
+            result = pos >= 0 ? BTreeLeaf.getRecordID(leaf, pos, this.type.getKeyLength()) : null;
+         } finally {
+            leaf.unlatchShared();
+         }
+         this.bufferManager.unpinPage(leaf, UnpinMode.CLEAN);
+      } finally {
+         this.header.unlatchShared();
+      }
       if (result == null) {
          return Optional.empty();
       } else {
@@ -252,18 +446,62 @@ public abstract class BTreeIndex implements Index {
    public final void insert(final SearchKey key, final RecordID value) {
       Objects.requireNonNull(key);
       Objects.requireNonNull(value);
-      final PageID rootID = BTreeHeader.getRootID(this.header);
-      final Entry newChild = this.insert(rootID, key, value);
-      if (newChild != null) {
-         // the root node was split
-         final Page<BTreeBranch> newRoot = BTreeBranch.newPage(this.bufferManager);
-         final PageID newRootID = newRoot.getPageID();
-         BTreeBranch.setChildID(newRoot, 0, BTreeHeader.getRootID(this.header));
-         BTreeBranch.insertEntry(newRoot, 0, newChild.getMiddleKey(), newChild.getChildID(), this.getKeyType());
-         this.bufferManager.unpinPage(newRoot, UnpinMode.DIRTY);
+      if (this.insertIntoLeaf(key, value)) {
+         return;
+      }
+      this.header.latchExclusive();
+      try {
+         final PageID rootID = BTreeHeader.getRootID(this.header);
+         final Entry newChild = this.insert(rootID, key, value);
+         if (newChild != null) {
+            // the root node was split
+            final Page<BTreeBranch> newRoot = BTreeBranch.newPage(this.bufferManager);
+            final PageID newRootID = newRoot.getPageID();
+            BTreeBranch.setChildID(newRoot, 0, BTreeHeader.getRootID(this.header));
+            BTreeBranch.insertEntry(newRoot, 0, newChild.getMiddleKey(), newChild.getChildID(),
+                  this.getKeyType());
+            this.bufferManager.unpinPage(newRoot, UnpinMode.DIRTY);
+
+            // set the new root ID
+            BTreeHeader.setRootID(this.header, newRootID);
+         }
+      } finally {
+         this.header.unlatchExclusive();
+      }
+   }
 
-         // set the new root ID
-         BTreeHeader.setRootID(this.header, newRootID);
+   /**
+    * Tries to insert an entry without modifying the structure of the tree, while holding the tree latch in
+    * shared mode. This succeeds if the key is already present in its leaf page or the leaf page has room for it.
+    * @param key key to be added
+    * @param value value to be added
+    * @return {@code true} if the entry was inserted, {@code false} if the leaf page is full
+    */
+   private boolean insertIntoLeaf(final SearchKey key, final RecordID value) {
+      this.header.latchShared();
+      try {
+         final Page<BTreeLeaf> leaf = this.search(BTreeHeader.getRootID(this.header), key);
+         final boolean inserted;
+         leaf.latchExclusive();
+         try {
+            final byte[] encoded = BTreePage.encodeKey(key);
+            final int pos = BTreeLeaf.findKey(leaf, encoded);
+            if (pos >= 0) {
+               BTreeLeaf.setRecordID(leaf, pos, value, this.type.getKeyLength());
+               inserted = true;
+            } else {
+               inserted = BTreeLeaf.insertEntry(leaf, -(pos + 1), encoded, value, this.getLeafCapacity());
+               if (inserted) {
+                  this.incrementSize();
+               }
+            }
+         } finally {
+            leaf.unlatchExclusive();
+         }
+         this.bufferManager.unpinPage(leaf, inserted ? UnpinMode.DIRTY : UnpinMode.CLEAN);
+         return inserted;
+      } finally {
+         this.header.unlatchShared();
       }
    }
 
@@ -329,16 +567,17 @@ public abstract class BTreeIndex implements Index {
    }
 
    /**
-    * Increments the size of this index on the header page.
+    * Increments the size of this index on the header page. Updates of leaf pages run concurrently, so changes
+    * of the size are synchronized on the index.
     */
-   final void incrementSize() {
+   final synchronized void incrementSize() {
       BTreeHeader.setSize(this.header, BTreeHeader.getSize(this.header) + 1);
    }
 
    /**
     * Decrements the size of this index on the header page.
     */
-   final void decrementSize() {
+   final synchronized void decrementSize() {
       BTreeHeader.setSize(this.header, BTreeHeader.getSize(this.header) - 1);
    }
 
@@ -432,6 +671,25 @@ public abstract class BTreeIndex implements Index {
       }
    }
 
+   /**
+    * Compares two keys in the order of the tree, i.e., by their encodings as stored on the pages.
+    * @param a first key
+    * @param b second key
+    * @return a negative integer, zero, or a positive integer as the first key is less than, equal to, or
+    *         greater than the second
+    */
+   private static int compareKeys(final SearchKey a, final SearchKey b) {
+      final byte[] encodedA = BTreePage.encodeKey(a);
+      final byte[] encodedB = BTreePage.encodeKey(b);
+      for (int i = 0; i < encodedA.length; i++) {
+         final int cmp = (encodedA[i] & 0xFF) - (encodedB[i] & 0xFF);
+         if (cmp != 0) {
+            return cmp;
+         }
+      }
+      return 0;
+   }
+
    /**
     * Recursive helper method for {@link #checkInvariants()}.
     * @param pageID current page ID
@@ -450,6 +708,11 @@ public abstract class BTreeIndex implements Index {
          if (!pageID.equals(BTreeHeader.getRootID(this.header)) && keys < this.getMinLeafKeys()) {
             throw new AssertionError("Non-root page " + pageID + " is under-full.");
          }
+         final int keySize = this.type.getKeyLength();
+         if (BTreeLeaf.getPrefixLength(leaf) > keySize
+               || BTreeLeaf.getBytesUsed(leaf, keySize) > this.getLeafCapacity()) {
+            throw new AssertionError("Leaf page " + pageID + " overflows its capacity.");
+         }
 
          final PageID prv = BTreeLeaf.getPrevPage(leaf);
          if (prevNext[0] != prv.getValue()) {
@@ -465,7 +728,7 @@ public abstract class BTreeIndex implements Index {
          prevNext[1] = nxt.getValue();
 
          SearchKey before = BTreeLeaf.getKey(leaf, 0, this.getKeyType());
-         if (minMax[0] != null && before.compareTo(minMax[0]) < 0) {
+         if (minMax[0] != null && compareKeys(before, minMax[0]) < 0) {
             throw new AssertionError("Wrong key found, " + before + " not in allowed range "
                   + "[" + minMax[0] + "; " + (minMax[1] == null ? "+Infinity" : minMax[1].toString()) + ").");
          }
@@ -473,12 +736,12 @@ public abstract class BTreeIndex implements Index {
 
          for (int i = 1; i < keys; i++) {
             final SearchKey key = BTreeLeaf.getKey(leaf, i, this.getKeyType());
-            if (key.compareTo(before) <= 0) {
+            if (compareKeys(key, before) <= 0) {
                throw new AssertionError("Wrong key found, " + key + " must be greater than preceding key " + before);
             }
             before = key;
          }
-         if (minMax[1] != null && before.compareTo(minMax[1]) >= 0) {
+         if (minMax[1] != null && compareKeys(before, minMax[1]) >= 0) {
             throw new AssertionError("Wrong key found, " + before + " not in allowed range "
                   + "[" + minMax[0] + "; " + minMax[1] + ").");
          }
@@ -501,7 +764,7 @@ public abstract class BTreeIndex implements Index {
       }
 
       SearchKey before = BTreeBranch.getKey(branch, 0, this.getKeyType());
-      if (minMax[0] != null && minMax[0].compareTo(before) >= 0) {
+      if (minMax[0] != null && compareKeys(minMax[0], before) >= 0) {
          throw new AssertionError("Empty key range on page " + pageID + ": [" + minMax[0] + "; " + before + ")");
       }
 
@@ -515,7 +778,7 @@ public abstract class BTreeIndex implements Index {
          minMax[1] = i < keys ? BTreeBranch.getKey(branch, i, this.getKeyType()) : maxExcl;
          before = minMax[1];
 
-         if (minMax[1] != null && minMax[0].compareTo(minMax[1]) >= 0) {
+         if (minMax[1] != null && compareKeys(minMax[0], minMax[1]) >= 0) {
             throw new AssertionError("Invalid key range on page " + pageID
                   + ": [" + minMax[0] + "; " + minMax[1] + ")");
          }
@@ -558,7 +821,7 @@ public abstract class BTreeIndex implements Index {
       sb.append(" - ").append(numPages).append(" pages\n");
       sb.append(" - ").append(this.size()).append(" entries\n");
 
-      final int bytes = numPages * DiskManager.PAGE_SIZE;
+      final long bytes = (long) numPages * this.bufferManager.getDiskManager().getPageSize();
       if (bytes >= 1L << 30) {
          sb.append(String.format(" - %.1f GiB on disk\n", 1.0 * bytes / (1L << 30)));
       } else if (bytes >= 1L << 20) {
@@ -592,8 +855,10 @@ public abstract class BTreeIndex implements Index {
       final Page<BTreeBranch> branch = BTreeBranch.check(page);
 
       if (!pageID.equals(BTreeHeader.getRootID(this.header))) {
-         vals.add(1.0 * numKeys / (branch == null ? this.getMaxLeafKeys()
-               : this.getMaxBranchKeys()));
+         vals.add(branch == null
+               ? 1.0 * BTreeLeaf.getBytesUsed(BTreeLeaf.cast(page), this.type.getKeyLength())
+                     / this.getLeafCapacity()
+               : 1.0 * numKeys / this.getMaxBranchKeys());
       }
 
       if (branch != null) {
@@ -607,12 +872,20 @@ public abstract class BTreeIndex implements Index {
    }
 
    /**
-    * Calculates the minimum number of entries in leaf nodes.
+    * Returns the number of bytes of a leaf page that are available for its compressed entries.
+    * @return capacity of a leaf page in bytes
+    */
+   public int getLeafCapacity() {
+      return BTreeLeaf.capacity(this.bufferManager.getDiskManager().getPageSize());
+   }
+
+   /**
+    * Calculates the minimum number of entries in leaf nodes, which is the number of uncompressed entries that
+    * fill half of a leaf page.
     * @return MIN_LEAF_KEYS
     */
    public int getMinLeafKeys() {
-      return (DiskManager.PAGE_SIZE - (this.type.getKeyLength() + 2 * PageID.BYTES))
-            / (2 * (this.type.getKeyLength() + RecordID.BYTES));
+      return this.getLeafCapacity() / (2 * (this.type.getKeyLength() + RecordID.BYTES));
    }
 
    /**
@@ -620,12 +893,13 @@ public abstract class BTreeIndex implements Index {
     * @return MIN_BRANCH_KEYS
     */
    public int getMinBranchKeys() {
-      return (DiskManager.PAGE_SIZE - this.type.getKeyLength() - PageID.BYTES)
+      return (this.bufferManager.getDiskManager().getPageSize() - this.type.getKeyLength() - PageID.BYTES)
             / (2 * (this.type.getKeyLength() + RecordID.BYTES));
    }
 
    /**
-    * Calculates the maximum number of entries in leaf nodes..
+    * Calculates the number of entries that fit into a leaf node even if their keys do not share a prefix.
+    * Leaves hold more entries if their keys are compressed.
     * @return MAX_LEAF_KEYS
     */
    public int getMaxLeafKeys() {
@@ -16,20 +16,29 @@ import minibase.SearchKeyType;
 import minibase.access.index.IndexEntry;
 import minibase.access.index.IndexScan;
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.BufferRing;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.UnpinMode;
 
 /**
  * An iterator traversing the {@link BTreeIndex} in ascending order, starting at a given
- * position.
+ * position. Leaf pages are loaded through a small {@link BufferRing} that reads ahead, so that long range
+ * scans over consecutively allocated leaves need fewer disk reads and do not flood the buffer pool.
+ * The prefix that the keys of a leaf page share is read once when the page is loaded, only the suffixes
+ * of its keys are read while iterating.
  *
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
  */
 public final class BTreeIterator implements IndexScan {
 
+   /** Number of leaf pages read ahead when the next leaf is not in the buffer pool. */
+   private static final int READ_AHEAD = BufferRing.DEFAULT_READ_AHEAD;
+
    /** The buffer manager of the {@link BTreeIndex}. */
    private final BufferManager bufferManager;
+   /** Buffer ring the leaf pages are loaded into. */
+   private final BufferRing ring = new BufferRing(READ_AHEAD + 1, READ_AHEAD);
    /** The page ID of the start page, needed for {@link #restart()}. */
    private final PageID startPageID;
    /** The starting position, needed for {@link #restart()}. */
@@ -42,6 +51,10 @@ public final class BTreeIterator implements IndexScan {
    private int size;
    /** Type of the key in byte. */
    private final SearchKeyType keyType;
+   /** Encoded key of the current entry, starting with the prefix shared by the keys of the current page. */
+   private final byte[] key;
+   /** Length of the prefix shared by the keys of the current page. */
+   private int prefix;
 
    /**
     * Constructor specifying the starting position of the iterator.
@@ -59,12 +72,14 @@ public final class BTreeIterator implements IndexScan {
          final int startPos, final SearchKeyType keyType) {
       this.bufferManager = bufferManager;
       this.keyType = keyType;
+      this.key = new byte[keyType.getKeyLength()];
       this.startPageID = page.getPageID();
       this.startPosition = startPos;
 
       this.page = page;
       this.position = startPos;
       this.size = BTreePage.getNumKeys(page);
+      this.prefix = BTreeLeaf.readPrefix(page, this.key);
 
       this.moveToNext();
    }
@@ -81,7 +96,10 @@ public final class BTreeIterator implements IndexScan {
     */
    public IndexEntry next() {
       final int pos = this.position++;
-      final SearchKey key = BTreeLeaf.getKey(this.page, pos, this.keyType);
+      BTreeLeaf.readKey(this.page, pos, this.key, this.prefix);
+      final byte[] data = this.key.clone();
+      this.keyType.decodeSortable(data, 0);
+      final SearchKey key = this.keyType.readSearchKey(data, 0);
       final RecordID recordID = BTreeLeaf.getRecordID(this.page, pos, this.keyType.getKeyLength());
       this.moveToNext();
       return new IndexEntry(key, recordID, this.keyType);
@@ -94,9 +112,10 @@ public final class BTreeIterator implements IndexScan {
       if (this.page != null) {
          this.bufferManager.unpinPage(this.page, UnpinMode.CLEAN);
       }
-      this.page = this.bufferManager.pinPage(this.startPageID);
+      this.page = this.bufferManager.pinPage(this.startPageID, this.ring);
       this.position = this.startPosition;
       this.size = BTreePage.getNumKeys(this.page);
+      this.prefix = BTreeLeaf.readPrefix(this.page, this.key);
       this.moveToNext();
    }
 
@@ -116,9 +135,10 @@ public final class BTreeIterator implements IndexScan {
          final PageID nextID = BTreeLeaf.getNextPage(this.page);
          this.bufferManager.unpinPage(this.page, UnpinMode.CLEAN);
          if (nextID.isValid()) {
-            this.page = this.bufferManager.pinPage(nextID);
+            this.page = this.bufferManager.pinPage(nextID, this.ring);
             this.position = 0;
             this.size = BTreePage.getNumKeys(this.page);
+            this.prefix = BTreeLeaf.readPrefix(this.page, this.key);
          } else {
             this.page = null;
          }
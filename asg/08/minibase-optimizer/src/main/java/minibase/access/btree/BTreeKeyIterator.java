@@ -46,6 +46,8 @@ public final class BTreeKeyIterator implements IndexScan {
    private final SearchKeyType keyType;
    /** The starting key of the iterator. */
    private final SearchKey startKey;
+   /** The starting key in the encoding of the pages, compared to the stored keys without reading them. */
+   private final byte[] encodedKey;
 
    /**
     * Constructor specifying the starting position of the iterator.
@@ -65,6 +67,7 @@ public final class BTreeKeyIterator implements IndexScan {
          final int startPos, final SearchKey startKey, final SearchKeyType keyType) {
       this.bufferManager = bufferManager;
       this.startKey = startKey;
+      this.encodedKey = BTreePage.encodeKey(startKey);
       this.keyType = keyType;
       this.startPageID = page.getPageID();
       this.startPosition = startPos;
@@ -79,7 +82,7 @@ public final class BTreeKeyIterator implements IndexScan {
    @Override
    public boolean hasNext() {
       return this.position < this.size
-            && BTreeLeaf.getKey(this.page, this.position, this.keyType).equals(this.startKey);
+            && BTreeLeaf.compareKey(this.page, this.position, this.encodedKey) == 0;
    }
 
    /**
@@ -92,13 +95,12 @@ public final class BTreeKeyIterator implements IndexScan {
       if (this.page == null) {
          throw new NoSuchElementException("No more elements.");
       }
-      final SearchKey key = BTreeLeaf.getKey(this.page, pos, this.keyType);
-      if (!key.equals(this.startKey)) {
+      if (BTreeLeaf.compareKey(this.page, pos, this.encodedKey) != 0) {
          throw new NoSuchElementException("No more elements.");
       }
       final RecordID recordID = BTreeLeaf.getRecordID(this.page, pos, this.keyType.getKeyLength());
       this.moveToNext();
-      return new IndexEntry(key, recordID, this.keyType);
+      return new IndexEntry(this.startKey, recordID, this.keyType);
    }
 
    /**
@@ -10,7 +10,8 @@
  */
 package minibase.access.btree;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 import minibase.RecordID;
 import minibase.SearchKey;
@@ -21,6 +22,23 @@ import minibase.storage.buffer.PageID;
 
 /**
  * Utility class for accessing fields in a {@link BTreeIndex} leaf page.
+ * <p>
+ * The keys of a leaf page are prefix-compressed: the longest prefix shared by all keys of the page is stored
+ * once at the start of the page, followed by the entries, each consisting of the remaining suffix of its key
+ * and its record ID. Since the entries are sorted, the prefix is the one shared by the first and the last key,
+ * and it is kept that long when entries are inserted and deleted. All entries of a page have the same length,
+ * so they are still found by binary search, comparing a key with the prefix once and with the suffixes after
+ * that. The length of the prefix is stored in front of the previous- and next-page IDs. Keys of indexes are
+ * unique, so every key has a single record ID and there are no posting lists of duplicates to collapse.
+ * <p>
+ * The number of entries a leaf page holds thus depends on its keys, so leaves overflow when their entries no
+ * longer fit into the page, see {@link #getBytesUsed(Page, int)}, and are split and redistributed so that
+ * their neighbors use about the same number of bytes. A non-root leaf holds at least
+ * {@link BTreeIndex#getMinLeafKeys()} entries, the number of uncompressed entries that fill half a page, so
+ * that a full page can always be split into two pages that both hold that many.
+ * <p>
+ * Indexes written before the keys were compressed store the entries uncompressed at fixed positions, they
+ * are read by {@link #readPlainEntry(Page, int, int)} when they are converted.
  *
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
  */
@@ -45,6 +63,7 @@ final class BTreeLeaf extends BTreePage {
       @SuppressWarnings("unchecked")
       final Page<BTreeLeaf> leaf = (Page<BTreeLeaf>) bufferManager.newPage();
       BTreePage.setMeta(leaf, true, 0);
+      BTreeLeaf.setPrefixLength(leaf, 0);
       BTreeLeaf.setPrevPage(leaf, prev);
       BTreeLeaf.setNextPage(leaf, next);
       return leaf;
@@ -69,6 +88,66 @@ final class BTreeLeaf extends BTreePage {
       return (Page<BTreeLeaf>) page;
    }
 
+   /**
+    * Returns the number of bytes of a leaf page that are available for the prefix and the entries.
+    * @param pageSize size of the page
+    * @return number of bytes
+    */
+   static int capacity(final int pageSize) {
+      return pageSize - META_SIZE - 2 * PageID.BYTES - Integer.BYTES;
+   }
+
+   /**
+    * Returns the number of bytes that the given number of entries whose keys share a prefix of the given length
+    * occupy on a leaf page.
+    * @param prefix length of the shared prefix
+    * @param numKeys number of entries
+    * @param keySize size of the key
+    * @return number of bytes
+    */
+   static int bytesUsed(final int prefix, final int numKeys, final int keySize) {
+      return numKeys == 0 ? 0 : prefix + numKeys * (keySize - prefix + RecordID.BYTES);
+   }
+
+   /**
+    * Returns the number of bytes that a range of sorted entries, each consisting of an encoded key and a record
+    * ID, occupy on a leaf page.
+    * @param entries the entries
+    * @param from index of the first entry (inclusive)
+    * @param to index of the last entry (exclusive)
+    * @param keySize size of the key
+    * @return number of bytes
+    */
+   static int bytesUsed(final List<byte[]> entries, final int from, final int to, final int keySize) {
+      return from == to ? 0
+            : bytesUsed(commonPrefix(entries.get(from), entries.get(to - 1), keySize), to - from, keySize);
+   }
+
+   /**
+    * Returns the number of bytes that the prefix and the entries of the given leaf page occupy.
+    * @param page the page
+    * @param keySize size of the key
+    * @return number of bytes
+    */
+   static int getBytesUsed(final Page<BTreeLeaf> page, final int keySize) {
+      return bytesUsed(getPrefixLength(page), BTreePage.getNumKeys(page), keySize);
+   }
+
+   /**
+    * Returns the length of the longest prefix shared by two encoded keys.
+    * @param a array starting with the first key
+    * @param b array starting with the second key
+    * @param keySize size of the keys
+    * @return length of the shared prefix
+    */
+   static int commonPrefix(final byte[] a, final byte[] b, final int keySize) {
+      int i = 0;
+      while (i < keySize && a[i] == b[i]) {
+         i++;
+      }
+      return i;
+   }
+
    /**
     * Gets the key stored at the given position.
     * @param page the page
@@ -77,21 +156,166 @@ final class BTreeLeaf extends BTreePage {
     * @return the key's value
     */
    static SearchKey getKey(final Page<BTreeLeaf> page, final int pos, final SearchKeyType keyType) {
-      return SearchKey.getKey(page, keyType, keyOffset(pos, keyType.getKeyLength()));
+      final byte[] data = new byte[keyType.getKeyLength()];
+      readKey(page, pos, data, readPrefix(page, data));
+      keyType.decodeSortable(data, 0);
+      return keyType.readSearchKey(data, 0);
    }
 
    /**
-    * Sets the key at the given position.
+    * Reads the prefix shared by the keys of the given page.
+    * @param page the page
+    * @param key array the prefix is written to, starting at position zero
+    * @return length of the prefix
+    */
+   static int readPrefix(final Page<BTreeLeaf> page, final byte[] key) {
+      final int prefix = getPrefixLength(page);
+      page.read(0, key, 0, prefix);
+      return prefix;
+   }
+
+   /**
+    * Reads the suffix of the key stored at the given position, completing an encoded key whose prefix has been
+    * read by {@link #readPrefix(Page, byte[])}.
     * @param page the page
     * @param pos position of the key
-    * @param key the key to set
-    * @param keySize size of the key in bytes
+    * @param key array starting with the prefix, the suffix is written behind it
+    * @param prefix length of the prefix
     */
-   static void setKey(final Page<BTreeLeaf> page, final int pos, final SearchKey key, final int keySize) {
-      final int offset = keyOffset(pos, keySize);
-      // make sure the old data is gone
-      Arrays.fill(page.getData(), offset, offset + keySize, (byte) 0);
-      key.writeRawData(page.getData(), offset);
+   static void readKey(final Page<BTreeLeaf> page, final int pos, final byte[] key, final int prefix) {
+      page.read(entryOffset(pos, prefix, key.length), key, prefix, key.length - prefix);
+   }
+
+   /**
+    * Compares the key stored at the given position with an encoded key.
+    * @param page the page
+    * @param pos position of the key
+    * @param key the key, encoded by {@link BTreePage#encodeKey(SearchKey)}
+    * @return a negative integer, zero, or a positive integer as the stored key is less than, equal to, or
+    *         greater than the given key
+    */
+   static int compareKey(final Page<BTreeLeaf> page, final int pos, final byte[] key) {
+      final int prefix = getPrefixLength(page);
+      final int cmp = page.compare(0, key, 0, prefix);
+      if (cmp != 0) {
+         return cmp;
+      }
+      return page.compare(entryOffset(pos, prefix, key.length), key, prefix, key.length - prefix);
+   }
+
+   /**
+    * Searches for an encoded key in the given page. The key is compared with the prefix of the page once and
+    * with the suffixes of the stored keys after that.
+    * @param page the page
+    * @param key the key, encoded by {@link BTreePage#encodeKey(SearchKey)}
+    * @return position of the key if found, {@code -(insertion point + 1)} otherwise
+    */
+   static int findKey(final Page<BTreeLeaf> page, final byte[] key) {
+      final int numKeys = BTreePage.getNumKeys(page);
+      if (numKeys == 0) {
+         return -1;
+      }
+      final int keySize = key.length;
+      final int prefix = getPrefixLength(page);
+      final int cmp = page.compare(0, key, 0, prefix);
+      if (cmp != 0) {
+         // the key is smaller or greater than all stored keys
+         return cmp > 0 ? -1 : -(numKeys + 1);
+      }
+      int leftIncl = 0;
+      int rightExcl = numKeys;
+      while (leftIncl < rightExcl) {
+         final int mid = leftIncl + (rightExcl - leftIncl) / 2;
+         final int c = page.compare(entryOffset(mid, prefix, keySize), key, prefix, keySize - prefix);
+         if (c < 0) {
+            leftIncl = mid + 1;
+         } else if (c == 0) {
+            return mid;
+         } else {
+            rightExcl = mid;
+         }
+      }
+      return -(leftIncl + 1);
+   }
+
+   /**
+    * Reads the entry at the given position, i.e., the encoded key followed by the record ID.
+    * @param page the page
+    * @param pos position of the entry
+    * @param keySize size of the key
+    * @return the entry
+    */
+   static byte[] readEntry(final Page<BTreeLeaf> page, final int pos, final int keySize) {
+      final int prefix = getPrefixLength(page);
+      final byte[] entry = new byte[keySize + RecordID.BYTES];
+      page.read(0, entry, 0, prefix);
+      page.read(entryOffset(pos, prefix, keySize), entry, prefix, keySize - prefix + RecordID.BYTES);
+      return entry;
+   }
+
+   /**
+    * Reads all entries of the given page, each consisting of the encoded key followed by the record ID.
+    * @param page the page
+    * @param keySize size of the key
+    * @return the entries
+    */
+   static List<byte[]> readEntries(final Page<BTreeLeaf> page, final int keySize) {
+      final int numKeys = BTreePage.getNumKeys(page);
+      final List<byte[]> entries = new ArrayList<>(numKeys + 1);
+      for (int pos = 0; pos < numKeys; pos++) {
+         entries.add(readEntry(page, pos, keySize));
+      }
+      return entries;
+   }
+
+   /**
+    * Creates an entry from an encoded key and a record ID.
+    * @param key the key, encoded by {@link BTreePage#encodeKey(SearchKey)}
+    * @param value the record ID
+    * @return the entry
+    */
+   static byte[] entry(final byte[] key, final RecordID value) {
+      final byte[] entry = new byte[key.length + RecordID.BYTES];
+      System.arraycopy(key, 0, entry, 0, key.length);
+      value.writeData(entry, key.length);
+      return entry;
+   }
+
+   /**
+    * Replaces the contents of the given page with a range of sorted entries, each consisting of an encoded key
+    * followed by a record ID, which have to fit into the page.
+    * @param page the page
+    * @param entries the entries
+    * @param from index of the first entry (inclusive)
+    * @param to index of the last entry (exclusive)
+    * @param keySize size of the key
+    */
+   static void writeEntries(final Page<BTreeLeaf> page, final List<byte[]> entries, final int from, final int to,
+         final int keySize) {
+      final int prefix = from == to ? 0 : commonPrefix(entries.get(from), entries.get(to - 1), keySize);
+      if (prefix > 0) {
+         page.write(0, entries.get(from), 0, prefix);
+      }
+      final int length = keySize - prefix + RecordID.BYTES;
+      for (int i = from; i < to; i++) {
+         page.write(entryOffset(i - from, prefix, keySize), entries.get(i), prefix, length);
+      }
+      setPrefixLength(page, prefix);
+      BTreePage.setNumKeys(page, to - from);
+   }
+
+   /**
+    * Reads the entry at the given position of a page of an index that was written before the keys were
+    * compressed, i.e., the key in the encoding of the index's format followed by the record ID.
+    * @param page the page
+    * @param pos position of the entry
+    * @param keySize size of the key
+    * @return the entry
+    */
+   static byte[] readPlainEntry(final Page<BTreeLeaf> page, final int pos, final int keySize) {
+      final byte[] entry = new byte[keySize + RecordID.BYTES];
+      page.read(pos * (keySize + RecordID.BYTES), entry, 0, entry.length);
+      return entry;
    }
 
    /**
@@ -102,7 +326,8 @@ final class BTreeLeaf extends BTreePage {
     * @return the record ID
     */
    static RecordID getRecordID(final Page<BTreeLeaf> page, final int pos, final int keySize) {
-      return page.readRecordID(recordIDOffset(pos, keySize));
+      final int prefix = getPrefixLength(page);
+      return page.readRecordID(entryOffset(pos, prefix, keySize) + keySize - prefix);
    }
 
    /**
@@ -113,54 +338,117 @@ final class BTreeLeaf extends BTreePage {
     * @param keySize size of the key
     */
    static void setRecordID(final Page<BTreeLeaf> page, final int pos, final RecordID value, final int keySize) {
-      page.writeRecordID(recordIDOffset(pos, keySize), value);
+      final int prefix = getPrefixLength(page);
+      page.writeRecordID(entryOffset(pos, prefix, keySize) + keySize - prefix, value);
    }
 
    /**
-    * Inserts an entry (i.e. a pair of a key and a record ID) at the given position into this leaf page.
+    * Inserts an entry (i.e. a pair of a key and a record ID) at the given position into this leaf page, if it
+    * fits. If the key does not have the prefix of the page, the prefix is shortened and the entries are
+    * rewritten.
     * @param page the page
     * @param pos insertion position
-    * @param key key to insert
+    * @param key key to insert, encoded by {@link BTreePage#encodeKey(SearchKey)}
     * @param value record ID to insert
-    * @param keySize size of the key as byte
+    * @param capacity number of bytes available for the prefix and the entries, see {@link #capacity(int)}
+    * @return {@code true} if the entry was inserted, {@code false} if it does not fit into the page
     */
-   static void insertEntry(final Page<BTreeLeaf> page, final int pos, final SearchKey key, final RecordID value,
-         final int keySize) {
+   static boolean insertEntry(final Page<BTreeLeaf> page, final int pos, final byte[] key, final RecordID value,
+         final int capacity) {
+      final int keySize = key.length;
       final int numKeys = BTreePage.getNumKeys(page);
-      final int offset = keyOffset(pos, keySize);
-      final byte[] data = page.getData();
-      // make space for new entry
-      System.arraycopy(data, offset, data, offset + keySize
-      + RecordID.BYTES, (numKeys - pos) * (keySize + RecordID.BYTES));
-      // write entry
-      // write the key value
-      setKey(page, pos, key, keySize);
-      page.writeRecordID(offset + keySize, value);
+      final int prefix = numKeys == 0 ? keySize : getPrefixLength(page);
+      int shared = 0;
+      if (numKeys == 0) {
+         shared = keySize;
+      } else {
+         final byte[] data = new byte[prefix];
+         page.read(0, data, 0, prefix);
+         while (shared < prefix && data[shared] == key[shared]) {
+            shared++;
+         }
+      }
+      if (bytesUsed(shared, numKeys + 1, keySize) > capacity) {
+         return false;
+      }
+      if (shared < prefix) {
+         // the prefix gets shorter, so all entries get longer
+         final List<byte[]> entries = readEntries(page, keySize);
+         entries.add(pos, entry(key, value));
+         writeEntries(page, entries, 0, entries.size(), keySize);
+         return true;
+      }
+      if (numKeys == 0) {
+         page.write(0, key, 0, prefix);
+         setPrefixLength(page, prefix);
+      }
+      final int length = keySize - prefix + RecordID.BYTES;
+      final int offset = entryOffset(pos, prefix, keySize);
+      // make space for the new entry and write it
+      page.move(offset, offset + length, (numKeys - pos) * length);
+      page.write(offset, key, prefix, keySize - prefix);
+      page.writeRecordID(offset + keySize - prefix, value);
       BTreePage.setNumKeys(page, numKeys + 1);
+      return true;
    }
 
    /**
-    * Deletes the entry (i.e. a pair of a key and a record ID) from the given position in this page.
+    * Deletes the entry (i.e. a pair of a key and a record ID) from the given position in this page. If the
+    * first or last entry is deleted, the remaining keys may share a longer prefix, in which case the entries
+    * are rewritten.
     * @param page the page
     * @param pos position of the entry to delete
     * @param keySize size of the key
     */
    static void deleteEntry(final Page<BTreeLeaf> page, final int pos, final int keySize) {
       final int numKeys = BTreePage.getNumKeys(page);
-      final int offset = keyOffset(pos, keySize);
-      final byte[] data = page.getData();
-      System.arraycopy(data, offset + (keySize + RecordID.BYTES), data, offset,
-            (numKeys - pos - 1) * (keySize + RecordID.BYTES));
+      final int prefix = getPrefixLength(page);
+      if (numKeys > 1 && (pos == 0 || pos == numKeys - 1)) {
+         final List<byte[]> entries = readEntries(page, keySize);
+         entries.remove(pos);
+         if (commonPrefix(entries.get(0), entries.get(numKeys - 2), keySize) > prefix) {
+            writeEntries(page, entries, 0, numKeys - 1, keySize);
+            return;
+         }
+      }
+      final int length = keySize - prefix + RecordID.BYTES;
+      final int offset = entryOffset(pos, prefix, keySize);
+      page.move(offset + length, offset, (numKeys - pos - 1) * length);
       BTreePage.setNumKeys(page, numKeys - 1);
    }
 
+   /**
+    * Finds the position at which a list of sorted entries is split onto two leaf pages, so that both pages hold
+    * at least the given number of entries, the entries fit into both pages and the larger of the two uses as
+    * few bytes as possible.
+    * @param entries the entries, each consisting of an encoded key followed by a record ID
+    * @param minKeys minimum number of entries per page
+    * @param keySize size of the key
+    * @param capacity number of bytes available for the prefix and the entries of a page
+    * @return index of the first entry of the second page, {@code -1} if there is no such position
+    */
+   static int split(final List<byte[]> entries, final int minKeys, final int keySize, final int capacity) {
+      final int numEntries = entries.size();
+      int best = -1;
+      int bestBytes = Integer.MAX_VALUE;
+      for (int pos = Math.max(minKeys, 1); pos <= numEntries - Math.max(minKeys, 1); pos++) {
+         final int bytes = Math.max(bytesUsed(entries, 0, pos, keySize),
+               bytesUsed(entries, pos, numEntries, keySize));
+         if (bytes <= capacity && bytes < bestBytes) {
+            best = pos;
+            bestBytes = bytes;
+         }
+      }
+      return best;
+   }
+
    /**
     * Gets the previous-page ID stored in this page.
     * @param page the page
     * @return the next-page ID
     */
    static PageID getPrevPage(final Page<BTreeLeaf> page) {
-      return page.readPageID(BTreePage.META_POS - 2 * PageID.BYTES);
+      return page.readPageID(BTreePage.metaPos(page) - 2 * PageID.BYTES);
    }
 
    /**
@@ -169,7 +457,7 @@ final class BTreeLeaf extends BTreePage {
     * @param id new ID
     */
    static void setPrevPage(final Page<BTreeLeaf> page, final PageID id) {
-      page.writePageID(BTreePage.META_POS - 2 * PageID.BYTES, id);
+      page.writePageID(BTreePage.metaPos(page) - 2 * PageID.BYTES, id);
    }
 
    /**
@@ -178,7 +466,7 @@ final class BTreeLeaf extends BTreePage {
     * @return the previous-page ID
     */
    static PageID getNextPage(final Page<BTreeLeaf> page) {
-      return page.readPageID(BTreePage.META_POS - PageID.BYTES);
+      return page.readPageID(BTreePage.metaPos(page) - PageID.BYTES);
    }
 
    /**
@@ -187,54 +475,35 @@ final class BTreeLeaf extends BTreePage {
     * @param id new ID
     */
    static void setNextPage(final Page<BTreeLeaf> page, final PageID id) {
-      page.writePageID(BTreePage.META_POS - PageID.BYTES, id);
+      page.writePageID(BTreePage.metaPos(page) - PageID.BYTES, id);
    }
 
    /**
-    * Shifts {@code n} entries from position {@code from} to position {@code to} in the given page.
+    * Gets the length of the prefix shared by the keys of the given page.
     * @param page the page
-    * @param from original start of the entries
-    * @param to new start of the entries
-    * @param n number of entries to shift
-    * @param keySize size of the key
-    */
-   static void shiftEntries(final Page<BTreeLeaf> page, final int from, final int to, final int n, final int keySize) {
-      copyEntries(page, from, page, to, n, keySize);
-   }
-
-   /**
-    * Copies the entries {@code [srcPos .. srcPos+n-1]}  of page {@code src} to positions
-    * {@code [destPos .. destPos+n-1]} of page {@code dest}.
-    * @param src source page
-    * @param srcPos position in the source page
-    * @param dest destination page
-    * @param destPos position in the destination page
-    * @param n number of entries to copy
-    * @param keySize size of the key
+    * @return length of the prefix
     */
-   static void copyEntries(final Page<BTreeLeaf> src, final int srcPos,
-         final Page<BTreeLeaf> dest, final int destPos, final int n, final int keySize) {
-      System.arraycopy(src.getData(), keyOffset(srcPos, keySize), dest.getData(), keyOffset(destPos, keySize),
-            n * (keySize + RecordID.BYTES));
+   static int getPrefixLength(final Page<BTreeLeaf> page) {
+      return page.readInt(BTreePage.metaPos(page) - 2 * PageID.BYTES - Integer.BYTES);
    }
 
    /**
-    * Returns the offset of the key at the given position.
-    * @param pos key position
-    * @param keySize size of the key
-    * @return offset of the key
+    * Sets the length of the prefix shared by the keys of the given page.
+    * @param page the page
+    * @param prefix length of the prefix
     */
-   private static int keyOffset(final int pos, final int keySize) {
-      return pos * (keySize + RecordID.BYTES);
+   private static void setPrefixLength(final Page<BTreeLeaf> page, final int prefix) {
+      page.writeInt(BTreePage.metaPos(page) - 2 * PageID.BYTES - Integer.BYTES, prefix);
    }
 
    /**
-    * Returns the offset of the record ID at the given position.
-    * @param pos record ID position
+    * Returns the offset of the entry at the given position, i.e., of the suffix of its key.
+    * @param pos entry position
+    * @param prefix length of the prefix shared by the keys of the page
     * @param keySize size of the key
-    * @return offset of the record ID
+    * @return offset of the entry
     */
-   private static int recordIDOffset(final int pos, final int keySize) {
-      return pos * (keySize + RecordID.BYTES) + keySize;
+   private static int entryOffset(final int pos, final int prefix, final int keySize) {
+      return prefix + pos * (keySize - prefix + RecordID.BYTES);
    }
 }
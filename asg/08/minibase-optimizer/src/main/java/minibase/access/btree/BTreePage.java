@@ -10,9 +10,10 @@
  */
 package minibase.access.btree;
 
+import minibase.SearchKey;
+import minibase.SearchKeyType;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageType;
-import minibase.storage.file.DiskManager;
 
 /**
  * Utility methods for reading and writing a BTree page.
@@ -20,21 +21,30 @@ import minibase.storage.file.DiskManager;
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
  */
 abstract class BTreePage implements PageType {
-   /** The position of the meta data. */
-   static final int META_POS = DiskManager.PAGE_SIZE - 4;
+   /** The size of the meta data, which is stored at the end of the page. */
+   static final int META_SIZE = 4;
 
    /** Hidden default constructor. */
    BTreePage() {
       throw new AssertionError();
    }
 
+   /**
+    * Returns the position of the meta data in the given page.
+    * @param page the page
+    * @return offset of the meta data
+    */
+   static int metaPos(final Page<? extends BTreePage> page) {
+      return page.getSize() - META_SIZE;
+   }
+
    /**
     * Checks if this page is a leaf page.
     * @param page the page
     * @return {@code true} if this is a leaf page, {@code false} otherwise
     */
    static boolean isLeafPage(final Page<? extends BTreePage> page) {
-      return page.readInt(META_POS) < 0;
+      return page.readInt(metaPos(page)) < 0;
    }
 
    /**
@@ -44,7 +54,7 @@ abstract class BTreePage implements PageType {
     * @return number of keys
     */
    static int getNumKeys(final Page<? extends BTreePage> page) {
-      return page.readInt(META_POS) & 0x7FFFFFFF;
+      return page.readInt(metaPos(page)) & 0x7FFFFFFF;
    }
 
    /**
@@ -63,6 +73,33 @@ abstract class BTreePage implements PageType {
     * @param keys number of keys
     */
    static void setMeta(final Page<? extends BTreePage> page, final boolean leaf, final int keys) {
-      page.writeInt(META_POS, leaf ? 0x80000000 | keys : 0x7FFFFFFF & keys);
+      page.writeInt(metaPos(page), leaf ? 0x80000000 | keys : 0x7FFFFFFF & keys);
+   }
+
+   /**
+    * Encodes the given key as it is stored in BTree pages. Keys are stored in the order-preserving encoding of
+    * their type, so that they can be compared byte by byte without reading them.
+    * @param key the key
+    * @return the encoded key
+    */
+   static byte[] encodeKey(final SearchKey key) {
+      final byte[] data = new byte[key.getType().getKeyLength()];
+      key.writeRawData(data, 0);
+      key.getType().encodeSortable(data, 0);
+      return data;
+   }
+
+   /**
+    * Reads the key stored at the given offset of a BTree page.
+    * @param page the page
+    * @param offset offset of the key
+    * @param keyType type of the key
+    * @return the key
+    */
+   static SearchKey readKey(final Page<? extends BTreePage> page, final int offset, final SearchKeyType keyType) {
+      final byte[] data = new byte[keyType.getKeyLength()];
+      page.read(offset, data, 0, data.length);
+      keyType.decodeSortable(data, 0);
+      return keyType.readSearchKey(data, 0);
    }
 }
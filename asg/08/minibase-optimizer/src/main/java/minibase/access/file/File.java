@@ -14,6 +14,7 @@ import java.util.Optional;
 
 import minibase.RecordID;
 import minibase.query.evaluator.TupleIterator;
+import minibase.storage.buffer.BufferRing;
 
 /**
  * Common interface for all database file implementations.
@@ -79,6 +80,16 @@ public interface File extends AutoCloseable {
     */
    FileScan openScan();
 
+   /**
+    * Initiates a sequential scan of the file that loads the file's pages through the given buffer ring, so
+    * that it does not evict pages used by other operators.
+    *
+    * @param ring
+    *           buffer ring to load the scanned pages into
+    * @return file scan
+    */
+   FileScan openScan(BufferRing ring);
+
    /**
     * Bulk-load the file from the given {@link TupleIterator}.
     *
@@ -0,0 +1,184 @@
+/*
+ * @(#)FreeSpaceMap.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.file;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import minibase.storage.buffer.PageID;
+
+/**
+ * In-memory map of the free space on the data pages of a heap file. The data pages are kept in buckets of
+ * free-space classes of equal width, so that a page with enough room for a record is found by looking at the
+ * first page of at most a constant number of buckets. The map also keeps track of the directory pages that
+ * have room for further entries. It is not persisted, but rebuilt from the directory when the heap file needs
+ * it for the first time.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class FreeSpaceMap {
+
+   /** Number of free-space classes. */
+   private static final int NUM_CLASSES = 32;
+
+   /** Width of a free-space class, in bytes. */
+   private final int width;
+
+   /** Data pages by free-space class. */
+   private final List<Set<PageID>> classes;
+
+   /** Free space of each data page, in bytes. */
+   private final Map<PageID, Integer> free;
+
+   /** Directory pages with room for further entries. */
+   private final Set<PageID> directories;
+
+   /** Last directory page of the heap file. */
+   private PageID lastDirectory;
+
+   /** Data page returned by the last search, tried first by the next one. */
+   private PageID recent;
+
+   /**
+    * Creates an empty free-space map.
+    *
+    * @param capacity
+    *           free space of an empty data page, in bytes
+    */
+   FreeSpaceMap(final int capacity) {
+      this.width = capacity / NUM_CLASSES + 1;
+      this.classes = new ArrayList<>(NUM_CLASSES);
+      for (int i = 0; i < NUM_CLASSES; i++) {
+         this.classes.add(new LinkedHashSet<>());
+      }
+      this.free = new HashMap<>();
+      this.directories = new LinkedHashSet<>();
+   }
+
+   /**
+    * Sets the free space of a data page, adding the page to the map if necessary.
+    *
+    * @param pageID
+    *           ID of the data page
+    * @param freeSpace
+    *           free space on the page, in bytes
+    */
+   void update(final PageID pageID, final int freeSpace) {
+      final Integer old = this.free.put(pageID, freeSpace);
+      if (old == null || this.classOf(old) != this.classOf(freeSpace)) {
+         if (old != null) {
+            this.classes.get(this.classOf(old)).remove(pageID);
+         }
+         this.classes.get(this.classOf(freeSpace)).add(pageID);
+      }
+   }
+
+   /**
+    * Removes a deleted data page from the map.
+    *
+    * @param pageID
+    *           ID of the data page
+    */
+   void remove(final PageID pageID) {
+      final Integer old = this.free.remove(pageID);
+      if (old != null) {
+         this.classes.get(this.classOf(old)).remove(pageID);
+      }
+      if (pageID.equals(this.recent)) {
+         this.recent = null;
+      }
+   }
+
+   /**
+    * Searches for a data page with at least the given amount of free space. The page of the last search is
+    * preferred, so that appends fill up a page before moving on to the next one. Otherwise a page of the least
+    * free-space class all of whose pages are large enough is returned.
+    *
+    * @param needed
+    *           needed free space, in bytes
+    * @return ID of the data page, or {@code null} if no page has enough free space
+    */
+   PageID find(final int needed) {
+      if (this.recent != null && this.free.get(this.recent) >= needed) {
+         return this.recent;
+      }
+      for (int i = (needed + this.width - 1) / this.width; i < NUM_CLASSES; i++) {
+         final Iterator<PageID> pages = this.classes.get(i).iterator();
+         if (pages.hasNext()) {
+            this.recent = pages.next();
+            return this.recent;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Records whether a directory page has room for further entries.
+    *
+    * @param pageID
+    *           ID of the directory page
+    * @param room
+    *           {@code true} if the directory page has room for further entries
+    */
+   void setDirectory(final PageID pageID, final boolean room) {
+      if (room) {
+         this.directories.add(pageID);
+      } else {
+         this.directories.remove(pageID);
+      }
+   }
+
+   /**
+    * Returns a directory page with room for further entries.
+    *
+    * @return ID of the directory page, or {@code null} if all directory pages are full
+    */
+   PageID findDirectory() {
+      final Iterator<PageID> pages = this.directories.iterator();
+      return pages.hasNext() ? pages.next() : null;
+   }
+
+   /**
+    * Returns the last directory page of the heap file.
+    *
+    * @return ID of the last directory page
+    */
+   PageID getLastDirectory() {
+      return this.lastDirectory;
+   }
+
+   /**
+    * Sets the last directory page of the heap file.
+    *
+    * @param pageID
+    *           ID of the last directory page
+    */
+   void setLastDirectory(final PageID pageID) {
+      this.lastDirectory = pageID;
+   }
+
+   /**
+    * Returns the free-space class of the given amount of free space.
+    *
+    * @param freeSpace
+    *           free space, in bytes
+    * @return the free-space class
+    */
+   private int classOf(final int freeSpace) {
+      return Math.min(freeSpace / this.width, NUM_CLASSES - 1);
+   }
+}
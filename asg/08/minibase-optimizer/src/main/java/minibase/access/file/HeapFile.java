@@ -10,12 +10,21 @@
  */
 package minibase.access.file;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import minibase.RecordID;
+import minibase.query.evaluator.TupleBatch;
 import minibase.query.evaluator.TupleIterator;
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.BufferRing;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.UnpinMode;
@@ -40,11 +49,8 @@ public final class HeapFile implements File {
    /** Header page of the directory. */
    private PageID headID;
 
-   /**
-    * Pointer to the first directory page with free space and pointer to the slot inside this directory page,
-    * which points to the data page with space.
-    */
-   private RecordID lastInsert;
+   /** Free space on the data and directory pages, {@code null} until it is needed by an insertion. */
+   private FreeSpaceMap freeSpace;
 
    /** Reference to the buffer manager. */
    private final BufferManager bufferManager;
@@ -63,7 +69,6 @@ public final class HeapFile implements File {
       this.bufferManager = Objects.requireNonNull(bufferManager);
       this.name = name;
       this.headID = Objects.requireNonNull(headID);
-      this.lastInsert = new RecordID(this.headID, 0);
    }
 
    /**
@@ -183,18 +188,16 @@ public final class HeapFile implements File {
          this.bufferManager.getDiskManager().deleteFileEntry(this.name);
       }
       this.headID = PageID.INVALID;
+      this.freeSpace = null;
    }
 
    @Override
    public int bulkLoad(final TupleIterator iterator, final int recordLength) {
       int totalCount = 0;
 
-      // searches for free space
-      PageID pageID = null;
       while (iterator.hasNext()) {
-
-         pageID = this.getAvailablePage(recordLength);
-         // pin data page and calculate how many records fit on it
+         // pin a data page with free space and calculate how many records fit on it
+         final PageID pageID = this.getAvailablePage(recordLength);
          final Page<HeapFilePage> page = this.bufferManager.pinPage(pageID);
          final int recSpace = HeapFilePage.getFreeSpace(page) / (recordLength + HeapFilePage.SLOT_SIZE);
 
@@ -210,42 +213,10 @@ public final class HeapFile implements File {
             }
          }
 
-         // write out the data pages if something was added
-         if (recCount > 0) {
-            // get the new fill status
-            final short freecnt = HeapFilePage.getFreeSpace(page);
-
-            // pin the directory page
-            final Page<HeapFileDirectoryPage> dirPage = this.bufferManager
-                  .pinPage(this.lastInsert.getPageID());
-            // add data page to directory
-            if (!HeapFileDirectoryPage.getPageID(dirPage, this.lastInsert).isValid()) {
-               HeapFilePage.setDirectoryRecordID(page, this.lastInsert);
-               HeapFileDirectoryPage.setPageID(dirPage, this.lastInsert, page.getPageID());
-               HeapFileDirectoryPage.setEntryCount(dirPage,
-                     (short) (1 + HeapFileDirectoryPage.getEntryCount(dirPage)));
-            }
-            this.bufferManager.unpinPage(page, UnpinMode.DIRTY);
-
-            // update directory page with new status
-            HeapFileDirectoryPage.setRecordCount(dirPage, this.lastInsert,
-                  (short) (recCount + HeapFileDirectoryPage.getRecordCount(dirPage, this.lastInsert)));
-            HeapFileDirectoryPage.setFreeCount(dirPage, this.lastInsert, (short) freecnt);
-
-            this.bufferManager.unpinPage(dirPage, UnpinMode.DIRTY);
-         } else {
-            final short freecnt = HeapFilePage.getFreeSpace(page);
-            this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
-
-            // if data page is empty delete it
-            if (HeapFilePage.DATA_CONTENT_SIZE == freecnt) {
-               // pin the directory page
-               final Page<HeapFileDirectoryPage> dirPage = this.bufferManager
-                     .pinPage(this.lastInsert.getPageID());
-               // delete the empty data page
-               this.deletePage(pageID, dirPage, this.lastInsert);
-            }
-         }
+         // update the directory entry, which deletes the data page if it is still empty
+         final short freecnt = HeapFilePage.getFreeSpace(page);
+         this.bufferManager.unpinPage(page, recCount > 0 ? UnpinMode.DIRTY : UnpinMode.CLEAN);
+         this.updateEntry(pageID, recCount, freecnt);
       }
 
       return totalCount;
@@ -257,7 +228,7 @@ public final class HeapFile implements File {
    @Override
    public RecordID insertRecord(final byte[] record) {
       // make sure the record isn't too long
-      if (record.length > HeapFilePage.DATA_CONTENT_SIZE) {
+      if (record.length > HeapFilePage.dataContentSize(this.bufferManager.getDiskManager().getPageSize())) {
          throw new IllegalArgumentException("Record too large");
       }
 
@@ -292,6 +263,125 @@ public final class HeapFile implements File {
       }
    }
 
+   /**
+    * Appends the records with the given slot numbers on a data page of this file to a batch, pinning the page
+    * only once.
+    *
+    * @param pageID
+    *           ID of the data page
+    * @param slots
+    *           slot numbers of the records
+    * @param from
+    *           index of the first slot number
+    * @param to
+    *           index after the last slot number
+    * @param batch
+    *           batch the records are appended to, which must have room for them
+    * @throws IllegalArgumentException
+    *            if a slot number is invalid
+    */
+   public void selectRecords(final PageID pageID, final int[] slots, final int from, final int to,
+         final TupleBatch batch) {
+      final Page<HeapFilePage> page = this.bufferManager.pinPage(pageID);
+      try {
+         for (int i = from; i < to; i++) {
+            HeapFilePage.selectRecord(page, new RecordID(pageID, slots[i]), batch);
+         }
+      } finally {
+         this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+   }
+
+   /**
+    * Returns the IDs of all data pages of this file in the order of the directory, so that the pages can be
+    * distributed over several threads that read them with {@link #selectPage(PageID, TupleBatch, Consumer)}.
+    *
+    * @return IDs of the data pages
+    */
+   public List<PageID> getDataPages() {
+      final List<PageID> pages = new ArrayList<>();
+      this.readDirectory(pages);
+      return pages;
+   }
+
+   /**
+    * Collects the IDs of all data pages of this file in the order of the directory.
+    *
+    * @param pages
+    *           list the page IDs are appended to
+    * @return number of records on the collected pages and all pages before them, starting with {@code 0}
+    */
+   private long[] readDirectory(final List<PageID> pages) {
+      long[] records = new long[64];
+      PageID dirID = this.headID;
+      while (dirID.isValid()) {
+         final Page<HeapFileDirectoryPage> dirPage = this.bufferManager.pinPage(dirID);
+         final int count = HeapFileDirectoryPage.getEntryCount(dirPage);
+         for (int i = 0; i < count; i++) {
+            if (pages.size() + 1 == records.length) {
+               records = Arrays.copyOf(records, 2 * records.length);
+            }
+            final RecordID entry = new RecordID(dirID, i);
+            records[pages.size() + 1] = records[pages.size()] + HeapFileDirectoryPage.getRecordCount(dirPage, entry);
+            pages.add(HeapFileDirectoryPage.getPageID(dirPage, i));
+         }
+         dirID = HeapFilePage.getNextPage(dirPage);
+         this.bufferManager.unpinPage(dirPage, UnpinMode.CLEAN);
+      }
+      return records;
+   }
+
+   /**
+    * Returns a spliterator over the records of this file. It splits by ranges of data pages, so parallel
+    * streams can scan disjoint parts of the file in separate threads. Each data page is pinned only while its
+    * records are read. The file must not be modified while the spliterator is in use.
+    *
+    * @return the spliterator
+    */
+   public Spliterator<byte[]> spliterator() {
+      final List<PageID> pages = new ArrayList<>();
+      final long[] records = this.readDirectory(pages);
+      return new PageRangeSpliterator(pages, records, 0, pages.size());
+   }
+
+   /**
+    * Returns a stream of the records of this file, see {@link #spliterator()}.
+    *
+    * @param parallel
+    *           whether the stream is parallel
+    * @return the stream
+    */
+   public Stream<byte[]> stream(final boolean parallel) {
+      return StreamSupport.stream(this.spliterator(), parallel);
+   }
+
+   /**
+    * Appends all records on a data page of this file to a batch, pinning the page only once. Whenever the batch
+    * is full, it is handed to the given consumer and cleared afterwards, so the consumer must not keep it.
+    *
+    * @param pageID
+    *           ID of the data page
+    * @param batch
+    *           batch the records are appended to
+    * @param full
+    *           consumer of full batches
+    */
+   public void selectPage(final PageID pageID, final TupleBatch batch, final Consumer<TupleBatch> full) {
+      final Page<HeapFilePage> page = this.bufferManager.pinPage(pageID);
+      try {
+         for (RecordID rid = HeapFilePage.firstRecord(page); rid != null; rid = HeapFilePage.nextRecord(page,
+               rid)) {
+            if (batch.isFull()) {
+               full.accept(batch);
+               batch.clear();
+            }
+            HeapFilePage.selectRecord(page, rid, batch);
+         }
+      } finally {
+         this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -369,7 +459,12 @@ public final class HeapFile implements File {
 
    @Override
    public FileScan openScan() {
-      return new HeapFileScan();
+      return new HeapFileScan(null);
+   }
+
+   @Override
+   public FileScan openScan(final BufferRing ring) {
+      return new HeapFileScan(Objects.requireNonNull(ring));
    }
 
    /**
@@ -383,80 +478,49 @@ public final class HeapFile implements File {
    }
 
    /**
-    * Searches the directory for a data page with enough free space to store a record of the given size. If no
-    * suitable page is found, this creates a new data page.
+    * Looks up a data page with enough free space to store a record of the given size in the free-space map. If
+    * no suitable page is found, this creates a new data page.
     *
     * @param reclen
     *           length of the record to insert
     * @return page ID of the page to insert into
     */
    PageID getAvailablePage(final int reclen) {
-      this.lastInsert = this.findDirPageWithSpace(reclen, this.lastInsert);
-
-      // search the directory for a data page with enough space
-      final PageID dirID = this.lastInsert.getPageID();
-      // pin the page, get the entry pageID
-      final Page<HeapFileDirectoryPage> dirPage = this.bufferManager.pinPage(dirID);
-      final PageID freeID = HeapFileDirectoryPage.getPageID(dirPage, this.lastInsert);
-      this.bufferManager.unpinPage(dirPage, UnpinMode.CLEAN);
-      // in case data page was not initialized yet
-      if (!freeID.isValid()) {
-         // create a new data page
-         return this.insertPage();
-      }
-      return freeID;
+      final PageID pageID = this.getFreeSpaceMap().find(reclen + HeapFilePage.SLOT_SIZE);
+      return pageID != null ? pageID : this.insertPage();
    }
 
    /**
-    * Finds a directory page, which contains a reference to a page with enough space for the record.
-    * 
-    * @param reclen
-    *           the record length
-    * @param startID
-    *           the page to start the search
-    * @return [dirPageID, entryIndex]
+    * Returns the free-space map of this file, building it from the directory if it does not exist yet.
+    *
+    * @return the free-space map
     */
-   private RecordID findDirPageWithSpace(final int reclen, final RecordID startID) {
-      // search the directory for a data page with enough space
-      PageID dirID = startID.getPageID();
-      int slotStart = startID.getSlotNo();
-      while (dirID.isValid()) {
-         // pin the page, get the entry count
-         final Page<HeapFileDirectoryPage> dirPage = this.bufferManager.pinPage(dirID);
-
-         // check each page's free space
-         for (int i = slotStart; i < HeapFileDirectoryPage.MAX_ENTRIES; i++) {
-            final RecordID rid = new RecordID(dirID, i);
-            // search not full or uninitialized data page
-            if (!HeapFileDirectoryPage.getPageID(dirPage, rid).isValid()
-                  || HeapFileDirectoryPage.getFreeCount(dirPage, rid) >= reclen + HeapFilePage.SLOT_SIZE) {
-               this.bufferManager.unpinPage(dirPage, UnpinMode.CLEAN);
-               return rid;
+   private FreeSpaceMap getFreeSpaceMap() {
+      if (this.freeSpace == null) {
+         final FreeSpaceMap map = new FreeSpaceMap(
+               HeapFilePage.dataContentSize(this.bufferManager.getDiskManager().getPageSize()));
+         // for each directory page
+         PageID dirID = this.headID;
+         while (dirID.isValid()) {
+            // enter the free space of the data pages and the room on the directory page
+            final Page<HeapFileDirectoryPage> dirPage = this.bufferManager.pinPage(dirID);
+            final int count = HeapFileDirectoryPage.getEntryCount(dirPage);
+            for (int i = 0; i < count; i++) {
+               final RecordID rid = new RecordID(dirID, i);
+               map.update(HeapFileDirectoryPage.getPageID(dirPage, rid),
+                     HeapFileDirectoryPage.getFreeCount(dirPage, rid));
             }
-         }
+            map.setDirectory(dirID, count < HeapFileDirectoryPage.maxEntries(dirPage.getSize()));
+            map.setLastDirectory(dirID);
 
-         // get the next dir page and unpin the current
-         final PageID nextID = HeapFilePage.getNextPage(dirPage);
-         // no suitable data page was found, create a new one
-         if (!nextID.isValid()) {
-            // create the new directory page
-            final Page<HeapFileDirectoryPage> newDirPage = HeapFileDirectoryPage.newPage(this.bufferManager);
-            final PageID newDirID = newDirPage.getPageID();
-
-            // link it into the page list
-            HeapFilePage.setNextPage(dirPage, newDirID);
-            HeapFilePage.setPrevPage(newDirPage, dirID);
-            this.bufferManager.unpinPage(dirPage, UnpinMode.DIRTY);
-            this.bufferManager.unpinPage(newDirPage, UnpinMode.DIRTY);
-
-            return new RecordID(newDirID, 0);
+            // get the next dir page and unpin the current
+            final PageID nextID = HeapFilePage.getNextPage(dirPage);
+            this.bufferManager.unpinPage(dirPage, UnpinMode.CLEAN);
+            dirID = nextID;
          }
-         this.bufferManager.unpinPage(dirPage, UnpinMode.CLEAN);
-         dirID = nextID;
-         slotStart = 0;
+         this.freeSpace = map;
       }
-      // never reached
-      throw new IllegalStateException();
+      return this.freeSpace;
    }
 
    /**
@@ -489,6 +553,9 @@ public final class HeapFile implements File {
          HeapFileDirectoryPage.setRecordCount(dirPage, rid, (short) reccnt);
          HeapFileDirectoryPage.setFreeCount(dirPage, rid, (short) freecnt);
          this.bufferManager.unpinPage(dirPage, UnpinMode.DIRTY);
+         if (this.freeSpace != null) {
+            this.freeSpace.update(pageID, freecnt);
+         }
       }
    }
 
@@ -499,65 +566,44 @@ public final class HeapFile implements File {
     * @return id of the new data page
     */
    PageID insertPage() {
+      final FreeSpaceMap map = this.getFreeSpaceMap();
 
-      // search the directory for a non-full page
-      int count;
-      // start search at last insert
-      PageID dirID = this.lastInsert.getPageID();
-      int index = this.lastInsert.getSlotNo();
-      Page<HeapFileDirectoryPage> dirPage;
-      do {
-         // pin the page, see if it's full
+      // get a directory page with room for the entry
+      PageID dirID = map.findDirectory();
+      final Page<HeapFileDirectoryPage> dirPage;
+      if (dirID != null) {
          dirPage = this.bufferManager.pinPage(dirID);
-         count = HeapFileDirectoryPage.getEntryCount(dirPage);
-         if (count < HeapFileDirectoryPage.MAX_ENTRIES) {
-            // search for a free data page
-            for (int i = index; i < count; i++) {
-               this.lastInsert = new RecordID(dirID, i);
-               if (!HeapFileDirectoryPage.getPageID(dirPage, this.lastInsert).isValid()) {
-                  break;
-               }
-            }
-            break;
-         }
-
-         // if no suitable directory page was found, create a new one
-         final PageID nextID = HeapFilePage.getNextPage(dirPage);
-         if (!nextID.isValid()) {
-            // create the new directory page
-            final Page<HeapFileDirectoryPage> newDirPage = HeapFileDirectoryPage.newPage(this.bufferManager);
-            final PageID newDirID = newDirPage.getPageID();
-
-            // link it into the page list
-            HeapFilePage.setNextPage(dirPage, newDirID);
-            HeapFilePage.setPrevPage(newDirPage, dirID);
-            this.bufferManager.unpinPage(dirPage, UnpinMode.DIRTY);
-
-            // use the new directory page
-            dirID = newDirID;
-            dirPage = newDirPage;
-            this.lastInsert = new RecordID(dirID, 0);
-            break;
-         }
-
-         // unpin the current and go to the next
-         this.bufferManager.unpinPage(dirPage, UnpinMode.CLEAN);
-         dirID = nextID;
-         index = 0;
-      } while (true);
+      } else {
+         // all directory pages are full, create a new one
+         final PageID lastID = map.getLastDirectory();
+         final Page<HeapFileDirectoryPage> lastPage = this.bufferManager.pinPage(lastID);
+         dirPage = HeapFileDirectoryPage.newPage(this.bufferManager);
+         dirID = dirPage.getPageID();
+
+         // link it into the page list
+         HeapFilePage.setNextPage(lastPage, dirID);
+         HeapFilePage.setPrevPage(dirPage, lastID);
+         this.bufferManager.unpinPage(lastPage, UnpinMode.DIRTY);
+         map.setLastDirectory(dirID);
+      }
 
       // create the new data page
       final Page<HeapFilePage> dataPage = HeapFilePage.newPage(this.bufferManager, HeapFile.DATA_PAGE);
       final PageID dataID = dataPage.getPageID();
 
       // link to directory page
-      HeapFilePage.setDirectoryRecordID(dataPage, this.lastInsert);
-
-      // create the new directory entry
-      HeapFileDirectoryPage.setPageID(dirPage, this.lastInsert, dataID);
-      HeapFileDirectoryPage.setRecordCount(dirPage, this.lastInsert, (short) 0);
-      HeapFileDirectoryPage.setFreeCount(dirPage, this.lastInsert, HeapFilePage.getFreeSpace(dataPage));
-      HeapFileDirectoryPage.setEntryCount(dirPage, (short) ++count);
+      final short count = HeapFileDirectoryPage.getEntryCount(dirPage);
+      final RecordID rid = new RecordID(dirID, count);
+      HeapFilePage.setDirectoryRecordID(dataPage, rid);
+
+      // create the new directory entry after the existing ones
+      final short freecnt = HeapFilePage.getFreeSpace(dataPage);
+      HeapFileDirectoryPage.setPageID(dirPage, rid, dataID);
+      HeapFileDirectoryPage.setRecordCount(dirPage, rid, (short) 0);
+      HeapFileDirectoryPage.setFreeCount(dirPage, rid, freecnt);
+      HeapFileDirectoryPage.setEntryCount(dirPage, (short) (count + 1));
+      map.setDirectory(dirID, count + 1 < HeapFileDirectoryPage.maxEntries(dirPage.getSize()));
+      map.update(dataID, freecnt);
 
       // unpin the pages and return the new data page's id
       this.bufferManager.unpinPage(dataPage, UnpinMode.DIRTY);
@@ -566,8 +612,9 @@ public final class HeapFile implements File {
    }
 
    /**
-    * Deletes the given data page and its directory entry from the heap file. If appropriate, this also deletes
-    * the directory page.
+    * Deletes the given data page and its directory entry from the heap file. The last entry of the directory
+    * page takes the place of the deleted one, so that the entries stay contiguous. If appropriate, this also
+    * deletes the directory page.
     *
     * @param pageID
     *           page to delete
@@ -578,14 +625,30 @@ public final class HeapFile implements File {
     */
    private void deletePage(final PageID pageID, final Page<HeapFileDirectoryPage> dirPage, final RecordID rid) {
 
-      // delete the data page and directory entry
+      // delete the data page
       this.bufferManager.freePage(this.bufferManager.pinPage(pageID));
+      if (this.freeSpace != null) {
+         this.freeSpace.remove(pageID);
+      }
+
+      // move the last directory entry into the gap
+      short count = HeapFileDirectoryPage.getEntryCount(dirPage);
+      final PageID dirID = dirPage.getPageID();
+      final RecordID lastRID = new RecordID(dirID, count - 1);
+      if (!lastRID.equals(rid)) {
+         final PageID movedID = HeapFileDirectoryPage.getPageID(dirPage, lastRID);
+         HeapFileDirectoryPage.setPageID(dirPage, rid, movedID);
+         HeapFileDirectoryPage.setRecordCount(dirPage, rid, HeapFileDirectoryPage.getRecordCount(dirPage, lastRID));
+         HeapFileDirectoryPage.setFreeCount(dirPage, rid, HeapFileDirectoryPage.getFreeCount(dirPage, lastRID));
+         final Page<HeapFilePage> moved = this.bufferManager.pinPage(movedID);
+         HeapFilePage.setDirectoryRecordID(moved, rid);
+         this.bufferManager.unpinPage(moved, UnpinMode.DIRTY);
+      }
       // set reference to null
-      HeapFileDirectoryPage.deleteReference(dirPage, rid);
+      HeapFileDirectoryPage.deleteReference(dirPage, lastRID);
 
       // delete empty, non-head directory pages
-      short count = HeapFileDirectoryPage.getEntryCount(dirPage);
-      if (count == 1 && !dirPage.getPageID().equals(this.headID)) {
+      if (count == 1 && !dirID.equals(this.headID)) {
          // remove the page from the list
          final PageID prevID = HeapFilePage.getPrevPage(dirPage);
          final PageID nextID = HeapFilePage.getNextPage(dirPage);
@@ -599,18 +662,23 @@ public final class HeapFile implements File {
             final Page<HeapFilePage> next = this.bufferManager.pinPage(nextID);
             HeapFilePage.setPrevPage(next, prevID);
             this.bufferManager.unpinPage(next, UnpinMode.DIRTY);
+         } else if (this.freeSpace != null) {
+            this.freeSpace.setLastDirectory(prevID);
          }
 
          // free the empty directory page
          this.bufferManager.freePage(dirPage);
+         if (this.freeSpace != null) {
+            this.freeSpace.setDirectory(dirID, false);
+         }
       } else {
          // otherwise, update the count and unpin the page
          HeapFileDirectoryPage.setEntryCount(dirPage, --count);
          this.bufferManager.unpinPage(dirPage, UnpinMode.DIRTY);
+         if (this.freeSpace != null) {
+            this.freeSpace.setDirectory(dirID, true);
+         }
       }
-
-      // invalidate last insert pointer
-      this.lastInsert = new RecordID(this.headID, 0);
    }
 
    @Override
@@ -642,10 +710,17 @@ public final class HeapFile implements File {
       /** RID of the last returned record on the data page. */
       private RecordID lastRID;
 
+      /** Buffer ring the data pages are loaded into, {@code null} if the replacement policy is used. */
+      private final BufferRing ring;
+
       /**
        * Constructs a file scan by pinning the directory header page and initializing iterator fields.
+       *
+       * @param ring
+       *           buffer ring for the data pages, may be {@code null}
        */
-      private HeapFileScan() {
+      private HeapFileScan(final BufferRing ring) {
+         this.ring = ring;
          this.reset();
       }
 
@@ -671,15 +746,43 @@ public final class HeapFile implements File {
 
       @Override
       public byte[] next() {
+         final RecordID nextID = this.advance();
+         return HeapFilePage.selectRecord(this.dataPage, nextID);
+      }
+
+      @Override
+      public int nextBatch(final TupleBatch batch) {
+         batch.clear();
+         while (!batch.isFull()) {
+            // copy the records of the current data page without going through hasNext()
+            final RecordID nextID = this.lastRID == null ? null
+                  : HeapFilePage.nextRecord(this.dataPage, this.lastRID);
+            if (nextID != null) {
+               this.lastRID = nextID;
+            } else if (this.hasNext()) {
+               this.advance();
+            } else {
+               break;
+            }
+            HeapFilePage.selectRecord(this.dataPage, this.lastRID, batch);
+         }
+         return batch.size();
+      }
+
+      /**
+       * Moves the scan to the next record, pinning its data page if necessary.
+       *
+       * @return ID of the next record, which is on the currently pinned data page
+       */
+      private RecordID advance() {
          final BufferManager bufferManager = HeapFile.this.getBufferManager();
          // base case: iterate within the data page
          if (this.lastRID != null) {
             // get the next record id
             final RecordID nextID = HeapFilePage.nextRecord(this.dataPage, this.lastRID);
             if (nextID != null) {
-               // return both the RID and the record
                this.lastRID = nextID;
-               return HeapFilePage.selectRecord(this.dataPage, nextID);
+               return nextID;
             }
             // all done with the current data page
             bufferManager.unpinPage(this.dataPage, UnpinMode.CLEAN);
@@ -692,12 +795,12 @@ public final class HeapFile implements File {
             if (++this.index < this.count) {
                // pin the next data page
                final PageID dataID = HeapFileDirectoryPage.getPageID(this.dirPage, this.index);
-               this.dataPage = bufferManager.pinPage(dataID);
+               this.dataPage = bufferManager.pinPage(dataID, this.ring);
                // reset the counter and get the first record
                final RecordID nextID = HeapFilePage.firstRecord(this.dataPage);
                if (nextID != null) {
                   this.lastRID = nextID;
-                  return HeapFilePage.selectRecord(this.dataPage, nextID);
+                  return nextID;
                }
             }
 
@@ -772,4 +875,126 @@ public final class HeapFile implements File {
          this.lastRID = null;
       }
    }
+
+   /**
+    * Spliterator over the records on a range of data pages.
+    */
+   private final class PageRangeSpliterator implements Spliterator<byte[]> {
+
+      /** IDs of the data pages of the file. */
+      private final List<PageID> pages;
+
+      /** Number of records on the pages before each page, and on all pages at the end. */
+      private final long[] records;
+
+      /** Index of the next data page to read. */
+      private int next;
+
+      /** Index after the last data page of the range. */
+      private final int end;
+
+      /** Records of the current data page, {@code null} if there is none. */
+      private byte[][] current;
+
+      /** Index of the next record of the current data page. */
+      private int pos;
+
+      /**
+       * Constructor.
+       *
+       * @param pages
+       *           IDs of the data pages of the file
+       * @param records
+       *           number of records on the pages before each page
+       * @param next
+       *           index of the first data page of the range
+       * @param end
+       *           index after the last data page of the range
+       */
+      private PageRangeSpliterator(final List<PageID> pages, final long[] records, final int next,
+            final int end) {
+         this.pages = pages;
+         this.records = records;
+         this.next = next;
+         this.end = end;
+      }
+
+      @Override
+      public boolean tryAdvance(final Consumer<? super byte[]> action) {
+         while (this.current == null || this.pos == this.current.length) {
+            if (this.next == this.end) {
+               this.current = null;
+               return false;
+            }
+            final List<byte[]> page = new ArrayList<>();
+            this.readPage(this.pages.get(this.next++), page::add);
+            this.current = page.toArray(new byte[page.size()][]);
+            this.pos = 0;
+         }
+         action.accept(this.current[this.pos++]);
+         return true;
+      }
+
+      @Override
+      public void forEachRemaining(final Consumer<? super byte[]> action) {
+         while (this.current != null && this.pos < this.current.length) {
+            action.accept(this.current[this.pos++]);
+         }
+         this.current = null;
+         // the records are copied out first, so that the action never runs while a page is pinned
+         final List<byte[]> page = new ArrayList<>();
+         while (this.next < this.end) {
+            this.readPage(this.pages.get(this.next++), page::add);
+            page.forEach(action);
+            page.clear();
+         }
+      }
+
+      /**
+       * Hands all records of a data page to the given action while the page is pinned. The action must not
+       * block or pin other pages.
+       *
+       * @param pageID
+       *           ID of the data page
+       * @param action
+       *           the action
+       */
+      private void readPage(final PageID pageID, final Consumer<? super byte[]> action) {
+         final Page<HeapFilePage> page = HeapFile.this.bufferManager.pinPage(pageID);
+         try {
+            for (RecordID rid = HeapFilePage.firstRecord(page); rid != null; rid = HeapFilePage.nextRecord(page,
+                  rid)) {
+               action.accept(HeapFilePage.selectRecord(page, rid));
+            }
+         } finally {
+            HeapFile.this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+         }
+      }
+
+      @Override
+      public Spliterator<byte[]> trySplit() {
+         if (this.end - this.next < 2) {
+            return null;
+         }
+         // the prefix also takes the rest of the current page, which precedes the remaining pages
+         final int mid = this.next + (this.end - this.next) / 2;
+         final PageRangeSpliterator prefix = new PageRangeSpliterator(this.pages, this.records, this.next, mid);
+         prefix.current = this.current;
+         prefix.pos = this.pos;
+         this.current = null;
+         this.next = mid;
+         return prefix;
+      }
+
+      @Override
+      public long estimateSize() {
+         final long buffered = this.current == null ? 0 : this.current.length - this.pos;
+         return buffered + this.records[this.end] - this.records[this.next];
+      }
+
+      @Override
+      public int characteristics() {
+         return ORDERED | SIZED | SUBSIZED | NONNULL;
+      }
+   }
 }
@@ -14,7 +14,6 @@ import minibase.RecordID;
 import minibase.storage.buffer.BufferManager;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
-import minibase.storage.file.DiskManager;
 
 /**
  * A heap file directory page; contains DirEntry records.
@@ -40,21 +39,25 @@ final class HeapFileDirectoryPage extends HeapFilePage {
    /** The size of the footer data (in bytes). */
    private static final int FOOTER_SIZE = 2;
 
-   /** Page offset for the total number of entries. */
-   private static final int ENTRY_COUNT = DiskManager.PAGE_SIZE - 2;
-
-   /** Maximum number of entries in a directory page. */
-   static final int MAX_ENTRIES = (DiskManager.PAGE_SIZE - HeapFilePage.HEADER_SIZE - FOOTER_SIZE)
-         / ENTRY_SIZE;
-
-   /** The amount of bytes reserved for content. */
-   static final int DIR_CONTENT_SIZE = DiskManager.PAGE_SIZE - HEADER_SIZE - FOOTER_SIZE;
+   /** Page offset for the total number of entries, counted from the end of the page. */
+   private static final int ENTRY_COUNT = 2;
 
    /** Hidden default constructor. */
    private HeapFileDirectoryPage() {
       throw new AssertionError();
    }
 
+   /**
+    * Returns the maximum number of entries in a directory page of the given size.
+    *
+    * @param pageSize
+    *           page size, in bytes
+    * @return maximum number of entries
+    */
+   static int maxEntries(final int pageSize) {
+      return (pageSize - HeapFilePage.HEADER_SIZE - FOOTER_SIZE) / ENTRY_SIZE;
+   }
+
    /**
     * Allocates and initializes a new page as a heap file directory page.
     *
@@ -69,7 +72,8 @@ final class HeapFileDirectoryPage extends HeapFilePage {
       setEntryCount(dirPage, (short) 0);
 
       // initialize all page pointers
-      for (int i = 0; i < MAX_ENTRIES; i++) {
+      final int maxEntries = maxEntries(dirPage.getSize());
+      for (int i = 0; i < maxEntries; i++) {
          setPageID(dirPage, i, PageID.INVALID);
       }
       return dirPage;
@@ -83,7 +87,7 @@ final class HeapFileDirectoryPage extends HeapFilePage {
     * @return the entry count
     */
    static short getEntryCount(final Page<HeapFileDirectoryPage> page) {
-      return page.readShort(HeapFileDirectoryPage.ENTRY_COUNT);
+      return page.readShort(page.getSize() - HeapFileDirectoryPage.ENTRY_COUNT);
    }
 
    /**
@@ -95,7 +99,7 @@ final class HeapFileDirectoryPage extends HeapFilePage {
     *           the new entry count
     */
    static void setEntryCount(final Page<HeapFileDirectoryPage> page, final short entryCnt) {
-      page.writeShort(HeapFileDirectoryPage.ENTRY_COUNT, entryCnt);
+      page.writeShort(page.getSize() - HeapFileDirectoryPage.ENTRY_COUNT, entryCnt);
    }
 
    /**
@@ -293,8 +297,8 @@ final class HeapFileDirectoryPage extends HeapFilePage {
    private static void compact(final Page<HeapFileDirectoryPage> page, final int slotNo) {
       // shift all bytes to the left
       final int entryPos = getSlotPos(slotNo);
-      final int succLen = DiskManager.PAGE_SIZE - FOOTER_SIZE - entryPos - ENTRY_SIZE;
-      System.arraycopy(page.getData(), entryPos + ENTRY_SIZE, page.getData(), entryPos, succLen);
+      final int succLen = page.getSize() - FOOTER_SIZE - entryPos - ENTRY_SIZE;
+      page.move(entryPos + ENTRY_SIZE, entryPos, succLen);
    }
 
    /**
@@ -349,7 +353,8 @@ final class HeapFileDirectoryPage extends HeapFilePage {
     */
    private static boolean checkRID(final Page< ? extends HeapFileDirectoryPage> page, final RecordID rid) {
       // validate the record id
-      if (!rid.getPageID().equals(page.getPageID()) || rid.getSlotNo() < 0 || rid.getSlotNo() > MAX_ENTRIES) {
+      if (!rid.getPageID().equals(page.getPageID()) || rid.getSlotNo() < 0
+            || rid.getSlotNo() > maxEntries(page.getSize())) {
          return false;
       }
       return true;
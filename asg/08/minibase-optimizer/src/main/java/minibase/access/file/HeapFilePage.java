@@ -11,11 +11,11 @@
 package minibase.access.file;
 
 import minibase.RecordID;
+import minibase.query.evaluator.TupleBatch;
 import minibase.storage.buffer.BufferManager;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.PageType;
-import minibase.storage.file.DiskManager;
 
 /**
  * Heap file data pages are implemented as slotted pages, with the slots at the front and the records in the
@@ -59,20 +59,28 @@ abstract class HeapFilePage implements PageType {
    /** The size of the footer data (in bytes). */
    private static final int FOOTER_SIZE = 4 + 2;
 
-   /** The amount of bytes reserved for content. */
-   static final int DATA_CONTENT_SIZE = DiskManager.PAGE_SIZE - HEADER_SIZE - FOOTER_SIZE;
+   /** Offset of directory page id, counted from the end of the page. */
+   private static final int DIR_PAGE_ID = HeapFilePage.FOOTER_SIZE;
 
-   /** Offset of directory page id. */
-   private static final int DIR_PAGE_ID = DiskManager.PAGE_SIZE - HeapFilePage.FOOTER_SIZE;
-
-   /** Offset of directory slot number for this page. */
-   private static final int DIR_SLOT_NO = DiskManager.PAGE_SIZE - 2;
+   /** Offset of directory slot number for this page, counted from the end of the page. */
+   private static final int DIR_SLOT_NO = 2;
 
    /** Hidden default constructor. */
    HeapFilePage() {
       throw new AssertionError();
    }
 
+   /**
+    * Returns the amount of bytes reserved for content in a data page of the given size.
+    *
+    * @param pageSize
+    *           page size, in bytes
+    * @return the content size, in bytes
+    */
+   static int dataContentSize(final int pageSize) {
+      return pageSize - HEADER_SIZE - FOOTER_SIZE;
+   }
+
    /**
     * Initializes a newly allocated page as a heap file page.
     * 
@@ -101,10 +109,10 @@ abstract class HeapFilePage implements PageType {
       page.writeShort(HeapFilePage.SLOT_CNT, (short) 0);
 
       // used offset grows backwards
-      page.writeShort(HeapFilePage.USED_PTR, (short) (DiskManager.PAGE_SIZE - HeapFilePage.FOOTER_SIZE));
+      page.writeShort(HeapFilePage.USED_PTR, (short) (page.getSize() - HeapFilePage.FOOTER_SIZE));
 
       // free space doesn't count headers and footer
-      page.writeShort(HeapFilePage.FREE_SPACE, (short) (DiskManager.PAGE_SIZE - HeapFilePage.HEADER_SIZE
+      page.writeShort(HeapFilePage.FREE_SPACE, (short) (page.getSize() - HeapFilePage.HEADER_SIZE
             - (pageType == HeapFile.DATA_PAGE ? HeapFilePage.FOOTER_SIZE : 0)));
 
       // optional type field may be used by sub classes
@@ -215,8 +223,8 @@ abstract class HeapFilePage implements PageType {
     * @return record id of directory page
     */
    static RecordID getDirectoryRecordID(final Page< ? extends HeapFilePage> page) {
-      return new RecordID(page.readPageID(HeapFilePage.DIR_PAGE_ID),
-            page.readShort(HeapFilePage.DIR_SLOT_NO));
+      return new RecordID(page.readPageID(page.getSize() - HeapFilePage.DIR_PAGE_ID),
+            page.readShort(page.getSize() - HeapFilePage.DIR_SLOT_NO));
    }
 
    /**
@@ -228,8 +236,8 @@ abstract class HeapFilePage implements PageType {
     *           the record id of the directory
     */
    static void setDirectoryRecordID(final Page< ? extends HeapFilePage> page, final RecordID rid) {
-      page.writePageID(HeapFilePage.DIR_PAGE_ID, rid.getPageID());
-      page.writeShort(HeapFilePage.DIR_SLOT_NO, (short) rid.getSlotNo());
+      page.writePageID(page.getSize() - HeapFilePage.DIR_PAGE_ID, rid.getPageID());
+      page.writeShort(page.getSize() - HeapFilePage.DIR_SLOT_NO, (short) rid.getSlotNo());
    }
 
    /**
@@ -311,7 +319,7 @@ abstract class HeapFilePage implements PageType {
       final int slotpos = HeapFilePage.HEADER_SIZE + i * HeapFilePage.SLOT_SIZE;
       page.writeShort(slotpos, recLength);
       page.writeShort(slotpos + 2, usedPtr);
-      System.arraycopy(record, 0, page.getData(), usedPtr, recLength);
+      page.write(usedPtr, record, 0, recLength);
       return new RecordID(page.getPageID(), i);
    }
 
@@ -333,10 +341,34 @@ abstract class HeapFilePage implements PageType {
 
       // finally, get and return the record
       final byte[] record = new byte[length];
-      System.arraycopy(page.getData(), offset, record, 0, length);
+      page.read(offset, record, 0, length);
       return record;
    }
 
+   /**
+    * Appends a record from the page to the given batch.
+    *
+    * @param page
+    *           the page
+    * @param rid
+    *           the record ID
+    * @param batch
+    *           the batch
+    * @throws IllegalArgumentException
+    *            if the rid is invalid or the record does not have the length of the tuples in the batch
+    */
+   static void selectRecord(final Page<? extends HeapFilePage> page, final RecordID rid, final TupleBatch batch) {
+      // get and validate the record information
+      final short length = checkRID(page, rid);
+      if (length != batch.getRecordLength()) {
+         throw new IllegalArgumentException("Record length " + length + " != " + batch.getRecordLength());
+      }
+      final short offset = getSlotOffset(page, rid.getSlotNo());
+
+      // copy the record directly into the batch
+      page.read(offset, batch.getData(), batch.reserve(1), length);
+   }
+
    /**
     * Updates a record on the page.
     *
@@ -359,7 +391,7 @@ abstract class HeapFilePage implements PageType {
 
       // finally, update the record in place
       final short offset = getSlotOffset(page, rid.getSlotNo());
-      System.arraycopy(record, 0, page.getData(), offset, length);
+      page.write(offset, record, 0, length);
    }
 
    /**
@@ -384,7 +416,7 @@ abstract class HeapFilePage implements PageType {
       final short size = (short) (offset - usedPtr);
 
       // shift all bytes to the right
-      System.arraycopy(page.getData(), usedPtr, page.getData(), newSpot, size);
+      page.move(usedPtr, newSpot, size);
 
       // adjust offsets of all valid slots that refer
       // to the left of the record being removed
@@ -11,6 +11,7 @@
 package minibase.access.file;
 
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.BufferRing;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.UnpinMode;
@@ -29,6 +30,9 @@ public final class RunBuilder {
    /** Length of the run's records. */
    private final int recordLength;
 
+   /** Buffer ring the pages of the run are written through, {@code null} if the replacement policy is used. */
+   private final BufferRing ring;
+
    /** Page ID of the run's first page. */
    private final PageID firstPageID;
 
@@ -45,9 +49,22 @@ public final class RunBuilder {
     * @param recordLength length of the records
     */
    public RunBuilder(final BufferManager bufferManager, final int recordLength) {
-      final Page<RunPage> firstPage = RunPage.initialize(bufferManager.newPage());
+      this(bufferManager, recordLength, null);
+   }
+
+   /**
+    * Creates a run builder for records of the given length, allocating with the given buffer manager and
+    * writing the run's pages through the given buffer ring.
+    *
+    * @param bufferManager buffer manager
+    * @param recordLength length of the records
+    * @param ring buffer ring to write the run's pages through, {@code null} to use the replacement policy
+    */
+   public RunBuilder(final BufferManager bufferManager, final int recordLength, final BufferRing ring) {
+      final Page<RunPage> firstPage = RunPage.initialize(bufferManager.newPage(ring));
       this.bufferManager = bufferManager;
       this.recordLength = recordLength;
+      this.ring = ring;
       this.firstPageID = firstPage.getPageID();
       this.currentPage = firstPage;
    }
@@ -61,15 +78,15 @@ public final class RunBuilder {
       if (this.currentPage == null) {
          throw new IllegalStateException("Builder has already been closed.");
       }
-      final int cap = RunPage.capacity(this.recordLength);
+      final int cap = RunPage.capacity(this.currentPage.getSize(), this.recordLength);
       final int offset = (int) (this.numRecords % cap);
       if (offset == 0 && this.numRecords != 0) {
-         final Page<RunPage> nextPage = RunPage.initialize(this.bufferManager.newPage());
+         final Page<RunPage> nextPage = RunPage.initialize(this.bufferManager.newPage(this.ring));
          RunPage.setNextPageID(this.currentPage, nextPage.getPageID());
          this.bufferManager.unpinPage(this.currentPage, UnpinMode.DIRTY);
          this.currentPage = nextPage;
       }
-      System.arraycopy(record, 0, this.currentPage.getData(), offset * this.recordLength, this.recordLength);
+      this.currentPage.write(offset * this.recordLength, record, 0, this.recordLength);
       this.numRecords++;
    }
 
@@ -13,7 +13,6 @@ package minibase.access.file;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.PageType;
-import minibase.storage.file.DiskManager;
 
 /**
  * Page type for the pages of a {@link Run} file.
@@ -35,7 +34,7 @@ public final class RunPage implements PageType {
     */
    @SuppressWarnings("unchecked")
    public static Page<RunPage> initialize(final Page<?> page) {
-      page.writePageID(DiskManager.PAGE_SIZE - PageID.BYTES, PageID.INVALID);
+      page.writePageID(page.getSize() - PageID.BYTES, PageID.INVALID);
       return (Page<RunPage>) page;
    }
 
@@ -48,7 +47,7 @@ public final class RunPage implements PageType {
     * @param recordLength length of the record
     */
    public static void setRecord(final Page<RunPage> page, final int pos, final byte[] record, final int recordLength) {
-      System.arraycopy(record, 0, page.getData(), pos * recordLength, recordLength);
+      page.write(pos * recordLength, record, 0, recordLength);
    }
 
    /**
@@ -61,7 +60,7 @@ public final class RunPage implements PageType {
     */
    public static byte[] getRecord(final Page<RunPage> page, final int pos, final int recordLength) {
       final byte[] record = new byte[recordLength];
-      System.arraycopy(page.getData(), pos * recordLength, record, 0, recordLength);
+      page.read(pos * recordLength, record, 0, recordLength);
       return record;
    }
 
@@ -72,7 +71,7 @@ public final class RunPage implements PageType {
     * @param nextPageID page ID to set
     */
    public static void setNextPageID(final Page<RunPage> page, final PageID nextPageID) {
-      page.writePageID(DiskManager.PAGE_SIZE - PageID.BYTES, nextPageID);
+      page.writePageID(page.getSize() - PageID.BYTES, nextPageID);
    }
 
    /**
@@ -82,16 +81,17 @@ public final class RunPage implements PageType {
     * @return ID of the next run page in the chain
     */
    public static PageID getNextPageID(final Page<RunPage> page) {
-      return page.readPageID(DiskManager.PAGE_SIZE - PageID.BYTES);
+      return page.readPageID(page.getSize() - PageID.BYTES);
    }
 
    /**
     * Computes the maximum number of records of the given length that fit onto a run page.
     *
+    * @param pageSize size of the page, in bytes
     * @param recordLength length of the records to store
     * @return maximum number of records that can be stored on one page
     */
-   public static int capacity(final int recordLength) {
-      return (DiskManager.PAGE_SIZE - PageID.BYTES) / recordLength;
+   public static int capacity(final int pageSize, final int recordLength) {
+      return (pageSize - PageID.BYTES) / recordLength;
    }
 }
@@ -12,8 +12,10 @@ package minibase.access.file;
 
 import java.util.NoSuchElementException;
 
+import minibase.query.evaluator.TupleBatch;
 import minibase.query.evaluator.TupleIterator;
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.BufferRing;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.UnpinMode;
@@ -33,6 +35,9 @@ public class RunScan implements TupleIterator {
    /** Length of the records in the run. */
    private final int recordLength;
 
+   /** Buffer ring the pages of the run are loaded into, {@code null} if the replacement policy is used. */
+   private final BufferRing ring;
+
    /** Currently opened page of the run. */
    private Page<RunPage> currentPage;
 
@@ -47,10 +52,25 @@ public class RunScan implements TupleIterator {
     * @param recordLength length of records in the given run
     */
    public RunScan(final BufferManager bufferManager, final Run run, final int recordLength) {
+      this(bufferManager, run, recordLength, null);
+   }
+
+   /**
+    * Creates a run scan that scans over the given run, reading records with the given length and loading the
+    * pages of the run through the given buffer ring.
+    *
+    * @param bufferManager buffer manager
+    * @param run run to iterate over
+    * @param recordLength length of records in the given run
+    * @param ring buffer ring to load the run's pages into, {@code null} to use the replacement policy
+    */
+   public RunScan(final BufferManager bufferManager, final Run run, final int recordLength,
+         final BufferRing ring) {
       this.bufferManager = bufferManager;
       this.run = run;
       this.recordLength = recordLength;
-      this.currentPage = this.bufferManager.pinPage(run.getFirstPageID());
+      this.ring = ring;
+      this.currentPage = this.bufferManager.pinPage(run.getFirstPageID(), ring);
    }
 
    @Override
@@ -67,27 +87,54 @@ public class RunScan implements TupleIterator {
          throw new NoSuchElementException();
       }
 
-      final int capacity = RunPage.capacity(this.recordLength);
+      final int capacity = RunPage.capacity(this.currentPage.getSize(), this.recordLength);
       final int offset = (int) (this.pos % capacity);
       if (offset == 0 && this.pos != 0) {
          final PageID nextID = RunPage.getNextPageID(this.currentPage);
          this.bufferManager.unpinPage(this.currentPage, UnpinMode.CLEAN);
-         this.currentPage = this.bufferManager.pinPage(nextID);
+         this.currentPage = this.bufferManager.pinPage(nextID, this.ring);
       }
 
       final byte[] out = new byte[this.recordLength];
-      System.arraycopy(this.currentPage.getData(), offset * this.recordLength, out, 0, this.recordLength);
+      this.currentPage.read(offset * this.recordLength, out, 0, this.recordLength);
       this.pos++;
       return out;
    }
 
+   @Override
+   public int nextBatch(final TupleBatch batch) {
+      if (this.currentPage == null) {
+         throw new IllegalStateException("Iterator has already been closed.");
+      }
+      if (batch.getRecordLength() != this.recordLength) {
+         throw new IllegalArgumentException("Record length " + this.recordLength + " != " + batch.getRecordLength());
+      }
+      batch.clear();
+      final int capacity = RunPage.capacity(this.currentPage.getSize(), this.recordLength);
+      while (!batch.isFull() && this.hasNext()) {
+         final int offset = (int) (this.pos % capacity);
+         if (offset == 0 && this.pos != 0) {
+            final PageID nextID = RunPage.getNextPageID(this.currentPage);
+            this.bufferManager.unpinPage(this.currentPage, UnpinMode.CLEAN);
+            this.currentPage = this.bufferManager.pinPage(nextID, this.ring);
+         }
+         // records are stored consecutively, so the rest of the page can be copied at once
+         final int count = (int) Math.min(Math.min(capacity - offset, this.run.getLength() - this.pos),
+               batch.getCapacity() - batch.size());
+         this.currentPage.read(offset * this.recordLength, batch.getData(), batch.reserve(count),
+               count * this.recordLength);
+         this.pos += count;
+      }
+      return batch.size();
+   }
+
    @Override
    public void reset() {
       if (this.currentPage == null) {
          throw new IllegalStateException("Iterator has already been closed.");
       }
       this.bufferManager.unpinPage(this.currentPage, UnpinMode.CLEAN);
-      this.currentPage = this.bufferManager.pinPage(this.run.getFirstPageID());
+      this.currentPage = this.bufferManager.pinPage(this.run.getFirstPageID(), this.ring);
       this.pos = 0;
    }
 
@@ -100,7 +147,7 @@ public class RunScan implements TupleIterator {
 
          PageID currID = this.run.getFirstPageID();
          while (currID.isValid()) {
-            final Page<RunPage> page = this.bufferManager.pinPage(currID);
+            final Page<RunPage> page = this.bufferManager.pinPage(currID, this.ring);
             currID = RunPage.getNextPageID(page);
             this.bufferManager.freePage(page);
          }
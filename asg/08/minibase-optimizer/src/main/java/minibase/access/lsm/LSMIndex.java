@@ -0,0 +1,362 @@
+/*
+ * @(#)LSMIndex.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.lsm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.SearchKeyType;
+import minibase.access.index.Index;
+import minibase.access.index.IndexEntry;
+import minibase.access.index.IndexScan;
+import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.PageID;
+
+/**
+ * A write-optimized index in the style of a log-structured merge tree. Insertions and removals only go to an
+ * in-memory table sorted by key, the memtable. When it is full, it is written to disk as a new sorted run.
+ * Runs are merged lazily: a run is merged into the next older one as soon as that one is less than
+ * {@value #GROWTH_FACTOR} times as large, so the sizes of the runs grow geometrically and there are only
+ * logarithmically many of them. Removed keys are marked by entries with an invalid record ID, which hide older
+ * entries of the key until they are merged into the oldest run.
+ * <p>
+ * Like the {@link minibase.access.btree.BTreeIndex}, the index stores at most one record ID per key, inserting
+ * an existing key replaces its record ID. Lookups check the memtable and then the runs from the newest to the
+ * oldest, reading a single page of each run. A removal has to look up the key first, in order to report
+ * whether it was present. The index is temporary, it is deleted when it is closed. It is not thread-safe and
+ * must not be modified while a scan is open.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class LSMIndex implements Index {
+
+   /** Default number of entries in the memtable. */
+   public static final int DEFAULT_MEMTABLE_SIZE = 1 << 16;
+
+   /** Minimum ratio between the sizes of a run and the next newer one. */
+   private static final int GROWTH_FACTOR = 4;
+
+   /** Record ID stored with removed keys. */
+   private static final RecordID DELETED = new RecordID(PageID.INVALID, -1);
+
+   /** The index's buffer manager. */
+   private final BufferManager bufferManager;
+
+   /** Type of the keys. */
+   private final SearchKeyType type;
+
+   /** Length of the keys, in bytes. */
+   private final int keyLength;
+
+   /** Maximum number of entries in the memtable. */
+   private final int memtableSize;
+
+   /** The memtable, mapping keys in their order-preserving encoding to record IDs. */
+   private final TreeMap<byte[], RecordID> memtable;
+
+   /** The runs, from the newest to the oldest. */
+   private final List<SortedRun> runs;
+
+   /**
+    * Creates an empty index.
+    * @param bufferManager the buffer manager
+    * @param type type of the keys
+    * @param memtableSize maximum number of entries in the memtable
+    */
+   private LSMIndex(final BufferManager bufferManager, final SearchKeyType type, final int memtableSize) {
+      this.bufferManager = bufferManager;
+      this.type = type;
+      this.keyLength = type.getKeyLength();
+      this.memtableSize = memtableSize;
+      this.memtable = new TreeMap<>((a, b) -> SortedRun.compare(a, b, this.keyLength));
+      this.runs = new ArrayList<>();
+   }
+
+   /**
+    * Creates a new temporary index with a memtable of the default size.
+    * @param bufferManager the buffer manager
+    * @param type type of the keys
+    * @return the new index
+    */
+   public static LSMIndex createTemporary(final BufferManager bufferManager, final SearchKeyType type) {
+      return createTemporary(bufferManager, type, DEFAULT_MEMTABLE_SIZE);
+   }
+
+   /**
+    * Creates a new temporary index.
+    * @param bufferManager the buffer manager
+    * @param type type of the keys
+    * @param memtableSize maximum number of entries in the memtable
+    * @return the new index
+    * @throws IllegalArgumentException if the memtable size is not positive
+    */
+   public static LSMIndex createTemporary(final BufferManager bufferManager, final SearchKeyType type,
+         final int memtableSize) {
+      if (memtableSize < 1) {
+         throw new IllegalArgumentException("The memtable size must be positive, was " + memtableSize + ".");
+      }
+      return new LSMIndex(bufferManager, type, memtableSize);
+   }
+
+   @Override
+   public Optional<IndexEntry> search(final SearchKey key) {
+      final RecordID recordID = this.find(this.encode(key));
+      if (recordID == null || !recordID.getPageID().isValid()) {
+         return Optional.empty();
+      }
+      return Optional.of(new IndexEntry(key, recordID, this.type));
+   }
+
+   @Override
+   public void insert(final SearchKey key, final RecordID rid) {
+      Objects.requireNonNull(key);
+      Objects.requireNonNull(rid);
+      this.put(this.encode(key), rid);
+   }
+
+   @Override
+   public boolean remove(final SearchKey key, final RecordID rid) {
+      final byte[] encoded = this.encode(key);
+      final RecordID recordID = this.find(encoded);
+      if (recordID == null || !recordID.getPageID().isValid()) {
+         return false;
+      }
+      this.put(encoded, DELETED);
+      return true;
+   }
+
+   @Override
+   public IndexScan openScan() {
+      return new LSMScan();
+   }
+
+   @Override
+   public IndexScan openScan(final SearchKey key) {
+      // every key occurs at most once
+      final Optional<IndexEntry> entry = this.search(key);
+      return new IndexScan() {
+         /** The entry that has not been returned yet, {@code null} if there is none. */
+         private IndexEntry next = entry.orElse(null);
+
+         @Override
+         public boolean hasNext() {
+            return this.next != null;
+         }
+
+         @Override
+         public IndexEntry next() {
+            if (this.next == null) {
+               throw new NoSuchElementException();
+            }
+            final IndexEntry result = this.next;
+            this.next = null;
+            return result;
+         }
+
+         @Override
+         public void close() {
+            this.next = null;
+         }
+      };
+   }
+
+   /**
+    * Writes the memtable to disk as a new run, which is then merged with older runs if necessary.
+    */
+   public void flush() {
+      if (this.memtable.isEmpty()) {
+         return;
+      }
+      final SortedRun run = SortedRun.write(this.bufferManager, this.keyLength,
+            new MergeIterator(Arrays.asList(this.memtableEntries()), this.keyLength, this.runs.isEmpty()));
+      this.memtable.clear();
+      if (run != null) {
+         this.runs.add(0, run);
+      }
+      while (this.runs.size() > 1 && this.runs.get(1).getLength() < GROWTH_FACTOR * this.runs.get(0).getLength()) {
+         final SortedRun newer = this.runs.remove(0);
+         final SortedRun older = this.runs.remove(0);
+         final SortedRun merged;
+         try (SortedRun.Cursor newerCursor = newer.open(); SortedRun.Cursor olderCursor = older.open()) {
+            merged = SortedRun.write(this.bufferManager, this.keyLength,
+                  new MergeIterator(Arrays.asList(newerCursor, olderCursor), this.keyLength, this.runs.isEmpty()));
+         }
+         newer.free();
+         older.free();
+         if (merged != null) {
+            this.runs.add(0, merged);
+         }
+      }
+   }
+
+   /**
+    * Returns the number of runs on disk.
+    * @return number of runs
+    */
+   public int getNumRuns() {
+      return this.runs.size();
+   }
+
+   @Override
+   public void checkInvariants() {
+      if (this.memtable.size() >= this.memtableSize) {
+         throw new AssertionError("Memtable has " + this.memtable.size() + " entries.");
+      }
+      for (int i = 0; i < this.runs.size(); i++) {
+         final SortedRun run = this.runs.get(i);
+         run.checkInvariants(i == this.runs.size() - 1);
+         if (i > 0 && run.getLength() < GROWTH_FACTOR * this.runs.get(i - 1).getLength()) {
+            throw new AssertionError("Run " + i + " should have been merged into the next older one.");
+         }
+      }
+   }
+
+   @Override
+   public SearchKeyType getKeyType() {
+      return this.type;
+   }
+
+   @Override
+   public void delete() {
+      for (final SortedRun run : this.runs) {
+         run.free();
+      }
+      this.runs.clear();
+      this.memtable.clear();
+   }
+
+   @Override
+   public void close() {
+      // the index is temporary
+      this.delete();
+   }
+
+   /**
+    * Puts an entry into the memtable and flushes it if it is full.
+    * @param key the key in its order-preserving encoding
+    * @param rid the record ID, which is invalid if the key was removed
+    */
+   private void put(final byte[] key, final RecordID rid) {
+      this.memtable.put(key, rid);
+      if (this.memtable.size() >= this.memtableSize) {
+         this.flush();
+      }
+   }
+
+   /**
+    * Looks up the newest record ID stored with the given key.
+    * @param key the key in its order-preserving encoding
+    * @return the record ID, which is invalid if the key was removed, or {@code null} if the key was never
+    *         inserted
+    */
+   private RecordID find(final byte[] key) {
+      RecordID recordID = this.memtable.get(key);
+      for (int i = 0; recordID == null && i < this.runs.size(); i++) {
+         recordID = this.runs.get(i).find(key);
+      }
+      return recordID;
+   }
+
+   /**
+    * Encodes the given key in the order-preserving encoding of its type.
+    * @param key the key
+    * @return the encoded key
+    */
+   private byte[] encode(final SearchKey key) {
+      if (!key.getType().equals(this.type)) {
+         throw new IllegalArgumentException("Search key type " + key.getType() + " does not match " + this.type);
+      }
+      final byte[] data = new byte[this.keyLength];
+      key.writeRawData(data, 0);
+      this.type.encodeSortable(data, 0);
+      return data;
+   }
+
+   /**
+    * Returns an iterator over the entries of the memtable in ascending key order.
+    * @return the entries
+    */
+   private Iterator<byte[]> memtableEntries() {
+      final Iterator<Map.Entry<byte[], RecordID>> entries = this.memtable.entrySet().iterator();
+      return new Iterator<byte[]>() {
+         @Override
+         public boolean hasNext() {
+            return entries.hasNext();
+         }
+
+         @Override
+         public byte[] next() {
+            final Map.Entry<byte[], RecordID> entry = entries.next();
+            final byte[] data = Arrays.copyOf(entry.getKey(), LSMIndex.this.keyLength + RecordID.BYTES);
+            entry.getValue().writeData(data, LSMIndex.this.keyLength);
+            return data;
+         }
+      };
+   }
+
+   /**
+    * A scan over all entries of the index in ascending key order, which merges the memtable and the runs.
+    */
+   private final class LSMScan implements IndexScan {
+
+      /** Cursors over the runs. */
+      private final List<SortedRun.Cursor> cursors;
+
+      /** The merged entries. */
+      private final MergeIterator entries;
+
+      /**
+       * Opens the scan.
+       */
+      LSMScan() {
+         final List<Iterator<byte[]>> streams = new ArrayList<>();
+         streams.add(LSMIndex.this.memtableEntries());
+         this.cursors = new ArrayList<>();
+         for (final SortedRun run : LSMIndex.this.runs) {
+            final SortedRun.Cursor cursor = run.open();
+            this.cursors.add(cursor);
+            streams.add(cursor);
+         }
+         this.entries = new MergeIterator(streams, LSMIndex.this.keyLength, true);
+      }
+
+      @Override
+      public boolean hasNext() {
+         return this.entries.hasNext();
+      }
+
+      @Override
+      public IndexEntry next() {
+         final byte[] entry = this.entries.next();
+         final SearchKeyType keyType = LSMIndex.this.type;
+         keyType.decodeSortable(entry, 0);
+         return new IndexEntry(keyType.readSearchKey(entry, 0), new RecordID(entry, LSMIndex.this.keyLength),
+               keyType);
+      }
+
+      @Override
+      public void close() {
+         for (final SortedRun.Cursor cursor : this.cursors) {
+            cursor.close();
+         }
+      }
+   }
+}
@@ -0,0 +1,102 @@
+/*
+ * @(#)MergeIterator.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.lsm;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges sorted streams of index entries into a single sorted stream. If a key occurs in several streams, only
+ * the entry of the first, i.e. the newest, stream is returned. There are only a few streams to merge, so the
+ * smallest key is found by comparing the heads of all of them.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class MergeIterator implements Iterator<byte[]> {
+
+   /** The streams, from the newest to the oldest. */
+   private final List<? extends Iterator<byte[]>> streams;
+
+   /** Current entry of each stream, {@code null} if the stream is exhausted. */
+   private final byte[][] heads;
+
+   /** Length of the keys, in bytes. */
+   private final int keyLength;
+
+   /** Whether entries that mark their key as deleted are dropped. */
+   private final boolean dropDeleted;
+
+   /** The next entry to return, {@code null} if there is none. */
+   private byte[] next;
+
+   /**
+    * Creates an iterator merging the given streams.
+    * @param streams the streams, from the newest to the oldest
+    * @param keyLength length of the keys, in bytes
+    * @param dropDeleted whether entries that mark their key as deleted are dropped
+    */
+   MergeIterator(final List<? extends Iterator<byte[]>> streams, final int keyLength, final boolean dropDeleted) {
+      this.streams = streams;
+      this.heads = new byte[streams.size()][];
+      this.keyLength = keyLength;
+      this.dropDeleted = dropDeleted;
+      for (int i = 0; i < this.heads.length; i++) {
+         this.heads[i] = streams.get(i).hasNext() ? streams.get(i).next() : null;
+      }
+      this.next = this.advance();
+   }
+
+   @Override
+   public boolean hasNext() {
+      return this.next != null;
+   }
+
+   @Override
+   public byte[] next() {
+      if (this.next == null) {
+         throw new NoSuchElementException();
+      }
+      final byte[] entry = this.next;
+      this.next = this.advance();
+      return entry;
+   }
+
+   /**
+    * Finds the next entry to return and advances all streams past its key.
+    * @return the entry, or {@code null} if all streams are exhausted
+    */
+   private byte[] advance() {
+      while (true) {
+         // the newest of the entries with the smallest key wins
+         int min = -1;
+         for (int i = 0; i < this.heads.length; i++) {
+            if (this.heads[i] != null
+                  && (min < 0 || SortedRun.compare(this.heads[i], this.heads[min], this.keyLength) < 0)) {
+               min = i;
+            }
+         }
+         if (min < 0) {
+            return null;
+         }
+         final byte[] entry = this.heads[min];
+         for (int i = min; i < this.heads.length; i++) {
+            if (this.heads[i] != null && SortedRun.compare(this.heads[i], entry, this.keyLength) == 0) {
+               this.heads[i] = this.streams.get(i).hasNext() ? this.streams.get(i).next() : null;
+            }
+         }
+         if (!this.dropDeleted || !SortedRun.isDeleted(entry, this.keyLength)) {
+            return entry;
+         }
+      }
+   }
+}
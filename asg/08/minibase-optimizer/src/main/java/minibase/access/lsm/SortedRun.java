@@ -0,0 +1,372 @@
+/*
+ * @(#)SortedRun.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.lsm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import minibase.RecordID;
+import minibase.access.file.RunPage;
+import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.Page;
+import minibase.storage.buffer.PageID;
+import minibase.storage.buffer.UnpinMode;
+
+/**
+ * An immutable run of index entries sorted by key, stored on a linked list of {@link RunPage}s. Each entry
+ * consists of a key in the order-preserving encoding of its type, followed by a record ID, which is invalid
+ * for entries that mark a deleted key. The IDs and the first keys of the pages are kept in memory, so that a
+ * key is looked up by reading a single page.
+ * <p>
+ * The keys on a page are prefix-compressed: the longest prefix shared by all keys of the page is stored once,
+ * followed by the remaining suffixes of the keys and their record IDs. Since the entries are sorted, this is
+ * the prefix shared by the first and the last key of the page. Keys are compared with the prefix first and
+ * with the suffixes only if it matches. Pages are filled as long as the entries fit, so runs of keys with
+ * long common prefixes, like composite keys whose first component has only a few distinct values, need
+ * fewer pages. A page starts with the number of its entries and the length of the prefix.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class SortedRun {
+
+   /** Size of the header of a page, which stores the number of entries and the length of the prefix. */
+   private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+   /** Buffer manager of the run's pages. */
+   private final BufferManager bufferManager;
+
+   /** Length of the keys, in bytes. */
+   private final int keyLength;
+
+   /** IDs of the run's pages. */
+   private final PageID[] pages;
+
+   /** First key of each page. */
+   private final byte[][] fenceKeys;
+
+   /** Number of entries in the run. */
+   private final long length;
+
+   /**
+    * Creates a run from its pages.
+    * @param bufferManager buffer manager of the run's pages
+    * @param keyLength length of the keys, in bytes
+    * @param pages IDs of the run's pages
+    * @param fenceKeys first key of each page
+    * @param length number of entries in the run
+    */
+   private SortedRun(final BufferManager bufferManager, final int keyLength, final PageID[] pages,
+         final byte[][] fenceKeys, final long length) {
+      this.bufferManager = bufferManager;
+      this.keyLength = keyLength;
+      this.pages = pages;
+      this.fenceKeys = fenceKeys;
+      this.length = length;
+   }
+
+   /**
+    * Writes the given entries, which have to be sorted by key without duplicates, into a new run.
+    * @param bufferManager buffer manager for allocating the run's pages
+    * @param keyLength length of the keys, in bytes
+    * @param entries iterator over the entries
+    * @return the run, or {@code null} if there were no entries
+    */
+   static SortedRun write(final BufferManager bufferManager, final int keyLength, final Iterator<byte[]> entries) {
+      final int space = bufferManager.getDiskManager().getPageSize() - PageID.BYTES - HEADER_SIZE;
+      final List<PageID> pages = new ArrayList<>();
+      final List<byte[]> fenceKeys = new ArrayList<>();
+      final List<byte[]> pageEntries = new ArrayList<>();
+      Page<RunPage> page = null;
+      int prefix = keyLength;
+      long length = 0;
+      while (entries.hasNext()) {
+         final byte[] entry = entries.next();
+         if (!pageEntries.isEmpty()) {
+            final int shared = commonPrefix(pageEntries.get(0), entry, keyLength);
+            if (shared + (pageEntries.size() + 1) * (keyLength - shared + RecordID.BYTES) <= space) {
+               prefix = shared;
+            } else {
+               page = writePage(bufferManager, page, pageEntries, prefix, keyLength);
+               pages.add(page.getPageID());
+               fenceKeys.add(Arrays.copyOf(pageEntries.get(0), keyLength));
+               pageEntries.clear();
+               prefix = keyLength;
+            }
+         }
+         pageEntries.add(entry);
+         length++;
+      }
+      if (pageEntries.isEmpty()) {
+         return null;
+      }
+      page = writePage(bufferManager, page, pageEntries, prefix, keyLength);
+      pages.add(page.getPageID());
+      fenceKeys.add(Arrays.copyOf(pageEntries.get(0), keyLength));
+      bufferManager.unpinPage(page, UnpinMode.DIRTY);
+      return new SortedRun(bufferManager, keyLength, pages.toArray(new PageID[pages.size()]),
+            fenceKeys.toArray(new byte[fenceKeys.size()][]), length);
+   }
+
+   /**
+    * Writes the given entries onto a new page and links it to the previous page, which is unpinned.
+    * @param bufferManager buffer manager for allocating the page
+    * @param prev the previous page, {@code null} if this is the first page
+    * @param entries the entries
+    * @param prefix length of the prefix shared by the keys of the entries
+    * @param keyLength length of the keys, in bytes
+    * @return the new page, which is still pinned
+    */
+   private static Page<RunPage> writePage(final BufferManager bufferManager, final Page<RunPage> prev,
+         final List<byte[]> entries, final int prefix, final int keyLength) {
+      final Page<RunPage> page = RunPage.initialize(bufferManager.newPage());
+      if (prev != null) {
+         RunPage.setNextPageID(prev, page.getPageID());
+         bufferManager.unpinPage(prev, UnpinMode.DIRTY);
+      }
+      page.writeInt(0, entries.size());
+      page.writeInt(Integer.BYTES, prefix);
+      page.write(HEADER_SIZE, entries.get(0), 0, prefix);
+      final int suffix = keyLength - prefix + RecordID.BYTES;
+      for (int i = 0; i < entries.size(); i++) {
+         page.write(HEADER_SIZE + prefix + i * suffix, entries.get(i), prefix, suffix);
+      }
+      return page;
+   }
+
+   /**
+    * Returns the number of entries in this run.
+    * @return number of entries
+    */
+   long getLength() {
+      return this.length;
+   }
+
+   /**
+    * Looks up the record ID stored with the given key in this run.
+    * @param key the key in its order-preserving encoding
+    * @return the record ID, which is invalid if the key was deleted, or {@code null} if the key does not
+    *         occur in this run
+    */
+   RecordID find(final byte[] key) {
+      if (compare(this.fenceKeys[0], key, this.keyLength) > 0) {
+         return null;
+      }
+      // find the last page whose first key is not greater than the key
+      int lo = 0;
+      int hi = this.pages.length - 1;
+      while (lo < hi) {
+         final int mid = (lo + hi + 1) >>> 1;
+         if (compare(this.fenceKeys[mid], key, this.keyLength) <= 0) {
+            lo = mid;
+         } else {
+            hi = mid - 1;
+         }
+      }
+      final Page<RunPage> page = this.bufferManager.pinPage(this.pages[lo]);
+      final int prefix = page.readInt(Integer.BYTES);
+      RecordID result = null;
+      if (page.compare(HEADER_SIZE, key, 0, prefix) == 0) {
+         // the key has the page's prefix, search for its suffix
+         final int suffix = this.keyLength - prefix;
+         int left = 0;
+         int right = page.readInt(0);
+         while (left < right) {
+            final int mid = (left + right) >>> 1;
+            final int offset = HEADER_SIZE + prefix + mid * (suffix + RecordID.BYTES);
+            final int cmp = page.compare(offset, key, prefix, suffix);
+            if (cmp < 0) {
+               left = mid + 1;
+            } else if (cmp > 0) {
+               right = mid;
+            } else {
+               result = page.readRecordID(offset + suffix);
+               break;
+            }
+         }
+      }
+      this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      return result;
+   }
+
+   /**
+    * Returns the number of pages of this run.
+    * @return number of pages
+    */
+   int getNumPages() {
+      return this.pages.length;
+   }
+
+   /**
+    * Opens a cursor over the entries of this run in ascending key order.
+    * @return the cursor
+    */
+   Cursor open() {
+      return new Cursor();
+   }
+
+   /**
+    * Frees the pages of this run. The run cannot be used afterwards.
+    */
+   void free() {
+      for (final PageID pageID : this.pages) {
+         this.bufferManager.freePage(this.bufferManager.pinPage(pageID));
+      }
+   }
+
+   /**
+    * Checks that the entries of this run are sorted by key without duplicates and that the first keys of the
+    * pages are correct.
+    * @param oldest whether this is the oldest run of its index, which must not contain deleted keys
+    * @throws AssertionError if an invariant is violated
+    */
+   void checkInvariants(final boolean oldest) {
+      long count = 0;
+      for (int i = 0; i < this.pages.length; i++) {
+         final Page<RunPage> page = this.bufferManager.pinPage(this.pages[i]);
+         final int numEntries = page.readInt(0);
+         final int prefix = page.readInt(Integer.BYTES);
+         final boolean first = numEntries > 0 && prefix <= this.keyLength
+               && page.compare(HEADER_SIZE, this.fenceKeys[i], 0, prefix) == 0
+               && page.compare(HEADER_SIZE + prefix, this.fenceKeys[i], prefix, this.keyLength - prefix) == 0;
+         this.bufferManager.unpinPage(page, UnpinMode.CLEAN);
+         if (!first) {
+            throw new AssertionError("Wrong header or first key of run page " + i + ".");
+         }
+         count += numEntries;
+      }
+      if (count != this.length) {
+         throw new AssertionError("Run of " + this.length + " entries has " + count + " entries on its pages.");
+      }
+      try (Cursor cursor = this.open()) {
+         byte[] last = null;
+         for (long i = 0; i < this.length; i++) {
+            final byte[] entry = cursor.next();
+            if (last != null && compare(last, entry, this.keyLength) >= 0) {
+               throw new AssertionError("Run entries out of order at position " + i + ".");
+            }
+            if (oldest && isDeleted(entry, this.keyLength)) {
+               throw new AssertionError("Oldest run contains a deleted key at position " + i + ".");
+            }
+            last = entry;
+         }
+         if (cursor.hasNext()) {
+            throw new AssertionError("Run is longer than " + this.length + " entries.");
+         }
+      }
+   }
+
+   /**
+    * Compares the keys at the beginning of two arrays as unsigned bytes in lexicographic order.
+    * @param a the first array
+    * @param b the second array
+    * @param keyLength length of the keys, in bytes
+    * @return a negative integer, zero, or a positive integer as the first key is less than, equal to, or
+    *         greater than the second key
+    */
+   static int compare(final byte[] a, final byte[] b, final int keyLength) {
+      for (int i = 0; i < keyLength; i++) {
+         final int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+         if (diff != 0) {
+            return diff;
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Returns the length of the longest common prefix of two keys.
+    * @param a the first key
+    * @param b the second key
+    * @param keyLength length of the keys, in bytes
+    * @return length of the common prefix, in bytes
+    */
+   private static int commonPrefix(final byte[] a, final byte[] b, final int keyLength) {
+      int i = 0;
+      while (i < keyLength && a[i] == b[i]) {
+         i++;
+      }
+      return i;
+   }
+
+   /**
+    * Checks whether the given entry marks its key as deleted.
+    * @param entry the entry
+    * @param keyLength length of the keys, in bytes
+    * @return {@code true} if the entry's record ID is invalid, {@code false} otherwise
+    */
+   static boolean isDeleted(final byte[] entry, final int keyLength) {
+      return !new RecordID(entry, keyLength).getPageID().isValid();
+   }
+
+   /**
+    * A cursor over the entries of a run, which keeps the page of the current entry pinned.
+    */
+   final class Cursor implements Iterator<byte[]>, AutoCloseable {
+
+      /** Number of entries that have not been returned yet. */
+      private long remaining = SortedRun.this.length;
+
+      /** Index of the current page. */
+      private int pageIndex = -1;
+
+      /** Page of the last entry, {@code null} if no page is pinned. */
+      private Page<RunPage> page;
+
+      /** Number of entries on the current page. */
+      private int numEntries;
+
+      /** Position of the next entry on the current page. */
+      private int pos;
+
+      /** Prefix of the keys on the current page. */
+      private byte[] prefix;
+
+      @Override
+      public boolean hasNext() {
+         return this.remaining > 0;
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException();
+         }
+         if (this.pos == this.numEntries) {
+            // move on to the next page and read its prefix
+            this.close();
+            this.page = SortedRun.this.bufferManager.pinPage(SortedRun.this.pages[++this.pageIndex]);
+            this.numEntries = this.page.readInt(0);
+            this.prefix = new byte[this.page.readInt(Integer.BYTES)];
+            this.page.read(HEADER_SIZE, this.prefix, 0, this.prefix.length);
+            this.pos = 0;
+         }
+         final int keyLength = SortedRun.this.keyLength;
+         final int suffix = keyLength - this.prefix.length + RecordID.BYTES;
+         final byte[] entry = Arrays.copyOf(this.prefix, keyLength + RecordID.BYTES);
+         this.page.read(HEADER_SIZE + this.prefix.length + this.pos * suffix, entry, this.prefix.length, suffix);
+         this.pos++;
+         this.remaining--;
+         return entry;
+      }
+
+      @Override
+      public void close() {
+         if (this.page != null) {
+            SortedRun.this.bufferManager.unpinPage(this.page, UnpinMode.CLEAN);
+            this.page = null;
+         }
+      }
+   }
+}
@@ -31,7 +31,6 @@ import minibase.catalog.SystemCatalogSchema.Table;
 import minibase.query.optimizer.Expression;
 import minibase.query.schema.Schema;
 import minibase.storage.buffer.BufferManager;
-import minibase.storage.file.DiskManager;
 
 /**
  * Persistent implementation of the Minibase system catalog.
@@ -40,11 +39,11 @@ import minibase.storage.file.DiskManager;
  */
 public final class PersistentSystemCatalog extends AbstractSystemCatalog implements SystemCatalog {
 
-   /** Maximum length of a tuple (in bytes). */
-   public static final int MAX_TUPSIZE = DiskManager.PAGE_SIZE - 20;
+   /** Number of bytes of a page that cannot be used for a tuple. */
+   private static final int PAGE_OVERHEAD = 20;
 
-   /** Maximum length of a column (in bytes). */
-   public static final int MAX_COLSIZE = MAX_TUPSIZE - 3;
+   /** Number of bytes of a tuple that cannot be used for a column. */
+   private static final int TUPLE_OVERHEAD = 3;
 
    /** Map of table catalog schema entries to heap files. */
    private final Map<Table, File> tables;
@@ -58,6 +57,9 @@ public final class PersistentSystemCatalog extends AbstractSystemCatalog impleme
    /** Map of identifier counters. */
    private final Counters counters;
 
+   /** Page size of the database, in bytes. */
+   private final int pageSize;
+
    /**
     * Opens an existing persistent system catalog or creates a new one using the given buffer manager to
     * access the database.
@@ -69,6 +71,7 @@ public final class PersistentSystemCatalog extends AbstractSystemCatalog impleme
     *           should be created
     */
    private PersistentSystemCatalog(final BufferManager bufferManager, final boolean open) {
+      this.pageSize = bufferManager.getDiskManager().getPageSize();
       this.tablesRecords = new HashMap<>();
       // Open or create the heap files for the catalog tables
       this.tables = new HashMap<>();
@@ -140,7 +143,25 @@ public final class PersistentSystemCatalog extends AbstractSystemCatalog impleme
 
    @Override
    public int getPageSize() {
-      return DiskManager.PAGE_SIZE;
+      return this.pageSize;
+   }
+
+   /**
+    * Returns the maximum length of a tuple in this database, which depends on its page size.
+    *
+    * @return maximum tuple length, in bytes
+    */
+   public int getMaxTupleSize() {
+      return this.pageSize - PAGE_OVERHEAD;
+   }
+
+   /**
+    * Returns the maximum length of a column in this database, which depends on its page size.
+    *
+    * @return maximum column length, in bytes
+    */
+   public int getMaxColumnSize() {
+      return this.getMaxTupleSize() - TUPLE_OVERHEAD;
    }
 
    @Override
@@ -283,7 +304,7 @@ public final class PersistentSystemCatalog extends AbstractSystemCatalog impleme
       // TODO Calculate size
       final int size = 0;
       final TableStatistics statistics = new TableStatistics(cardinality, cardinality,
-            size / DiskManager.PAGE_SIZE);
+            size / this.pageSize);
       final TableDescriptor descriptor = new TableDescriptor(this, tableID, name, DataOrder.values()[order],
             size, statistics);
       this.putDescriptor(descriptor);
@@ -416,7 +437,7 @@ public final class PersistentSystemCatalog extends AbstractSystemCatalog impleme
       final float minimum = schema.getFloatField(tuple, Column.COLUMNS_MIN.getPosition());
       final float maximum = schema.getFloatField(tuple, Column.COLUMNS_MAX.getPosition());
       final ColumnStatistics statistics = new ColumnStatistics(cardinality, uniqueCardinality, minimum,
-            maximum, (double) size / DiskManager.PAGE_SIZE);
+            maximum, (double) size / this.pageSize);
       final ColumnDescriptor descriptor = new ColumnDescriptor(this, columnID, name, type, size, tableID,
             statistics);
       this.putDescriptor(descriptor);
@@ -36,7 +36,7 @@ public final class TransientSystemCatalog extends AbstractSystemCatalog implemen
     * Constructs a new transient system catalog and initializes all internal data structures.
     */
    public TransientSystemCatalog() {
-      this(DiskManager.PAGE_SIZE);
+      this(DiskManager.DEFAULT_PAGE_SIZE);
    }
 
    /**
@@ -0,0 +1,288 @@
+/*
+ * @(#)Aggregator.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.Arrays;
+
+import minibase.catalog.DataType;
+import minibase.query.AggregationType;
+import minibase.query.evaluator.compare.RecordComparator;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.util.Convert;
+
+/**
+ * Computes aggregation functions over groups of tuples for the hash- and sort-based aggregation operators.
+ * Groups are identified by the packed bytes of their group columns, so two tuples are in the same group if
+ * and only if the encodings of their group columns are equal. The running aggregates of a group are kept in
+ * a state array that starts with the output tuple, whose group columns are filled in when the group is
+ * created, and is followed by an accumulator and a counter for every aggregation function.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class Aggregator {
+
+   /** Length of the accumulator and the counter of an aggregation function in the state. */
+   private static final int ACCUMULATOR_LENGTH = 16;
+
+   /** Schema of the input tuples. */
+   private final Schema input;
+
+   /** Aggregation functions. */
+   private final AggregationType[] functions;
+
+   /** Aggregated input columns, {@code -1} for {@code COUNT(*)}. */
+   private final int[] columns;
+
+   /** Schema of the output tuples, the group columns followed by the aggregates. */
+   private final Schema output;
+
+   /** Offsets of the group columns in the input tuples. */
+   private final int[] groupOffsets;
+
+   /** Lengths of the group columns. */
+   private final int[] groupLengths;
+
+   /** Whether the sums of the aggregated columns are accumulated as floating-point values. */
+   private final boolean[] floating;
+
+   /** Comparators of the aggregated input columns with the output columns of {@code MIN} and {@code MAX}. */
+   private final RecordComparator[] comparators;
+
+   /**
+    * Creates an aggregator.
+    *
+    * @param input schema of the input tuples
+    * @param groupColumns group columns
+    * @param functions aggregation functions
+    * @param columns aggregated columns, {@code -1} for {@code COUNT(*)}
+    * @throws IllegalArgumentException if the functions cannot be applied to the columns
+    */
+   Aggregator(final Schema input, final int[] groupColumns, final AggregationType[] functions,
+         final int[] columns) {
+      if (functions.length != columns.length) {
+         throw new IllegalArgumentException("Every aggregation function needs exactly one column.");
+      }
+      this.input = input;
+      this.functions = functions.clone();
+      this.columns = columns.clone();
+      this.groupOffsets = new int[groupColumns.length];
+      this.groupLengths = new int[groupColumns.length];
+      for (int i = 0; i < groupColumns.length; i++) {
+         this.groupOffsets[i] = input.getColumnOffset(groupColumns[i]);
+         this.groupLengths[i] = input.getColumn(groupColumns[i]).getSize();
+      }
+      final SchemaBuilder builder = new SchemaBuilder(input, groupColumns);
+      for (int i = 0; i < functions.length; i++) {
+         if (columns[i] < 0) {
+            if (functions[i] != AggregationType.COUNT) {
+               throw new IllegalArgumentException(functions[i] + " needs an input column.");
+            }
+            builder.addField("COUNT(*)", DataType.BIGINT, DataType.BIGINT.getSize());
+            continue;
+         }
+         final DataType type = input.getColumn(columns[i]).getType();
+         if ((functions[i] == AggregationType.SUM || functions[i] == AggregationType.AVG) && !type.isNumeric()) {
+            throw new IllegalArgumentException(functions[i] + " is undefined for column type " + type + ".");
+         }
+         final DataType outputType = functions[i].getOutputType(type);
+         builder.addField(functions[i] + "(" + input.getColumn(columns[i]).getName() + ")", outputType,
+               outputType == type ? input.getColumn(columns[i]).getSize() : outputType.getSize());
+      }
+      this.output = builder.build();
+      this.floating = new boolean[functions.length];
+      this.comparators = new RecordComparator[functions.length];
+      for (int i = 0; i < functions.length; i++) {
+         if (columns[i] >= 0) {
+            this.floating[i] = input.getColumn(columns[i]).getType().isFloatingPoint();
+            if (functions[i] == AggregationType.MIN || functions[i] == AggregationType.MAX) {
+               this.comparators[i] = new TupleComparator(input, new int[] { columns[i] }, this.output,
+                     new int[] { groupColumns.length + i });
+            }
+         }
+      }
+   }
+
+   /**
+    * Returns the schema of the output tuples.
+    *
+    * @return schema of the output tuples
+    */
+   Schema getSchema() {
+      return this.output;
+   }
+
+   /**
+    * Returns the number of bytes of a state.
+    *
+    * @return length of a state
+    */
+   int getStateLength() {
+      return this.output.getLength() + this.functions.length * ACCUMULATOR_LENGTH;
+   }
+
+   /**
+    * Computes the hash code of the group columns of the tuple at the given offset of an array.
+    *
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    * @return hash code of the group
+    */
+   long hash(final byte[] data, final int offset) {
+      // FNV-1a, the hash table scrambles the result further
+      long hash = 0xCBF29CE484222325L;
+      for (int i = 0; i < this.groupOffsets.length; i++) {
+         final int start = offset + this.groupOffsets[i];
+         for (int pos = start; pos < start + this.groupLengths[i]; pos++) {
+            hash = (hash ^ data[pos]) * 0x100000001B3L;
+         }
+      }
+      return hash;
+   }
+
+   /**
+    * Checks whether the tuple at the given offset of an array belongs to the group of the given state.
+    *
+    * @param state state of the group
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    * @return {@code true} if the group columns are equal, {@code false} otherwise
+    */
+   boolean matches(final byte[] state, final byte[] data, final int offset) {
+      int pos = 0;
+      for (int i = 0; i < this.groupOffsets.length; i++) {
+         final int start = offset + this.groupOffsets[i];
+         final int length = this.groupLengths[i];
+         for (int j = 0; j < length; j++) {
+            if (state[pos + j] != data[start + j]) {
+               return false;
+            }
+         }
+         pos += length;
+      }
+      return true;
+   }
+
+   /**
+    * Creates the state of a new group from its first tuple.
+    *
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    * @return state of the group
+    */
+   byte[] create(final byte[] data, final int offset) {
+      final byte[] state = new byte[this.getStateLength()];
+      int pos = 0;
+      for (int i = 0; i < this.groupOffsets.length; i++) {
+         System.arraycopy(data, offset + this.groupOffsets[i], state, pos, this.groupLengths[i]);
+         pos += this.groupLengths[i];
+      }
+      for (int i = 0; i < this.functions.length; i++) {
+         if (this.comparators[i] != null) {
+            this.copyValue(i, state, data, offset);
+         }
+      }
+      this.update(state, data, offset);
+      return state;
+   }
+
+   /**
+    * Adds the tuple at the given offset of an array to the group of the given state.
+    *
+    * @param state state of the group
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    */
+   void update(final byte[] state, final byte[] data, final int offset) {
+      for (int i = 0; i < this.functions.length; i++) {
+         final int acc = this.output.getLength() + i * ACCUMULATOR_LENGTH;
+         switch (this.functions[i]) {
+            case COUNT:
+               Convert.writeLong(state, acc, Convert.readLong(state, acc) + 1);
+               break;
+            case SUM:
+            case AVG:
+               if (this.floating[i]) {
+                  Convert.writeDouble(state, acc, Convert.readDouble(state, acc)
+                        + this.input.getFloating(data, offset, this.columns[i]));
+               } else {
+                  Convert.writeLong(state, acc, Convert.readLong(state, acc)
+                        + this.input.getIntegral(data, offset, this.columns[i]));
+               }
+               Convert.writeLong(state, acc + 8, Convert.readLong(state, acc + 8) + 1);
+               break;
+            case MIN:
+            case MAX:
+            default:
+               final int cmp = this.comparators[i].compare(data, offset, state, 0);
+               if (this.functions[i] == AggregationType.MIN ? cmp < 0 : cmp > 0) {
+                  this.copyValue(i, state, data, offset);
+               }
+               break;
+         }
+      }
+   }
+
+   /**
+    * Copies the aggregated column of a tuple into the output column of an aggregation function.
+    *
+    * @param function index of the aggregation function
+    * @param state state to copy to
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    */
+   private void copyValue(final int function, final byte[] state, final byte[] data, final int offset) {
+      final int column = this.columns[function];
+      System.arraycopy(data, offset + this.input.getColumnOffset(column), state,
+            this.output.getColumnOffset(this.groupOffsets.length + function),
+            this.input.getColumn(column).getSize());
+   }
+
+   /**
+    * Computes the output tuple of the group of the given state, which is not modified. The aggregates of an
+    * empty group are zero.
+    *
+    * @param state state of the group
+    * @return output tuple
+    */
+   byte[] finish(final byte[] state) {
+      final byte[] tuple = Arrays.copyOf(state, this.output.getLength());
+      for (int i = 0; i < this.functions.length; i++) {
+         final int field = this.groupOffsets.length + i;
+         final int acc = this.output.getLength() + i * ACCUMULATOR_LENGTH;
+         switch (this.functions[i]) {
+            case COUNT:
+               this.output.setBigintField(tuple, field, Convert.readLong(state, acc));
+               break;
+            case SUM:
+               // an integral sum is not converted to a double, which would lose precision above 2^53
+               if (this.floating[i]) {
+                  this.output.setField(tuple, field, Convert.readDouble(state, acc));
+               } else if (this.output.getColumn(field).getType() == DataType.BIGINT) {
+                  this.output.setBigintField(tuple, field, Convert.readLong(state, acc));
+               } else {
+                  this.output.setField(tuple, field, Convert.readLong(state, acc));
+               }
+               break;
+            case AVG:
+               final long count = Convert.readLong(state, acc + 8);
+               final double sum = this.floating[i] ? Convert.readDouble(state, acc) : Convert.readLong(state, acc);
+               this.output.setField(tuple, field, count == 0 ? 0.0 : sum / count);
+               break;
+            default:
+               break;
+         }
+      }
+      return tuple;
+   }
+}
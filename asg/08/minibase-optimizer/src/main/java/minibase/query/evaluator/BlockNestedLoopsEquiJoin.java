@@ -0,0 +1,185 @@
+/*
+ * @(#)BlockNestedLoopsEquiJoin.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import minibase.query.evaluator.compare.RecordComparator;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.BufferManager;
+
+/**
+ * Block nested loops join (see textbook, 3rd edition, section 14.4.1, page 455). The outer relation is read in
+ * blocks of a configured number of pages, which are loaded into an in-memory hash table on the join column.
+ * The inner relation is then scanned once per block instead of once per outer tuple.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class BlockNestedLoopsEquiJoin extends AbstractOperator {
+
+   /** Default number of buffer pages a block of the outer relation may occupy. */
+   public static final int DEFAULT_BLOCK_PAGES = 64;
+
+   /** Outer input relation. */
+   private final Operator outer;
+
+   /** Inner input relation. */
+   private final Operator inner;
+
+   /** Maximum number of outer tuples per block. */
+   private final int blockSize;
+
+   /** Key extractor for the outer relation. */
+   private final HashKey outerKey;
+
+   /** Key extractor for the inner relation. */
+   private final HashKey innerKey;
+
+   /** Join predicate, used to verify matches if the keys are not exact. */
+   private final RecordComparator predicate;
+
+   /**
+    * Constructs a join, given the left and right inputs and the offsets of the columns to compare. Blocks of
+    * the outer relation occupy up to {@link #DEFAULT_BLOCK_PAGES} pages.
+    *
+    * @param bufferManager buffer manager
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param inner inner relation
+    * @param innerColumn column of the inner relation to compare
+    */
+   public BlockNestedLoopsEquiJoin(final BufferManager bufferManager, final Operator outer, final int outerColumn,
+         final Operator inner, final int innerColumn) {
+      this(bufferManager, outer, outerColumn, inner, innerColumn, DEFAULT_BLOCK_PAGES);
+   }
+
+   /**
+    * Constructs a join, given the left and right inputs, the offsets of the columns to compare and the number
+    * of buffer pages a block of the outer relation may occupy.
+    *
+    * @param bufferManager buffer manager
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param inner inner relation
+    * @param innerColumn column of the inner relation to compare
+    * @param blockPages number of buffer pages per block of the outer relation, at least {@code 1}
+    */
+   public BlockNestedLoopsEquiJoin(final BufferManager bufferManager, final Operator outer, final int outerColumn,
+         final Operator inner, final int innerColumn, final int blockPages) {
+      super(Schema.join(outer.getSchema(), inner.getSchema()));
+      this.outer = outer;
+      this.inner = inner;
+      this.blockSize = Math.max(1, Math.max(1, blockPages) * bufferManager.getDiskManager().getPageSize()
+            / outer.getSchema().getLength());
+      final HashKey.Kind kind = HashKey.kind(outer.getSchema(), outerColumn, inner.getSchema(), innerColumn);
+      this.outerKey = new HashKey(outer.getSchema(), outerColumn, kind);
+      this.innerKey = new HashKey(inner.getSchema(), innerColumn, kind);
+      this.predicate = new TupleComparator(outer.getSchema(), new int[] { outerColumn },
+            inner.getSchema(), new int[] { innerColumn });
+   }
+
+   @Override
+   public TupleIterator open() {
+      final TupleIterator outer = this.outer.open();
+      if (!outer.hasNext()) {
+         outer.close();
+         return TupleIterator.EMPTY;
+      }
+      final TupleIterator inner = this.inner.open();
+      if (!inner.hasNext()) {
+         outer.close();
+         inner.close();
+         return TupleIterator.EMPTY;
+      }
+
+      final int innerLength = this.inner.getSchema().getLength();
+      return new JoinIterator(this.outer.getSchema().getLength(), innerLength) {
+
+         /** Current block of the outer relation. */
+         private final HashTable block = new HashTable();
+
+         /** Current batch of tuples from the iterator of the inner relation. */
+         private final TupleBatch innerBatch = new TupleBatch(innerLength);
+
+         /** Index of the current tuple in the batch of the inner relation. */
+         private int innerPos = -1;
+
+         /** Next entry of the block to compare with the current inner tuple. */
+         private int entry = HashTable.NONE;
+
+         {
+            this.loadBlock();
+         }
+
+         @Override
+         boolean advance() {
+            final BlockNestedLoopsEquiJoin join = BlockNestedLoopsEquiJoin.this;
+            final byte[] data = this.innerBatch.getData();
+            for (;;) {
+               while (this.entry != HashTable.NONE) {
+                  final byte[] currentOuter = this.block.get(this.entry);
+                  this.entry = this.block.next(this.entry);
+                  final int offset = this.innerBatch.offset(this.innerPos);
+                  if (join.outerKey.isExact() || join.predicate.compare(currentOuter, 0, data, offset) == 0) {
+                     this.match(currentOuter, 0, data, offset);
+                     return true;
+                  }
+               }
+               if (++this.innerPos >= this.innerBatch.size()) {
+                  if (inner.nextBatch(this.innerBatch) == 0) {
+                     if (!outer.hasNext()) {
+                        return false;
+                     }
+                     this.loadBlock();
+                     inner.reset();
+                     continue;
+                  }
+                  this.innerPos = 0;
+               }
+               this.entry = this.block.find(join.innerKey.get(data, this.innerBatch.offset(this.innerPos)));
+            }
+         }
+
+         /**
+          * Replaces the current block with the next tuples of the outer relation.
+          */
+         private void loadBlock() {
+            this.block.clear();
+            while (this.block.size() < BlockNestedLoopsEquiJoin.this.blockSize && outer.hasNext()) {
+               final byte[] tuple = outer.next();
+               this.block.put(BlockNestedLoopsEquiJoin.this.outerKey.get(tuple), tuple);
+            }
+            this.innerBatch.clear();
+            this.innerPos = -1;
+            this.entry = HashTable.NONE;
+         }
+
+         @Override
+         public void reset() {
+            outer.reset();
+            inner.reset();
+            this.loadBlock();
+            this.clearMatch();
+         }
+
+         @Override
+         public void close() {
+            outer.close();
+            inner.close();
+            this.block.clear();
+            this.innerBatch.clear();
+            this.innerPos = -1;
+            this.entry = HashTable.NONE;
+            this.clearMatch();
+         }
+      };
+   }
+}
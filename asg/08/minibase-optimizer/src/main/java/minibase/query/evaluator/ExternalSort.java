@@ -14,6 +14,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import minibase.access.file.Run;
 import minibase.access.file.RunBuilder;
@@ -24,17 +28,22 @@ import minibase.query.evaluator.compare.RecordComparator;
 import minibase.query.schema.Schema;
 import minibase.query.schema.SchemaBuilder;
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.BufferRing;
 import minibase.storage.buffer.Page;
 import minibase.storage.buffer.PageID;
 import minibase.storage.buffer.UnpinMode;
-import minibase.storage.file.DiskManager;
 
 /**
  * A sort operator that sorts its input according to a given {@link RecordComparator}.
+ * <p>
+ * In parallel mode, the input is distributed over worker threads in batches, each of which generates initial
+ * runs with its own replacement sorter and share of the buffer pages. Independent groups of runs are then
+ * merged concurrently, and the final merge is pipelined into the operator's result. The comparator has to be
+ * thread-safe in this mode.
  *
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
  */
-public class ExternalSort extends AbstractOperator {
+public class ExternalSort extends AbstractOperator implements PipelineBreaker {
 
    /** Schema of the internally used runs of intermediate runs. */
    static final Schema RUN_OF_RUNS =
@@ -42,6 +51,18 @@ public class ExternalSort extends AbstractOperator {
                .addField("pageID", DataType.INT, PageID.BYTES)
                .addField("size", DataType.BIGINT, Long.BYTES).build();
 
+   /**
+    * Number of slots of the buffer rings used for reading and writing runs. Run pages are only read once, so
+    * they are kept out of the buffer pool's replacement policy.
+    */
+   static final int RING_SIZE = 4;
+
+   /**
+    * Number of pages the buffer rings of run scans read ahead. Run pages are mostly allocated consecutively,
+    * so each input of a merge only goes to disk once per {@code READ_AHEAD + 1} pages.
+    */
+   static final int READ_AHEAD = RING_SIZE - 1;
+
    /** Buffer manager. */
    private final BufferManager bufferManager;
 
@@ -57,6 +78,9 @@ public class ExternalSort extends AbstractOperator {
    /** Maximum number of runs to merge at once. */
    private final int k;
 
+   /** Number of worker threads, values smaller than two mean sequential sorting. */
+   private final int parallelism;
+
    /**
     * Creates a sort operator that sorts the given input operator's result according to the given comparator.
     * It creates single-page initial runs using <i>insertion sort</i> and simple binary merge sort.
@@ -82,12 +106,30 @@ public class ExternalSort extends AbstractOperator {
     */
    public ExternalSort(final BufferManager bufferManager, final Operator input,
          final RecordComparator comparator, final int bufferPages, final int k) {
+      this(bufferManager, input, comparator, bufferPages, k, 1);
+   }
+
+   /**
+    * Creates a sort operator that sorts the given input operator's result according to the given comparator
+    * using the given number of worker threads.
+    *
+    * @param bufferManager buffer manager
+    * @param input input operator
+    * @param comparator thread-safe record comparator
+    * @param bufferPages number of buffer pages used for creating initial runs, which are divided among the
+    *          workers, each of which uses at least one page
+    * @param k maximum number of runs that are merged simultaneously
+    * @param parallelism number of worker threads, values smaller than two lead to sequential sorting
+    */
+   public ExternalSort(final BufferManager bufferManager, final Operator input,
+         final RecordComparator comparator, final int bufferPages, final int k, final int parallelism) {
       super(input.getSchema());
       this.bufferManager = bufferManager;
       this.input = input;
       this.comparator = comparator;
       this.bufferPages = bufferPages;
       this.k = k;
+      this.parallelism = parallelism;
    }
 
    /**
@@ -100,33 +142,41 @@ public class ExternalSort extends AbstractOperator {
       final int recordLength = this.getSchema().getLength();
       if (this.bufferPages >= 1) {
          // Advanced: use replacement sort
-         final int capacity = this.bufferPages * DiskManager.PAGE_SIZE / recordLength;
+         final int capacity = this.bufferPages * this.bufferManager.getDiskManager().getPageSize() / recordLength;
          return new ReplacementSorter(this.bufferManager, capacity, this.comparator, recordLength).initialRuns(iter);
       }
 
       // Basic: use single-page insertion sort
-      final int capacity = RunPage.capacity(recordLength);
+      final int capacity = RunPage.capacity(this.bufferManager.getDiskManager().getPageSize(), recordLength);
       final RunBuilder builder = new RunBuilder(this.bufferManager, RUN_OF_RUNS.getLength());
       final byte[] outerTuple = RUN_OF_RUNS.newTuple();
+      final BufferRing ring = new BufferRing(RING_SIZE);
+      // the records are sorted in a local buffer, since the page may be stored off-heap
+      final byte[] data = new byte[capacity * recordLength];
+      // normalized keys of the buffered records, which decide most comparisons
+      final long[] keys = new long[capacity];
       do {
-         final Page<RunPage> page = RunPage.initialize(this.bufferManager.newPage());
-         final byte[] data = page.getData();
+         final Page<RunPage> page = RunPage.initialize(this.bufferManager.newPage(ring));
          int n = 0;
          while (n < capacity && iter.hasNext()) {
             final byte[] next = iter.next();
+            final long key = this.comparator.normalizedKey(next, 0);
             int i = n;
             while (--i >= 0) {
-               if (this.comparator.compare(data, i * recordLength, next, 0) <= 0) {
+               if (this.comparator.compare(keys[i], data, i * recordLength, key, next, 0) <= 0) {
                   break;
                }
             }
             final int move = n - i - 1;
             if (move > 0) {
                System.arraycopy(data, (i + 1) * recordLength, data, (i + 2) * recordLength, move * recordLength);
+               System.arraycopy(keys, i + 1, keys, i + 2, move);
             }
             System.arraycopy(next, 0, data, (i + 1) * recordLength, recordLength);
+            keys[i + 1] = key;
             n++;
          }
+         page.write(0, data, 0, n * recordLength);
          RUN_OF_RUNS.setIntField(outerTuple, 0, page.getPageID().getValue());
          RUN_OF_RUNS.setBigintField(outerTuple, 1, n);
          this.bufferManager.unpinPage(page, UnpinMode.DIRTY);
@@ -185,9 +235,11 @@ public class ExternalSort extends AbstractOperator {
     */
    Run mergeRunsBasic(final Run run1, final Run run2) {
       final int recordLength = this.getSchema().getLength();
-      final RunBuilder builder = new RunBuilder(this.bufferManager, recordLength);
-      try (PeekableIterator iter1 = new PeekableIterator(new RunScan(this.bufferManager, run1, recordLength));
-            PeekableIterator iter2 = new PeekableIterator(new RunScan(this.bufferManager, run2, recordLength))) {
+      final RunBuilder builder = new RunBuilder(this.bufferManager, recordLength, new BufferRing(RING_SIZE));
+      try (PeekableIterator iter1 = new PeekableIterator(
+                  new RunScan(this.bufferManager, run1, recordLength, new BufferRing(RING_SIZE, READ_AHEAD)));
+            PeekableIterator iter2 = new PeekableIterator(
+                  new RunScan(this.bufferManager, run2, recordLength, new BufferRing(RING_SIZE, READ_AHEAD)))) {
          while (iter1.hasNext() && iter2.hasNext()) {
             builder.appendRecord(
                   this.comparator.compare(iter1.peek(), iter2.peek()) <= 0 ? iter1.next() : iter2.next());
@@ -246,10 +298,10 @@ public class ExternalSort extends AbstractOperator {
       }
 
       final int recordLength = this.getSchema().getLength();
-      final RunBuilder builder = new RunBuilder(this.bufferManager, recordLength);
+      final RunBuilder builder = new RunBuilder(this.bufferManager, recordLength, new BufferRing(RING_SIZE));
       try (TupleIterator iter = new TreeOfLosers(this.comparator,
-            runs.stream().map(r -> new RunScan(this.bufferManager, r, recordLength))
-                  .toArray(n -> new TupleIterator[n]))) {
+            runs.stream().map(r -> new RunScan(this.bufferManager, r, recordLength,
+                  new BufferRing(RING_SIZE, READ_AHEAD))).toArray(n -> new TupleIterator[n]))) {
          while (iter.hasNext()) {
             builder.appendRecord(iter.next());
          }
@@ -257,6 +309,103 @@ public class ExternalSort extends AbstractOperator {
       return builder.finish();
    }
 
+   /**
+    * Distributes the input relation over the workers of the given pool, which generate initial sorted runs
+    * concurrently.
+    *
+    * @param iter iterator over the input relation
+    * @param pool pool of worker threads
+    * @return the initial runs
+    */
+   List<Run> initialRunsParallel(final TupleIterator iter, final ForkJoinPool pool) {
+      final int recordLength = this.getSchema().getLength();
+      final int workers = pool.getParallelism();
+      final int pages = Math.max(this.bufferPages / workers, 1);
+      final int capacity = Math.max(pages * this.bufferManager.getDiskManager().getPageSize() / recordLength, 1);
+
+      // every worker owns two batches, which circulate between its queues of free and filled batches
+      final List<BlockingQueue<TupleBatch>> free = new ArrayList<>(workers);
+      final List<BlockingQueue<TupleBatch>> filled = new ArrayList<>(workers);
+      final List<ForkJoinTask<Run>> tasks = new ArrayList<>(workers);
+      for (int w = 0; w < workers; w++) {
+         final BlockingQueue<TupleBatch> workerFree = new ArrayBlockingQueue<>(2);
+         final BlockingQueue<TupleBatch> workerFilled = new ArrayBlockingQueue<>(2);
+         workerFree.add(new TupleBatch(recordLength));
+         workerFree.add(new TupleBatch(recordLength));
+         free.add(workerFree);
+         filled.add(workerFilled);
+         final HandoffIterator input = new HandoffIterator(workerFilled, workerFree);
+         tasks.add(pool.submit(() -> {
+            try (HandoffIterator in = input) {
+               return new ReplacementSorter(this.bufferManager, capacity, this.comparator, recordLength)
+                     .initialRuns(in);
+            }
+         }));
+      }
+
+      // hand out the input round-robin, an empty batch marks its end
+      int w = 0;
+      while (true) {
+         final TupleBatch batch = HandoffIterator.take(free.get(w), tasks.get(w));
+         final int n = iter.nextBatch(batch);
+         filled.get(w).add(batch);
+         if (n == 0) {
+            break;
+         }
+         w = (w + 1) % workers;
+      }
+      for (int v = 0; v < workers; v++) {
+         if (v != w) {
+            final TupleBatch batch = HandoffIterator.take(free.get(v), tasks.get(v));
+            batch.clear();
+            filled.get(v).add(batch);
+         }
+      }
+
+      final List<Run> runs = new ArrayList<>();
+      for (final ForkJoinTask<Run> task : tasks) {
+         try (RunScan scan = new RunScan(this.bufferManager, task.join(), RUN_OF_RUNS.getLength())) {
+            while (scan.hasNext()) {
+               runs.add(readRun(scan.next()));
+            }
+         }
+      }
+      return runs;
+   }
+
+   /**
+    * Merges groups of runs concurrently until at most {@code k} runs are left, which are merged while the
+    * result is read.
+    *
+    * @param initialRuns initial sorted runs
+    * @param pool pool of worker threads
+    * @return iterator over the sorted result
+    */
+   TupleIterator mergePhaseParallel(final List<Run> initialRuns, final ForkJoinPool pool) {
+      final int recordLength = this.getSchema().getLength();
+      final int fanIn = Math.max(this.k, 2);
+      List<Run> runs = initialRuns;
+      while (runs.size() > fanIn) {
+         // spread the runs evenly over the fewest groups that respect the fan-in
+         final int groups = (runs.size() + fanIn - 1) / fanIn;
+         final List<ForkJoinTask<Run>> tasks = new ArrayList<>(groups);
+         for (int g = 0; g < groups; g++) {
+            final List<Run> group = runs.subList(g * runs.size() / groups, (g + 1) * runs.size() / groups);
+            tasks.add(pool.submit(() -> this.mergeRunsAdvanced(group)));
+         }
+         final List<Run> merged = new ArrayList<>(groups);
+         for (final ForkJoinTask<Run> task : tasks) {
+            merged.add(task.join());
+         }
+         runs = merged;
+      }
+      final TupleIterator[] scans = new TupleIterator[runs.size()];
+      for (int i = 0; i < scans.length; i++) {
+         scans[i] = new RunScan(this.bufferManager, runs.get(i), recordLength, new BufferRing(RING_SIZE, READ_AHEAD));
+      }
+      return scans.length == 1 ? scans[0] : new TreeOfLosers(this.comparator, scans);
+   }
+
    /**
     * Reads a {@link Run} from a record.
     *
@@ -268,8 +417,35 @@ public class ExternalSort extends AbstractOperator {
       return new Run(id, RUN_OF_RUNS.getBigintField(record, 1));
    }
 
+   @Override
+   public Operator getInput() {
+      return this.input;
+   }
+
+   @Override
+   public Operator withInput(final Operator input) {
+      return new ExternalSort(this.bufferManager, input, this.comparator, this.bufferPages, this.k,
+            this.parallelism);
+   }
+
    @Override
    public TupleIterator open() {
+      if (this.parallelism > 1) {
+         final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+         try {
+            final List<Run> runs;
+            try (TupleIterator inputIter = this.input.open()) {
+               if (!inputIter.hasNext()) {
+                  return TupleIterator.EMPTY;
+               }
+               runs = this.initialRunsParallel(inputIter, pool);
+            }
+            return this.mergePhaseParallel(runs, pool);
+         } finally {
+            // also interrupts workers that wait for input that will never arrive
+            pool.shutdownNow();
+         }
+      }
       final Run runOfRuns;
       try (TupleIterator inputIter = this.input.open()) {
          if (!inputIter.hasNext()) {
@@ -278,7 +454,8 @@ public class ExternalSort extends AbstractOperator {
          runOfRuns = this.initialRuns(inputIter);
       }
       final Run finalRun = this.mergePhaseAdvanced(runOfRuns);
-      return new RunScan(this.bufferManager, finalRun, this.getSchema().getLength());
+      return new RunScan(this.bufferManager, finalRun, this.getSchema().getLength(),
+            new BufferRing(RING_SIZE, READ_AHEAD));
    }
 }
 
@@ -304,6 +481,9 @@ final class TreeOfLosers implements TupleIterator {
    /** Indexes of the input iterators that each element came from. */
    private final int[] origins;
 
+   /** Normalized keys of the elements in the tree. */
+   private final long[] keys;
+
    /**
     * Constructs a selection tree.
     *
@@ -314,6 +494,7 @@ final class TreeOfLosers implements TupleIterator {
       this.comparator = comparator;
       this.inputs = inputs;
       this.origins = new int[inputs.length];
+      this.keys = new long[inputs.length];
       this.tree = new byte[inputs.length][];
       this.fill();
    }
@@ -327,21 +508,26 @@ final class TreeOfLosers implements TupleIterator {
       final int n = this.inputs.length;
       for (int i = 0; i < n; i++) {
          byte[] value = this.inputs[i].hasNext() ? this.inputs[i].next() : null;
+         long key = value == null ? 0 : this.comparator.normalizedKey(value, 0);
          int pos = (i + n) / 2;
          int origin = i;
          while (pos > 0 && this.tree[pos] != FREE_SLOT) {
             final byte[] other = this.tree[pos];
             final int otherOrigin = this.origins[pos];
-            if (this.compare(origin, value, otherOrigin, other) > 0) {
+            final long otherKey = this.keys[pos];
+            if (this.compare(origin, key, value, otherOrigin, otherKey, other) > 0) {
                this.tree[pos] = value;
                this.origins[pos] = origin;
+               this.keys[pos] = key;
                value = other;
                origin = otherOrigin;
+               key = otherKey;
             }
             pos /= 2;
          }
          this.tree[pos] = value;
          this.origins[pos] = origin;
+         this.keys[pos] = key;
       }
    }
 
@@ -350,20 +536,22 @@ final class TreeOfLosers implements TupleIterator {
     * If two records compare as equal, they are compared by the index of their inputs to guarantee stable sorting.
     *
     * @param i input of the first record
+    * @param keyA normalized key of the first record
     * @param a first record
     * @param j input of the second record
+    * @param keyB normalized key of the second record
     * @param b second record
     * @return A value {@code < 0}, {@code == 0}, or {@code > 0}
     *          if {@code a} is smaller than, equal to or greater than {@code b}
     */
-   private int compare(final int i, final byte[] a, final int j, final byte[] b) {
+   private int compare(final int i, final long keyA, final byte[] a, final int j, final long keyB, final byte[] b) {
       if (a == null) {
          return b == null ? 0 : 1;
       }
       if (b == null) {
          return -1;
       }
-      final int res = this.comparator.compare(a, b);
+      final int res = this.comparator.compare(keyA, a, 0, keyB, b, 0);
       return res == 0 ? Integer.compare(i, j) : res;
    }
 
@@ -390,22 +578,27 @@ final class TreeOfLosers implements TupleIterator {
     */
    private void refill(final int input) {
       byte[] value = this.inputs[input].hasNext() ? this.inputs[input].next() : null;
+      long key = value == null ? 0 : this.comparator.normalizedKey(value, 0);
       int origin = input;
 
       int pos = (input + this.inputs.length) / 2;
       while (pos > 0) {
          final byte[] other = this.tree[pos];
          final int otherOrigin = this.origins[pos];
-         if (this.compare(origin, value, otherOrigin, other) > 0) {
+         final long otherKey = this.keys[pos];
+         if (this.compare(origin, key, value, otherOrigin, otherKey, other) > 0) {
             this.tree[pos] = value;
             this.origins[pos] = origin;
+            this.keys[pos] = key;
             value = other;
             origin = otherOrigin;
+            key = otherKey;
          }
          pos /= 2;
       }
       this.tree[pos] = value;
       this.origins[pos] = origin;
+      this.keys[pos] = key;
    }
 
    @Override
@@ -469,37 +662,48 @@ final class ReplacementSorter {
    Run initialRuns(final TupleIterator input) {
       final RunBuilder runOfRuns = new RunBuilder(this.bufferManager, ExternalSort.RUN_OF_RUNS.getLength());
       final byte[][] buffer = new byte[this.size][];
+      // normalized keys of the buffered records, which decide most comparisons
+      final long[] keys = new long[this.size];
 
       // fill the buffer initially
       int n = 0;
       while (n < buffer.length && input.hasNext()) {
-         buffer[n++] = input.next();
+         buffer[n] = input.next();
+         keys[n] = this.comparator.normalizedKey(buffer[n], 0);
+         n++;
       }
 
       while (n > 0) {
          // produce another run
-         this.heapify(buffer, 0, n);
+         this.heapify(buffer, keys, 0, n);
          int nextRun = 0;
 
-         final RunBuilder builder = new RunBuilder(this.bufferManager, this.recordSize);
+         final RunBuilder builder = new RunBuilder(this.bufferManager, this.recordSize,
+               new BufferRing(ExternalSort.RING_SIZE));
          while (n > 0) {
             final byte[] out = buffer[0];
+            final long outKey = keys[0];
             builder.appendRecord(out);
             if (--n > 0) {
                buffer[0] = buffer[n];
+               keys[0] = keys[n];
                buffer[n] = null;
-               this.heapifyDown(buffer, 0, n);
+               this.heapifyDown(buffer, keys, 0, n);
             }
 
             if (input.hasNext()) {
                final byte[] next = input.next();
-               if (this.comparator.compare(out, next) <= 0) {
+               final long key = this.comparator.normalizedKey(next, 0);
+               if (this.comparator.compare(outKey, out, 0, key, next, 0) <= 0) {
                   // next record belongs to the current run
-                  buffer[n++] = next;
-                  this.heapifyUp(buffer, n - 1);
+                  buffer[n] = next;
+                  keys[n] = key;
+                  n++;
+                  this.heapifyUp(buffer, keys, n - 1);
                } else {
                   // next record belongs to the next run
                   buffer[buffer.length - 1 - nextRun] = next;
+                  keys[buffer.length - 1 - nextRun] = key;
                   nextRun++;
                }
             }
@@ -515,6 +719,7 @@ final class ReplacementSorter {
             final int gap = buffer.length - nextRun;
             if (gap > 0) {
                System.arraycopy(buffer, gap, buffer, 0, nextRun);
+               System.arraycopy(keys, gap, keys, 0, nextRun);
             }
             n = nextRun;
          }
@@ -523,28 +728,46 @@ final class ReplacementSorter {
    }
 
    /**
-    * Swaps two objects in the given array.
+    * Swaps two records and their keys.
     *
-    * @param values array to swap the elements in
+    * @param values array of records
+    * @param keys array of normalized keys
     * @param i index of the first element
     * @param j index of the second element
     */
-   private static void swap(final Object[] values, final int i, final int j) {
-      final Object temp = values[i];
+   private static void swap(final byte[][] values, final long[] keys, final int i, final int j) {
+      final byte[] temp = values[i];
       values[i] = values[j];
       values[j] = temp;
+      final long key = keys[i];
+      keys[i] = keys[j];
+      keys[j] = key;
+   }
+
+   /**
+    * Compares two records of the heap.
+    *
+    * @param values array of records
+    * @param keys array of normalized keys
+    * @param i index of the first record
+    * @param j index of the second record
+    * @return result of the comparison
+    */
+   private int compare(final byte[][] values, final long[] keys, final int i, final int j) {
+      return this.comparator.compare(keys[i], values[i], 0, keys[j], values[j], 0);
    }
 
    /**
     * Establishes heap invariants in the given range.
     * @param values array
+    * @param keys normalized keys of the values
     * @param start start index
     * @param end end index
     */
-   private void heapify(final byte[][] values, final int start, final int end) {
+   private void heapify(final byte[][] values, final long[] keys, final int start, final int end) {
       final int lastParent = (end - 1) / 2;
       for (int i = lastParent; i >= start; i--) {
-         this.heapifyDown(values, i, end);
+         this.heapifyDown(values, keys, i, end);
       }
    }
 
@@ -552,19 +775,19 @@ final class ReplacementSorter {
     * Propagates a value from the root of the heap down.
     *
     * @param values array
+    * @param keys normalized keys of the values
     * @param start position of the heap's root
     * @param end end of the heap
     */
-   private void heapifyDown(final byte[][] values, final int start, final int end) {
+   private void heapifyDown(final byte[][] values, final long[] keys, final int start, final int end) {
       int pos = start;
       while (2 * pos < end - 1) {
          final int left = 2 * pos + 1;
-         final int child = left + 1 == end
-               || this.comparator.compare(values[left], values[left + 1]) <= 0 ? left : left + 1;
-         if (this.comparator.compare(values[pos], values[child]) <= 0) {
+         final int child = left + 1 == end || this.compare(values, keys, left, left + 1) <= 0 ? left : left + 1;
+         if (this.compare(values, keys, pos, child) <= 0) {
             break;
          }
-         swap(values, pos, child);
+         swap(values, keys, pos, child);
          pos = child;
       }
    }
@@ -573,15 +796,16 @@ final class ReplacementSorter {
     * Propagates a value from the bottom of the heap up.
     *
     * @param buffer array
+    * @param keys normalized keys of the values
     * @param pos index of the value to propagate up
     */
-   private void heapifyUp(final byte[][] buffer, final int pos) {
+   private void heapifyUp(final byte[][] buffer, final long[] keys, final int pos) {
       for (int curr = pos, par; curr > 0; curr = par) {
          par = (curr - 1) / 2;
-         if (this.comparator.compare(buffer[par], buffer[curr]) <= 0) {
+         if (this.compare(buffer, keys, par, curr) <= 0) {
             break;
          }
-         swap(buffer, curr, par);
+         swap(buffer, keys, curr, par);
       }
    }
 }
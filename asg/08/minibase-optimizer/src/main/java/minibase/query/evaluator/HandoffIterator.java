@@ -0,0 +1,114 @@
+/*
+ * @(#)HandoffIterator.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterator over the tuples that another thread hands over in batches. Batches are taken from a queue of
+ * filled batches and returned to a queue of free ones after they have been read. An empty batch marks the end
+ * of the input. Since the batches are reused, the tuples cannot be read again and the iterator cannot be
+ * reset.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class HandoffIterator implements TupleIterator {
+
+   /** Time in milliseconds to wait for a batch before checking on the other thread. */
+   private static final long POLL_MILLIS = 10;
+
+   /** Batches filled by the other thread. */
+   private final BlockingQueue<TupleBatch> filled;
+
+   /** Batches that have been read. */
+   private final BlockingQueue<TupleBatch> free;
+
+   /** Batch that is currently read, {@code null} if none has been taken yet. */
+   private TupleBatch current;
+
+   /** Position in the current batch. */
+   private int pos;
+
+   /** Flag indicating that the end of the input was reached. */
+   private boolean done;
+
+   /**
+    * Constructor.
+    *
+    * @param filled queue of filled batches
+    * @param free queue of read batches
+    */
+   HandoffIterator(final BlockingQueue<TupleBatch> filled, final BlockingQueue<TupleBatch> free) {
+      this.filled = filled;
+      this.free = free;
+   }
+
+   /**
+    * Takes the next batch from the given queue.
+    *
+    * @param queue the queue
+    * @param other task of the thread that fills the queue, which is checked for failures while waiting,
+    *          {@code null} if the thread is not a task
+    * @return the batch
+    * @throws IllegalStateException if the waiting thread was interrupted or the other task terminated
+    */
+   static TupleBatch take(final BlockingQueue<TupleBatch> queue, final ForkJoinTask<?> other) {
+      try {
+         TupleBatch batch;
+         while ((batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            if (other != null && other.isDone()) {
+               // rethrows the task's exception, if any
+               other.join();
+               throw new IllegalStateException("Worker terminated before the input was consumed.");
+            }
+         }
+         return batch;
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while waiting for tuples.", e);
+      }
+   }
+
+   @Override
+   public boolean hasNext() {
+      while (!this.done && (this.current == null || this.pos == this.current.size())) {
+         if (this.current != null) {
+            this.free.add(this.current);
+         }
+         this.current = take(this.filled, null);
+         this.pos = 0;
+         this.done = this.current.isEmpty();
+      }
+      return !this.done;
+   }
+
+   @Override
+   public byte[] next() {
+      if (!this.hasNext()) {
+         throw new NoSuchElementException();
+      }
+      return this.current.get(this.pos++);
+   }
+
+   @Override
+   public void reset() {
+      throw new UnsupportedOperationException("Handed-over tuples cannot be read again.");
+   }
+
+   @Override
+   public void close() {
+      // the batches belong to the other thread
+   }
+}
@@ -0,0 +1,218 @@
+/*
+ * @(#)HashAggregation.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import minibase.query.AggregationType;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.BufferManager;
+
+/**
+ * Hash-based grouping and aggregation (see textbook, 3rd edition, section 14.6, page 469). The input is
+ * streamed through an in-memory hash table that maps the packed group columns to the running aggregates of
+ * the group. Once the table occupies the configured number of buffer pages, tuples of groups that are not in
+ * the table are partitioned into temporary heap files on their group columns, while the groups in the table
+ * keep absorbing their tuples. Each partition is aggregated recursively after the groups in the table have
+ * been returned. Partitions that are still too large after {@link HashEquiJoin#MAX_LEVEL} rounds are
+ * aggregated by an {@link ExternalSort} followed by a {@link SortAggregation}.
+ * <p>
+ * The output tuples consist of the group columns followed by one column per aggregation function. Without
+ * group columns, exactly one tuple is returned, also for an empty input.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class HashAggregation extends AbstractOperator implements PipelineBreaker {
+
+   /** Buffer manager. */
+   private final BufferManager bufferManager;
+
+   /** Input relation. */
+   private final Operator input;
+
+   /** Group columns of the input relation. */
+   private final int[] groupColumns;
+
+   /** Aggregation functions. */
+   private final AggregationType[] functions;
+
+   /** Aggregated columns of the input relation. */
+   private final int[] columns;
+
+   /** Number of buffer pages the hash table may occupy. */
+   private final int bufferPages;
+
+   /** Partitioning round this aggregation is part of, {@code 0} for the top-level aggregation. */
+   private final int level;
+
+   /** Aggregator computing the aggregation functions. */
+   private final Aggregator aggregator;
+
+   /**
+    * Constructs an aggregation, given the input, the group columns and the aggregation functions with the
+    * columns they are applied to. The hash table may occupy up to {@link HashEquiJoin#DEFAULT_BUFFER_PAGES}
+    * pages.
+    *
+    * @param bufferManager buffer manager
+    * @param input input relation
+    * @param groupColumns group columns, which may be empty
+    * @param functions aggregation functions
+    * @param columns columns the aggregation functions are applied to, {@code -1} for {@code COUNT(*)}
+    * @throws IllegalArgumentException if the functions cannot be applied to the columns
+    */
+   public HashAggregation(final BufferManager bufferManager, final Operator input, final int[] groupColumns,
+         final AggregationType[] functions, final int[] columns) {
+      this(bufferManager, input, groupColumns, functions, columns, HashEquiJoin.DEFAULT_BUFFER_PAGES);
+   }
+
+   /**
+    * Constructs an aggregation, given the input, the group columns, the aggregation functions with the
+    * columns they are applied to and the number of buffer pages the hash table may occupy.
+    *
+    * @param bufferManager buffer manager
+    * @param input input relation
+    * @param groupColumns group columns, which may be empty
+    * @param functions aggregation functions
+    * @param columns columns the aggregation functions are applied to, {@code -1} for {@code COUNT(*)}
+    * @param bufferPages number of buffer pages the hash table may occupy, at least {@code 1}
+    * @throws IllegalArgumentException if the functions cannot be applied to the columns
+    */
+   public HashAggregation(final BufferManager bufferManager, final Operator input, final int[] groupColumns,
+         final AggregationType[] functions, final int[] columns, final int bufferPages) {
+      this(bufferManager, input, groupColumns, functions, columns, Math.max(1, bufferPages), 0,
+            new Aggregator(input.getSchema(), groupColumns, functions, columns));
+   }
+
+   /**
+    * Constructs an aggregation in the given partitioning round.
+    *
+    * @param bufferManager buffer manager
+    * @param input input relation
+    * @param groupColumns group columns
+    * @param functions aggregation functions
+    * @param columns columns the aggregation functions are applied to
+    * @param bufferPages number of buffer pages the hash table may occupy
+    * @param level partitioning round
+    * @param aggregator aggregator computing the aggregation functions
+    */
+   private HashAggregation(final BufferManager bufferManager, final Operator input, final int[] groupColumns,
+         final AggregationType[] functions, final int[] columns, final int bufferPages, final int level,
+         final Aggregator aggregator) {
+      super(aggregator.getSchema());
+      this.bufferManager = bufferManager;
+      this.input = input;
+      this.groupColumns = groupColumns.clone();
+      this.functions = functions.clone();
+      this.columns = columns.clone();
+      this.bufferPages = bufferPages;
+      this.level = level;
+      this.aggregator = aggregator;
+   }
+
+   @Override
+   public Operator getInput() {
+      return this.input;
+   }
+
+   @Override
+   public Operator withInput(final Operator input) {
+      return new HashAggregation(this.bufferManager, input, this.groupColumns, this.functions, this.columns,
+            this.bufferPages, this.level, this.aggregator);
+   }
+
+   @Override
+   public TupleIterator open() {
+      return new AggregationIterator();
+   }
+
+   /**
+    * Iterator that aggregates the input when it is created, returns the groups in the hash table and then the
+    * groups of the partitions.
+    */
+   private final class AggregationIterator implements TupleIterator {
+
+      /** Hash table mapping the hash codes of the groups to their states. */
+      private final HashTable table = new HashTable();
+
+      /** Partitions of the tuples whose groups did not fit into the hash table. */
+      private final SpillPartitions parts;
+
+      /** Number of the next group in the hash table to return. */
+      private int entry;
+
+      /**
+       * Aggregates the input.
+       */
+      AggregationIterator() {
+         final HashAggregation aggregation = HashAggregation.this;
+         final Aggregator aggregator = aggregation.aggregator;
+         final Schema schema = aggregation.input.getSchema();
+         this.parts = new SpillPartitions(aggregation.bufferManager, schema, aggregation.bufferPages,
+               aggregation.level, scan -> new HashAggregation(aggregation.bufferManager, scan,
+                     aggregation.groupColumns, aggregation.functions, aggregation.columns, aggregation.bufferPages,
+                     aggregation.level + 1, aggregator),
+               new TupleComparator(schema, aggregation.groupColumns), sort -> new SortAggregation(sort, aggregator));
+         final int capacity = Math.max(1, aggregation.bufferPages
+               * aggregation.bufferManager.getDiskManager().getPageSize() / aggregator.getStateLength());
+         final TupleBatch batch = new TupleBatch(schema.getLength());
+         final byte[] data = batch.getData();
+         try (TupleIterator it = aggregation.input.open()) {
+            while (it.nextBatch(batch) > 0) {
+               for (int i = 0; i < batch.size(); i++) {
+                  final int offset = batch.offset(i);
+                  final long hash = aggregator.hash(data, offset);
+                  int group = this.table.find(hash);
+                  while (group != HashTable.NONE && !aggregator.matches(this.table.get(group), data, offset)) {
+                     group = this.table.next(group);
+                  }
+                  if (group != HashTable.NONE) {
+                     aggregator.update(this.table.get(group), data, offset);
+                  } else if (this.table.size() < capacity) {
+                     this.table.put(hash, aggregator.create(data, offset));
+                  } else {
+                     this.parts.spill(hash, data, offset);
+                  }
+               }
+            }
+         }
+         if (aggregation.groupColumns.length == 0 && this.table.size() == 0 && aggregation.level == 0) {
+            // the aggregates of the single, empty group
+            this.table.put(0, new byte[aggregator.getStateLength()]);
+         }
+      }
+
+      @Override
+      public boolean hasNext() {
+         return this.entry < this.table.size() || this.parts.hasNext();
+      }
+
+      @Override
+      public byte[] next() {
+         if (this.entry < this.table.size()) {
+            return HashAggregation.this.aggregator.finish(this.table.get(this.entry++));
+         }
+         return this.parts.next();
+      }
+
+      @Override
+      public void reset() {
+         this.entry = 0;
+         this.parts.rewind();
+      }
+
+      @Override
+      public void close() {
+         this.table.clear();
+         this.entry = 0;
+         this.parts.clear();
+      }
+   }
+}
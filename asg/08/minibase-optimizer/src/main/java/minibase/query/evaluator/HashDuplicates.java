@@ -0,0 +1,232 @@
+/*
+ * @(#)HashDuplicates.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.BufferManager;
+
+/**
+ * Hash-based duplicate elimination (see textbook, 3rd edition, section 14.3.2, page 456). The input is
+ * streamed through an in-memory hash table of the distinct tuples seen so far, and every tuple that is not
+ * in the table yet is returned immediately. Once the table occupies the configured number of buffer pages,
+ * tuples that are not in the table are partitioned into temporary heap files and each partition is
+ * deduplicated recursively after the input has been consumed. Partitions that are still too large after
+ * {@link HashEquiJoin#MAX_LEVEL} rounds are deduplicated by an {@link ExternalSort} followed by a
+ * {@link SortDuplicates}. Tuples are equal if their encodings are equal.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class HashDuplicates extends AbstractOperator implements PipelineBreaker {
+
+   /** Buffer manager. */
+   private final BufferManager bufferManager;
+
+   /** Input relation. */
+   private final Operator input;
+
+   /** Number of buffer pages the hash table may occupy. */
+   private final int bufferPages;
+
+   /** Partitioning round this operator is part of, {@code 0} for the top-level operator. */
+   private final int level;
+
+   /** Aggregator that groups on all columns. */
+   private final Aggregator aggregator;
+
+   /**
+    * Constructs a duplicate elimination, given the input. The hash table may occupy up to
+    * {@link HashEquiJoin#DEFAULT_BUFFER_PAGES} pages.
+    *
+    * @param bufferManager buffer manager
+    * @param input input relation
+    */
+   public HashDuplicates(final BufferManager bufferManager, final Operator input) {
+      this(bufferManager, input, HashEquiJoin.DEFAULT_BUFFER_PAGES);
+   }
+
+   /**
+    * Constructs a duplicate elimination, given the input and the number of buffer pages the hash table may
+    * occupy.
+    *
+    * @param bufferManager buffer manager
+    * @param input input relation
+    * @param bufferPages number of buffer pages the hash table may occupy, at least {@code 1}
+    */
+   public HashDuplicates(final BufferManager bufferManager, final Operator input, final int bufferPages) {
+      this(bufferManager, input, Math.max(1, bufferPages), 0);
+   }
+
+   /**
+    * Constructs a duplicate elimination in the given partitioning round.
+    *
+    * @param bufferManager buffer manager
+    * @param input input relation
+    * @param bufferPages number of buffer pages the hash table may occupy
+    * @param level partitioning round
+    */
+   private HashDuplicates(final BufferManager bufferManager, final Operator input, final int bufferPages,
+         final int level) {
+      super(input.getSchema());
+      this.bufferManager = bufferManager;
+      this.input = input;
+      this.bufferPages = bufferPages;
+      this.level = level;
+      this.aggregator = SortDuplicates.aggregator(input.getSchema());
+   }
+
+   @Override
+   public Operator getInput() {
+      return this.input;
+   }
+
+   @Override
+   public Operator withInput(final Operator input) {
+      return new HashDuplicates(this.bufferManager, input, this.bufferPages, this.level);
+   }
+
+   @Override
+   public TupleIterator open() {
+      return new DuplicatesIterator();
+   }
+
+   /**
+    * Iterator that returns the distinct tuples of the input as they are encountered and then those of the
+    * partitions.
+    */
+   private final class DuplicatesIterator implements TupleIterator {
+
+      /** Hash table of the distinct tuples, mapping their hash codes to the tuples. */
+      private final HashTable table = new HashTable();
+
+      /** Maximum number of tuples in the hash table. */
+      private final int capacity;
+
+      /** Iterator over the input relation, {@code null} after it has been consumed. */
+      private TupleIterator it;
+
+      /** Current batch of input tuples. */
+      private final TupleBatch batch;
+
+      /** Index of the next tuple in the batch. */
+      private int pos;
+
+      /** Next distinct tuple, {@code null} if it has not been computed yet. */
+      private byte[] next;
+
+      /** Partitions of the tuples that did not fit into the hash table. */
+      private final SpillPartitions parts;
+
+      /**
+       * Opens the input.
+       */
+      DuplicatesIterator() {
+         final HashDuplicates duplicates = HashDuplicates.this;
+         final Schema schema = duplicates.input.getSchema();
+         final int length = schema.getLength();
+         this.parts = new SpillPartitions(duplicates.bufferManager, schema, duplicates.bufferPages,
+               duplicates.level, scan -> new HashDuplicates(duplicates.bufferManager, scan, duplicates.bufferPages,
+                     duplicates.level + 1),
+               new TupleComparator(schema, SortDuplicates.allColumns(schema)), SortDuplicates::new);
+         this.capacity = Math.max(1, duplicates.bufferPages
+               * duplicates.bufferManager.getDiskManager().getPageSize() / length);
+         this.batch = new TupleBatch(length);
+         this.it = duplicates.input.open();
+      }
+
+      /**
+       * Reads the input until a tuple is found that is not in the hash table.
+       *
+       * @return the tuple, {@code null} if the input is exhausted
+       */
+      private byte[] advance() {
+         final Aggregator aggregator = HashDuplicates.this.aggregator;
+         final byte[] data = this.batch.getData();
+         for (;;) {
+            if (this.pos >= this.batch.size()) {
+               if (this.it.nextBatch(this.batch) == 0) {
+                  return null;
+               }
+               this.pos = 0;
+            }
+            final int offset = this.batch.offset(this.pos++);
+            final long hash = aggregator.hash(data, offset);
+            int entry = this.table.find(hash);
+            while (entry != HashTable.NONE && !aggregator.matches(this.table.get(entry), data, offset)) {
+               entry = this.table.next(entry);
+            }
+            if (entry == HashTable.NONE) {
+               final byte[] tuple = aggregator.create(data, offset);
+               if (this.table.size() < this.capacity) {
+                  this.table.put(hash, tuple);
+                  return tuple.clone();
+               }
+               this.parts.spill(hash, data, offset);
+            }
+         }
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (this.next != null) {
+            return true;
+         }
+         if (this.it != null) {
+            this.next = this.advance();
+            if (this.next != null) {
+               return true;
+            }
+            // the distinct tuples of the partitions are not in the hash table
+            this.it.close();
+            this.it = null;
+            this.table.clear();
+         }
+         if (!this.parts.hasNext()) {
+            return false;
+         }
+         this.next = this.parts.next();
+         return true;
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException("No more tuples to return.");
+         }
+         final byte[] tuple = this.next;
+         this.next = null;
+         return tuple;
+      }
+
+      @Override
+      public void reset() {
+         // the hash table only holds a part of the result, so the input is deduplicated again
+         this.close();
+         this.it = HashDuplicates.this.input.open();
+      }
+
+      @Override
+      public void close() {
+         if (this.it != null) {
+            this.it.close();
+            this.it = null;
+         }
+         this.table.clear();
+         this.batch.clear();
+         this.pos = 0;
+         this.next = null;
+         this.parts.clear();
+      }
+   }
+}
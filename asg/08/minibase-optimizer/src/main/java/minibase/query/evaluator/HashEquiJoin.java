@@ -0,0 +1,461 @@
+/*
+ * @(#)HashEquiJoin.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+
+import minibase.access.file.HeapFile;
+import minibase.query.evaluator.compare.RecordComparator;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.BufferManager;
+
+/**
+ * Hash join (see textbook, 3rd edition, section 14.4.3, page 463). The inner relation is the build input and
+ * is loaded into an in-memory hash table on the join column, the outer relation is the probe input. If the
+ * build input does not fit into the configured number of buffer pages, both inputs are partitioned into
+ * temporary heap files and each pair of partitions is joined recursively (Grace hash join). Partitions that
+ * are still too large after {@link #MAX_LEVEL} rounds, e.g., because of many duplicate keys, are joined by
+ * loading the build partition chunk by chunk and scanning the probe partition once per chunk.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class HashEquiJoin extends AbstractOperator {
+
+   /** Default number of buffer pages the hash table of the build input may occupy. */
+   public static final int DEFAULT_BUFFER_PAGES = 256;
+
+   /** Maximum number of partitioning rounds. */
+   static final int MAX_LEVEL = 3;
+
+   /** Maximum number of partitions per partitioning round. */
+   static final int MAX_PARTITIONS = 64;
+
+   /** Buffer manager. */
+   private final BufferManager bufferManager;
+
+   /** Outer input relation, which is probed. */
+   private final Operator outer;
+
+   /** Join column of the outer relation. */
+   private final int outerColumn;
+
+   /** Inner input relation, which is used to build the hash table. */
+   private final Operator inner;
+
+   /** Join column of the inner relation. */
+   private final int innerColumn;
+
+   /** Number of buffer pages the hash table may occupy. */
+   private final int bufferPages;
+
+   /** Partitioning round this join is part of, {@code 0} for the top-level join. */
+   private final int level;
+
+   /** Key extractor for the outer relation. */
+   private final HashKey outerKey;
+
+   /** Key extractor for the inner relation. */
+   private final HashKey innerKey;
+
+   /** Join predicate, used to verify matches if the keys are not exact. */
+   private final RecordComparator predicate;
+
+   /**
+    * Constructs a join, given the left and right inputs and the offsets of the columns to compare. The hash
+    * table may occupy up to {@link #DEFAULT_BUFFER_PAGES} pages.
+    *
+    * @param bufferManager buffer manager
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param inner inner relation
+    * @param innerColumn column of the inner relation to compare
+    */
+   public HashEquiJoin(final BufferManager bufferManager, final Operator outer, final int outerColumn,
+         final Operator inner, final int innerColumn) {
+      this(bufferManager, outer, outerColumn, inner, innerColumn, DEFAULT_BUFFER_PAGES);
+   }
+
+   /**
+    * Constructs a join, given the left and right inputs, the offsets of the columns to compare and the number
+    * of buffer pages the hash table may occupy.
+    *
+    * @param bufferManager buffer manager
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param inner inner relation
+    * @param innerColumn column of the inner relation to compare
+    * @param bufferPages number of buffer pages the hash table may occupy, at least {@code 1}
+    */
+   public HashEquiJoin(final BufferManager bufferManager, final Operator outer, final int outerColumn,
+         final Operator inner, final int innerColumn, final int bufferPages) {
+      this(bufferManager, outer, outerColumn, inner, innerColumn, Math.max(1, bufferPages), 0);
+   }
+
+   /**
+    * Constructs a join in the given partitioning round.
+    *
+    * @param bufferManager buffer manager
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param inner inner relation
+    * @param innerColumn column of the inner relation to compare
+    * @param bufferPages number of buffer pages the hash table may occupy
+    * @param level partitioning round
+    */
+   private HashEquiJoin(final BufferManager bufferManager, final Operator outer, final int outerColumn,
+         final Operator inner, final int innerColumn, final int bufferPages, final int level) {
+      super(Schema.join(outer.getSchema(), inner.getSchema()));
+      this.bufferManager = bufferManager;
+      this.outer = outer;
+      this.outerColumn = outerColumn;
+      this.inner = inner;
+      this.innerColumn = innerColumn;
+      this.bufferPages = bufferPages;
+      this.level = level;
+      final HashKey.Kind kind = HashKey.kind(outer.getSchema(), outerColumn, inner.getSchema(), innerColumn);
+      this.outerKey = new HashKey(outer.getSchema(), outerColumn, kind);
+      this.innerKey = new HashKey(inner.getSchema(), innerColumn, kind);
+      this.predicate = new TupleComparator(outer.getSchema(), new int[] { outerColumn },
+            inner.getSchema(), new int[] { innerColumn });
+   }
+
+   /**
+    * Returns the outer input relation, which is probed.
+    *
+    * @return outer relation
+    */
+   Operator getOuter() {
+      return this.outer;
+   }
+
+   /**
+    * Returns the inner input relation, which is used to build the hash table.
+    *
+    * @return inner relation
+    */
+   Operator getInner() {
+      return this.inner;
+   }
+
+   /**
+    * Inserts a tuple of the inner relation into a hash table.
+    *
+    * @param table the hash table
+    * @param tuple tuple of the inner relation
+    */
+   void insert(final HashTable table, final byte[] tuple) {
+      table.put(this.innerKey.get(tuple), tuple);
+   }
+
+   /**
+    * Looks up a tuple of the outer relation in a hash table that contains tuples of the inner relation.
+    *
+    * @param table the hash table
+    * @param data array containing the outer tuple
+    * @param offset offset of the outer tuple
+    * @return first entry of the hash table that may match, {@link HashTable#NONE} if there is none
+    */
+   int find(final HashTable table, final byte[] data, final int offset) {
+      return table.find(this.outerKey.get(data, offset));
+   }
+
+   /**
+    * Checks whether an outer tuple and an inner tuple of an entry found in a hash table match.
+    *
+    * @param data array containing the outer tuple
+    * @param offset offset of the outer tuple
+    * @param tuple the inner tuple
+    * @return {@code true} if the tuples satisfy the join predicate, {@code false} otherwise
+    */
+   boolean matches(final byte[] data, final int offset, final byte[] tuple) {
+      return this.outerKey.isExact() || this.predicate.compare(data, offset, tuple, 0) == 0;
+   }
+
+   /**
+    * Returns a join of other inputs with the same join columns and number of buffer pages.
+    *
+    * @param newOuter outer relation, with the schema of the current one
+    * @param newInner inner relation, with the schema of the current one
+    * @return the join
+    */
+   HashEquiJoin withInputs(final Operator newOuter, final Operator newInner) {
+      return new HashEquiJoin(this.bufferManager, newOuter, this.outerColumn, newInner, this.innerColumn,
+            this.bufferPages, this.level);
+   }
+
+   /**
+    * Returns the maximum number of tuples of the inner relation that fit into the buffer pages of the hash
+    * table.
+    *
+    * @return maximum number of tuples in the hash table, at least {@code 1}
+    */
+   int capacity() {
+      return Math.max(1, this.bufferPages * this.bufferManager.getDiskManager().getPageSize()
+            / this.inner.getSchema().getLength());
+   }
+
+   @Override
+   public TupleIterator open() {
+      final int capacity = this.capacity();
+      final HashTable table = new HashTable();
+      final TupleIterator build = this.inner.open();
+      this.build(build, table, capacity);
+      if (!build.hasNext()) {
+         build.close();
+         if (table.size() == 0) {
+            return TupleIterator.EMPTY;
+         }
+         return new ProbeIterator(table, null, capacity);
+      }
+      if (this.level < MAX_LEVEL) {
+         return new PartitionIterator(table, build);
+      }
+      return new ProbeIterator(table, build, capacity);
+   }
+
+   /**
+    * Inserts tuples from the build input into the hash table until it is full or the input is exhausted.
+    *
+    * @param build build input
+    * @param table hash table
+    * @param capacity maximum number of tuples in the hash table
+    */
+   private void build(final TupleIterator build, final HashTable table, final int capacity) {
+      while (table.size() < capacity && build.hasNext()) {
+         this.insert(table, build.next());
+      }
+   }
+
+   /**
+    * Iterator that probes the outer relation against the hash table. If the build input did not fit into the
+    * hash table, the outer relation is scanned once for every chunk of the build input.
+    */
+   private final class ProbeIterator extends JoinIterator {
+
+      /** Hash table containing the current chunk of the build input. */
+      private final HashTable table;
+
+      /** Build input if it is processed in chunks, {@code null} otherwise. */
+      private final TupleIterator build;
+
+      /** Maximum number of tuples in the hash table. */
+      private final int capacity;
+
+      /** Iterator over the outer relation. */
+      private final TupleIterator probe;
+
+      /** Current batch of tuples from the outer relation. */
+      private final TupleBatch probeBatch;
+
+      /** Index of the current tuple in the batch of the outer relation. */
+      private int probePos = -1;
+
+      /** Next entry of the hash table to compare with the current tuple. */
+      private int entry = HashTable.NONE;
+
+      /**
+       * Creates a probe iterator.
+       *
+       * @param table hash table containing the (first chunk of the) build input
+       * @param build build input if it is processed in chunks, {@code null} otherwise
+       * @param capacity maximum number of tuples in the hash table
+       */
+      ProbeIterator(final HashTable table, final TupleIterator build, final int capacity) {
+         super(HashEquiJoin.this.outer.getSchema().getLength(), HashEquiJoin.this.inner.getSchema().getLength());
+         this.table = table;
+         this.build = build;
+         this.capacity = capacity;
+         this.probe = HashEquiJoin.this.outer.open();
+         this.probeBatch = new TupleBatch(HashEquiJoin.this.outer.getSchema().getLength());
+      }
+
+      @Override
+      boolean advance() {
+         final HashEquiJoin join = HashEquiJoin.this;
+         final byte[] data = this.probeBatch.getData();
+         for (;;) {
+            while (this.entry != HashTable.NONE) {
+               final byte[] tuple = this.table.get(this.entry);
+               this.entry = this.table.next(this.entry);
+               final int offset = this.probeBatch.offset(this.probePos);
+               if (join.matches(data, offset, tuple)) {
+                  this.match(data, offset, tuple, 0);
+                  return true;
+               }
+            }
+            if (++this.probePos >= this.probeBatch.size()) {
+               if (this.probe.nextBatch(this.probeBatch) == 0) {
+                  if (this.build == null || !this.build.hasNext()) {
+                     return false;
+                  }
+                  // load the next chunk of the build input and start over with the outer relation
+                  this.table.clear();
+                  join.build(this.build, this.table, this.capacity);
+                  this.probe.reset();
+                  this.probePos = -1;
+                  continue;
+               }
+               this.probePos = 0;
+            }
+            this.entry = join.find(this.table, data, this.probeBatch.offset(this.probePos));
+         }
+      }
+
+      @Override
+      public void reset() {
+         if (this.build != null) {
+            this.build.reset();
+            this.table.clear();
+            HashEquiJoin.this.build(this.build, this.table, this.capacity);
+         }
+         this.probe.reset();
+         this.probeBatch.clear();
+         this.probePos = -1;
+         this.entry = HashTable.NONE;
+         this.clearMatch();
+      }
+
+      @Override
+      public void close() {
+         if (this.build != null) {
+            this.build.close();
+         }
+         this.probe.close();
+         this.table.clear();
+         this.probeBatch.clear();
+         this.probePos = -1;
+         this.entry = HashTable.NONE;
+         this.clearMatch();
+      }
+   }
+
+   /**
+    * Iterator that partitions both inputs into temporary heap files and joins the pairs of partitions one
+    * after the other.
+    */
+   private final class PartitionIterator implements TupleIterator {
+
+      /** Partitions of the outer relation. */
+      private final HeapFile[] outerParts;
+
+      /** Partitions of the inner relation. */
+      private final HeapFile[] innerParts;
+
+      /** Index of the current pair of partitions. */
+      private int part = -1;
+
+      /** Iterator over the join of the current pair of partitions. */
+      private TupleIterator current = TupleIterator.EMPTY;
+
+      /**
+       * Partitions both inputs.
+       *
+       * @param table hash table containing the first part of the build input
+       * @param build rest of the build input
+       */
+      PartitionIterator(final HashTable table, final TupleIterator build) {
+         final HashEquiJoin join = HashEquiJoin.this;
+         final int numParts = Math.max(2, Math.min(join.bufferPages - 1, MAX_PARTITIONS));
+         this.outerParts = new HeapFile[numParts];
+         this.innerParts = new HeapFile[numParts];
+         for (int i = 0; i < numParts; i++) {
+            this.outerParts[i] = HeapFile.createTemporary(join.bufferManager);
+            this.innerParts[i] = HeapFile.createTemporary(join.bufferManager);
+         }
+         for (int i = 0; i < table.size(); i++) {
+            this.insert(this.innerParts, join.innerKey, table.get(i));
+         }
+         table.clear();
+         while (build.hasNext()) {
+            this.insert(this.innerParts, join.innerKey, build.next());
+         }
+         build.close();
+         try (TupleIterator probe = join.outer.open()) {
+            while (probe.hasNext()) {
+               this.insert(this.outerParts, join.outerKey, probe.next());
+            }
+         }
+      }
+
+      /**
+       * Inserts a tuple into the partition its key is hashed to.
+       *
+       * @param parts partitions
+       * @param key key extractor
+       * @param tuple the tuple
+       */
+      private void insert(final HeapFile[] parts, final HashKey key, final byte[] tuple) {
+         final long hash = HashKey.mix(key.get(tuple), HashEquiJoin.this.level + 1) >>> 1;
+         parts[(int) (hash % parts.length)].insertRecord(tuple);
+      }
+
+      @Override
+      public boolean hasNext() {
+         final HashEquiJoin join = HashEquiJoin.this;
+         while (!this.current.hasNext()) {
+            this.current.close();
+            this.current = TupleIterator.EMPTY;
+            if (++this.part >= this.outerParts.length) {
+               this.part = this.outerParts.length;
+               return false;
+            }
+            this.current = new HashEquiJoin(join.bufferManager,
+                  new TableScan(join.outer.getSchema(), this.outerParts[this.part]), join.outerColumn,
+                  new TableScan(join.inner.getSchema(), this.innerParts[this.part]), join.innerColumn,
+                  join.bufferPages, join.level + 1).open();
+         }
+         return true;
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException("No more tuples to return.");
+         }
+         return this.current.next();
+      }
+
+      @Override
+      public int nextBatch(final TupleBatch batch) {
+         if (!this.hasNext()) {
+            batch.clear();
+            return 0;
+         }
+         return this.current.nextBatch(batch);
+      }
+
+      @Override
+      public void reset() {
+         if (this.outerParts[0] == null) {
+            throw new IllegalStateException("The partitions have already been deleted by closing the iterator.");
+         }
+         this.current.close();
+         this.current = TupleIterator.EMPTY;
+         this.part = -1;
+      }
+
+      @Override
+      public void close() {
+         this.current.close();
+         this.current = TupleIterator.EMPTY;
+         for (int i = 0; i < this.outerParts.length; i++) {
+            if (this.outerParts[i] != null) {
+               this.outerParts[i].close();
+               this.innerParts[i].close();
+               this.outerParts[i] = null;
+               this.innerParts[i] = null;
+            }
+         }
+      }
+   }
+}
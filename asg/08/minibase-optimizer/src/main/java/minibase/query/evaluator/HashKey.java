@@ -0,0 +1,148 @@
+/*
+ * @(#)HashKey.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import minibase.catalog.DataType;
+import minibase.query.schema.Schema;
+
+/**
+ * Extracts 64-bit keys from a column of tuples for hash-based operators. Numeric columns are mapped to keys
+ * that are equal if and only if the values are equal according to the
+ * {@link minibase.query.evaluator.compare.TupleComparator}, all other columns are mapped to hash codes of
+ * their values, so equal keys have to be verified.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class HashKey {
+
+   /** Kinds of keys. */
+   enum Kind {
+      /** The key is the integral value of the column. */
+      INTEGRAL,
+      /** The key is the bit pattern of the floating-point value of the column. */
+      FLOATING,
+      /** The key is the hash code of the value of the column. */
+      HASH
+   }
+
+   /** Schema of the tuples. */
+   private final Schema schema;
+
+   /** Column the key is extracted from. */
+   private final int column;
+
+   /** Kind of the key. */
+   private final Kind kind;
+
+   /**
+    * Creates a key extractor.
+    *
+    * @param schema
+    *           schema of the tuples
+    * @param column
+    *           column the key is extracted from
+    * @param kind
+    *           kind of the key, which must be the same for all inputs whose keys are compared
+    */
+   HashKey(final Schema schema, final int column, final Kind kind) {
+      this.schema = schema;
+      this.column = column;
+      this.kind = kind;
+   }
+
+   /**
+    * Determines the kind of key under which values of the two given columns can be compared.
+    *
+    * @param left
+    *           schema of the left input
+    * @param leftColumn
+    *           column of the left input
+    * @param right
+    *           schema of the right input
+    * @param rightColumn
+    *           column of the right input
+    * @return kind of key for both inputs
+    */
+   static Kind kind(final Schema left, final int leftColumn, final Schema right, final int rightColumn) {
+      final DataType leftType = left.getColumn(leftColumn).getType();
+      final DataType rightType = right.getColumn(rightColumn).getType();
+      if (leftType.isNumeric() && rightType.isNumeric()) {
+         return leftType.isFloatingPoint() || rightType.isFloatingPoint() ? Kind.FLOATING : Kind.INTEGRAL;
+      }
+      return Kind.HASH;
+   }
+
+   /**
+    * Checks whether equal keys imply equal values.
+    *
+    * @return {@code true} if keys are exact, {@code false} if equal keys have to be verified
+    */
+   boolean isExact() {
+      return this.kind != Kind.HASH;
+   }
+
+   /**
+    * Extracts the key from the given tuple.
+    *
+    * @param tuple
+    *           the tuple
+    * @return the key
+    */
+   long get(final byte[] tuple) {
+      return this.get(tuple, 0);
+   }
+
+   /**
+    * Extracts the key from the tuple at the given offset of an array.
+    *
+    * @param data
+    *           array containing the tuple
+    * @param offset
+    *           offset of the tuple
+    * @return the key
+    */
+   long get(final byte[] data, final int offset) {
+      switch (this.kind) {
+         case INTEGRAL:
+            return this.schema.getIntegral(data, offset, this.column);
+         case FLOATING:
+            // equal bit patterns are exactly the values that are equal according to Double.compare
+            return Double.doubleToLongBits(this.schema.getFloating(data, offset, this.column));
+         case HASH:
+         default:
+            final DataType type = this.schema.getColumn(this.column).getType();
+            if (type.isString()) {
+               return this.schema.getString(data, offset, this.column).hashCode();
+            }
+            if (type == DataType.TIME) {
+               return this.schema.getTime(data, offset, this.column).hashCode();
+            }
+            return this.schema.getDateTime(data, offset, this.column).hashCode();
+      }
+   }
+
+   /**
+    * Scrambles the bits of a key, so that keys that only differ in their high bits are spread evenly.
+    *
+    * @param key
+    *           the key
+    * @param seed
+    *           seed that makes the function independent of the ones with other seeds
+    * @return scrambled key
+    */
+   static long mix(final long key, final int seed) {
+      long h = (key + seed * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+      h ^= h >>> 31;
+      h *= 0x94D049BB133111EBL;
+      return h ^ h >>> 29;
+   }
+}
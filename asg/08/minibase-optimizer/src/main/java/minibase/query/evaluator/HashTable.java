@@ -0,0 +1,170 @@
+/*
+ * @(#)HashTable.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.Arrays;
+
+/**
+ * In-memory hash table that maps 64-bit keys to tuples, as used for the build side of hash-based operators.
+ * The table uses open addressing on primitive arrays; tuples with the same key are chained by their entry
+ * number. Entries are numbered consecutively from {@code 0} in insertion order.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class HashTable {
+
+   /** Marker for an empty slot or the end of a chain. */
+   static final int NONE = -1;
+
+   /** Initial number of entries. */
+   private static final int INITIAL_CAPACITY = 64;
+
+   /** Seed of the hash function of the slots. */
+   private static final int SEED = 0;
+
+   /** Keys of the slots. */
+   private long[] slotKeys;
+
+   /** First entry of each slot's chain, {@link #NONE} if the slot is empty. */
+   private int[] slotHeads;
+
+   /** Tuples of the entries. */
+   private byte[][] tuples;
+
+   /** Next entry with the same key, {@link #NONE} at the end of a chain. */
+   private int[] next;
+
+   /** Number of entries. */
+   private int size;
+
+   /**
+    * Creates an empty hash table.
+    */
+   HashTable() {
+      this.tuples = new byte[INITIAL_CAPACITY][];
+      this.next = new int[INITIAL_CAPACITY];
+      this.slotKeys = new long[2 * INITIAL_CAPACITY];
+      this.slotHeads = new int[2 * INITIAL_CAPACITY];
+      Arrays.fill(this.slotHeads, NONE);
+   }
+
+   /**
+    * Returns the number of entries in this table.
+    *
+    * @return number of entries
+    */
+   int size() {
+      return this.size;
+   }
+
+   /**
+    * Inserts a tuple under the given key.
+    *
+    * @param key
+    *           the key
+    * @param tuple
+    *           the tuple
+    */
+   void put(final long key, final byte[] tuple) {
+      if (this.size == this.tuples.length) {
+         this.grow();
+      }
+      final int entry = this.size++;
+      this.tuples[entry] = tuple;
+      final int slot = this.slot(key);
+      if (this.slotHeads[slot] == NONE) {
+         this.slotKeys[slot] = key;
+      }
+      this.next[entry] = this.slotHeads[slot];
+      this.slotHeads[slot] = entry;
+   }
+
+   /**
+    * Returns the most recently inserted entry with the given key.
+    *
+    * @param key
+    *           the key
+    * @return number of the entry, {@link #NONE} if the key is not in the table
+    */
+   int find(final long key) {
+      return this.slotHeads[this.slot(key)];
+   }
+
+   /**
+    * Returns the next entry with the same key as the given one.
+    *
+    * @param entry
+    *           number of the entry
+    * @return number of the next entry, {@link #NONE} if there is none
+    */
+   int next(final int entry) {
+      return this.next[entry];
+   }
+
+   /**
+    * Returns the tuple of the given entry.
+    *
+    * @param entry
+    *           number of the entry
+    * @return the tuple
+    */
+   byte[] get(final int entry) {
+      return this.tuples[entry];
+   }
+
+   /**
+    * Removes all entries from this table.
+    */
+   void clear() {
+      Arrays.fill(this.tuples, 0, this.size, null);
+      Arrays.fill(this.slotHeads, NONE);
+      this.size = 0;
+   }
+
+   /**
+    * Finds the slot of the given key, which is either the slot containing the key or the empty slot where it
+    * would have to be inserted.
+    *
+    * @param key
+    *           the key
+    * @return the slot
+    */
+   private int slot(final long key) {
+      final int mask = this.slotHeads.length - 1;
+      int slot = (int) HashKey.mix(key, SEED) & mask;
+      while (this.slotHeads[slot] != NONE && this.slotKeys[slot] != key) {
+         slot = slot + 1 & mask;
+      }
+      return slot;
+   }
+
+   /**
+    * Doubles the capacity of this table and rehashes all chains.
+    */
+   private void grow() {
+      final int capacity = 2 * this.tuples.length;
+      this.tuples = Arrays.copyOf(this.tuples, capacity);
+      this.next = Arrays.copyOf(this.next, capacity);
+      final long[] oldKeys = this.slotKeys;
+      final int[] oldHeads = this.slotHeads;
+      this.slotKeys = new long[2 * capacity];
+      this.slotHeads = new int[2 * capacity];
+      Arrays.fill(this.slotHeads, NONE);
+      for (int i = 0; i < oldHeads.length; i++) {
+         if (oldHeads[i] != NONE) {
+            final int slot = this.slot(oldKeys[i]);
+            this.slotKeys[slot] = oldKeys[i];
+            this.slotHeads[slot] = oldHeads[i];
+         }
+      }
+   }
+}
@@ -0,0 +1,333 @@
+/*
+ * @(#)IndexNestedLoopsEquiJoin.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.Arrays;
+
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.SearchKeyType;
+import minibase.access.file.File;
+import minibase.access.index.Index;
+import minibase.access.index.IndexScan;
+import minibase.query.evaluator.compare.RecordComparator;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.PageID;
+
+/**
+ * Index nested loops join (see textbook, 3rd edition, section 14.4.1, page 455). Instead of scanning the inner
+ * relation for every outer tuple, the matching inner records are looked up in an index on the join column of
+ * the inner relation and fetched from its file by their record IDs.
+ * <p>
+ * The outer relation is processed in batches. The tuples of a batch are sorted on their join column, so
+ * that the index is probed in key order and every distinct key is only looked up once. The record IDs of all
+ * matches of the batch are then sorted, so that the pages of the inner file are read in order instead of at
+ * random and every inner record is only fetched once per batch.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class IndexNestedLoopsEquiJoin extends AbstractOperator {
+
+   /** Maximum number of outer tuples per batch, so that a tuple's index fits into the sort key of a match. */
+   public static final int MAX_BATCH_SIZE = 1 << 16;
+
+   /** Outer input relation. */
+   private final Operator outer;
+
+   /** Index on the join column of the inner relation. */
+   private final Index index;
+
+   /** File of the inner relation. */
+   private final File inner;
+
+   /** Length of the tuples of the inner relation. */
+   private final int innerLength;
+
+   /** Number of outer tuples per batch. */
+   private final int batchSize;
+
+   /** Converts join column values of outer tuples to search keys. */
+   private final KeyConverter converter;
+
+   /** Comparator of the join columns of the outer tuples, which orders the probes. */
+   private final RecordComparator outerOrder;
+
+   /** Join predicate, which verifies the matches of the index, e.g., if it truncates string keys. */
+   private final RecordComparator predicate;
+
+   /**
+    * Constructs a join, given the outer input and its join column, an index on the join column of the inner
+    * relation, and the inner relation. Outer tuples are processed in batches of
+    * {@link TupleBatch#DEFAULT_CAPACITY} tuples.
+    *
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param index index on the join column of the inner relation
+    * @param innerSchema schema of the inner relation
+    * @param inner file of the inner relation, whose record IDs are stored in the index
+    * @param innerColumn column of the inner relation to compare
+    * @throws IllegalArgumentException if the outer join column cannot be converted to keys of the index
+    */
+   public IndexNestedLoopsEquiJoin(final Operator outer, final int outerColumn, final Index index,
+         final Schema innerSchema, final File inner, final int innerColumn) {
+      this(outer, outerColumn, index, innerSchema, inner, innerColumn, TupleBatch.DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Constructs a join, given the outer input and its join column, an index on the join column of the inner
+    * relation, the inner relation, and the number of outer tuples per batch.
+    *
+    * @param outer outer relation
+    * @param outerColumn column of the outer relation to compare
+    * @param index index on the join column of the inner relation
+    * @param innerSchema schema of the inner relation
+    * @param inner file of the inner relation, whose record IDs are stored in the index
+    * @param innerColumn column of the inner relation to compare
+    * @param batchSize number of outer tuples per batch, between {@code 1} and {@link #MAX_BATCH_SIZE}
+    * @throws IllegalArgumentException if the outer join column cannot be converted to keys of the index
+    */
+   public IndexNestedLoopsEquiJoin(final Operator outer, final int outerColumn, final Index index,
+         final Schema innerSchema, final File inner, final int innerColumn, final int batchSize) {
+      super(Schema.join(outer.getSchema(), innerSchema));
+      this.outer = outer;
+      this.index = index;
+      this.inner = inner;
+      this.innerLength = innerSchema.getLength();
+      this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+      this.converter = new KeyConverter(outer.getSchema(), outerColumn, index.getKeyType());
+      this.outerOrder = new TupleComparator(outer.getSchema(), outerColumn);
+      this.predicate = new TupleComparator(outer.getSchema(), new int[] { outerColumn },
+            innerSchema, new int[] { innerColumn });
+   }
+
+   @Override
+   public TupleIterator open() {
+      return new ProbeIterator();
+   }
+
+   /**
+    * Iterator that joins one batch of outer tuples after the other.
+    */
+   private final class ProbeIterator extends JoinIterator {
+
+      /** Iterator over the outer relation. */
+      private final TupleIterator probe;
+
+      /** Current batch of outer tuples. */
+      private final TupleBatch batch;
+
+      /** Indexes of the outer tuples of the batch, sorted on their join columns. */
+      private final Integer[] order;
+
+      /** Record IDs of the index entries of the current key, shifted to the position of a match's record ID. */
+      private long[] entries = new long[16];
+
+      /**
+       * Matches of the batch, each the page number and slot number of the inner record followed by the index of
+       * the outer tuple in sixteen bits each, so that sorting the matches sorts them by record ID.
+       */
+      private long[] matches = new long[16];
+
+      /** Number of matches of the batch. */
+      private int numMatches;
+
+      /** Index of the next match. */
+      private int pos;
+
+      /** Record ID of the current inner record, {@code -1} if there is none. */
+      private long currentID = -1;
+
+      /** Current inner record. */
+      private byte[] current;
+
+      /**
+       * Opens the outer relation.
+       */
+      ProbeIterator() {
+         super(IndexNestedLoopsEquiJoin.this.outer.getSchema().getLength(),
+               IndexNestedLoopsEquiJoin.this.innerLength);
+         final IndexNestedLoopsEquiJoin join = IndexNestedLoopsEquiJoin.this;
+         this.probe = join.outer.open();
+         this.batch = new TupleBatch(join.outer.getSchema().getLength(), join.batchSize);
+         this.order = new Integer[join.batchSize];
+      }
+
+      @Override
+      boolean advance() {
+         final IndexNestedLoopsEquiJoin join = IndexNestedLoopsEquiJoin.this;
+         final byte[] data = this.batch.getData();
+         for (;;) {
+            while (this.pos < this.numMatches) {
+               final long match = this.matches[this.pos++];
+               final long id = match >>> 16;
+               if (id != this.currentID) {
+                  this.current = join.inner.selectRecord(new RecordID(PageID.getInstance((int) (id >>> 16)),
+                        (int) id & 0xFFFF));
+                  this.currentID = id;
+               }
+               final int offset = this.batch.offset((int) match & 0xFFFF);
+               if (join.predicate.compare(data, offset, this.current, 0) == 0) {
+                  this.match(data, offset, this.current, 0);
+                  return true;
+               }
+            }
+            if (this.probe.nextBatch(this.batch) == 0) {
+               return false;
+            }
+            this.probeBatch();
+         }
+      }
+
+      /**
+       * Looks up the outer tuples of the current batch in the index and sorts the matches by record ID.
+       */
+      private void probeBatch() {
+         final IndexNestedLoopsEquiJoin join = IndexNestedLoopsEquiJoin.this;
+         final byte[] data = this.batch.getData();
+         final int size = this.batch.size();
+         for (int i = 0; i < size; i++) {
+            this.order[i] = i;
+         }
+         Arrays.sort(this.order, 0, size, (a, b) -> join.outerOrder.compare(data, this.batch.offset(a), data,
+               this.batch.offset(b)));
+         this.numMatches = 0;
+         int numEntries = 0;
+         for (int i = 0; i < size; i++) {
+            final int tuple = this.order[i];
+            final int offset = this.batch.offset(tuple);
+            if (i == 0 || join.outerOrder.compare(data, this.batch.offset(this.order[i - 1]), data, offset) != 0) {
+               numEntries = 0;
+               try (IndexScan scan = join.index.openScan(join.converter.convert(data, offset))) {
+                  while (scan.hasNext()) {
+                     final RecordID rid = scan.next().getRecordID();
+                     if (numEntries == this.entries.length) {
+                        this.entries = Arrays.copyOf(this.entries, 2 * numEntries);
+                     }
+                     this.entries[numEntries++] = (long) rid.getPageID().getValue() << 32
+                           | (long) rid.getSlotNo() << 16;
+                  }
+               }
+            }
+            if (this.numMatches + numEntries > this.matches.length) {
+               this.matches = Arrays.copyOf(this.matches, 2 * (this.numMatches + numEntries));
+            }
+            for (int j = 0; j < numEntries; j++) {
+               this.matches[this.numMatches++] = this.entries[j] | tuple;
+            }
+         }
+         Arrays.sort(this.matches, 0, this.numMatches);
+         this.pos = 0;
+      }
+
+      @Override
+      public void reset() {
+         this.probe.reset();
+         this.batch.clear();
+         this.numMatches = 0;
+         this.pos = 0;
+         this.currentID = -1;
+         this.current = null;
+         this.clearMatch();
+      }
+
+      @Override
+      public void close() {
+         this.probe.close();
+         this.batch.clear();
+         this.numMatches = 0;
+         this.pos = 0;
+         this.currentID = -1;
+         this.current = null;
+         this.clearMatch();
+      }
+   }
+
+   /**
+    * Converts the values of a column to search keys of an index.
+    */
+   private static final class KeyConverter {
+
+      /** Schema of the tuples. */
+      private final Schema schema;
+
+      /** Column the keys are taken from. */
+      private final int column;
+
+      /** Type of the search keys. */
+      private final SearchKeyType type;
+
+      /** Kind of the search keys. */
+      private final SearchKeyType.Kind kind;
+
+      /**
+       * Creates a converter.
+       *
+       * @param schema schema of the tuples
+       * @param column column the keys are taken from
+       * @param type type of the search keys
+       * @throws IllegalArgumentException if the values of the column cannot be converted to the keys
+       */
+      KeyConverter(final Schema schema, final int column, final SearchKeyType type) {
+         this.schema = schema;
+         this.column = column;
+         this.type = type;
+         this.kind = type.getKind();
+         final boolean numeric = schema.getColumn(column).getType().isNumeric();
+         switch (this.kind) {
+            case LONG:
+            case INTEGER:
+            case SHORT:
+            case BYTE:
+            case FLOAT:
+            case DOUBLE:
+               if (!numeric) {
+                  throw new IllegalArgumentException("Column " + column + " is not numeric.");
+               }
+               break;
+            case COMPOSITE:
+               throw new IllegalArgumentException("Composite search keys are not supported.");
+            default:
+               if (numeric) {
+                  throw new IllegalArgumentException("Column " + column + " is numeric.");
+               }
+               break;
+         }
+      }
+
+      /**
+       * Returns the search key of the tuple at the given offset of an array.
+       *
+       * @param data array containing the tuple
+       * @param offset offset of the tuple
+       * @return the search key
+       */
+      SearchKey convert(final byte[] data, final int offset) {
+         switch (this.kind) {
+            case LONG:
+               return new SearchKey(this.type, this.schema.getIntegral(data, offset, this.column));
+            case INTEGER:
+               return new SearchKey(this.type, (int) this.schema.getIntegral(data, offset, this.column));
+            case SHORT:
+               return new SearchKey(this.type, (short) this.schema.getIntegral(data, offset, this.column));
+            case BYTE:
+               return new SearchKey(this.type, (byte) this.schema.getIntegral(data, offset, this.column));
+            case FLOAT:
+               return new SearchKey(this.type, (float) this.schema.getFloating(data, offset, this.column));
+            case DOUBLE:
+               return new SearchKey(this.type, this.schema.getFloating(data, offset, this.column));
+            default:
+               return new SearchKey(this.type, this.schema.getField(data, offset, this.column));
+         }
+      }
+   }
+}
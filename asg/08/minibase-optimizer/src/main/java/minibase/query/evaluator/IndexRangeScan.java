@@ -0,0 +1,334 @@
+/*
+ * @(#)IndexRangeScan.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+
+import minibase.SearchKey;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.file.HeapFile;
+import minibase.access.index.IndexEntry;
+import minibase.access.index.IndexScan;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.PageID;
+
+/**
+ * Scan of the records of a heap file whose keys in a B+ tree index lie in a range, which is the executor of
+ * an index filter (see textbook, 3rd edition, section 14.1.1, page 442). The {@link Mode} determines how the
+ * records are retrieved.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class IndexRangeScan extends AbstractOperator {
+
+   /** Ways of retrieving the records of the qualifying index entries. */
+   public enum Mode {
+      /**
+       * Every record is fetched from the heap file when its index entry is reached, so the records are returned
+       * in key order, but a heap page is pinned once per record and the pages are visited in random order.
+       */
+      ENTRY,
+      /**
+       * The record IDs of the whole range are collected in a {@link RecordIDBitmap} first, then each heap page
+       * with qualifying records is pinned once, in the order of the page IDs. The records are returned in the
+       * order of their record IDs.
+       */
+      BITMAP,
+      /**
+       * The tuples are built from the keys of the index entries alone, without accessing the heap file, which
+       * is only possible if the key columns cover all columns the query needs. The schema of the scan then
+       * consists of the key columns and the records are returned in key order.
+       */
+      INDEX_ONLY
+   }
+
+   /** Index on the heap file. */
+   private final BTreeIndex index;
+
+   /** Heap file, {@code null} for index-only scans. */
+   private final HeapFile file;
+
+   /** Smallest key of the range, {@code null} if it is unbounded. */
+   private final SearchKey low;
+
+   /** Largest key of the range, {@code null} if it is unbounded. */
+   private final SearchKey high;
+
+   /** How the records are retrieved. */
+   private final Mode mode;
+
+   /**
+    * Constructs a scan of the records whose keys lie in the given range, which includes both bounds.
+    *
+    * @param schema schema of the records, or of the key columns for index-only scans
+    * @param index index on the heap file
+    * @param file the heap file, may be {@code null} for index-only scans
+    * @param low smallest key of the range, {@code null} if it is unbounded
+    * @param high largest key of the range, {@code null} if it is unbounded
+    * @param mode how the records are retrieved
+    */
+   public IndexRangeScan(final Schema schema, final BTreeIndex index, final HeapFile file, final SearchKey low,
+         final SearchKey high, final Mode mode) {
+      super(schema);
+      if (mode != Mode.INDEX_ONLY && file == null) {
+         throw new IllegalArgumentException("Scans of mode " + mode + " need a heap file.");
+      }
+      this.index = index;
+      this.file = file;
+      this.low = low;
+      this.high = high;
+      this.mode = mode;
+   }
+
+   /**
+    * Checks whether an index on the given columns of a relation covers the given columns a query needs, so
+    * that an index-only scan can be used.
+    *
+    * @param keyColumns key columns of the index
+    * @param neededColumns columns the query needs
+    * @return {@code true} if all needed columns are key columns, {@code false} otherwise
+    */
+   public static boolean covers(final int[] keyColumns, final int... neededColumns) {
+      for (final int needed : neededColumns) {
+         boolean found = false;
+         for (final int key : keyColumns) {
+            found |= key == needed;
+         }
+         if (!found) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public TupleIterator open() {
+      switch (this.mode) {
+         case BITMAP:
+            return new BitmapIterator();
+         case INDEX_ONLY:
+         case ENTRY:
+         default:
+            return new EntryIterator();
+      }
+   }
+
+   /**
+    * Scan of the index entries in the range.
+    */
+   private final class Entries {
+
+      /** Scan of the index, {@code null} after the range has been exhausted. */
+      private IndexScan scan;
+
+      /** Next entry in the range, {@code null} if it has not been read yet. */
+      private IndexEntry next;
+
+      /**
+       * Opens the scan at the start of the range.
+       */
+      Entries() {
+         final IndexRangeScan range = IndexRangeScan.this;
+         this.scan = range.low == null ? range.index.openScan() : range.index.scanFrom(range.low);
+      }
+
+      /**
+       * Checks whether there is another entry in the range, closing the scan of the index when the end of the
+       * range is reached.
+       *
+       * @return {@code true} if there is another entry, {@code false} otherwise
+       */
+      boolean hasNext() {
+         if (this.next != null) {
+            return true;
+         }
+         if (this.scan != null && this.scan.hasNext()) {
+            final IndexEntry entry = this.scan.next();
+            final SearchKey high = IndexRangeScan.this.high;
+            if (high == null || entry.getSearchKey().compareTo(high) <= 0) {
+               this.next = entry;
+               return true;
+            }
+         }
+         this.close();
+         return false;
+      }
+
+      /**
+       * Returns the next entry in the range.
+       *
+       * @return the next entry
+       */
+      IndexEntry next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException("No more entries to return.");
+         }
+         final IndexEntry entry = this.next;
+         this.next = null;
+         return entry;
+      }
+
+      /**
+       * Closes the scan of the index.
+       */
+      void close() {
+         if (this.scan != null) {
+            this.scan.close();
+            this.scan = null;
+         }
+         this.next = null;
+      }
+   }
+
+   /**
+    * Iterator that returns the records or keys of the index entries in key order.
+    */
+   private final class EntryIterator implements TupleIterator {
+
+      /** Entries in the range. */
+      private Entries entries = new Entries();
+
+      @Override
+      public boolean hasNext() {
+         return this.entries.hasNext();
+      }
+
+      @Override
+      public byte[] next() {
+         final IndexEntry entry = this.entries.next();
+         final IndexRangeScan range = IndexRangeScan.this;
+         if (range.mode == Mode.ENTRY) {
+            return range.file.selectRecord(entry.getRecordID());
+         }
+         final Schema schema = range.getSchema();
+         final SearchKey key = entry.getSearchKey();
+         final byte[] tuple = schema.newTuple();
+         for (int i = 0; i < key.getValueCount(); i++) {
+            schema.setField(tuple, i, key.getValue(i));
+         }
+         return tuple;
+      }
+
+      @Override
+      public void reset() {
+         this.entries.close();
+         this.entries = new Entries();
+      }
+
+      @Override
+      public void close() {
+         this.entries.close();
+      }
+   }
+
+   /**
+    * Iterator that collects the record IDs of the range in a bitmap and then reads the heap file page by page.
+    */
+   private final class BitmapIterator implements TupleIterator {
+
+      /** Record IDs of the range. */
+      private final RecordIDBitmap bitmap = new RecordIDBitmap();
+
+      /** Records that have been read but not returned yet. */
+      private final TupleBatch buffer;
+
+      /** Index of the next record in the buffer. */
+      private int pos;
+
+      /** Index of the current page of the bitmap. */
+      private int page = -1;
+
+      /** Slot numbers of the records on the current page. */
+      private int[] slots = new int[0];
+
+      /** Index of the next slot number of the current page. */
+      private int slot;
+
+      /**
+       * Collects the record IDs of the range.
+       */
+      BitmapIterator() {
+         final Entries entries = new Entries();
+         while (entries.hasNext()) {
+            this.bitmap.add(entries.next().getRecordID());
+         }
+         this.bitmap.build();
+         this.buffer = new TupleBatch(IndexRangeScan.this.getSchema().getLength());
+      }
+
+      /**
+       * Appends the next records to the given batch until it is full or all pages have been read.
+       *
+       * @param batch the batch
+       */
+      private void fill(final TupleBatch batch) {
+         final HeapFile file = IndexRangeScan.this.file;
+         while (!batch.isFull()) {
+            if (this.slot == this.slots.length) {
+               if (this.page + 1 >= this.bitmap.getPageCount()) {
+                  return;
+               }
+               this.slots = this.bitmap.getSlots(++this.page);
+               this.slot = 0;
+            }
+            final int end = Math.min(this.slots.length, this.slot + batch.getCapacity() - batch.size());
+            file.selectRecords(PageID.getInstance(this.bitmap.getPageID(this.page)), this.slots, this.slot, end,
+                  batch);
+            this.slot = end;
+         }
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (this.pos < this.buffer.size()) {
+            return true;
+         }
+         this.buffer.clear();
+         this.pos = 0;
+         this.fill(this.buffer);
+         return !this.buffer.isEmpty();
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException("No more tuples to return.");
+         }
+         return this.buffer.get(this.pos++);
+      }
+
+      @Override
+      public int nextBatch(final TupleBatch batch) {
+         if (this.pos < this.buffer.size()) {
+            // return the buffered records first
+            return TupleIterator.super.nextBatch(batch);
+         }
+         batch.clear();
+         this.fill(batch);
+         return batch.size();
+      }
+
+      @Override
+      public void reset() {
+         this.buffer.clear();
+         this.pos = 0;
+         this.page = -1;
+         this.slots = new int[0];
+         this.slot = 0;
+      }
+
+      @Override
+      public void close() {
+         this.reset();
+      }
+   }
+}
@@ -0,0 +1,120 @@
+/*
+ * @(#)JoinIterator.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+
+import minibase.query.schema.Schema;
+
+/**
+ * Base class of the iterators of join operators. Subclasses only find the next pair of matching tuples, which
+ * may be stored at arbitrary offsets of arrays such as {@link TupleBatch}es. The joined tuple is then either
+ * allocated for {@link #next()} or written directly into the batch passed to {@link #nextBatch(TupleBatch)}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+abstract class JoinIterator implements TupleIterator {
+
+   /** Length of the left tuples. */
+   private final int leftLength;
+
+   /** Length of the right tuples. */
+   private final int rightLength;
+
+   /** Array containing the left tuple of the current match. */
+   private byte[] left;
+
+   /** Offset of the left tuple of the current match. */
+   private int leftPos;
+
+   /** Array containing the right tuple of the current match. */
+   private byte[] right;
+
+   /** Offset of the right tuple of the current match. */
+   private int rightPos;
+
+   /** Whether the current match has not been returned yet. */
+   private boolean pending;
+
+   /**
+    * Constructor.
+    *
+    * @param leftLength length of the left tuples
+    * @param rightLength length of the right tuples
+    */
+   JoinIterator(final int leftLength, final int rightLength) {
+      this.leftLength = leftLength;
+      this.rightLength = rightLength;
+   }
+
+   /**
+    * Finds the next pair of matching tuples and reports it via {@link #match(byte[], int, byte[], int)}. Both
+    * tuples must stay unchanged until the next call of this method.
+    *
+    * @return {@code true} if a match was found, {@code false} if there are no more matches
+    */
+   abstract boolean advance();
+
+   /**
+    * Sets the current match.
+    *
+    * @param leftArray array containing the left tuple
+    * @param leftOffset offset of the left tuple
+    * @param rightArray array containing the right tuple
+    * @param rightOffset offset of the right tuple
+    */
+   final void match(final byte[] leftArray, final int leftOffset, final byte[] rightArray,
+         final int rightOffset) {
+      this.left = leftArray;
+      this.leftPos = leftOffset;
+      this.right = rightArray;
+      this.rightPos = rightOffset;
+   }
+
+   /**
+    * Forgets the current match, to be called when the iterator is reset or closed.
+    */
+   final void clearMatch() {
+      this.pending = false;
+      this.left = null;
+      this.right = null;
+   }
+
+   @Override
+   public final boolean hasNext() {
+      if (!this.pending) {
+         this.pending = this.advance();
+      }
+      return this.pending;
+   }
+
+   @Override
+   public final byte[] next() {
+      // validate the next tuple
+      if (!this.hasNext()) {
+         throw new NoSuchElementException("No more tuples to return.");
+      }
+      // return (and forget) the tuple
+      this.pending = false;
+      return Schema.join(this.left, this.leftPos, this.leftLength, this.right, this.rightPos, this.rightLength);
+   }
+
+   @Override
+   public final int nextBatch(final TupleBatch batch) {
+      batch.clear();
+      while (!batch.isFull() && this.hasNext()) {
+         this.pending = false;
+         batch.add(this.left, this.leftPos, this.leftLength, this.right, this.rightPos);
+      }
+      return batch.size();
+   }
+}
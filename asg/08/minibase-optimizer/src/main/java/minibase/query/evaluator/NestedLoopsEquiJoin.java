@@ -10,8 +10,6 @@
  */
 package minibase.query.evaluator;
 
-import java.util.NoSuchElementException;
-
 import minibase.query.evaluator.compare.RecordComparator;
 import minibase.query.evaluator.compare.TupleComparator;
 import minibase.query.schema.Schema;
@@ -65,26 +63,35 @@ public final class NestedLoopsEquiJoin extends AbstractOperator {
          return TupleIterator.EMPTY;
       }
 
-      return new TupleIterator() {
+      final int outerLength = this.outer.getSchema().getLength();
+      final int innerLength = this.inner.getSchema().getLength();
+      return new JoinIterator(outerLength, innerLength) {
 
          /** Current tuple from the iterator of the outer relation. */
          private byte[] currentOuter = outer.next();
 
-         /** Next tuple to return. */
-         private byte[] next;
+         /** Current batch of tuples from the iterator of the inner relation. */
+         private final TupleBatch innerBatch = new TupleBatch(innerLength);
 
-         @Override
-         public boolean hasNext() {
-            if (this.next != null) {
-               return true;
-            }
+         /** Index of the next tuple in the batch of the inner relation. */
+         private int innerPos;
 
+         @Override
+         boolean advance() {
+            final RecordComparator predicate = NestedLoopsEquiJoin.this.predicate;
             for (;;) {
                if (this.currentOuter != null) {
-                  while (inner.hasNext()) {
-                     final byte[] currentInner = inner.next();
-                     if (NestedLoopsEquiJoin.this.predicate.equals(this.currentOuter, currentInner)) {
-                        this.next = Schema.join(this.currentOuter, currentInner);
+                  final byte[] data = this.innerBatch.getData();
+                  for (;;) {
+                     if (this.innerPos == this.innerBatch.size()) {
+                        this.innerPos = 0;
+                        if (inner.nextBatch(this.innerBatch) == 0) {
+                           break;
+                        }
+                     }
+                     final int offset = this.innerBatch.offset(this.innerPos++);
+                     if (predicate.compare(this.currentOuter, 0, data, offset) == 0) {
+                        this.match(this.currentOuter, 0, data, offset);
                         return true;
                      }
                   }
@@ -95,27 +102,19 @@ public final class NestedLoopsEquiJoin extends AbstractOperator {
                }
                this.currentOuter = outer.next();
                inner.reset();
+               this.innerBatch.clear();
+               this.innerPos = 0;
             }
          }
 
-         @Override
-         public byte[] next() {
-            // validate the next tuple
-            if (!this.hasNext()) {
-               throw new NoSuchElementException("No more tuples to return.");
-            }
-            // return (and forget) the tuple
-            final byte[] tuple = this.next;
-            this.next = null;
-            return tuple;
-         }
-
          @Override
          public void reset() {
             outer.reset();
             inner.reset();
             this.currentOuter = null;
-            this.next = null;
+            this.innerBatch.clear();
+            this.innerPos = 0;
+            this.clearMatch();
          }
 
          @Override
@@ -123,7 +122,9 @@ public final class NestedLoopsEquiJoin extends AbstractOperator {
             outer.close();
             inner.close();
             this.currentOuter = null;
-            this.next = null;
+            this.innerBatch.clear();
+            this.innerPos = 0;
+            this.clearMatch();
          }
       };
    }
@@ -0,0 +1,38 @@
+/*
+ * @(#)PipelineBreaker.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+/**
+ * Operator with a single input that has to consume its whole input before it can return its first tuple, e.g.,
+ * sorting or aggregation. The {@link PipelineExecutor} runs the input of such an operator as a pipeline of its
+ * own and evaluates the operator on a stream of the pipeline's result.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+interface PipelineBreaker extends Operator {
+
+   /**
+    * Returns the input relation.
+    *
+    * @return input relation
+    */
+   Operator getInput();
+
+   /**
+    * Returns an operator that is equal to this one, but reads the given input, which has the same schema as the
+    * input of this operator.
+    *
+    * @param input the new input relation
+    * @return the new operator
+    */
+   Operator withInput(Operator input);
+}
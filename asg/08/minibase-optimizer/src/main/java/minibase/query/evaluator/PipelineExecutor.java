@@ -0,0 +1,763 @@
+/*
+ * @(#)PipelineExecutor.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import minibase.access.file.HeapFile;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.PageID;
+
+/**
+ * Push-based alternative to evaluating an operator tree by pulling tuples from its root. The tree is compiled
+ * into pipelines, each of which starts at a source and pushes {@link TupleBatch}es through a chain of
+ * operators that do not have to see their whole input, i.e., selections, projections and the probe side of
+ * hash joins. All workers of a thread pool run the same pipeline and fetch their input from the source in
+ * morsels, which for scans of heap files are ranges of data pages, so that the work is balanced dynamically
+ * instead of being partitioned up front.
+ * <p>
+ * Pipelines only meet at pipeline breakers: the build input of a hash join is run as a pipeline of its own
+ * and loaded into a hash table that all workers of the probing pipeline share. If it does not fit into the
+ * buffer pages of the join, the join partitions both of its inputs, which are streamed, as if it was evaluated
+ * by pulling. {@link PipelineBreaker}s such as sorting, aggregation and duplicate elimination pull their input
+ * from a pipeline that runs concurrently on a pool of its own and hands its batches over through a bounded
+ * queue. The breakers thus keep their own bounds on memory, the result of a pipeline is never collected as a
+ * whole. The result of the tree
+ * is streamed in the same way. Operators that cannot be compiled are evaluated by pulling from them, and the
+ * workers fetch their result in batches.
+ * <p>
+ * The workers push their batches concurrently, so the order of the result is only defined if the root of the
+ * tree is a sort. Predicates and comparators of the compiled operators have to be thread-safe.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class PipelineExecutor {
+
+   /** Default number of data pages per morsel. */
+   public static final int DEFAULT_MORSEL_PAGES = 16;
+
+   /** Number of batches per worker that a streamed pipeline can hand over before the workers wait. */
+   private static final int QUEUED_BATCHES = 2;
+
+   /** Time in milliseconds to wait for a batch or free space in a queue before checking for failures. */
+   private static final long POLL_MILLIS = 10;
+
+   /** Number of worker threads. */
+   private final int workers;
+
+   /** Number of data pages per morsel. */
+   private final int morselPages;
+
+   /**
+    * Constructs an executor with the given number of worker threads and morsels of
+    * {@link #DEFAULT_MORSEL_PAGES} pages.
+    *
+    * @param workers number of worker threads, at least {@code 1}
+    * @throws IllegalArgumentException if the number of workers is smaller than one
+    */
+   public PipelineExecutor(final int workers) {
+      this(workers, DEFAULT_MORSEL_PAGES);
+   }
+
+   /**
+    * Constructs an executor with the given number of worker threads and data pages per morsel.
+    *
+    * @param workers number of worker threads, at least {@code 1}
+    * @param morselPages number of data pages per morsel, at least {@code 1}
+    * @throws IllegalArgumentException if one of the numbers is smaller than one
+    */
+   public PipelineExecutor(final int workers, final int morselPages) {
+      if (workers < 1 || morselPages < 1) {
+         throw new IllegalArgumentException("Workers and pages per morsel must be positive.");
+      }
+      this.workers = workers;
+      this.morselPages = morselPages;
+   }
+
+   /**
+    * Evaluates the given operator tree. The hash tables of the hash joins are built before this method returns,
+    * all other pipelines run while the result is read. Its pipeline is started when the result is opened, or
+    * the root is evaluated on a stream of its input if it is a {@link PipelineBreaker}.
+    *
+    * @param plan root of the operator tree
+    * @return iterator over the result
+    */
+   public TupleIterator execute(final Operator plan) {
+      if (plan instanceof PipelineBreaker) {
+         final PipelineBreaker breaker = (PipelineBreaker) plan;
+         return breaker.withInput(this.stream(breaker.getInput())).open();
+      }
+      return this.stream(plan).open();
+   }
+
+   /**
+    * Compiles an operator tree into a pipeline, building the hash tables of the hash joins in it first.
+    *
+    * @param operator root of the operator tree
+    * @return the pipeline that produces the result of the tree
+    */
+   private Pipeline compile(final Operator operator) {
+      if (operator instanceof TableScan && ((TableScan) operator).getFile() instanceof HeapFile) {
+         return new Pipeline(new PageSource((HeapFile) ((TableScan) operator).getFile(), this.morselPages),
+               operator.getSchema());
+      }
+      if (operator instanceof Selection) {
+         final Selection selection = (Selection) operator;
+         return this.compile(selection.getInput()).then(next -> new Sink() {
+
+            @Override
+            public void push(final TupleBatch batch) {
+               if (batch.retain(selection.test(batch.getData())) > 0) {
+                  next.push(batch);
+               }
+            }
+
+            @Override
+            public void finish() {
+               next.finish();
+            }
+         });
+      }
+      if (operator instanceof Projection) {
+         final Projection projection = (Projection) operator;
+         final int recordLength = projection.getSchema().getLength();
+         return this.compile(projection.getInput()).then(next -> new OutputSink(next, recordLength) {
+
+            @Override
+            public void push(final TupleBatch batch) {
+               final byte[] data = batch.getData();
+               for (int i = 0; i < batch.size(); i++) {
+                  projection.project(data, batch.offset(i), this.getData(), this.reserve());
+               }
+            }
+         });
+      }
+      if (operator instanceof HashEquiJoin) {
+         final HashEquiJoin join = (HashEquiJoin) operator;
+         final HashTable table = new HashTable();
+         final int capacity = join.capacity();
+         final AtomicBoolean overflow = new AtomicBoolean();
+         final Pipeline build = this.compile(join.getInner());
+         this.run(build, new Sink() {
+
+            @Override
+            public void push(final TupleBatch batch) {
+               synchronized (table) {
+                  for (int i = 0; i < batch.size() && !overflow.get(); i++) {
+                     if (table.size() < capacity) {
+                        join.insert(table, batch.get(i));
+                     } else {
+                        overflow.set(true);
+                     }
+                  }
+               }
+            }
+
+            @Override
+            public void finish() {
+               // the table is complete when all workers have finished
+            }
+         }, overflow);
+         if (overflow.get()) {
+            // the build input exceeds the buffer pages of the join, which then partitions both inputs itself
+            table.clear();
+            final Operator partitioned = join.withInputs(this.stream(join.getOuter()),
+                  new Streamed(join.getInner().getSchema(), build));
+            return new Pipeline(new IteratorSource(partitioned), partitioned.getSchema());
+         }
+         final int outerLength = join.getOuter().getSchema().getLength();
+         final int recordLength = join.getSchema().getLength();
+         return this.compile(join.getOuter()).then(next -> new OutputSink(next, recordLength) {
+
+            @Override
+            public void push(final TupleBatch batch) {
+               final byte[] data = batch.getData();
+               for (int i = 0; i < batch.size(); i++) {
+                  final int offset = batch.offset(i);
+                  for (int entry = join.find(table, data, offset); entry != HashTable.NONE;
+                        entry = table.next(entry)) {
+                     final byte[] tuple = table.get(entry);
+                     if (join.matches(data, offset, tuple)) {
+                        final int pos = this.reserve();
+                        System.arraycopy(data, offset, this.getData(), pos, outerLength);
+                        System.arraycopy(tuple, 0, this.getData(), pos + outerLength, recordLength - outerLength);
+                     }
+                  }
+               }
+            }
+         });
+      }
+      if (operator instanceof PipelineBreaker) {
+         final PipelineBreaker breaker = (PipelineBreaker) operator;
+         final Operator evaluated = breaker.withInput(this.stream(breaker.getInput()));
+         return new Pipeline(new IteratorSource(evaluated), evaluated.getSchema());
+      }
+      return new Pipeline(new IteratorSource(operator), operator.getSchema());
+   }
+
+   /**
+    * Compiles an operator tree into a pipeline whose result is streamed when it is opened.
+    *
+    * @param operator root of the operator tree
+    * @return operator that runs the pipeline and reads its result
+    */
+   private Operator stream(final Operator operator) {
+      return new Streamed(operator.getSchema(), this.compile(operator));
+   }
+
+   /**
+    * Runs a pipeline on all workers of a pool of its own and waits until it has finished.
+    *
+    * @param pipeline the pipeline
+    * @param last thread-safe sink that receives the result of all workers
+    * @param stopped flag that makes the workers stop after their current morsel
+    */
+   private void run(final Pipeline pipeline, final Sink last, final AtomicBoolean stopped) {
+      final ForkJoinPool pool = new ForkJoinPool(this.workers);
+      pipeline.source.open();
+      final List<ForkJoinTask<?>> tasks = this.submit(pipeline, last, pool, stopped);
+      // the source may only be closed when no worker uses it anymore
+      for (final ForkJoinTask<?> task : tasks) {
+         task.quietlyJoin();
+      }
+      pipeline.source.close();
+      pool.shutdown();
+      for (final ForkJoinTask<?> task : tasks) {
+         // rethrows the exception of a failed worker
+         task.join();
+      }
+   }
+
+   /**
+    * Starts the workers of a pipeline on the given pool, whose source has been opened.
+    *
+    * @param pipeline the pipeline
+    * @param last thread-safe sink that receives the result of all workers
+    * @param pool pool of worker threads
+    * @param stopped flag that makes the workers stop after their current morsel
+    * @return the tasks of the workers
+    */
+   private List<ForkJoinTask<?>> submit(final Pipeline pipeline, final Sink last, final ForkJoinPool pool,
+         final AtomicBoolean stopped) {
+      final List<ForkJoinTask<?>> tasks = new ArrayList<>(this.workers);
+      for (int w = 0; w < this.workers; w++) {
+         tasks.add(pool.submit(() -> {
+            final Sink sink = pipeline.open(last);
+            final TupleBatch batch = new TupleBatch(pipeline.sourceLength);
+            while (!stopped.get() && pipeline.source.push(batch, sink)) {
+               batch.clear();
+            }
+            sink.finish();
+         }));
+      }
+      return tasks;
+   }
+
+   /**
+    * Receiver of the batches that one worker pushes through a pipeline.
+    */
+   private interface Sink {
+
+      /**
+       * Consumes a batch. The sink may modify the batch, but must not keep it.
+       *
+       * @param batch the batch
+       */
+      void push(TupleBatch batch);
+
+      /**
+       * Signals that the worker has pushed its last batch.
+       */
+      void finish();
+   }
+
+   /**
+    * Operator in a pipeline, which creates a sink for every worker.
+    */
+   private interface Stage {
+
+      /**
+       * Creates a sink that processes batches and pushes its results to the given sink.
+       *
+       * @param next the next sink of the pipeline
+       * @return the new sink
+       */
+      Sink open(Sink next);
+   }
+
+   /**
+    * Sink that writes its results into a batch of its own, which is pushed on when it is full.
+    */
+   private abstract static class OutputSink implements Sink {
+
+      /** The next sink of the pipeline. */
+      private final Sink next;
+
+      /** Batch of results. */
+      private final TupleBatch output;
+
+      /**
+       * Constructor.
+       *
+       * @param next the next sink of the pipeline
+       * @param recordLength length of the results
+       */
+      OutputSink(final Sink next, final int recordLength) {
+         this.next = next;
+         this.output = new TupleBatch(recordLength);
+      }
+
+      /**
+       * Returns the data array of the batch of results, which is only valid until the next call of
+       * {@link #reserve()}.
+       *
+       * @return the data array
+       */
+      byte[] getData() {
+         return this.output.getData();
+      }
+
+      /**
+       * Reserves space for a result, pushing the batch of results on first if it is full.
+       *
+       * @return offset of the result in the {@link #getData() data array}
+       */
+      int reserve() {
+         if (this.output.isFull()) {
+            this.next.push(this.output);
+            this.output.clear();
+         }
+         return this.output.reserve(1);
+      }
+
+      @Override
+      public void finish() {
+         if (!this.output.isEmpty()) {
+            this.next.push(this.output);
+            this.output.clear();
+         }
+         this.next.finish();
+      }
+   }
+
+   /**
+    * Source of a pipeline, which hands out its tuples in morsels.
+    */
+   private interface Source {
+
+      /**
+       * Prepares this source for a run of its pipeline, starting at its first tuple.
+       */
+      void open();
+
+      /**
+       * Pushes the next morsel to the given sink, using the given batch.
+       *
+       * @param batch empty batch that the tuples are read into
+       * @param sink the sink
+       * @return {@code true} if a morsel was pushed, {@code false} if the source is exhausted
+       */
+      boolean push(TupleBatch batch, Sink sink);
+
+      /**
+       * Releases the resources of this source after a run of its pipeline.
+       */
+      void close();
+   }
+
+   /**
+    * Source that reads a heap file in morsels of consecutive data pages.
+    */
+   private static final class PageSource implements Source {
+
+      /** The heap file. */
+      private final HeapFile file;
+
+      /** Data pages of the heap file. */
+      private final List<PageID> pages;
+
+      /** Number of data pages per morsel. */
+      private final int morselPages;
+
+      /** Index of the first data page of the next morsel. */
+      private final AtomicInteger next = new AtomicInteger();
+
+      /**
+       * Constructor.
+       *
+       * @param file the heap file
+       * @param morselPages number of data pages per morsel
+       */
+      PageSource(final HeapFile file, final int morselPages) {
+         this.file = file;
+         this.pages = file.getDataPages();
+         this.morselPages = morselPages;
+      }
+
+      @Override
+      public void open() {
+         this.next.set(0);
+      }
+
+      @Override
+      public boolean push(final TupleBatch batch, final Sink sink) {
+         final int start = this.next.getAndAdd(this.morselPages);
+         if (start >= this.pages.size()) {
+            return false;
+         }
+         for (int p = start; p < Math.min(start + this.morselPages, this.pages.size()); p++) {
+            this.file.selectPage(this.pages.get(p), batch, sink::push);
+         }
+         if (!batch.isEmpty()) {
+            sink.push(batch);
+         }
+         return true;
+      }
+
+      @Override
+      public void close() {
+         // the pages are only pinned while a morsel is read
+      }
+   }
+
+   /**
+    * Source that pulls its tuples from an operator, one batch per morsel.
+    */
+   private static final class IteratorSource implements Source {
+
+      /** The operator. */
+      private final Operator operator;
+
+      /** Iterator over the result of the operator, {@code null} if it is not open. */
+      private TupleIterator iterator;
+
+      /**
+       * Constructor.
+       *
+       * @param operator the operator
+       */
+      IteratorSource(final Operator operator) {
+         this.operator = operator;
+      }
+
+      @Override
+      public synchronized void open() {
+         this.iterator = this.operator.open();
+      }
+
+      @Override
+      public boolean push(final TupleBatch batch, final Sink sink) {
+         synchronized (this) {
+            if (this.iterator.nextBatch(batch) == 0) {
+               return false;
+            }
+         }
+         sink.push(batch);
+         return true;
+      }
+
+      @Override
+      public synchronized void close() {
+         if (this.iterator != null) {
+            this.iterator.close();
+            this.iterator = null;
+         }
+      }
+   }
+
+   /**
+    * Source and chain of stages that is run by all workers.
+    */
+   private static final class Pipeline {
+
+      /** Source of the pipeline. */
+      private final Source source;
+
+      /** Length of the tuples of the source. */
+      private final int sourceLength;
+
+      /** Stages of the pipeline, in the order in which the tuples pass them. */
+      private final List<Stage> stages = new ArrayList<>();
+
+      /**
+       * Constructs a pipeline without stages.
+       *
+       * @param source source of the pipeline
+       * @param schema schema of the tuples of the source
+       */
+      Pipeline(final Source source, final Schema schema) {
+         this.source = source;
+         this.sourceLength = schema.getLength();
+      }
+
+      /**
+       * Appends a stage to this pipeline.
+       *
+       * @param stage the stage
+       * @return this pipeline
+       */
+      Pipeline then(final Stage stage) {
+         this.stages.add(stage);
+         return this;
+      }
+
+      /**
+       * Creates the sinks of one worker.
+       *
+       * @param last sink that receives the result of the pipeline
+       * @return sink of the first stage
+       */
+      Sink open(final Sink last) {
+         Sink sink = last;
+         for (int i = this.stages.size() - 1; i >= 0; i--) {
+            sink = this.stages.get(i).open(sink);
+         }
+         return sink;
+      }
+   }
+
+   /**
+    * Relation that is produced by a pipeline while it is read, so that it is never kept as a whole.
+    */
+   private final class Streamed extends AbstractOperator {
+
+      /** The pipeline. */
+      private final Pipeline pipeline;
+
+      /** Whether an iterator over the relation is open, which runs the pipeline. */
+      private final AtomicBoolean running = new AtomicBoolean();
+
+      /**
+       * Constructor.
+       *
+       * @param schema schema of the relation
+       * @param pipeline the pipeline
+       */
+      Streamed(final Schema schema, final Pipeline pipeline) {
+         super(schema);
+         this.pipeline = pipeline;
+      }
+
+      @Override
+      public TupleIterator open() {
+         if (!this.running.compareAndSet(false, true)) {
+            throw new IllegalStateException("The pipeline is already being run by another iterator.");
+         }
+         return new PipelineIterator(this);
+      }
+   }
+
+   /**
+    * Iterator that runs a pipeline on a pool of its own and returns the batches that its workers hand over
+    * through a bounded queue. The workers wait while the queue is full, so only a few batches per worker are
+    * held at any time.
+    */
+   private final class PipelineIterator implements TupleIterator {
+
+      /** The streamed relation. */
+      private final Streamed relation;
+
+      /** Batches handed over by the workers. */
+      private final BlockingQueue<TupleBatch> queue;
+
+      /** Empty batch that marks the end of the result in the queue. */
+      private final TupleBatch end;
+
+      /** Flag that makes the workers of the current run stop. */
+      private AtomicBoolean stopped;
+
+      /** Pool of the workers, {@code null} if the pipeline is not running. */
+      private ForkJoinPool pool;
+
+      /** Tasks of the workers. */
+      private List<ForkJoinTask<?>> tasks;
+
+      /** Current batch, {@code null} if the end of the result has been reached. */
+      private TupleBatch batch;
+
+      /** Index of the next tuple in the current batch. */
+      private int pos;
+
+      /** Whether this iterator has been closed. */
+      private boolean closed;
+
+      /**
+       * Constructs an iterator and starts the pipeline.
+       *
+       * @param relation the streamed relation
+       */
+      PipelineIterator(final Streamed relation) {
+         this.relation = relation;
+         this.queue = new ArrayBlockingQueue<>(QUEUED_BATCHES * PipelineExecutor.this.workers + 1);
+         this.end = new TupleBatch(relation.getSchema().getLength(), 1);
+         this.start();
+      }
+
+      /**
+       * Starts the workers of the pipeline.
+       */
+      private void start() {
+         final Pipeline pipeline = this.relation.pipeline;
+         final int recordLength = this.relation.getSchema().getLength();
+         final AtomicBoolean stop = new AtomicBoolean();
+         final AtomicInteger remaining = new AtomicInteger(PipelineExecutor.this.workers);
+         this.stopped = stop;
+         this.batch = this.end;
+         this.pos = 0;
+         this.pool = new ForkJoinPool(PipelineExecutor.this.workers);
+         pipeline.source.open();
+         this.tasks = PipelineExecutor.this.submit(pipeline, new Sink() {
+
+            @Override
+            public void push(final TupleBatch input) {
+               if (!input.isEmpty()) {
+                  final TupleBatch copy = new TupleBatch(recordLength, input.size());
+                  System.arraycopy(input.getData(), input.offset(0), copy.getData(), copy.reserve(input.size()),
+                        input.size() * recordLength);
+                  PipelineIterator.this.offer(copy, stop);
+               }
+            }
+
+            @Override
+            public void finish() {
+               if (remaining.decrementAndGet() == 0) {
+                  PipelineIterator.this.offer(PipelineIterator.this.end, stop);
+               }
+            }
+         }, this.pool, stop);
+      }
+
+      /**
+       * Hands a batch over to the reader, waiting while the queue is full.
+       *
+       * @param handed the batch
+       * @param stop flag of the run that the batch belongs to
+       */
+      private void offer(final TupleBatch handed, final AtomicBoolean stop) {
+         try {
+            while (!stop.get() && !this.queue.offer(handed, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+               // the reader has not taken a batch yet
+            }
+         } catch (final InterruptedException e) {
+            throw new IllegalStateException("Interrupted while handing over a batch.", e);
+         }
+      }
+
+      /**
+       * Advances to the next batch if the current one has been read completely.
+       *
+       * @return {@code true} if there are tuples left in the current batch
+       */
+      private boolean advance() {
+         while (this.batch != null && this.pos == this.batch.size()) {
+            final TupleBatch next = this.take();
+            this.batch = next == this.end ? null : next;
+            this.pos = 0;
+         }
+         return this.batch != null;
+      }
+
+      /**
+       * Takes the next batch from the queue, rethrowing the exception of a worker that has failed.
+       *
+       * @return the batch
+       */
+      private TupleBatch take() {
+         try {
+            TupleBatch next;
+            while ((next = this.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+               for (final ForkJoinTask<?> task : this.tasks) {
+                  if (task.isCompletedAbnormally()) {
+                     this.stop();
+                     task.join();
+                  }
+               }
+            }
+            return next;
+         } catch (final InterruptedException e) {
+            this.stop();
+            throw new IllegalStateException("Interrupted while waiting for a batch.", e);
+         }
+      }
+
+      /**
+       * Stops the workers and waits for them. They are not interrupted, since that would close the channels of
+       * file-based disk managers.
+       */
+      private void stop() {
+         if (this.pool == null) {
+            return;
+         }
+         this.stopped.set(true);
+         for (final ForkJoinTask<?> task : this.tasks) {
+            task.quietlyJoin();
+         }
+         this.queue.clear();
+         this.relation.pipeline.source.close();
+         this.pool.shutdown();
+         this.pool = null;
+      }
+
+      @Override
+      public boolean hasNext() {
+         return this.advance();
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.advance()) {
+            throw new NoSuchElementException("No more tuples to return.");
+         }
+         return this.batch.get(this.pos++);
+      }
+
+      @Override
+      public int nextBatch(final TupleBatch target) {
+         target.clear();
+         while (!target.isFull() && this.advance()) {
+            final int count = Math.min(target.getCapacity() - target.size(), this.batch.size() - this.pos);
+            System.arraycopy(this.batch.getData(), this.batch.offset(this.pos), target.getData(),
+                  target.reserve(count), count * this.batch.getRecordLength());
+            this.pos += count;
+         }
+         return target.size();
+      }
+
+      @Override
+      public void reset() {
+         if (this.closed) {
+            throw new IllegalStateException("The iterator has already been closed.");
+         }
+         this.stop();
+         this.start();
+      }
+
+      @Override
+      public void close() {
+         if (!this.closed) {
+            this.closed = true;
+            this.stop();
+            this.batch = null;
+            this.relation.running.set(false);
+         }
+      }
+   }
+}
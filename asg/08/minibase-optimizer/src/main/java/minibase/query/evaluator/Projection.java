@@ -0,0 +1,153 @@
+/*
+ * @(#)Projection.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+
+/**
+ * Projection operator that returns the selected columns of its input. The column selection is compiled into
+ * a plan of byte ranges when the operator is constructed, where columns that are adjacent in both the input
+ * and the output are copied together. Batches of input tuples are projected without creating intermediate
+ * tuples.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class Projection extends AbstractOperator {
+
+   /** Input relation. */
+   private final Operator input;
+
+   /** Start positions of the copied ranges in the input tuples. */
+   private final int[] sources;
+
+   /** Start positions of the copied ranges in the output tuples. */
+   private final int[] targets;
+
+   /** Lengths of the copied ranges. */
+   private final int[] lengths;
+
+   /**
+    * Constructs a projection.
+    *
+    * @param input input relation
+    * @param columns indexes of the input columns to return, in the order of the output columns
+    */
+   public Projection(final Operator input, final int... columns) {
+      super(new SchemaBuilder(input.getSchema(), columns).build());
+      this.input = input;
+      final Schema schema = input.getSchema();
+      final int[] sources = new int[columns.length];
+      final int[] lengths = new int[columns.length];
+      final int[] targets = new int[columns.length];
+      int ranges = 0;
+      int target = 0;
+      for (final int column : columns) {
+         final int source = schema.getColumnOffset(column);
+         final int length = schema.getColumn(column).getSize();
+         if (ranges > 0 && sources[ranges - 1] + lengths[ranges - 1] == source) {
+            lengths[ranges - 1] += length;
+         } else {
+            sources[ranges] = source;
+            targets[ranges] = target;
+            lengths[ranges] = length;
+            ranges++;
+         }
+         target += length;
+      }
+      this.sources = Arrays.copyOf(sources, ranges);
+      this.targets = Arrays.copyOf(targets, ranges);
+      this.lengths = Arrays.copyOf(lengths, ranges);
+   }
+
+   /**
+    * Returns the input relation.
+    *
+    * @return input relation
+    */
+   Operator getInput() {
+      return this.input;
+   }
+
+   /**
+    * Projects a tuple.
+    *
+    * @param data array containing the input tuple
+    * @param offset offset of the input tuple
+    * @param result array to write the output tuple to
+    * @param pos offset of the output tuple
+    */
+   void project(final byte[] data, final int offset, final byte[] result, final int pos) {
+      for (int i = 0; i < this.sources.length; i++) {
+         System.arraycopy(data, offset + this.sources[i], result, pos + this.targets[i], this.lengths[i]);
+      }
+   }
+
+   @Override
+   public TupleIterator open() {
+      final TupleIterator input = this.input.open();
+      final int recordLength = this.getSchema().getLength();
+      final int inputLength = this.input.getSchema().getLength();
+      return new TupleIterator() {
+
+         /** Batch the input is read into, created on first use. */
+         private TupleBatch buffer;
+
+         @Override
+         public boolean hasNext() {
+            return input.hasNext();
+         }
+
+         @Override
+         public byte[] next() {
+            if (!input.hasNext()) {
+               throw new NoSuchElementException("No more tuples to return.");
+            }
+            final byte[] result = new byte[recordLength];
+            Projection.this.project(input.next(), 0, result, 0);
+            return result;
+         }
+
+         @Override
+         public int nextBatch(final TupleBatch batch) {
+            if (this.buffer == null || this.buffer.getCapacity() != batch.getCapacity()) {
+               this.buffer = new TupleBatch(inputLength, batch.getCapacity());
+            }
+            batch.clear();
+            final int n = input.nextBatch(this.buffer);
+            if (n > 0) {
+               final byte[] data = this.buffer.getData();
+               final byte[] result = batch.getData();
+               final int pos = batch.reserve(n);
+               for (int i = 0; i < n; i++) {
+                  Projection.this.project(data, this.buffer.offset(i), result, pos + i * recordLength);
+               }
+            }
+            return n;
+         }
+
+         @Override
+         public void reset() {
+            input.reset();
+         }
+
+         @Override
+         public void close() {
+            input.close();
+            this.buffer = null;
+         }
+      };
+   }
+}
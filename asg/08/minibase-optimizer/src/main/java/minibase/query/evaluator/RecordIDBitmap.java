@@ -0,0 +1,133 @@
+/*
+ * @(#)RecordIDBitmap.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.Arrays;
+
+import minibase.RecordID;
+
+/**
+ * Set of record IDs that is grouped by page. Record IDs are collected in any order, {@link #build()} then
+ * sorts them and compresses them into one bitmap of slot numbers per page, which only covers the pages that
+ * contain records and only the words up to the highest slot number on each page. The pages are returned in
+ * ascending order of their IDs and the slots of each page in ascending order, so that a heap file can be read
+ * page by page without visiting a page twice.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class RecordIDBitmap {
+
+   /** Record IDs collected before building, as page ID and slot number in the high and low 32 bits. */
+   private long[] ids = new long[64];
+
+   /** Number of collected record IDs. */
+   private int size;
+
+   /** IDs of the pages in ascending order, {@code null} before building. */
+   private int[] pages;
+
+   /** Index of the first word of each page's bitmap in {@link #words}, and the end of the last bitmap. */
+   private int[] starts;
+
+   /** Bitmaps of the slot numbers of all pages. */
+   private long[] words;
+
+   /**
+    * Adds a record ID to this bitmap before it is built.
+    *
+    * @param rid the record ID
+    */
+   void add(final RecordID rid) {
+      if (this.pages != null) {
+         throw new IllegalStateException("The bitmap has already been built.");
+      }
+      if (this.size == this.ids.length) {
+         this.ids = Arrays.copyOf(this.ids, 2 * this.size);
+      }
+      this.ids[this.size++] = (long) rid.getPageID().getValue() << 32 | rid.getSlotNo();
+   }
+
+   /**
+    * Groups the collected record IDs by page and compresses them into bitmaps.
+    */
+   void build() {
+      Arrays.sort(this.ids, 0, this.size);
+      int numPages = 0;
+      int numWords = 0;
+      for (int i = 0; i < this.size; i++) {
+         if (i + 1 == this.size || this.ids[i] >>> 32 != this.ids[i + 1] >>> 32) {
+            // the last slot number of a page determines the length of its bitmap
+            numPages++;
+            numWords += ((int) this.ids[i] >>> 6) + 1;
+         }
+      }
+      this.pages = new int[numPages];
+      this.starts = new int[numPages + 1];
+      this.words = new long[numWords];
+      int page = -1;
+      int start = 0;
+      for (int i = 0; i < this.size; i++) {
+         final int slot = (int) this.ids[i];
+         if (i == 0 || this.ids[i] >>> 32 != this.ids[i - 1] >>> 32) {
+            this.pages[++page] = (int) (this.ids[i] >>> 32);
+            this.starts[page] = start;
+         }
+         this.words[this.starts[page] + (slot >>> 6)] |= 1L << slot;
+         if (i + 1 == this.size || this.ids[i] >>> 32 != this.ids[i + 1] >>> 32) {
+            start = this.starts[page] + (slot >>> 6) + 1;
+         }
+      }
+      this.starts[numPages] = start;
+      this.ids = null;
+      this.size = 0;
+   }
+
+   /**
+    * Returns the number of pages with records in this bitmap.
+    *
+    * @return number of pages
+    */
+   int getPageCount() {
+      return this.pages.length;
+   }
+
+   /**
+    * Returns the ID of the given page.
+    *
+    * @param page index of the page
+    * @return ID of the page
+    */
+   int getPageID(final int page) {
+      return this.pages[page];
+   }
+
+   /**
+    * Returns the slot numbers of the records on the given page in ascending order.
+    *
+    * @param page index of the page
+    * @return slot numbers
+    */
+   int[] getSlots(final int page) {
+      int count = 0;
+      for (int i = this.starts[page]; i < this.starts[page + 1]; i++) {
+         count += Long.bitCount(this.words[i]);
+      }
+      final int[] slots = new int[count];
+      int pos = 0;
+      for (int i = this.starts[page]; i < this.starts[page + 1]; i++) {
+         for (long word = this.words[i]; word != 0; word &= word - 1) {
+            slots[pos++] = (i - this.starts[page]) << 6 | Long.numberOfTrailingZeros(word);
+         }
+      }
+      return slots;
+   }
+}
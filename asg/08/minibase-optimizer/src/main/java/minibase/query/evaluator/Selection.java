@@ -0,0 +1,145 @@
+/*
+ * @(#)Selection.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+import minibase.query.evaluator.predicate.CompiledPredicate;
+import minibase.query.evaluator.predicate.Predicate;
+
+/**
+ * Selection operator that only returns the tuples of its input that satisfy a predicate. The input is read
+ * in {@link TupleBatch}es, which are filtered in place, so that rejected tuples are never copied.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class Selection extends AbstractOperator {
+
+   /** Input relation. */
+   private final Operator input;
+
+   /** Selection predicate. */
+   private final Predicate<Boolean> predicate;
+
+   /**
+    * Constructs a selection.
+    *
+    * @param input input relation
+    * @param predicate selection predicate
+    */
+   public Selection(final Operator input, final Predicate<Boolean> predicate) {
+      super(input.getSchema());
+      this.input = input;
+      this.predicate = predicate;
+   }
+
+   /**
+    * Returns the input relation.
+    *
+    * @return input relation
+    */
+   Operator getInput() {
+      return this.input;
+   }
+
+   /**
+    * Returns a test of the selection predicate on the tuples of the given array, which receives their offsets.
+    *
+    * @param data array containing the tuples
+    * @return the test
+    */
+   IntPredicate test(final byte[] data) {
+      final Predicate<Boolean> predicate = this.predicate;
+      if (predicate instanceof CompiledPredicate) {
+         final CompiledPredicate compiled = (CompiledPredicate) predicate;
+         return offset -> compiled.test(data, offset);
+      }
+      return offset -> predicate.eval(data, offset);
+   }
+
+   @Override
+   public TupleIterator open() {
+      final TupleIterator input = this.input.open();
+      final int recordLength = this.getSchema().getLength();
+      return new TupleIterator() {
+
+         /** Batch of qualifying tuples that are returned by {@link #next()}. */
+         private final TupleBatch buffer = new TupleBatch(recordLength);
+
+         /** Index of the next tuple in the buffer. */
+         private int pos;
+
+         @Override
+         public boolean hasNext() {
+            if (this.pos == this.buffer.size()) {
+               this.pos = 0;
+               return this.fill(this.buffer) > 0;
+            }
+            return true;
+         }
+
+         @Override
+         public byte[] next() {
+            if (!this.hasNext()) {
+               throw new NoSuchElementException("No more tuples to return.");
+            }
+            return this.buffer.get(this.pos++);
+         }
+
+         @Override
+         public int nextBatch(final TupleBatch batch) {
+            if (this.pos < this.buffer.size()) {
+               // hand out the tuples that are left over from calls to next()
+               batch.clear();
+               final byte[] data = this.buffer.getData();
+               while (this.pos < this.buffer.size() && !batch.isFull()) {
+                  System.arraycopy(data, this.buffer.offset(this.pos++), batch.getData(), batch.reserve(1),
+                        recordLength);
+               }
+               return batch.size();
+            }
+            return this.fill(batch);
+         }
+
+         /**
+          * Fills the given batch with the next qualifying tuples of the input.
+          *
+          * @param batch the batch
+          * @return number of tuples in the batch, {@code 0} if the input is exhausted
+          */
+         private int fill(final TupleBatch batch) {
+            final IntPredicate test = Selection.this.test(batch.getData());
+            while (input.nextBatch(batch) > 0) {
+               if (batch.retain(test) > 0) {
+                  return batch.size();
+               }
+            }
+            return 0;
+         }
+
+         @Override
+         public void reset() {
+            input.reset();
+            this.buffer.clear();
+            this.pos = 0;
+         }
+
+         @Override
+         public void close() {
+            input.close();
+            this.buffer.clear();
+            this.pos = 0;
+         }
+      };
+   }
+}
@@ -0,0 +1,177 @@
+/*
+ * @(#)SortAggregation.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+
+import minibase.query.AggregationType;
+
+/**
+ * Sort-based grouping and aggregation (see textbook, 3rd edition, section 14.6, page 469). The input has to
+ * be sorted on the group columns, e.g., by an {@link ExternalSort} with a
+ * {@link minibase.query.evaluator.compare.TupleComparator} on them, so that the tuples of each group are
+ * adjacent. The groups are then aggregated in one pass that only keeps the state of the current group.
+ * <p>
+ * The output tuples are the same as those of a {@link HashAggregation} and are returned in the order of the
+ * input.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class SortAggregation extends AbstractOperator {
+
+   /** Input relation, sorted on the group columns. */
+   private final Operator input;
+
+   /** Whether there are no group columns. */
+   private final boolean global;
+
+   /** Aggregator computing the aggregation functions. */
+   private final Aggregator aggregator;
+
+   /**
+    * Constructs an aggregation, given the sorted input, the group columns and the aggregation functions with
+    * the columns they are applied to.
+    *
+    * @param input input relation, sorted on the group columns
+    * @param groupColumns group columns, which may be empty
+    * @param functions aggregation functions
+    * @param columns columns the aggregation functions are applied to, {@code -1} for {@code COUNT(*)}
+    * @throws IllegalArgumentException if the functions cannot be applied to the columns
+    */
+   public SortAggregation(final Operator input, final int[] groupColumns, final AggregationType[] functions,
+         final int[] columns) {
+      this(input, new Aggregator(input.getSchema(), groupColumns, functions, columns), groupColumns.length == 0);
+   }
+
+   /**
+    * Constructs an aggregation of a partition of a {@link HashAggregation}, which never returns the empty
+    * group.
+    *
+    * @param input input relation, sorted on the group columns
+    * @param aggregator aggregator computing the aggregation functions
+    */
+   SortAggregation(final Operator input, final Aggregator aggregator) {
+      this(input, aggregator, false);
+   }
+
+   /**
+    * Constructs an aggregation.
+    *
+    * @param input input relation, sorted on the group columns
+    * @param aggregator aggregator computing the aggregation functions
+    * @param global whether there are no group columns, so that an empty input has one empty group
+    */
+   private SortAggregation(final Operator input, final Aggregator aggregator, final boolean global) {
+      super(aggregator.getSchema());
+      this.input = input;
+      this.aggregator = aggregator;
+      this.global = global;
+   }
+
+   @Override
+   public TupleIterator open() {
+      return new AggregationIterator();
+   }
+
+   /**
+    * Iterator that aggregates one group at a time.
+    */
+   private final class AggregationIterator implements TupleIterator {
+
+      /** Iterator over the input relation. */
+      private final TupleIterator it;
+
+      /** Current batch of input tuples. */
+      private final TupleBatch batch;
+
+      /** Index of the next tuple in the batch. */
+      private int pos;
+
+      /** Next output tuple, {@code null} if it has not been computed yet. */
+      private byte[] next;
+
+      /** Whether a tuple has been returned since the last reset. */
+      private boolean started;
+
+      /**
+       * Opens the input.
+       */
+      AggregationIterator() {
+         this.it = SortAggregation.this.input.open();
+         this.batch = new TupleBatch(SortAggregation.this.input.getSchema().getLength());
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (this.next != null) {
+            return true;
+         }
+         final Aggregator aggregator = SortAggregation.this.aggregator;
+         final byte[] data = this.batch.getData();
+         byte[] state = null;
+         for (;;) {
+            if (this.pos >= this.batch.size()) {
+               if (this.it.nextBatch(this.batch) == 0) {
+                  break;
+               }
+               this.pos = 0;
+            }
+            final int offset = this.batch.offset(this.pos);
+            if (state == null) {
+               state = aggregator.create(data, offset);
+            } else if (aggregator.matches(state, data, offset)) {
+               aggregator.update(state, data, offset);
+            } else {
+               // the first tuple of the next group stays in the batch
+               break;
+            }
+            this.pos++;
+         }
+         if (state == null && SortAggregation.this.global && !this.started) {
+            state = new byte[aggregator.getStateLength()];
+         }
+         if (state == null) {
+            return false;
+         }
+         this.next = aggregator.finish(state);
+         this.started = true;
+         return true;
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException("No more tuples to return.");
+         }
+         final byte[] tuple = this.next;
+         this.next = null;
+         return tuple;
+      }
+
+      @Override
+      public void reset() {
+         this.it.reset();
+         this.batch.clear();
+         this.pos = 0;
+         this.next = null;
+         this.started = false;
+      }
+
+      @Override
+      public void close() {
+         this.it.close();
+         this.batch.clear();
+         this.pos = 0;
+         this.next = null;
+      }
+   }
+}
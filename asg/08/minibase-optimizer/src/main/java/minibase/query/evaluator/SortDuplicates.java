@@ -0,0 +1,152 @@
+/*
+ * @(#)SortDuplicates.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+
+import minibase.query.AggregationType;
+import minibase.query.schema.Schema;
+
+/**
+ * Sort-based duplicate elimination (see textbook, 3rd edition, section 14.3.1, page 455). The input has to
+ * be sorted on all columns, e.g., by an {@link ExternalSort}, so that equal tuples are adjacent. A tuple is
+ * returned if its encoding differs from the one of the previous tuple.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class SortDuplicates extends AbstractOperator {
+
+   /** Input relation, sorted on all columns. */
+   private final Operator input;
+
+   /** Aggregator that groups on all columns. */
+   private final Aggregator aggregator;
+
+   /**
+    * Constructs a duplicate elimination, given the sorted input.
+    *
+    * @param input input relation, sorted on all columns
+    */
+   public SortDuplicates(final Operator input) {
+      super(input.getSchema());
+      this.input = input;
+      this.aggregator = aggregator(input.getSchema());
+   }
+
+   /**
+    * Returns the numbers of all columns of the given schema.
+    *
+    * @param schema the schema
+    * @return numbers of all columns
+    */
+   static int[] allColumns(final Schema schema) {
+      final int[] columns = new int[schema.getColumnCount()];
+      for (int i = 0; i < columns.length; i++) {
+         columns[i] = i;
+      }
+      return columns;
+   }
+
+   /**
+    * Creates an aggregator without aggregation functions that groups on all columns of the given schema, so
+    * that its states are copies of the distinct tuples.
+    *
+    * @param schema schema of the tuples
+    * @return the aggregator
+    */
+   static Aggregator aggregator(final Schema schema) {
+      return new Aggregator(schema, allColumns(schema), new AggregationType[0], new int[0]);
+   }
+
+   @Override
+   public TupleIterator open() {
+      return new DuplicatesIterator();
+   }
+
+   /**
+    * Iterator that skips tuples that are equal to their predecessor.
+    */
+   private final class DuplicatesIterator implements TupleIterator {
+
+      /** Iterator over the input relation. */
+      private final TupleIterator it;
+
+      /** Current batch of input tuples. */
+      private final TupleBatch batch;
+
+      /** Index of the next tuple in the batch. */
+      private int pos;
+
+      /** Last returned tuple, {@code null} if there is none. */
+      private byte[] last;
+
+      /** Whether {@link #last} has not been returned by {@link #next()} yet. */
+      private boolean pending;
+
+      /**
+       * Opens the input.
+       */
+      DuplicatesIterator() {
+         this.it = SortDuplicates.this.input.open();
+         this.batch = new TupleBatch(SortDuplicates.this.input.getSchema().getLength());
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (this.pending) {
+            return true;
+         }
+         final byte[] data = this.batch.getData();
+         for (;;) {
+            if (this.pos >= this.batch.size()) {
+               if (this.it.nextBatch(this.batch) == 0) {
+                  return false;
+               }
+               this.pos = 0;
+            }
+            final int offset = this.batch.offset(this.pos++);
+            if (this.last == null || !SortDuplicates.this.aggregator.matches(this.last, data, offset)) {
+               this.last = SortDuplicates.this.aggregator.create(data, offset);
+               this.pending = true;
+               return true;
+            }
+         }
+      }
+
+      @Override
+      public byte[] next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException("No more tuples to return.");
+         }
+         this.pending = false;
+         return this.last.clone();
+      }
+
+      @Override
+      public void reset() {
+         this.it.reset();
+         this.batch.clear();
+         this.pos = 0;
+         this.last = null;
+         this.pending = false;
+      }
+
+      @Override
+      public void close() {
+         this.it.close();
+         this.batch.clear();
+         this.pos = 0;
+         this.last = null;
+         this.pending = false;
+      }
+   }
+}
@@ -0,0 +1,180 @@
+/*
+ * @(#)SpillPartitions.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+import minibase.access.file.HeapFile;
+import minibase.query.evaluator.compare.RecordComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.BufferManager;
+
+/**
+ * Partitions of the tuples that a hash-based operator could not keep in its in-memory hash table, shared by
+ * {@link HashAggregation} and {@link HashDuplicates}. The tuples are spilled to temporary heap files by their
+ * hash code, mixed with the partitioning round so that every round splits a partition differently. After the
+ * input has been consumed, the partitions are processed one after the other by the operator of the next
+ * round. Partitions of the last of the {@link HashEquiJoin#MAX_LEVEL} rounds are not split anymore, all their
+ * tuples are collected in one partition, which is sorted and then processed by a sort-based operator.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class SpillPartitions {
+
+   /** Buffer manager. */
+   private final BufferManager bufferManager;
+
+   /** Schema of the spilled tuples. */
+   private final Schema schema;
+
+   /** Number of buffer pages of the operator. */
+   private final int bufferPages;
+
+   /** Partitioning round of the operator, {@code 0} for the top-level operator. */
+   private final int level;
+
+   /** Creates the operator of the next round on a partition. */
+   private final UnaryOperator<Operator> nextRound;
+
+   /** Order in which the partition of the last round is sorted. */
+   private final RecordComparator order;
+
+   /** Creates the sort-based operator on the sorted partition of the last round. */
+   private final UnaryOperator<Operator> sorted;
+
+   /** Partitions of the spilled tuples, {@code null} if there are none. */
+   private HeapFile[] parts;
+
+   /** Index of the current partition. */
+   private int part = -1;
+
+   /** Iterator over the result of the current partition. */
+   private TupleIterator current = TupleIterator.EMPTY;
+
+   /**
+    * Constructor.
+    *
+    * @param bufferManager buffer manager
+    * @param schema schema of the spilled tuples
+    * @param bufferPages number of buffer pages of the operator
+    * @param level partitioning round of the operator
+    * @param nextRound creates the operator of the next round on a partition
+    * @param order order in which the partition of the last round is sorted
+    * @param sorted creates the sort-based operator on the sorted partition of the last round
+    */
+   SpillPartitions(final BufferManager bufferManager, final Schema schema, final int bufferPages, final int level,
+         final UnaryOperator<Operator> nextRound, final RecordComparator order,
+         final UnaryOperator<Operator> sorted) {
+      this.bufferManager = bufferManager;
+      this.schema = schema;
+      this.bufferPages = bufferPages;
+      this.level = level;
+      this.nextRound = nextRound;
+      this.order = order;
+      this.sorted = sorted;
+   }
+
+   /**
+    * Writes a tuple to the partition it is hashed to, creating the partitions on the first call.
+    *
+    * @param hash hash code of the tuple
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    */
+   void spill(final long hash, final byte[] data, final int offset) {
+      if (this.parts == null) {
+         // the last round collects all remaining tuples in one partition, which is sorted
+         final int numParts = this.level < HashEquiJoin.MAX_LEVEL
+               ? Math.max(2, Math.min(this.bufferPages - 1, HashEquiJoin.MAX_PARTITIONS)) : 1;
+         this.parts = new HeapFile[numParts];
+         for (int i = 0; i < numParts; i++) {
+            this.parts[i] = HeapFile.createTemporary(this.bufferManager);
+         }
+      }
+      final long mixed = HashKey.mix(hash, this.level + 1) >>> 1;
+      final byte[] tuple = new byte[this.schema.getLength()];
+      System.arraycopy(data, offset, tuple, 0, tuple.length);
+      this.parts[(int) (mixed % this.parts.length)].insertRecord(tuple);
+   }
+
+   /**
+    * Creates the operator that processes a partition.
+    *
+    * @param file the partition
+    * @return the operator
+    */
+   private Operator process(final HeapFile file) {
+      final Operator scan = new TableScan(this.schema, file);
+      if (this.level < HashEquiJoin.MAX_LEVEL) {
+         return this.nextRound.apply(scan);
+      }
+      final int k = Math.max(3, Math.min(this.bufferPages - 1, HashEquiJoin.MAX_PARTITIONS));
+      return this.sorted.apply(new ExternalSort(this.bufferManager, scan, this.order, this.bufferPages, k));
+   }
+
+   /**
+    * Checks if the partitions have results left, processing the next partitions as needed.
+    *
+    * @return {@code true} if there are results left
+    */
+   boolean hasNext() {
+      if (this.parts == null) {
+         return false;
+      }
+      while (!this.current.hasNext()) {
+         this.current.close();
+         this.current = TupleIterator.EMPTY;
+         if (++this.part >= this.parts.length) {
+            this.part = this.parts.length;
+            return false;
+         }
+         this.current = this.process(this.parts[this.part]).open();
+      }
+      return true;
+   }
+
+   /**
+    * Returns the next result of the partitions.
+    *
+    * @return the result
+    * @throws NoSuchElementException if there are no results left
+    */
+   byte[] next() {
+      if (!this.hasNext()) {
+         throw new NoSuchElementException("No more tuples to return.");
+      }
+      return this.current.next();
+   }
+
+   /**
+    * Starts again at the first partition, keeping the spilled tuples.
+    */
+   void rewind() {
+      this.current.close();
+      this.current = TupleIterator.EMPTY;
+      this.part = -1;
+   }
+
+   /**
+    * Deletes the partitions.
+    */
+   void clear() {
+      this.rewind();
+      if (this.parts != null) {
+         for (final HeapFile file : this.parts) {
+            file.close();
+         }
+         this.parts = null;
+      }
+   }
+}
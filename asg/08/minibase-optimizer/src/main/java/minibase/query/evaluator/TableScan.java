@@ -13,6 +13,7 @@ package minibase.query.evaluator;
 import minibase.access.file.File;
 import minibase.access.file.FileScan;
 import minibase.query.schema.Schema;
+import minibase.storage.buffer.BufferRing;
 
 /**
  * Wrapper for heap file scan, the most basic access method. This "iterator" version takes schema into
@@ -26,6 +27,9 @@ public final class TableScan extends AbstractOperator {
    /** The heap file to scan. */
    private final File file;
 
+   /** Number of slots of the buffer ring every scan uses, {@code 0} to scan without a buffer ring. */
+   private final int ringSize;
+
    /**
     * Constructs a file scan, given the schema and heap file.
     *
@@ -35,12 +39,42 @@ public final class TableScan extends AbstractOperator {
     *           the heap file to scan
     */
    public TableScan(final Schema schema, final File file) {
+      this(schema, file, 0);
+   }
+
+   /**
+    * Constructs a file scan, given the schema and heap file, that loads the pages of the file through a
+    * buffer ring of the given size. This should be used for large tables that are scanned only once. The ring
+    * reads up to {@link BufferRing#DEFAULT_READ_AHEAD} pages ahead.
+    *
+    * @param schema
+    *           the schema of the returned tuples
+    * @param file
+    *           the heap file to scan
+    * @param ringSize
+    *           number of slots of the buffer ring, {@code 0} to scan without a buffer ring
+    */
+   public TableScan(final Schema schema, final File file, final int ringSize) {
       super(schema);
       this.file = file;
+      this.ringSize = ringSize;
+   }
+
+   /**
+    * Returns the scanned file.
+    *
+    * @return the file
+    */
+   File getFile() {
+      return this.file;
    }
 
    @Override
    public FileScan open() {
-      return this.file.openScan();
+      if (this.ringSize <= 0) {
+         return this.file.openScan();
+      }
+      final int readAhead = Math.min(BufferRing.DEFAULT_READ_AHEAD, this.ringSize - 1);
+      return this.file.openScan(new BufferRing(this.ringSize, readAhead));
    }
 }
@@ -0,0 +1,218 @@
+/*
+ * @(#)TupleBatch.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Reusable block of fixed-length tuples that are stored one after the other in a single array. Batches are
+ * filled by {@link TupleIterator#nextBatch(TupleBatch)}, which lets operators pass many tuples at once without
+ * allocating an array per tuple. The tuple at index {@code i} starts at offset {@link #offset(int) offset(i)}
+ * of the {@link #getData() data array}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class TupleBatch {
+
+   /** Default number of tuples per batch. */
+   public static final int DEFAULT_CAPACITY = 1024;
+
+   /** Length of the tuples, in bytes. */
+   private final int recordLength;
+
+   /** Maximum number of tuples. */
+   private final int capacity;
+
+   /** Contents of the tuples. */
+   private final byte[] data;
+
+   /** Current number of tuples. */
+   private int size;
+
+   /**
+    * Creates an empty batch with {@link #DEFAULT_CAPACITY} tuples of the given length.
+    *
+    * @param recordLength length of the tuples, in bytes
+    */
+   public TupleBatch(final int recordLength) {
+      this(recordLength, DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Creates an empty batch.
+    *
+    * @param recordLength length of the tuples, in bytes
+    * @param capacity maximum number of tuples
+    */
+   public TupleBatch(final int recordLength, final int capacity) {
+      if (recordLength <= 0 || capacity <= 0) {
+         throw new IllegalArgumentException("Invalid batch dimensions: " + capacity + " x " + recordLength);
+      }
+      this.recordLength = recordLength;
+      this.capacity = capacity;
+      this.data = new byte[recordLength * capacity];
+   }
+
+   /**
+    * Returns the length of the tuples in this batch.
+    *
+    * @return length of the tuples, in bytes
+    */
+   public int getRecordLength() {
+      return this.recordLength;
+   }
+
+   /**
+    * Returns the maximum number of tuples in this batch.
+    *
+    * @return capacity of this batch
+    */
+   public int getCapacity() {
+      return this.capacity;
+   }
+
+   /**
+    * Returns the current number of tuples in this batch.
+    *
+    * @return number of tuples
+    */
+   public int size() {
+      return this.size;
+   }
+
+   /**
+    * Checks whether this batch contains no tuples.
+    *
+    * @return {@code true} if the batch is empty, {@code false} otherwise
+    */
+   public boolean isEmpty() {
+      return this.size == 0;
+   }
+
+   /**
+    * Checks whether this batch has reached its capacity.
+    *
+    * @return {@code true} if no more tuples can be added, {@code false} otherwise
+    */
+   public boolean isFull() {
+      return this.size == this.capacity;
+   }
+
+   /**
+    * Returns the array containing the tuples of this batch. The array is shared, its contents change when the
+    * batch is refilled.
+    *
+    * @return data array
+    */
+   public byte[] getData() {
+      return this.data;
+   }
+
+   /**
+    * Returns the offset of the tuple with the given index in the {@link #getData() data array}.
+    *
+    * @param index index of the tuple
+    * @return offset of the tuple
+    */
+   public int offset(final int index) {
+      return index * this.recordLength;
+   }
+
+   /**
+    * Returns a copy of the tuple with the given index.
+    *
+    * @param index index of the tuple
+    * @return the tuple
+    */
+   public byte[] get(final int index) {
+      if (index < 0 || index >= this.size) {
+         throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+      }
+      final int offset = this.offset(index);
+      return Arrays.copyOfRange(this.data, offset, offset + this.recordLength);
+   }
+
+   /**
+    * Removes all tuples from this batch.
+    */
+   public void clear() {
+      this.size = 0;
+   }
+
+   /**
+    * Appends the given number of uninitialized tuples to this batch, so that their contents can be written
+    * directly into the {@link #getData() data array}.
+    *
+    * @param count number of tuples to append
+    * @return offset of the first appended tuple
+    * @throws IllegalStateException if the tuples do not fit into the batch
+    */
+   public int reserve(final int count) {
+      if (this.size + count > this.capacity) {
+         throw new IllegalStateException("Batch capacity exceeded.");
+      }
+      final int offset = this.offset(this.size);
+      this.size += count;
+      return offset;
+   }
+
+   /**
+    * Appends a copy of the given tuple to this batch.
+    *
+    * @param tuple the tuple
+    * @throws IllegalArgumentException if the tuple does not have the length of the tuples in this batch
+    */
+   public void add(final byte[] tuple) {
+      if (tuple.length != this.recordLength) {
+         throw new IllegalArgumentException("Tuple length " + tuple.length + " != " + this.recordLength);
+      }
+      System.arraycopy(tuple, 0, this.data, this.reserve(1), this.recordLength);
+   }
+
+   /**
+    * Appends the concatenation of two tuples to this batch, as produced by joins.
+    *
+    * @param left array containing the left tuple
+    * @param leftPos offset of the left tuple
+    * @param leftLength length of the left tuple, the rest of the appended tuple is taken from the right one
+    * @param right array containing the right tuple
+    * @param rightPos offset of the right tuple
+    */
+   public void add(final byte[] left, final int leftPos, final int leftLength, final byte[] right,
+         final int rightPos) {
+      final int offset = this.reserve(1);
+      System.arraycopy(left, leftPos, this.data, offset, leftLength);
+      System.arraycopy(right, rightPos, this.data, offset + leftLength, this.recordLength - leftLength);
+   }
+
+   /**
+    * Removes all tuples that do not satisfy the given test from this batch, keeping the order of the others.
+    *
+    * @param test test that receives the offset of a tuple in the {@link #getData() data array}
+    * @return new number of tuples
+    */
+   public int retain(final IntPredicate test) {
+      int kept = 0;
+      for (int i = 0; i < this.size; i++) {
+         final int offset = this.offset(i);
+         if (test.test(offset)) {
+            if (kept != i) {
+               System.arraycopy(this.data, offset, this.data, this.offset(kept), this.recordLength);
+            }
+            kept++;
+         }
+      }
+      this.size = kept;
+      return kept;
+   }
+}
@@ -60,6 +60,23 @@ public interface TupleIterator extends Iterator<byte[]>, AutoCloseable {
    @Override
    byte[] next();
 
+   /**
+    * Replaces the contents of the given batch with the next tuples produced by this iterator, as many as fit
+    * into the batch. The default implementation copies the tuples returned by {@link #next()}, operators that
+    * can write their tuples directly into the batch override it. Calls to this method and to {@link #next()}
+    * can be mixed arbitrarily.
+    *
+    * @param batch batch to fill, whose tuples must have the length of the tuples produced by this iterator
+    * @return number of tuples in the batch, {@code 0} if there are no more tuples to return
+    */
+   default int nextBatch(final TupleBatch batch) {
+      batch.clear();
+      while (!batch.isFull() && this.hasNext()) {
+         batch.add(this.next());
+      }
+      return batch.size();
+   }
+
    /**
     * Resets this iterator to start at the first tuple again.
     */
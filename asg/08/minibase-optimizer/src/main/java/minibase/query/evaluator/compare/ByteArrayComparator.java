@@ -40,4 +40,16 @@ public class ByteArrayComparator implements RecordComparator {
       }
       return 0;
    }
+
+   @Override
+   public long normalizedKey(final byte[] array, final int offset) {
+      final int length = Math.min(this.recordLength, Long.BYTES);
+      long key = 0;
+      for (int i = 0; i < length; i++) {
+         // flipping the sign bit of every byte makes signed order unsigned order
+         key = key << 8 | (array[offset + i] ^ 0x80) & 0xFF;
+      }
+      // shift the prefix to the top and flip the sign bit, so that unsigned order becomes signed order
+      return length == 0 ? 0 : key << 8 * (Long.BYTES - length) ^ Long.MIN_VALUE;
+   }
 }
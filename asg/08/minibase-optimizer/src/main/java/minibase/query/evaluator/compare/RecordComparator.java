@@ -35,6 +35,38 @@ public interface RecordComparator {
     */
    int compare(byte[] array1, int offset1, byte[] array2, int offset2);
 
+   /**
+    * Returns the normalized key of a record, a {@code long} that is ordered like a prefix of the record's sort
+    * key. If the normalized keys of two records differ, comparing them as signed {@code long}s gives the same
+    * result as comparing the records, otherwise the records have to be compared in full. Sort algorithms can
+    * store the keys next to the records, so that most comparisons become a single {@code long} comparison.
+    * The default key is constant and never decides a comparison.
+    *
+    * @param array byte-array containing the record
+    * @param offset offset to the record
+    * @return normalized key of the record
+    */
+   default long normalizedKey(final byte[] array, final int offset) {
+      return 0;
+   }
+
+   /**
+    * Compares two records whose {@link #normalizedKey(byte[], int) normalized keys} have already been computed.
+    *
+    * @param key1 normalized key of the first record
+    * @param array1 byte-array containing first record
+    * @param offset1 offset to the first record
+    * @param key2 normalized key of the second record
+    * @param array2 byte-array containing second record
+    * @param offset2 offset to the second record
+    * @return a negative integer, zero, or a positive integer as the first argument is less than, equal to, or
+    *         greater than the second.
+    */
+   default int compare(final long key1, final byte[] array1, final int offset1, final long key2,
+         final byte[] array2, final int offset2) {
+      return key1 != key2 ? Long.compare(key1, key2) : this.compare(array1, offset1, array2, offset2);
+   }
+
    /**
     * Compares two records starting at index {@code 0} of their respective arrays.
     *
@@ -14,46 +14,60 @@ import java.util.Arrays;
 
 import minibase.catalog.DataType;
 import minibase.query.schema.Schema;
+import minibase.util.Convert;
 
 /**
- * Compares two records, potentially from different relations.
+ * Compares two records, potentially from different relations. The compared fields are read directly from the
+ * records' bytes without decoding them into objects: numbers are compared numerically, strings byte-wise by
+ * their zero-padded UTF-8 encoding and temporal values by their epoch-based representation. When the records
+ * of one relation are compared on the same fields, e.g. for sorting, the first field is also available as a
+ * {@link #normalizedKey(byte[], int) normalized key}.
  *
  * @author Michael Delz &lt;michael.delz@uni-konstanz.de&gt;
  * @author Johann Bornholdt &lt;johann.bornholdt@uni-konstanz.de&gt;
  */
 public class TupleComparator implements RecordComparator {
 
-   /** Types of comparisons. */
-   private enum ComparisonType {
-      /** Values are compared as 64-bit integers. */
-      INTEGRAL,
-      /** Values are compared as 64-bit floating-point numbers. */
-      FLOATING,
-      /** Values are compared as strings. */
-      STRING,
-      /** Values are compared as date-time values. */
-      DATE_TIME,
-      /** Values are compared as times. */
-      TIME
-   }
-
-   /** Schema of the left tuple. */
-   private final Schema schema1;
+   /**
+    * Comparison of one pair of fields, which has been specialized for their types and offsets.
+    */
+   @FunctionalInterface
+   private interface FieldComparator {
 
-   /** Field numbers from the first schema. */
-   private final int[] fieldNumbers1;
+      /**
+       * Compares the fields of two tuples.
+       *
+       * @param array1 array containing the first tuple
+       * @param offset1 offset of the first tuple
+       * @param array2 array containing the second tuple
+       * @param offset2 offset of the second tuple
+       * @return a negative integer, zero, or a positive integer as the first field is less than, equal to, or
+       *         greater than the second
+       */
+      int compare(byte[] array1, int offset1, byte[] array2, int offset2);
+   }
 
-   /** Schema if the right tuple. */
-   private final Schema schema2;
+   /**
+    * Reads an integral or temporal field as a {@code long}.
+    */
+   @FunctionalInterface
+   private interface LongReader {
 
-   /** Field numbers from sche second schema. */
-   private final int[] fieldNumbers2;
+      /**
+       * Reads the field.
+       *
+       * @param array array to read from
+       * @param pos position of the field
+       * @return value of the field
+       */
+      long read(byte[] array, int pos);
+   }
 
-   /** Types of comparison for each field pair. */
-   private final ComparisonType[] comparisonTypes;
+   /** Specialized comparisons of the compared field pairs. */
+   private final FieldComparator[] comparators;
 
-   /** Flags for sorting order. */
-   private final boolean[] ascending;
+   /** Computes the normalized key of a tuple, {@code null} if the keys are constant. */
+   private final LongReader keyReader;
 
    /**
     * Compares two tuple of the same relation with the given schema on the given fields. All sort orders are
@@ -120,37 +134,180 @@ public class TupleComparator implements RecordComparator {
          throw new IllegalStateException("Compared fields do not have the same cardinality.");
       }
       final int n = fieldNumbers1.length;
+      this.comparators = new FieldComparator[n];
+      for (int i = 0; i < n; i++) {
+         final FieldComparator cmp = comparator(schema1, fieldNumbers1[i], schema2, fieldNumbers2[i]);
+         if (cmp == null) {
+            throw new IllegalStateException("Fields at position " + (i + 1) + " cannot be compared.\n"
+                  + "\tLeft(field:" + fieldNumbers1[i] + ", type:"
+                  + schema1.getColumn(fieldNumbers1[i]).getType() + ")\n"
+                  + "\tRight(field:" + fieldNumbers2[i] + ", type:"
+                  + schema2.getColumn(fieldNumbers2[i]).getType() + ")");
+         }
+         this.comparators[i] = ascending[i] ? cmp : (a1, o1, a2, o2) -> cmp.compare(a2, o2, a1, o1);
+      }
 
-      this.schema1 = schema1;
-      this.fieldNumbers1 = fieldNumbers1;
-      this.schema2 = schema2;
-      this.fieldNumbers2 = fieldNumbers2;
-      this.comparisonTypes = new ComparisonType[n];
-      this.ascending = ascending;
+      // keys are only meaningful if both sides are read in the same way, e.g., when sorting
+      final LongReader key = n > 0 && schema1 == schema2 && Arrays.equals(fieldNumbers1, fieldNumbers2)
+            ? keyReader(schema1, fieldNumbers1[0]) : null;
+      this.keyReader = key == null || ascending[0] ? key : (array, pos) -> ~key.read(array, pos);
+   }
 
-      for (int i = 0; i < n; i++) {
-         final DataType left = schema1.getColumn(this.fieldNumbers1[i]).getType();
-         final DataType right = schema2.getColumn(this.fieldNumbers2[i]).getType();
-         if (left.isNumeric() && right.isNumeric()) {
-            this.comparisonTypes[i] = left.isFloatingPoint() || right.isFloatingPoint()
-                  ? ComparisonType.FLOATING : ComparisonType.INTEGRAL;
-         } else if (left.isString() && right.isString()) {
-            this.comparisonTypes[i] = ComparisonType.STRING;
-         } else if (left.isTemporal() && right.isTemporal()) {
-            if ((left == DataType.DATE || left == DataType.DATETIME)
-                  && (right == DataType.DATE || right == DataType.DATETIME)) {
-               this.comparisonTypes[i] = ComparisonType.DATE_TIME;
-            } else if (left == DataType.TIME && right == DataType.TIME) {
-               this.comparisonTypes[i] = ComparisonType.TIME;
+   /**
+    * Creates the comparison of two fields, which compares their encoded values without decoding them: numbers
+    * numerically, strings byte-wise by their zero-padded UTF-8 encoding, and temporal values by their
+    * epoch-based representation.
+    *
+    * @param schema1 schema of the first tuple
+    * @param field1 field of the first tuple
+    * @param schema2 schema of the second tuple
+    * @param field2 field of the second tuple
+    * @return the comparison, or {@code null} if the fields cannot be compared
+    */
+   private static FieldComparator comparator(final Schema schema1, final int field1, final Schema schema2,
+         final int field2) {
+      final DataType left = schema1.getColumn(field1).getType();
+      final DataType right = schema2.getColumn(field2).getType();
+      final int pos1 = schema1.getColumnOffset(field1);
+      final int pos2 = schema2.getColumnOffset(field2);
+      if (left.isNumeric() && right.isNumeric()) {
+         if (left.isFloatingPoint() || right.isFloatingPoint()) {
+            if (left == DataType.DOUBLE && right == DataType.DOUBLE) {
+               return (a1, o1, a2, o2) -> Double.compare(Convert.readDouble(a1, o1 + pos1),
+                     Convert.readDouble(a2, o2 + pos2));
             }
+            return (a1, o1, a2, o2) -> Double.compare(schema1.getFloating(a1, o1, field1),
+                  schema2.getFloating(a2, o2, field2));
+         }
+         if (left == DataType.INT && right == DataType.INT) {
+            return (a1, o1, a2, o2) -> Integer.compare(Convert.readInt(a1, o1 + pos1),
+                  Convert.readInt(a2, o2 + pos2));
          }
+         final LongReader r1 = longReader(left);
+         final LongReader r2 = longReader(right);
+         return (a1, o1, a2, o2) -> Long.compare(r1.read(a1, o1 + pos1), r2.read(a2, o2 + pos2));
+      }
+      if (left.isString() && right.isString()) {
+         final int length1 = schema1.getColumn(field1).getSize();
+         final int length2 = schema2.getColumn(field2).getSize();
+         return (a1, o1, a2, o2) -> compareBytes(a1, o1 + pos1, length1, a2, o2 + pos2, length2);
+      }
+      if (left == right && left.isTemporal()) {
+         final LongReader reader = longReader(left);
+         return (a1, o1, a2, o2) -> Long.compare(reader.read(a1, o1 + pos1), reader.read(a2, o2 + pos2));
+      }
+      if ((left == DataType.DATE || left == DataType.DATETIME)
+            && (right == DataType.DATE || right == DataType.DATETIME)) {
+         // dates are stored as days, which have to be converted to the local midnight to compare with timestamps
+         return (a1, o1, a2, o2) -> schema1.getDateTime(a1, o1, field1)
+               .compareTo(schema2.getDateTime(a2, o2, field2));
+      }
+      return null;
+   }
 
-         if (this.comparisonTypes[i] == null) {
-            throw new IllegalStateException("Fields at position " + (i + 1) + " cannot be compared.\n"
-                  + "\tLeft(field:" + this.fieldNumbers1[i] + ", type:" + left + ")\n" + "\tRight(field:"
-                  + this.fieldNumbers2[i] + ", type:" + right + ")");
+   /**
+    * Returns a reader for integral and temporal values of the given type.
+    *
+    * @param type the type
+    * @return the reader
+    */
+   private static LongReader longReader(final DataType type) {
+      switch (type) {
+         case TINYINT:
+            return Convert::readByte;
+         case SMALLINT:
+            return Convert::readShort;
+         case INT:
+            return Convert::readInt;
+         case DATE:
+            return Convert::readDateDays;
+         case TIME:
+            return Convert::readTimeMillis;
+         default:
+            return Convert::readLong;
+      }
+   }
+
+   /**
+    * Returns a reader for the normalized keys of the given field. The keys are compared as signed {@code long}s
+    * and are exact for all types except strings, of which only the first eight bytes are used.
+    *
+    * @param schema schema of the tuples
+    * @param field the field
+    * @return the reader
+    */
+   private static LongReader keyReader(final Schema schema, final int field) {
+      final DataType type = schema.getColumn(field).getType();
+      final int pos = schema.getColumnOffset(field);
+      switch (type) {
+         case FLOAT:
+            return (array, offset) -> doubleKey(Convert.readFloat(array, offset + pos));
+         case DOUBLE:
+            return (array, offset) -> doubleKey(Convert.readDouble(array, offset + pos));
+         case CHAR:
+         case VARCHAR:
+            final int length = Math.min(schema.getColumn(field).getSize(), Long.BYTES);
+            return (array, offset) -> {
+               long key = 0;
+               for (int i = 0; i < length; i++) {
+                  key = key << 8 | array[offset + pos + i] & 0xFF;
+               }
+               // shift the prefix to the top and flip the sign bit, so that unsigned order becomes signed order
+               return key << 8 * (Long.BYTES - length) ^ Long.MIN_VALUE;
+            };
+         default:
+            final LongReader reader = longReader(type);
+            return (array, offset) -> reader.read(array, offset + pos);
+      }
+   }
+
+   /**
+    * Maps a floating-point value to a {@code long} whose signed order is the order of
+    * {@link Double#compare(double, double)}.
+    *
+    * @param value the value
+    * @return the key
+    */
+   private static long doubleKey(final double value) {
+      final long bits = Double.doubleToLongBits(value);
+      // negative values are ordered in reverse, so all bits except the sign bit are flipped
+      return bits ^ (bits >> 63 & Long.MAX_VALUE);
+   }
+
+   /**
+    * Compares two byte sequences lexicographically as unsigned bytes, where the shorter one is padded with
+    * zeros. This is the order of the strings whose UTF-8 encodings they are.
+    *
+    * @param a first array
+    * @param aPos start of the first sequence
+    * @param aLength length of the first sequence
+    * @param b second array
+    * @param bPos start of the second sequence
+    * @param bLength length of the second sequence
+    * @return a negative integer, zero, or a positive integer as the first sequence is less than, equal to, or
+    *         greater than the second
+    */
+   private static int compareBytes(final byte[] a, final int aPos, final int aLength, final byte[] b,
+         final int bPos, final int bLength) {
+      final int length = Math.min(aLength, bLength);
+      for (int i = 0; i < length; i++) {
+         final int cmp = (a[aPos + i] & 0xFF) - (b[bPos + i] & 0xFF);
+         if (cmp != 0) {
+            return cmp;
          }
       }
+      // the remaining bytes of the longer sequence are compared with the zero padding of the shorter one
+      for (int i = length; i < aLength; i++) {
+         if (a[aPos + i] != 0) {
+            return 1;
+         }
+      }
+      for (int i = length; i < bLength; i++) {
+         if (b[bPos + i] != 0) {
+            return -1;
+         }
+      }
+      return 0;
    }
 
    /**
@@ -168,37 +325,17 @@ public class TupleComparator implements RecordComparator {
 
    @Override
    public int compare(final byte[] array1, final int offset1, final byte[] array2, final int offset2) {
-      for (int i = 0; i < this.fieldNumbers1.length; i++) {
-         final int a = this.fieldNumbers1[i];
-         final int b = this.fieldNumbers2[i];
-         final int cmp;
-         switch (this.comparisonTypes[i]) {
-            case INTEGRAL:
-               cmp = Long.compare(this.schema1.getIntegral(array1, offset1, a),
-                     this.schema2.getIntegral(array2, offset2, b));
-               break;
-            case FLOATING:
-               cmp = Double.compare(this.schema1.getFloating(array1, offset1, a),
-                     this.schema2.getFloating(array2, offset2, b));
-               break;
-            case STRING:
-               cmp = this.schema1.getString(array1, offset1, a)
-                     .compareTo(this.schema2.getString(array2, offset2, b));
-               break;
-            case DATE_TIME:
-               cmp = this.schema1.getDateTime(array1, offset1, a)
-                     .compareTo(this.schema2.getDateTime(array2, offset2, b));
-               break;
-            case TIME:
-            default:
-               cmp = this.schema1.getTime(array1, offset1, a)
-                     .compareTo(this.schema2.getTime(array2, offset2, b));
-               break;
-         }
+      for (final FieldComparator comparator : this.comparators) {
+         final int cmp = comparator.compare(array1, offset1, array2, offset2);
          if (cmp != 0) {
-            return this.ascending[i] ? cmp : -cmp;
+            return cmp;
          }
       }
       return 0;
    }
+
+   @Override
+   public long normalizedKey(final byte[] array, final int offset) {
+      return this.keyReader == null ? 0 : this.keyReader.read(array, offset);
+   }
 }
@@ -99,8 +99,13 @@ public class ColRef<T> extends Predicate<T> {
 
    @Override
    public T eval(final byte[] tuple) {
+      return this.eval(tuple, 0);
+   }
+
+   @Override
+   public T eval(final byte[] data, final int offset) {
       @SuppressWarnings("unchecked")
-      final T value = (T) this.schema.getField(tuple, this.columnIndex);
+      final T value = (T) this.schema.getField(data, offset, this.columnIndex);
       return value;
    }
 
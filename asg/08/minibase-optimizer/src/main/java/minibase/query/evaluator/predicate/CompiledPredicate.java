@@ -0,0 +1,125 @@
+/*
+ * @(#)CompiledPredicate.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator.predicate;
+
+import java.util.Optional;
+
+import minibase.catalog.DataType;
+import minibase.query.QueryException;
+import minibase.query.schema.Schema;
+
+/**
+ * Boolean predicate that has been compiled by the {@link PredicateCompiler} into a tree of specialized
+ * closures. The closures read the fields they need directly from the tuple's bytes, so evaluating the
+ * predicate neither decodes nor boxes any values.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class CompiledPredicate extends Predicate<Boolean> {
+
+   /**
+    * Compiled form of a predicate.
+    */
+   @FunctionalInterface
+   interface Test {
+
+      /**
+       * Evaluates the predicate on the tuple at the given offset of an array.
+       *
+       * @param data array containing the tuple
+       * @param offset offset of the tuple
+       * @return result of the predicate
+       */
+      boolean test(byte[] data, int offset);
+   }
+
+   /** Schema of the tuples. */
+   private final Schema schema;
+
+   /** Compiled form of the predicate. */
+   private final Test test;
+
+   /** Textual representation of the predicate. */
+   private final String description;
+
+   /**
+    * Constructor.
+    *
+    * @param schema schema of the tuples
+    * @param test compiled form of the predicate
+    * @param description textual representation of the predicate
+    */
+   CompiledPredicate(final Schema schema, final Test test, final String description) {
+      this.schema = schema;
+      this.test = test;
+      this.description = description;
+   }
+
+   /**
+    * Returns the compiled form of this predicate, to be combined with others.
+    *
+    * @return compiled form
+    */
+   Test getTest() {
+      return this.test;
+   }
+
+   /**
+    * Returns the schema this predicate was compiled for.
+    *
+    * @return schema of the tuples
+    */
+   Schema getSchema() {
+      return this.schema;
+   }
+
+   /**
+    * Evaluates this predicate on the tuple at the given offset of an array without boxing the result.
+    *
+    * @param data array containing the tuple
+    * @param offset offset of the tuple
+    * @return result of the predicate
+    */
+   public boolean test(final byte[] data, final int offset) {
+      return this.test.test(data, offset);
+   }
+
+   @Override
+   public Operand<Boolean> evaluate(final byte[] tuple) {
+      // there is no data type for boolean values
+      return new Operand<>(this.eval(tuple), null);
+   }
+
+   @Override
+   public Boolean eval(final byte[] tuple) {
+      return this.test.test(tuple, 0);
+   }
+
+   @Override
+   public Boolean eval(final byte[] data, final int offset) {
+      return this.test.test(data, offset);
+   }
+
+   @Override
+   public Optional<DataType> validate(final Schema schema) throws QueryException {
+      if (schema.getColumnCount() != this.schema.getColumnCount() || schema.getLength() != this.schema.getLength()) {
+         throw new QueryException(this.toString() + ": Predicate was compiled for a different schema.");
+      }
+      // boolean values have no data type
+      return Optional.empty();
+   }
+
+   @Override
+   public String toString() {
+      return this.description;
+   }
+}
@@ -45,6 +45,18 @@ public abstract class Predicate<T> {
     */
    public abstract T eval(byte[] tuple);
 
+   /**
+    * Evaluate the predicate recursively on a tuple stored at the given offset of an array, e.g., in a
+    * {@link minibase.query.evaluator.TupleBatch}.
+    *
+    * @param data
+    *           array containing the tuple
+    * @param offset
+    *           offset of the tuple
+    * @return result of predicate
+    */
+   public abstract T eval(byte[] data, int offset);
+
    /**
     * Validate predicate.
     *
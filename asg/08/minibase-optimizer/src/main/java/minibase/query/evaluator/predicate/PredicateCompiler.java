@@ -0,0 +1,491 @@
+/*
+ * @(#)PredicateCompiler.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator.predicate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import minibase.catalog.DataType;
+import minibase.query.optimizer.Expression;
+import minibase.query.optimizer.operators.Operator;
+import minibase.query.optimizer.operators.element.Comparison;
+import minibase.query.optimizer.operators.element.Comparison.ComparisonOperator;
+import minibase.query.optimizer.operators.element.Constant;
+import minibase.query.optimizer.operators.element.GetColumn;
+import minibase.query.schema.Schema;
+import minibase.util.Convert;
+
+/**
+ * Compiles boolean predicates over tuples of a fixed schema into trees of closures. Every closure is
+ * specialized for the data type, offset and comparison operator of its comparison when the predicate is
+ * compiled, and reads the compared values as primitives directly from the tuple's bytes. Values are compared
+ * like their encoded form sorts: numbers numerically, temporal values by their epoch-based representation and
+ * strings byte-wise by their zero-padded UTF-8 encoding. Only {@code LIKE} decodes the string it matches.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class PredicateCompiler {
+
+   /**
+    * Reads an integral value from an array.
+    */
+   @FunctionalInterface
+   private interface LongReader {
+
+      /**
+       * Reads the value.
+       *
+       * @param data array to read from
+       * @param pos position of the value
+       * @return the value
+       */
+      long read(byte[] data, int pos);
+   }
+
+   /**
+    * Reads a floating-point value from an array.
+    */
+   @FunctionalInterface
+   private interface DoubleReader {
+
+      /**
+       * Reads the value.
+       *
+       * @param data array to read from
+       * @param pos position of the value
+       * @return the value
+       */
+      double read(byte[] data, int pos);
+   }
+
+   /**
+    * Checks whether the result of a three-way comparison satisfies a comparison operator.
+    */
+   @FunctionalInterface
+   private interface SignTest {
+
+      /**
+       * Performs the check.
+       *
+       * @param cmp result of the comparison
+       * @return {@code true} if the comparison operator is satisfied, {@code false} otherwise
+       */
+      boolean test(int cmp);
+   }
+
+   /**
+    * Hidden constructor.
+    */
+   private PredicateCompiler() {
+      throw new AssertionError();
+   }
+
+   /**
+    * Compiles a boolean element expression of the optimizer, which consists of {@link Comparison}s of
+    * {@link GetColumn} and {@link Constant} operators.
+    *
+    * @param schema schema of the tuples
+    * @param expression the expression
+    * @return compiled predicate
+    * @throws IllegalArgumentException if the expression contains unsupported operators or unknown columns
+    */
+   public static CompiledPredicate compile(final Schema schema, final Expression expression) {
+      final Operator operator = expression.getOperator();
+      if (!(operator instanceof Comparison)) {
+         throw new IllegalArgumentException("Not a boolean expression: " + expression);
+      }
+      final ComparisonOperator op = ((Comparison) operator).getComparisonOperator();
+      switch (op) {
+         case AND:
+         case OR:
+            CompiledPredicate result = compile(schema, expression.getInput(0));
+            for (int i = 1; i < expression.getSize(); i++) {
+               final CompiledPredicate next = compile(schema, expression.getInput(i));
+               result = op == ComparisonOperator.AND ? and(result, next) : or(result, next);
+            }
+            return result;
+         case NOT:
+            return not(compile(schema, expression.getInput(0)));
+         default:
+            final Operator left = expression.getInput(0).getOperator();
+            final Operator right = expression.getInput(1).getOperator();
+            if (left instanceof GetColumn && right instanceof GetColumn) {
+               return compareColumns(schema, column(schema, (GetColumn) left), op, column(schema, (GetColumn) right));
+            }
+            if (left instanceof GetColumn && right instanceof Constant) {
+               return compare(schema, column(schema, (GetColumn) left), op, ((Constant) right).getValue());
+            }
+            if (left instanceof Constant && right instanceof GetColumn) {
+               return compare(schema, column(schema, (GetColumn) right), flip(op), ((Constant) left).getValue());
+            }
+            throw new IllegalArgumentException("Unsupported comparison: " + expression);
+      }
+   }
+
+   /**
+    * Compiles the comparison of a column with a constant value.
+    *
+    * @param schema schema of the tuples
+    * @param column index of the column
+    * @param op comparison operator
+    * @param value the constant, a {@link Number} for numeric columns and an instance of the column's Java type,
+    *           or a {@code LIKE} pattern, otherwise
+    * @return compiled predicate
+    * @throws IllegalArgumentException if the comparison is not supported for the column's type
+    */
+   public static CompiledPredicate compare(final Schema schema, final int column, final ComparisonOperator op,
+         final Object value) {
+      final DataType type = schema.getColumn(column).getType();
+      final int pos = schema.getColumnOffset(column);
+      final String description = schema.getColumn(column).getName() + " " + op + " " + value;
+      if (op == ComparisonOperator.LIKE) {
+         return new CompiledPredicate(schema, like(schema, column, value.toString()), description);
+      }
+      if (type.isNumeric()) {
+         if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("Cannot compare " + type + " with " + value);
+         }
+         final Number number = (Number) value;
+         if (type.isFloatingPoint() || value instanceof Float || value instanceof Double) {
+            return new CompiledPredicate(schema, floating(doubleReader(type), pos, op, number.doubleValue()),
+                  description);
+         }
+         return new CompiledPredicate(schema, integral(longReader(type), pos, op, number.longValue()),
+               description);
+      }
+      if (type == DataType.CHAR) {
+         if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Cannot compare " + type + " with " + value);
+         }
+         // the constant is not truncated to the column's size, a longer one sorts after all values it starts with
+         final byte[] key = value.toString().getBytes(StandardCharsets.UTF_8);
+         final int length = schema.getColumn(column).getSize();
+         final SignTest sign = sign(op);
+         return new CompiledPredicate(schema,
+               (data, offset) -> sign.test(compareBytes(data, offset + pos, length, key, 0, key.length)),
+               description);
+      }
+      if (!(value instanceof java.util.Date)) {
+         throw new IllegalArgumentException("Cannot compare " + type + " with " + value);
+      }
+      // temporal values are compared by their encoding, so the constant is encoded the same way
+      final LongReader reader = longReader(type);
+      final byte[] scratch = schema.newTuple();
+      schema.setField(scratch, column, value);
+      return new CompiledPredicate(schema, integral(reader, pos, op, reader.read(scratch, pos)), description);
+   }
+
+   /**
+    * Compiles the comparison of two columns.
+    *
+    * @param schema schema of the tuples
+    * @param left index of the left column
+    * @param op comparison operator
+    * @param right index of the right column
+    * @return compiled predicate
+    * @throws IllegalArgumentException if the columns cannot be compared
+    */
+   public static CompiledPredicate compareColumns(final Schema schema, final int left,
+         final ComparisonOperator op, final int right) {
+      final DataType leftType = schema.getColumn(left).getType();
+      final DataType rightType = schema.getColumn(right).getType();
+      final int leftPos = schema.getColumnOffset(left);
+      final int rightPos = schema.getColumnOffset(right);
+      final String description = schema.getColumn(left).getName() + " " + op + " " + schema.getColumn(right).getName();
+      final SignTest sign = sign(op);
+      final CompiledPredicate.Test test;
+      if (leftType.isNumeric() && rightType.isNumeric()) {
+         if (leftType.isFloatingPoint() || rightType.isFloatingPoint()) {
+            final DoubleReader l = doubleReader(leftType);
+            final DoubleReader r = doubleReader(rightType);
+            test = (data, offset) -> sign.test(Double.compare(l.read(data, offset + leftPos),
+                  r.read(data, offset + rightPos)));
+         } else {
+            final LongReader l = longReader(leftType);
+            final LongReader r = longReader(rightType);
+            test = (data, offset) -> sign.test(Long.compare(l.read(data, offset + leftPos),
+                  r.read(data, offset + rightPos)));
+         }
+      } else if (leftType == DataType.CHAR && rightType == DataType.CHAR) {
+         final int leftLength = schema.getColumn(left).getSize();
+         final int rightLength = schema.getColumn(right).getSize();
+         test = (data, offset) -> sign.test(compareBytes(data, offset + leftPos, leftLength,
+               data, offset + rightPos, rightLength));
+      } else if (leftType == rightType) {
+         final LongReader reader = longReader(leftType);
+         test = (data, offset) -> sign.test(Long.compare(reader.read(data, offset + leftPos),
+               reader.read(data, offset + rightPos)));
+      } else {
+         throw new IllegalArgumentException("Cannot compare " + leftType + " with " + rightType);
+      }
+      return new CompiledPredicate(schema, test, description);
+   }
+
+   /**
+    * Combines two predicates by a conjunction.
+    *
+    * @param left left predicate, which is evaluated first
+    * @param right right predicate
+    * @return compiled predicate
+    */
+   public static CompiledPredicate and(final CompiledPredicate left, final CompiledPredicate right) {
+      final CompiledPredicate.Test l = left.getTest();
+      final CompiledPredicate.Test r = right.getTest();
+      return new CompiledPredicate(left.getSchema(), (data, offset) -> l.test(data, offset) && r.test(data, offset),
+            "(" + left + " AND " + right + ")");
+   }
+
+   /**
+    * Combines two predicates by a disjunction.
+    *
+    * @param left left predicate, which is evaluated first
+    * @param right right predicate
+    * @return compiled predicate
+    */
+   public static CompiledPredicate or(final CompiledPredicate left, final CompiledPredicate right) {
+      final CompiledPredicate.Test l = left.getTest();
+      final CompiledPredicate.Test r = right.getTest();
+      return new CompiledPredicate(left.getSchema(), (data, offset) -> l.test(data, offset) || r.test(data, offset),
+            "(" + left + " OR " + right + ")");
+   }
+
+   /**
+    * Negates a predicate.
+    *
+    * @param predicate the predicate
+    * @return compiled predicate
+    */
+   public static CompiledPredicate not(final CompiledPredicate predicate) {
+      final CompiledPredicate.Test test = predicate.getTest();
+      return new CompiledPredicate(predicate.getSchema(), (data, offset) -> !test.test(data, offset),
+            "NOT " + predicate);
+   }
+
+   /**
+    * Compiles the comparison of an integral value with a constant.
+    *
+    * @param reader reader of the value
+    * @param pos position of the value relative to the tuple
+    * @param op comparison operator
+    * @param c the constant
+    * @return compiled comparison
+    */
+   private static CompiledPredicate.Test integral(final LongReader reader, final int pos,
+         final ComparisonOperator op, final long c) {
+      switch (op) {
+         case EQ:
+            return (data, offset) -> reader.read(data, offset + pos) == c;
+         case NEQ:
+            return (data, offset) -> reader.read(data, offset + pos) != c;
+         case LT:
+            return (data, offset) -> reader.read(data, offset + pos) < c;
+         case LEQ:
+            return (data, offset) -> reader.read(data, offset + pos) <= c;
+         case GT:
+            return (data, offset) -> reader.read(data, offset + pos) > c;
+         case GEQ:
+            return (data, offset) -> reader.read(data, offset + pos) >= c;
+         default:
+            throw new IllegalArgumentException("Unsupported comparison operator: " + op);
+      }
+   }
+
+   /**
+    * Compiles the comparison of a floating-point value with a constant, using the total order of
+    * {@link Double#compare(double, double)}.
+    *
+    * @param reader reader of the value
+    * @param pos position of the value relative to the tuple
+    * @param op comparison operator
+    * @param c the constant
+    * @return compiled comparison
+    */
+   private static CompiledPredicate.Test floating(final DoubleReader reader, final int pos,
+         final ComparisonOperator op, final double c) {
+      switch (op) {
+         case EQ:
+            return (data, offset) -> Double.compare(reader.read(data, offset + pos), c) == 0;
+         case NEQ:
+            return (data, offset) -> Double.compare(reader.read(data, offset + pos), c) != 0;
+         case LT:
+            return (data, offset) -> Double.compare(reader.read(data, offset + pos), c) < 0;
+         case LEQ:
+            return (data, offset) -> Double.compare(reader.read(data, offset + pos), c) <= 0;
+         case GT:
+            return (data, offset) -> Double.compare(reader.read(data, offset + pos), c) > 0;
+         case GEQ:
+            return (data, offset) -> Double.compare(reader.read(data, offset + pos), c) >= 0;
+         default:
+            throw new IllegalArgumentException("Unsupported comparison operator: " + op);
+      }
+   }
+
+   /**
+    * Compiles a {@code LIKE} comparison, where {@code %} matches any sequence of characters and {@code _} any
+    * single character.
+    *
+    * @param schema schema of the tuples
+    * @param column index of the column
+    * @param pattern the pattern
+    * @return compiled comparison
+    */
+   private static CompiledPredicate.Test like(final Schema schema, final int column, final String pattern) {
+      if (schema.getColumn(column).getType() != DataType.CHAR) {
+         throw new IllegalArgumentException("LIKE is only supported for strings.");
+      }
+      final StringBuilder regex = new StringBuilder();
+      int start = 0;
+      for (int i = 0; i < pattern.length(); i++) {
+         final char c = pattern.charAt(i);
+         if (c == '%' || c == '_') {
+            regex.append(Pattern.quote(pattern.substring(start, i))).append(c == '%' ? ".*" : ".");
+            start = i + 1;
+         }
+      }
+      regex.append(Pattern.quote(pattern.substring(start)));
+      final Pattern compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+      final int pos = schema.getColumnOffset(column);
+      final int length = schema.getColumn(column).getSize();
+      return (data, offset) -> compiled.matcher(Convert.readString(data, offset + pos, length)).matches();
+   }
+
+   /**
+    * Returns the check of the result of a three-way comparison for the given operator.
+    *
+    * @param op comparison operator
+    * @return the check
+    */
+   private static SignTest sign(final ComparisonOperator op) {
+      switch (op) {
+         case EQ:
+            return cmp -> cmp == 0;
+         case NEQ:
+            return cmp -> cmp != 0;
+         case LT:
+            return cmp -> cmp < 0;
+         case LEQ:
+            return cmp -> cmp <= 0;
+         case GT:
+            return cmp -> cmp > 0;
+         case GEQ:
+            return cmp -> cmp >= 0;
+         default:
+            throw new IllegalArgumentException("Unsupported comparison operator: " + op);
+      }
+   }
+
+   /**
+    * Returns the operator that has the same result if the operands are swapped.
+    *
+    * @param op comparison operator
+    * @return flipped operator
+    */
+   private static ComparisonOperator flip(final ComparisonOperator op) {
+      switch (op) {
+         case LT:
+            return ComparisonOperator.GT;
+         case LEQ:
+            return ComparisonOperator.GEQ;
+         case GT:
+            return ComparisonOperator.LT;
+         case GEQ:
+            return ComparisonOperator.LEQ;
+         default:
+            return op;
+      }
+   }
+
+   /**
+    * Returns a reader for integral and temporal values of the given type.
+    *
+    * @param type the type
+    * @return the reader
+    */
+   private static LongReader longReader(final DataType type) {
+      switch (type) {
+         case TINYINT:
+            return Convert::readByte;
+         case SMALLINT:
+            return Convert::readShort;
+         case INT:
+            return Convert::readInt;
+         case BIGINT:
+         case DATETIME:
+            return Convert::readLong;
+         case DATE:
+            return Convert::readDateDays;
+         case TIME:
+            return Convert::readTimeMillis;
+         default:
+            throw new IllegalArgumentException("Unsupported data type: " + type);
+      }
+   }
+
+   /**
+    * Returns a reader for numeric values of the given type.
+    *
+    * @param type the type
+    * @return the reader
+    */
+   private static DoubleReader doubleReader(final DataType type) {
+      switch (type) {
+         case FLOAT:
+            return Convert::readFloat;
+         case DOUBLE:
+            return Convert::readDouble;
+         default:
+            final LongReader reader = longReader(type);
+            return (data, pos) -> reader.read(data, pos);
+      }
+   }
+
+   /**
+    * Compares two byte sequences lexicographically as unsigned bytes, where the shorter one is padded with
+    * zeros.
+    *
+    * @param a first array
+    * @param aPos start of the first sequence
+    * @param aLength length of the first sequence
+    * @param b second array
+    * @param bPos start of the second sequence
+    * @param bLength length of the second sequence
+    * @return a negative integer, zero, or a positive integer as the first sequence is less than, equal to, or
+    *         greater than the second
+    */
+   static int compareBytes(final byte[] a, final int aPos, final int aLength, final byte[] b, final int bPos,
+         final int bLength) {
+      final int length = Math.max(aLength, bLength);
+      for (int i = 0; i < length; i++) {
+         final int x = i < aLength ? a[aPos + i] & 0xFF : 0;
+         final int y = i < bLength ? b[bPos + i] & 0xFF : 0;
+         if (x != y) {
+            return x - y;
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Resolves the column read by a {@link GetColumn} operator.
+    *
+    * @param schema schema of the tuples
+    * @param operator the operator
+    * @return index of the column
+    */
+   private static int column(final Schema schema, final GetColumn operator) {
+      final int index = schema.getColumnIndex(operator.getColumn());
+      if (index < 0) {
+         throw new IllegalArgumentException("Unknown column: " + operator.getColumn().getName());
+      }
+      return index;
+   }
+}
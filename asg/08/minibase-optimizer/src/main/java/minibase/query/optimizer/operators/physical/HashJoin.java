@@ -22,10 +22,6 @@ import minibase.query.optimizer.operators.OperatorType;
 import minibase.query.optimizer.util.StrongReference;
 import minibase.query.schema.ColumnReference;
 import minibase.query.schema.Schema;
-import minibase.storage.buffer.BufferManager;
-import minibase.storage.file.DiskManager;
-
-import static minibase.storage.file.DiskManager.PAGE_SIZE;
 
 /**
  * Physical operator that implements the {@link minibase.query.optimizer.operators.logical.EquiJoin EquiJoin}
@@ -82,14 +78,15 @@ public class HashJoin extends AbstractPhysicalJoin {
       final double rightCardinality = (inputProperties[1]).getCardinality();
       final double outputCardinality = (localProperties).getCardinality();
 
-      final int leftWidth = ((LogicalCollectionProperties) inputProperties[0]).getSchema().getLength();
-      final int rightWidth = ((LogicalCollectionProperties) inputProperties[1]).getSchema().getLength();
+      // the widths are fractions of the database's page size
+      final double leftWidth = ((LogicalCollectionProperties) inputProperties[0]).getWidth();
+      final double rightWidth = ((LogicalCollectionProperties) inputProperties[1]).getWidth();
 
-      final int leftRecordsPerPage = PAGE_SIZE / leftWidth;
-      final int rightRecordsPerPage = PAGE_SIZE / rightWidth;
+      final int leftRecordsPerPage = (int) (1 / leftWidth);
+      final int rightRecordsPerPage = (int) (1 / rightWidth);
 
-      final double leftPages = (int)Math.ceil((leftCardinality * leftWidth) / PAGE_SIZE);
-      final double rightPages = (int)Math.ceil((rightCardinality * rightWidth) / PAGE_SIZE);
+      final double leftPages = Math.ceil(leftCardinality * leftWidth);
+      final double rightPages = Math.ceil(rightCardinality * rightWidth);
 
       final double ioCosts = 3 * (leftPages + rightPages) * CostModel.IO_SEQ.getCost();
 
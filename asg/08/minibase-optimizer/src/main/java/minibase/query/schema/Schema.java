@@ -874,6 +874,47 @@ public final class Schema implements Iterable<ColumnReference> {
       Convert.writeString(tuple, off, value, len);
    }
 
+   /**
+    * Reads the value of the given field of a tuple at the given offset in an array.
+    *
+    * @param array
+    *           to read from
+    * @param offset
+    *           offset of the tuple
+    * @param fieldNo
+    *           field number
+    * @return the value of the field
+    */
+   public Object getField(final byte[] array, final int offset, final int fieldNo) {
+      final int pos = offset + this.fieldOffset(fieldNo);
+      switch (this.fieldType(fieldNo)) {
+         case BIGINT:
+            return Long.valueOf(Convert.readLong(array, pos));
+         case INT:
+            return Integer.valueOf(Convert.readInt(array, pos));
+         case SMALLINT:
+            return Short.valueOf(Convert.readShort(array, pos));
+         case TINYINT:
+            return Byte.valueOf(Convert.readByte(array, pos));
+         case DOUBLE:
+            return Double.valueOf(Convert.readDouble(array, pos));
+         case FLOAT:
+            return Float.valueOf(Convert.readFloat(array, pos));
+         case DATE:
+            return Convert.readDate(array, pos);
+         case TIME:
+            return Convert.readTime(array, pos);
+         case DATETIME:
+            return Convert.readTimestamp(array, pos);
+         case VARCHAR:
+            throw new IllegalStateException("Varchar not yet supported.");
+         case CHAR:
+            return Convert.readString(array, pos, this.fieldLength(fieldNo));
+         default:
+            throw new IllegalStateException("invalid attribute type");
+      }
+   }
+
    /**
     * Reads an integral value from the given field of a tuple at the given offset in an array.
     *
@@ -1153,6 +1194,31 @@ public final class Schema implements Iterable<ColumnReference> {
       return res;
    }
 
+   /**
+    * Builds and returns a new tuple resulting from joining two tuples stored at the given offsets of arrays.
+    *
+    * @param a1
+    *           array containing the left tuple
+    * @param off1
+    *           offset of the left tuple
+    * @param len1
+    *           length of the left tuple
+    * @param a2
+    *           array containing the right tuple
+    * @param off2
+    *           offset of the right tuple
+    * @param len2
+    *           length of the right tuple
+    * @return the tuple resulting from the join of the two given tuples
+    */
+   public static byte[] join(final byte[] a1, final int off1, final int len1, final byte[] a2, final int off2,
+         final int len2) {
+      final byte[] res = new byte[len1 + len2];
+      System.arraycopy(a1, off1, res, 0, len1);
+      System.arraycopy(a2, off2, res, len1, len2);
+      return res;
+   }
+
    /**
     * Returns a new schema that contains the union of the columns of the given left and right schema. Note
     * that this method disregards the tables and keys contained in the original schemas.
@@ -10,9 +10,14 @@
  */
 package minibase.storage.buffer;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import minibase.storage.buffer.policy.ReplacementPolicy;
 import minibase.storage.buffer.policy.ReplacementPolicy.PageState;
@@ -32,6 +37,14 @@ import minibase.storage.file.DiskManager;
  * </ul>
  * The buffer manager is used by access methods, heap files, and relational operators to read, write,
  * allocate, and deallocate pages.
+ * <p>
+ * The buffer manager is thread-safe, so several scans and index lookups can share one buffer pool. Lookups in
+ * the page table are lock-free and pin counts are maintained atomically, misses are serialized per page table
+ * stripe only. The contents of a pinned page are protected by its latch (see {@link Page#latchShared()} and
+ * {@link Page#latchExclusive()}), which threads that concurrently modify pages are expected to acquire.
+ * <p>
+ * Optionally, a background page writer (see {@link #startPageWriter(int, long, TimeUnit)}) writes dirty pages
+ * back to disk before the replacement policy picks them as victims.
  *
  * @author Chris Mayfield &lt;mayfiecs@jmu.edu&gt;
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
@@ -39,21 +52,42 @@ import minibase.storage.file.DiskManager;
  */
 public final class BufferManager {
 
+   /** Number of stripes of the page table, must be a power of two. */
+   private static final int NUM_STRIPES = 64;
+
    /** Actual pool of pages. */
    private final Page<?>[] bufferPool;
 
    /** Maps current page numbers to frames; used for efficient lookups. */
-   private final Map<PageID, Page<?>> pageMap;
+   private final ConcurrentMap<PageID, Page<?>> pageMap;
+
+   /** Locks serializing the loading of pages into the buffer pool, striped by page ID. */
+   private final Lock[] stripes;
 
    /** The replacement policy to use. */
    private final ReplacementPolicy replacementPolicy;
 
+   /** Lock guarding the replacement policy and the chain of free pages. */
+   private final Lock replacerLock = new ReentrantLock();
+
    /** Reference to the disk manager. */
    private final DiskManager diskManager;
 
    /** Chain of free pages. */
    private Page<?> freePageChain;
 
+   /** Background writer, {@code null} if it is not running. */
+   private PageWriter pageWriter;
+
+   /** Number of dirty victims written to disk while loading a page. */
+   private final AtomicLong evictionWrites = new AtomicLong();
+
+   /** Number of pages written to disk by the page writer. */
+   private final AtomicLong backgroundWrites = new AtomicLong();
+
+   /** Number of victims that were clean because the page writer had written them before. */
+   private final AtomicLong avoidedWrites = new AtomicLong();
+
    /**
     * Constructs a buffer manager with the given settings.
     *
@@ -66,20 +100,39 @@ public final class BufferManager {
     */
    public BufferManager(final DiskManager diskManager, final int bufferPoolSize,
          final ReplacementStrategy replacementStrategy) {
+      this(diskManager, bufferPoolSize, replacementStrategy, FrameStorage.HEAP);
+   }
+
+   /**
+    * Constructs a buffer manager with the given settings and frame storage.
+    *
+    * @param diskManager
+    *           reference to disk manager
+    * @param bufferPoolSize
+    *           number of buffers in the buffer pool
+    * @param replacementStrategy
+    *           replacement strategy used by this buffer manager
+    * @param frameStorage
+    *           memory the frames of the buffer pool are stored in
+    */
+   public BufferManager(final DiskManager diskManager, final int bufferPoolSize,
+         final ReplacementStrategy replacementStrategy, final FrameStorage frameStorage) {
       this.diskManager = diskManager;
 
       // initialize the buffer pool and frame table
-      this.bufferPool = new Page[bufferPoolSize];
+      this.bufferPool = frameStorage.newFrames(bufferPoolSize, diskManager.getPageSize());
       Page<?> free = null;
-      for (int i = 0; i < bufferPoolSize; i++) {
-         final Page<?> page = new Page<>(i);
-         this.bufferPool[i] = page;
+      for (final Page<?> page : this.bufferPool) {
          free = page.setNextFree(free);
       }
       this.freePageChain = free;
 
-      // initialize the specialized page map and replacer
-      this.pageMap = new HashMap<>(bufferPoolSize);
+      // initialize the specialized page map, its stripes and the replacer
+      this.pageMap = new ConcurrentHashMap<>(bufferPoolSize);
+      this.stripes = new Lock[NUM_STRIPES];
+      for (int i = 0; i < NUM_STRIPES; i++) {
+         this.stripes[i] = new ReentrantLock();
+      }
       this.replacementPolicy = replacementStrategy.newInstance(bufferPoolSize);
    }
 
@@ -100,9 +153,22 @@ public final class BufferManager {
     *            if all pages are pinned (i.e. pool exceeded)
     */
    public Page<?> newPage() {
+      return this.newPage(null);
+   }
+
+   /**
+    * Allocates a new page, pins it through the given buffer ring and fills the page contents with zeroes.
+    *
+    * @param ring
+    *           buffer ring to load the page into, {@code null} to use the replacement policy
+    * @return the pinned page
+    * @throws IllegalStateException
+    *            if all pages are pinned (i.e. pool exceeded)
+    */
+   public Page<?> newPage(final BufferRing ring) {
       final PageID pageID = this.diskManager.allocatePage();
-      final Page<?> page = this.pinPage(pageID, false);
-      Arrays.fill(page.getData(), (byte) 0);
+      final Page<?> page = this.pinPage(pageID, false, ring);
+      page.fill(0, page.getSize(), (byte) 0);
       return page;
    }
 
@@ -117,7 +183,7 @@ public final class BufferManager {
    public <T extends PageType> Page<T> copyPage(final Page<T> pageToCopy) {
       @SuppressWarnings("unchecked")
       final Page<T> copy = (Page<T>) this.pinPage(this.diskManager.allocatePage(), false);
-      System.arraycopy(pageToCopy.getData(), 0, copy.getData(), 0, DiskManager.PAGE_SIZE);
+      pageToCopy.copyTo(0, copy, 0, copy.getSize());
       return copy;
    }
 
@@ -131,20 +197,25 @@ public final class BufferManager {
     *            if the page is pinned more of less than one time
     */
    public void freePage(final Page<?> page) {
-      // first check the page state
-      if (page.getPinCount() < 1) {
-         throw new IllegalArgumentException("Page is not pinned.");
-      } else if (page.getPinCount() > 1) {
+      // first check the page state and claim the frame
+      if (!page.claim(1)) {
+         if (page.getPinCount() < 1) {
+            throw new IllegalArgumentException("Page is not pinned.");
+         }
          throw new IllegalArgumentException("Page " + page.getPageID() + " is pinned more than once.");
       }
       // remove the page from the buffer pool
-      this.pageMap.remove(page.getPageID());
-      // deallocate the page from disk
-      this.diskManager.deallocatePage(page.getPageID());
-      page.reset(PageID.INVALID);
-      this.freePageChain = page.setNextFree(this.freePageChain);
-      // notify the replacer
-      this.replacementPolicy.stateChanged(page.getIndex(), PageState.FREE);
+      final PageID pageID = page.getPageID();
+      this.pageMap.remove(pageID, page);
+      // deallocate the page from disk, the latch waits for concurrent flushes of the page
+      page.latchExclusive();
+      try {
+         this.diskManager.deallocatePage(pageID);
+         page.reset(PageID.INVALID);
+      } finally {
+         page.unlatchExclusive();
+      }
+      this.releaseFrame(page);
    }
 
    /**
@@ -166,6 +237,25 @@ public final class BufferManager {
       return this.pinPage(pageID, true);
    }
 
+   /**
+    * Pins a disk page into the buffer pool like {@link #pinPage(PageID)}. If the page is not in the buffer
+    * pool yet, it is loaded into a frame of the given buffer ring instead of a victim picked by the
+    * replacement policy, see {@link BufferRing}.
+    *
+    * @param pageID
+    *           identifies the page to pin
+    * @param ring
+    *           buffer ring to load the page into, {@code null} to use the replacement policy
+    * @return buffer holding the page contents
+    * @param <T>
+    *           type of the pinned page (not checked)
+    * @throws IllegalStateException
+    *           if the buffer pool is completely filled with pinned pages
+    */
+   public <T extends PageType> Page<T> pinPage(final PageID pageID, final BufferRing ring) {
+      return this.pinPage(pageID, true, ring);
+   }
+
    /**
     * Pins a disk page into the buffer pool. If the page is already pinned, this simply increments the pin
     * count. Otherwise, this method selects an empty slot (frame) and reads the page from disk into the buffer
@@ -184,53 +274,346 @@ public final class BufferManager {
     * @throws IllegalStateException
     *           if the buffer pool is completely filled with pinned pages
     */
-   @SuppressWarnings("unchecked")
    <T extends PageType> Page<T> pinPage(final PageID pageID, final boolean readFromDisk) {
-      // first check if the page is already pinned
-      if (this.pageMap.containsKey(pageID)) {
-         final Page<T> page = (Page<T>) this.pageMap.get(pageID);
+      return this.pinPage(pageID, readFromDisk, null);
+   }
 
-         // increment the pin count, notify the replacer, and return the buffer
-         page.incrementPinCount();
-         if (page.getPinCount() == 1) {
-            this.replacementPolicy.stateChanged(page.getIndex(), PageState.PINNED);
+   /**
+    * Pins a disk page into the buffer pool, loading it through the given buffer ring if it is not yet in the
+    * buffer pool.
+    *
+    * @param pageID
+    *           identifies the page to pin
+    * @param readFromDisk
+    *           if the contents should be read from disk
+    * @param ring
+    *           buffer ring to load the page into, {@code null} to use the replacement policy
+    * @return buffer holding the page contents
+    * @param <T>
+    *           type of the pinned page (not checked)
+    * @throws IllegalStateException
+    *           if the buffer pool is completely filled with pinned pages
+    */
+   @SuppressWarnings("unchecked")
+   private <T extends PageType> Page<T> pinPage(final PageID pageID, final boolean readFromDisk,
+         final BufferRing ring) {
+      while (true) {
+         // first check if the page is already in the buffer pool, this does not need any locks
+         final Page<T> cached = this.pinCached(pageID);
+         if (cached != null) {
+            return cached;
+         }
+
+         // the page has to be loaded, which is serialized per stripe of the page table
+         final Lock stripe = this.stripes[pageID.hashCode() & NUM_STRIPES - 1];
+         stripe.lock();
+         try {
+            if (!this.pageMap.containsKey(pageID)) {
+               if (readFromDisk && ring != null && ring.readsAhead(pageID)) {
+                  return (Page<T>) this.loadPages(pageID, ring);
+               }
+               return (Page<T>) this.loadPage(pageID, readFromDisk, ring);
+            }
+         } finally {
+            stripe.unlock();
          }
-         return page;
       }
+   }
 
-      final Page<T> page;
-      if (this.freePageChain != null) {
-         // take the free page first
-         page = (Page<T>) this.freePageChain;
-         this.freePageChain = page.getAndResetNextFree();
-      } else {
-         // select an available frame
-         final int victim = this.replacementPolicy.pickVictim();
-         if (victim < 0) {
-            throw new IllegalStateException("Buffer pool exceeded");
+   /**
+    * Tries to pin the page with the given ID if it is currently held in the buffer pool.
+    *
+    * @param pageID
+    *           identifies the page to pin
+    * @return the pinned page, or {@code null} if the page is not in the buffer pool
+    * @param <T>
+    *           type of the pinned page (not checked)
+    */
+   @SuppressWarnings("unchecked")
+   private <T extends PageType> Page<T> pinCached(final PageID pageID) {
+      while (true) {
+         final Page<T> page = (Page<T>) this.pageMap.get(pageID);
+         if (page == null) {
+            return null;
          }
-         page = (Page<T>) this.bufferPool[victim];
+         final int pinCount = page.tryIncrementPinCount();
+         if (pinCount < 0) {
+            // the frame is currently being evicted, wait until it has left the page table
+            Thread.yield();
+         } else if (!pageID.equals(page.getPageID())) {
+            // the frame was reused for another page in the meantime
+            this.unpin(page);
+         } else {
+            if (pinCount == 1) {
+               this.notifyReplacer(page);
+            }
+            return page;
+         }
+      }
+   }
 
-         // if the frame was in use and dirty, write it to disk
-         this.pageMap.remove(page.getPageID());
-         if (page.isDirty()) {
-            this.diskManager.writePage(page.getPageID(), page.getData());
+   /**
+    * Loads the page with the given ID into a free or evicted frame of the buffer pool and pins it. The caller
+    * has to hold the lock of the page table stripe the page ID belongs to.
+    *
+    * @param pageID
+    *           identifies the page to load
+    * @param readFromDisk
+    *           if the contents should be read from disk
+    * @param ring
+    *           buffer ring to load the page into, {@code null} to use the replacement policy
+    * @return the pinned page
+    */
+   private Page<?> loadPage(final PageID pageID, final boolean readFromDisk, final BufferRing ring) {
+      final Page<?> page = this.prepareFrame(pageID, ring);
+      try {
+         // read in the page if requested
+         if (readFromDisk) {
+            this.diskManager.readPage(pageID, page.getBuffer());
          }
+      } catch (final RuntimeException ex) {
+         page.reset(PageID.INVALID);
+         this.releaseFrame(page);
+         throw ex;
+      } finally {
+         page.unlatchExclusive();
+      }
+
+      // publish the pinned page in the page map
+      page.unclaim(1);
+      this.pageMap.put(pageID, page);
+      return page;
+   }
+
+   /**
+    * Loads the page with the given ID and up to {@link BufferRing#getReadAhead()} directly following pages
+    * into frames of the given buffer ring with a single vectored read and pins the first page. Following
+    * pages are only read ahead while they are allocated, not in the buffer pool yet, and while their page
+    * table stripe can be locked without waiting. The caller has to hold the lock of the page table stripe
+    * the first page ID belongs to.
+    *
+    * @param pageID
+    *           identifies the first page to load
+    * @param ring
+    *           buffer ring to load the pages into
+    * @return the pinned first page
+    */
+   private Page<?> loadPages(final PageID pageID, final BufferRing ring) {
+      final int maxPages = this.diskManager.getAllocatedRunLength(pageID, 1 + ring.getReadAhead());
+      if (maxPages <= 1) {
+         return this.loadPage(pageID, true, ring);
       }
 
-      // read in the page if requested
-      page.reset(pageID);
-      if (readFromDisk) {
-         this.diskManager.readPage(pageID, page.getData());
+      final Page<?>[] frames = new Page<?>[maxPages];
+      frames[0] = this.prepareFrame(pageID, ring);
+      int numPages = 1;
+      try {
+         while (numPages < maxPages) {
+            final PageID nextID = PageID.getInstance(pageID.getValue() + numPages);
+            final Lock stripe = this.stripes[nextID.hashCode() & NUM_STRIPES - 1];
+            // never wait for a second stripe, two threads reading ahead could deadlock otherwise
+            if (!stripe.tryLock()) {
+               break;
+            }
+            try {
+               if (this.pageMap.containsKey(nextID)) {
+                  break;
+               }
+               final Page<?> frame;
+               try {
+                  frame = this.prepareFrame(nextID, ring);
+               } catch (final IllegalStateException ex) {
+                  // all other frames are pinned, read ahead as far as possible
+                  break;
+               }
+               frames[numPages++] = frame;
+               // publish the claimed frame, concurrent pins of the page wait until it has been read
+               this.pageMap.put(nextID, frame);
+            } finally {
+               stripe.unlock();
+            }
+         }
+
+         final ByteBuffer[] data = new ByteBuffer[numPages];
+         for (int i = 0; i < numPages; i++) {
+            data[i] = frames[i].getBuffer();
+         }
+         this.diskManager.readPages(pageID, numPages, data);
+      } catch (final RuntimeException ex) {
+         for (int i = 0; i < numPages; i++) {
+            final Page<?> frame = frames[i];
+            this.pageMap.remove(frame.getPageID(), frame);
+            frame.reset(PageID.INVALID);
+            this.releaseFrame(frame);
+            frame.unlatchExclusive();
+         }
+         throw ex;
       }
 
-      // update the page map and notify the replacer
+      // the pages read ahead stay unpinned, the first page is pinned and published
+      for (int i = 1; i < numPages; i++) {
+         final Page<?> frame = frames[i];
+         frame.unlatchExclusive();
+         frame.unclaim(0);
+         this.notifyReplacer(frame);
+      }
+      final Page<?> page = frames[0];
+      page.unlatchExclusive();
+      page.unclaim(1);
       this.pageMap.put(pageID, page);
-      page.incrementPinCount();
-      this.replacementPolicy.stateChanged(page.getIndex(), PageState.PINNED);
       return page;
    }
 
+   /**
+    * Claims a frame for the page with the given ID, writes the frame's previous page to disk if it is dirty
+    * and removes it from the page table. The returned frame is still claimed, latched exclusively and not
+    * yet published in the page table.
+    *
+    * @param pageID
+    *           identifies the page the frame is prepared for
+    * @param ring
+    *           buffer ring to take the frame from, {@code null} to use the replacement policy
+    * @return the prepared frame
+    * @throws IllegalStateException
+    *           if the buffer pool is completely filled with pinned pages
+    */
+   private Page<?> prepareFrame(final PageID pageID, final BufferRing ring) {
+      final Page<?> page = this.claimFrame(ring);
+      page.latchExclusive();
+      try {
+         // if the frame was in use and dirty, write it to disk
+         final PageID oldID = page.getPageID();
+         if (oldID.isValid()) {
+            if (page.isDirty()) {
+               this.diskManager.writePage(oldID, page.getBuffer());
+               this.evictionWrites.incrementAndGet();
+            } else if (page.isCleaned()) {
+               this.avoidedWrites.incrementAndGet();
+            }
+            this.pageMap.remove(oldID, page);
+         }
+         page.reset(pageID);
+      } catch (final RuntimeException ex) {
+         page.reset(PageID.INVALID);
+         this.releaseFrame(page);
+         page.unlatchExclusive();
+         throw ex;
+      }
+
+      // remember the frame in the ring
+      if (ring != null) {
+         ring.setCurrent(page);
+      }
+      return page;
+   }
+
+   /**
+    * Claims the frame in the next slot of the given buffer ring if it is not pinned and still holds the page
+    * the ring loaded into it, falls back to {@link #claimFrame()} otherwise. The replacement policy is notified
+    * that the frame is pinned.
+    *
+    * @param ring
+    *           buffer ring, may be {@code null}
+    * @return the claimed frame
+    * @throws IllegalStateException
+    *           if the buffer pool is completely filled with pinned pages
+    */
+   private Page<?> claimFrame(final BufferRing ring) {
+      if (ring != null) {
+         final Page<?> page = ring.nextFrame(this.bufferPool);
+         if (page != null && page.claim(0)) {
+            if (!ring.holdsCurrent(page)) {
+               // the frame was recycled between the lookup and the claim
+               page.unclaim(0);
+               return this.claimFrame();
+            }
+            this.replacerLock.lock();
+            try {
+               this.replacementPolicy.stateChanged(page.getIndex(), PageState.PINNED);
+            } finally {
+               this.replacerLock.unlock();
+            }
+            return page;
+         }
+      }
+      return this.claimFrame();
+   }
+
+   /**
+    * Claims a free frame or selects and claims a victim frame using the replacement policy. The replacement
+    * policy is notified that the frame is pinned.
+    *
+    * @return the claimed frame
+    * @throws IllegalStateException
+    *           if the buffer pool is completely filled with pinned pages
+    */
+   private Page<?> claimFrame() {
+      this.replacerLock.lock();
+      try {
+         Page<?> page = this.freePageChain;
+         if (page != null) {
+            // take the free page first
+            this.freePageChain = page.getAndResetNextFree();
+         } else {
+            while (true) {
+               // select an available frame
+               final int victim = this.replacementPolicy.pickVictim();
+               if (victim < 0) {
+                  throw new IllegalStateException("Buffer pool exceeded");
+               }
+               page = this.bufferPool[victim];
+               if (page.claim(0)) {
+                  break;
+               }
+               // the frame has been pinned concurrently, update the replacer
+               this.replacementPolicy.stateChanged(victim, PageState.PINNED);
+            }
+         }
+         this.replacementPolicy.stateChanged(page.getIndex(), PageState.PINNED);
+         return page;
+      } finally {
+         this.replacerLock.unlock();
+      }
+   }
+
+   /**
+    * Puts a claimed frame back into the chain of free pages.
+    *
+    * @param page
+    *           the claimed frame
+    */
+   private void releaseFrame(final Page<?> page) {
+      this.replacerLock.lock();
+      try {
+         this.freePageChain = page.setNextFree(this.freePageChain);
+         this.replacementPolicy.stateChanged(page.getIndex(), PageState.FREE);
+      } finally {
+         this.replacerLock.unlock();
+      }
+   }
+
+   /**
+    * Notifies the replacement policy of the current pin state of the given frame. The state is re-checked
+    * while holding the replacer lock, so that notifications of concurrent pins and unpins cannot overtake
+    * each other.
+    *
+    * @param page
+    *           the frame whose pin count changed from or to zero
+    */
+   private void notifyReplacer(final Page<?> page) {
+      this.replacerLock.lock();
+      try {
+         final int pinCount = page.getPinCount();
+         if (pinCount > 0) {
+            this.replacementPolicy.stateChanged(page.getIndex(), PageState.PINNED);
+         } else if (pinCount == 0) {
+            this.replacementPolicy.stateChanged(page.getIndex(), PageState.UNPINNED);
+         }
+      } finally {
+         this.replacerLock.unlock();
+      }
+   }
+
    /**
     * Unpins a disk page from the buffer pool, decreasing its pin count.
     *
@@ -243,17 +626,25 @@ public final class BufferManager {
     */
    public void unpinPage(final Page<?> page, final UnpinMode mode) {
       // check the page state
-      if (page.getPinCount() == 0) {
+      if (page.getPinCount() <= 0) {
          throw new IllegalArgumentException("Page not pinned");
       }
       // update the page
-      page.decrementPinCount();
       if (mode == UnpinMode.DIRTY) {
          page.setDirty(true);
       }
-      // notify the replacer
-      if (page.getPinCount() == 0) {
-         this.replacementPolicy.stateChanged(page.getIndex(), PageState.UNPINNED);
+      this.unpin(page);
+   }
+
+   /**
+    * Decrements the pin count of the given page and notifies the replacer if it is no longer pinned.
+    *
+    * @param page
+    *           page to unpin
+    */
+   private void unpin(final Page<?> page) {
+      if (page.decrementPinCount() == 0) {
+         this.notifyReplacer(page);
       }
    }
 
@@ -265,11 +656,18 @@ public final class BufferManager {
     *           page to be flushed
     */
    public void flushPage(final Page<?> page) {
-      if (page.isDirty()) {
-         // write the page to disk
-         this.diskManager.writePage(page.getPageID(), page.getData());
-         // the buffer page is now clean
-         page.setDirty(false);
+      // the shared latch keeps the frame from being reassigned to another page while it is written
+      page.latchShared();
+      try {
+         final PageID pageID = page.getPageID();
+         if (page.isDirty() && pageID.isValid()) {
+            // the buffer page is clean from now on, concurrent modifications will mark it dirty again
+            page.setDirty(false);
+            // write the page to disk
+            this.diskManager.writePage(pageID, page.getBuffer());
+         }
+      } finally {
+         page.unlatchShared();
       }
    }
 
@@ -279,11 +677,125 @@ public final class BufferManager {
     */
    public void flushAllPages() {
       // iterate the buffer pool
-      for (final Page< ? > page : this.pageMap.values()) {
+      for (final Page< ? > page : this.bufferPool) {
          this.flushPage(page);
       }
    }
 
+   /**
+    * Writes all dirty pages in the buffer pool to disk asynchronously, on the page writer's thread if it is
+    * running. Note that flushing a page only writes that page to disk, i.e., the page will not be unpinned,
+    * freed, etc.
+    *
+    * @return future that is completed when all pages that were dirty at the time of the call are written
+    */
+   public synchronized CompletableFuture<Void> flushAllPagesAsync() {
+      return this.pageWriter != null ? this.pageWriter.submit(this::flushAllPages)
+            : CompletableFuture.runAsync(this::flushAllPages);
+   }
+
+   /**
+    * Starts the page writer, a background thread that periodically writes the dirty pages that the
+    * replacement policy would pick as the next victims back to disk. Misses then mostly find clean victims,
+    * which they can reuse without writing them first.
+    *
+    * @param batchSize
+    *           maximum number of victim candidates that are written per round
+    * @param delay
+    *           delay between two rounds
+    * @param unit
+    *           time unit of the delay
+    * @throws IllegalStateException
+    *            if the page writer is already running
+    * @throws IllegalArgumentException
+    *            if the batch size or the delay is not positive
+    */
+   public synchronized void startPageWriter(final int batchSize, final long delay, final TimeUnit unit) {
+      if (this.pageWriter != null) {
+         throw new IllegalStateException("Page writer is already running.");
+      }
+      if (batchSize < 1 || delay < 1) {
+         throw new IllegalArgumentException("Invalid page writer settings: " + batchSize + ", " + delay);
+      }
+      this.pageWriter = new PageWriter(this, batchSize, delay, unit);
+   }
+
+   /**
+    * Stops the page writer, waiting for running writes and asynchronous flushes to finish. Does nothing if
+    * the page writer is not running.
+    */
+   public synchronized void stopPageWriter() {
+      if (this.pageWriter != null) {
+         this.pageWriter.shutdown();
+         this.pageWriter = null;
+      }
+   }
+
+   /**
+    * Writes the dirty pages among the next victim candidates of the replacement policy back to disk. Called
+    * periodically by the page writer.
+    *
+    * @param max
+    *           maximum number of candidates to consider
+    */
+   void writeVictims(final int max) {
+      final int[] victims;
+      this.replacerLock.lock();
+      try {
+         victims = this.replacementPolicy.peekVictims(max);
+      } finally {
+         this.replacerLock.unlock();
+      }
+      for (final int index : victims) {
+         final Page<?> page = this.bufferPool[index];
+         if (!page.isDirty() || page.getPinCount() != 0) {
+            continue;
+         }
+         // the shared latch keeps the frame from being evicted or freed while it is written
+         page.latchShared();
+         try {
+            final PageID pageID = page.getPageID();
+            if (page.isDirty() && page.getPinCount() == 0 && pageID.isValid()) {
+               page.setDirty(false);
+               this.diskManager.writePage(pageID, page.getBuffer());
+               page.setCleaned();
+               this.backgroundWrites.incrementAndGet();
+            }
+         } finally {
+            page.unlatchShared();
+         }
+      }
+   }
+
+   /**
+    * Returns the number of dirty victims that had to be written to disk before a page could be loaded into
+    * their frame.
+    *
+    * @return number of writes on the eviction path
+    */
+   public long getEvictionWriteCount() {
+      return this.evictionWrites.get();
+   }
+
+   /**
+    * Returns the number of pages the page writer has written to disk.
+    *
+    * @return number of background writes
+    */
+   public long getBackgroundWriteCount() {
+      return this.backgroundWrites.get();
+   }
+
+   /**
+    * Returns the number of victims that did not have to be written on the eviction path because the page
+    * writer had already written them to disk.
+    *
+    * @return number of avoided writes on the eviction path
+    */
+   public long getAvoidedWriteCount() {
+      return this.avoidedWrites.get();
+   }
+
    /**
     * Returns the total number of buffer frames.
     *
@@ -300,7 +812,7 @@ public final class BufferManager {
     */
    public int getNumPinned() {
       int count = 0;
-      for (final Page< ? > page : this.pageMap.values()) {
+      for (final Page< ? > page : this.bufferPool) {
          if (page.getPinCount() > 0) {
             count++;
          }
@@ -0,0 +1,164 @@
+/*
+ * @(#)BufferRing.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer;
+
+import java.util.Arrays;
+
+/**
+ * Access strategy for bulk sequential work like table scans, run scans and run generation in external
+ * sorting. Pages that are pinned through a buffer ring and are not already in the buffer pool are loaded
+ * into a small, fixed set of frames that are recycled round robin, instead of into a frame chosen by the
+ * replacement policy. A large scan therefore only replaces as many pages of the buffer pool as the ring has
+ * slots, and the pages other operators use frequently stay in the buffer pool.
+ * <p>
+ * A buffer ring can also read ahead: when a page pinned through the ring is not in the buffer pool, up to
+ * {@link #getReadAhead()} directly following pages are loaded into the next slots of the ring, too, using a
+ * single vectored read (see {@link minibase.storage.file.DiskManager#readPages}). Scans over pages that were
+ * allocated consecutively then only go to disk once per read-ahead window. The ring stops reading ahead
+ * while the missed pages do not directly follow the last page it loaded, e.g. for page chains that are
+ * scattered over the file.
+ * <p>
+ * A buffer ring is meant to be used by a single thread. Frames in the ring are not reserved, so they may be
+ * taken by the replacement policy in the meantime, in which case the ring falls back to the policy.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public final class BufferRing {
+
+   /** Default number of slots of a buffer ring for table scans. */
+   public static final int DEFAULT_SIZE = 32;
+
+   /** Default number of pages read ahead by a buffer ring for table scans. */
+   public static final int DEFAULT_READ_AHEAD = 8;
+
+   /** Indexes of the frames in the ring, {@code -1} for unused slots. */
+   private final int[] frames;
+
+   /** IDs of the pages that were loaded into the frames of the ring. */
+   private final PageID[] pageIDs;
+
+   /** Number of pages to read ahead on a miss. */
+   private final int readAhead;
+
+   /** Current slot of the ring. */
+   private int current;
+
+   /**
+    * Creates a buffer ring with the given number of slots that does not read ahead.
+    *
+    * @param size
+    *           number of slots
+    * @throws IllegalArgumentException
+    *            if the size is not positive
+    */
+   public BufferRing(final int size) {
+      this(size, 0);
+   }
+
+   /**
+    * Creates a buffer ring with the given number of slots that reads the given number of pages ahead.
+    *
+    * @param size
+    *           number of slots
+    * @param readAhead
+    *           number of pages to read ahead, must be smaller than the size
+    * @throws IllegalArgumentException
+    *            if the size is not positive or the read-ahead is negative or not smaller than the size
+    */
+   public BufferRing(final int size, final int readAhead) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Buffer ring size must be positive: " + size);
+      }
+      if (readAhead < 0 || readAhead >= size) {
+         throw new IllegalArgumentException("Invalid read-ahead for buffer ring of size " + size + ": " + readAhead);
+      }
+      this.readAhead = readAhead;
+      this.frames = new int[size];
+      this.pageIDs = new PageID[size];
+      Arrays.fill(this.frames, -1);
+      Arrays.fill(this.pageIDs, PageID.INVALID);
+   }
+
+   /**
+    * Returns the number of slots of this ring.
+    *
+    * @return number of slots
+    */
+   public int getSize() {
+      return this.frames.length;
+   }
+
+   /**
+    * Returns the number of pages this ring reads ahead.
+    *
+    * @return number of pages read ahead
+    */
+   public int getReadAhead() {
+      return this.readAhead;
+   }
+
+   /**
+    * Advances the ring to the next slot and returns the frame that the slot's page was last loaded into.
+    *
+    * @param bufferPool
+    *           the buffer pool
+    * @return the frame, or {@code null} if the slot is unused or its frame holds a page not loaded by the ring
+    */
+   Page<?> nextFrame(final Page<?>[] bufferPool) {
+      this.current = (this.current + 1) % this.frames.length;
+      final int index = this.frames[this.current];
+      if (index < 0) {
+         return null;
+      }
+      final Page<?> page = bufferPool[index];
+      return this.holdsCurrent(page) ? page : null;
+   }
+
+   /**
+    * Checks whether the given frame still holds the page that the ring loaded into its current slot. Since
+    * the frame may be recycled concurrently, this has to be re-checked after the frame has been claimed.
+    *
+    * @param page
+    *           the frame
+    * @return {@code true} if the frame holds the page of the current slot, {@code false} otherwise
+    */
+   boolean holdsCurrent(final Page<?> page) {
+      return page.getPageID().equals(this.pageIDs[this.current]);
+   }
+
+   /**
+    * Checks whether the ring should read ahead when loading the page with the given ID. This is the case if
+    * it has not loaded any page yet or the page directly follows the last one it loaded.
+    *
+    * @param pageID
+    *           ID of the page to load
+    * @return {@code true} if pages should be read ahead, {@code false} otherwise
+    */
+   boolean readsAhead(final PageID pageID) {
+      if (this.readAhead == 0) {
+         return false;
+      }
+      final PageID last = this.pageIDs[this.current];
+      return !last.isValid() || last.getValue() + 1 == pageID.getValue();
+   }
+
+   /**
+    * Records that the given page has been loaded into the current slot.
+    *
+    * @param page
+    *           the frame the page was loaded into
+    */
+   void setCurrent(final Page<?> page) {
+      this.frames[this.current] = page.getIndex();
+      this.pageIDs[this.current] = page.getPageID();
+   }
+}
@@ -0,0 +1,72 @@
+/*
+ * @(#)FrameStorage.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Enumeration of the different ways the frames of the buffer pool can be stored in memory.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public enum FrameStorage {
+   /** Every frame is backed by its own array on the Java heap. */
+   HEAP() {
+
+      @Override
+      Page<?>[] newFrames(final int numBuffers, final int pageSize) {
+         final Page<?>[] frames = new Page<?>[numBuffers];
+         for (int i = 0; i < numBuffers; i++) {
+            frames[i] = new Page<>(i, pageSize);
+         }
+         return frames;
+      }
+   },
+
+   /**
+    * All frames are slices of direct buffers allocated outside of the Java heap. The frames are not scanned
+    * by the garbage collector and can be transferred to and from disk without copying them.
+    */
+   OFF_HEAP() {
+
+      @Override
+      Page<?>[] newFrames(final int numBuffers, final int pageSize) {
+         final Page<?>[] frames = new Page<?>[numBuffers];
+         final int framesPerArena = ARENA_SIZE / pageSize;
+         ByteBuffer arena = null;
+         for (int i = 0; i < numBuffers; i++) {
+            final int slot = i % framesPerArena;
+            if (slot == 0) {
+               arena = ByteBuffer.allocateDirect(Math.min(numBuffers - i, framesPerArena) * pageSize);
+            }
+            final ByteBuffer view = arena.duplicate();
+            view.position(slot * pageSize).limit((slot + 1) * pageSize);
+            frames[i] = new Page<>(i, view.slice());
+         }
+         return frames;
+      }
+   };
+
+   /** Maximum size of a single off-heap arena, in bytes. */
+   static final int ARENA_SIZE = 1 << 30;
+
+   /**
+    * Allocates the frames of a buffer pool.
+    *
+    * @param numBuffers
+    *           number of frames
+    * @param pageSize
+    *           size of each frame, in bytes
+    * @return the frames, indexed by their position in the buffer pool
+    */
+   abstract Page<?>[] newFrames(int numBuffers, int pageSize);
+}
@@ -10,8 +10,12 @@
  */
 package minibase.storage.buffer;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 import minibase.RecordID;
-import minibase.storage.file.DiskManager;
 import minibase.util.Convert;
 
 /**
@@ -27,17 +31,26 @@ public final class Page<T extends PageType> {
    /** Index of this page in the buffer pool. */
    private final int index;
 
-   /** The actual byte array for the page. */
-   private final byte[] data;
+   /** The contents of the page, either backed by an array or a slice of an off-heap arena. */
+   private final ByteBuffer data;
+
+   /** Backing array of the contents, {@code null} if the page is stored off-heap. */
+   private final byte[] array;
 
    /** Current page number of this page. */
-   private PageID pageID = PageID.INVALID;
+   private volatile PageID pageID = PageID.INVALID;
 
-   /** Pin count of this page. */
-   private int pinCount = 0;
+   /** Pin count of this page, {@code -1} while the frame is free or claimed by the buffer manager. */
+   private final AtomicInteger pinCount = new AtomicInteger(-1);
 
    /** Dirty status of this page. */
-   private boolean dirty = false;
+   private volatile boolean dirty = false;
+
+   /** Whether the page writer has written this page back since it was loaded, guarded by the latch. */
+   private boolean cleaned = false;
+
+   /** Read/write latch protecting the contents of this page. */
+   private final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
 
    /** Reference to the next page in the free-pages chain of the buffer manager. */
    private Page<?> next = null;
@@ -46,10 +59,41 @@ public final class Page<T extends PageType> {
     * Constructor.
     *
     * @param index index of this page in the buffer pool
+    * @param pageSize size of the page, in bytes
     */
-   public Page(final int index) {
+   public Page(final int index, final int pageSize) {
+      this(index, ByteBuffer.wrap(new byte[pageSize]));
+   }
+
+   /**
+    * Constructor for a page whose contents are stored in the given buffer. The buffer must have position
+    * zero and its capacity is the size of the page.
+    *
+    * @param index index of this page in the buffer pool
+    * @param data buffer holding the contents of the page
+    */
+   Page(final int index, final ByteBuffer data) {
       this.index = index;
-      this.data = new byte[DiskManager.PAGE_SIZE];
+      this.data = data;
+      this.array = data.hasArray() ? data.array() : null;
+   }
+
+   /**
+    * Returns the size of this page.
+    *
+    * @return page size, in bytes
+    */
+   public int getSize() {
+      return this.data.capacity();
+   }
+
+   /**
+    * Checks whether the contents of this page are stored off-heap.
+    *
+    * @return {@code true} if the page is stored off-heap, {@code false} if it is backed by an array
+    */
+   public boolean isDirect() {
+      return this.array == null;
    }
 
    /**
@@ -62,11 +106,156 @@ public final class Page<T extends PageType> {
    }
 
    /**
-    * Getter for the byte buffer.
-    * @return the byte buffer
+    * Returns a new view of the contents of this page for transferring them to or from disk. The view
+    * covers the whole page and has its own position, so I/O on it does not interfere with other views.
+    *
+    * @return view of the page contents
     */
-   public byte[] getData() {
-      return this.data;
+   ByteBuffer getBuffer() {
+      return this.data.duplicate();
+   }
+
+   /**
+    * Copies bytes from this page into the given array.
+    *
+    * @param offset read offset
+    * @param dest destination array
+    * @param destPos start position in the destination array
+    * @param length number of bytes to copy
+    */
+   public void read(final int offset, final byte[] dest, final int destPos, final int length) {
+      if (this.array != null) {
+         System.arraycopy(this.array, offset, dest, destPos, length);
+      } else {
+         final ByteBuffer view = this.data.duplicate();
+         view.position(offset);
+         view.get(dest, destPos, length);
+      }
+   }
+
+   /**
+    * Copies bytes from the given array into this page.
+    *
+    * @param offset write offset
+    * @param src source array
+    * @param srcPos start position in the source array
+    * @param length number of bytes to copy
+    */
+   public void write(final int offset, final byte[] src, final int srcPos, final int length) {
+      if (this.array != null) {
+         System.arraycopy(src, srcPos, this.array, offset, length);
+      } else {
+         final ByteBuffer view = this.data.duplicate();
+         view.position(offset);
+         view.put(src, srcPos, length);
+      }
+   }
+
+   /**
+    * Moves a range of bytes inside this page. The source and destination ranges may overlap.
+    *
+    * @param from start of the source range
+    * @param to start of the destination range
+    * @param length number of bytes to move
+    */
+   public void move(final int from, final int to, final int length) {
+      if (this.array != null) {
+         System.arraycopy(this.array, from, this.array, to, length);
+      } else if (length > 0) {
+         final byte[] tmp = new byte[length];
+         this.read(from, tmp, 0, length);
+         this.write(to, tmp, 0, length);
+      }
+   }
+
+   /**
+    * Copies a range of bytes from this page into another page, or inside this page if both are the same.
+    *
+    * @param offset start of the range in this page
+    * @param dest destination page
+    * @param destOffset start of the range in the destination page
+    * @param length number of bytes to copy
+    */
+   public void copyTo(final int offset, final Page<?> dest, final int destOffset, final int length) {
+      if (dest == this) {
+         this.move(offset, destOffset, length);
+      } else if (this.array != null) {
+         dest.write(destOffset, this.array, offset, length);
+      } else if (dest.array != null) {
+         this.read(offset, dest.array, destOffset, length);
+      } else {
+         final ByteBuffer src = this.data.duplicate();
+         src.position(offset).limit(offset + length);
+         final ByteBuffer target = dest.data.duplicate();
+         target.position(destOffset);
+         target.put(src);
+      }
+   }
+
+   /**
+    * Compares a range of bytes in this page with a range of the given array, as unsigned bytes in lexicographic
+    * order.
+    *
+    * @param offset start of the range in this page
+    * @param other array to compare with
+    * @param otherPos start of the range in the array
+    * @param length length of both ranges
+    * @return a negative integer, zero, or a positive integer as the range in this page is less than, equal to, or
+    *         greater than the range in the array
+    */
+   public int compare(final int offset, final byte[] other, final int otherPos, final int length) {
+      if (this.array != null) {
+         for (int i = 0; i < length; i++) {
+            final int diff = (this.array[offset + i] & 0xFF) - (other[otherPos + i] & 0xFF);
+            if (diff != 0) {
+               return diff;
+            }
+         }
+      } else {
+         for (int i = 0; i < length; i++) {
+            final int diff = (this.data.get(offset + i) & 0xFF) - (other[otherPos + i] & 0xFF);
+            if (diff != 0) {
+               return diff;
+            }
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Sets a range of bytes in this page to the given value.
+    *
+    * @param from start of the range (inclusive)
+    * @param to end of the range (exclusive)
+    * @param value value to write
+    */
+   public void fill(final int from, final int to, final byte value) {
+      if (this.array != null) {
+         Arrays.fill(this.array, from, to, value);
+      } else {
+         for (int i = from; i < to; i++) {
+            this.data.put(i, value);
+         }
+      }
+   }
+
+   /**
+    * Gets a byte at the given page offset.
+    *
+    * @param offset read offset
+    * @return the byte value
+    */
+   public byte readByte(final int offset) {
+      return this.data.get(offset);
+   }
+
+   /**
+    * Sets a byte at the given page offset.
+    * @param offset write offset
+    * @param value value to write
+    */
+   public void writeByte(final int offset, final byte value) {
+      this.data.put(offset, value);
    }
 
    /**
@@ -76,7 +265,7 @@ public final class Page<T extends PageType> {
     * @return the char value
     */
    public char readChar(final int offset) {
-      return Convert.readChar(this.data, offset);
+      return this.data.getChar(offset);
    }
 
    /**
@@ -85,7 +274,7 @@ public final class Page<T extends PageType> {
     * @param value value to write
     */
    public void writeChar(final int offset, final char value) {
-      Convert.writeChar(this.data, offset, value);
+      this.data.putChar(offset, value);
    }
 
    /**
@@ -95,7 +284,7 @@ public final class Page<T extends PageType> {
     * @return the short value
     */
    public short readShort(final int offset) {
-      return Convert.readShort(this.data, offset);
+      return this.data.getShort(offset);
    }
 
    /**
@@ -104,7 +293,7 @@ public final class Page<T extends PageType> {
     * @param value short value to write
     */
    public void writeShort(final int offset, final short value) {
-      Convert.writeShort(this.data, offset, value);
+      this.data.putShort(offset, value);
    }
 
    /**
@@ -114,7 +303,7 @@ public final class Page<T extends PageType> {
     * @return the read value
     */
    public int readInt(final int offset) {
-      return Convert.readInt(this.data, offset);
+      return this.data.getInt(offset);
    }
 
    /**
@@ -123,7 +312,7 @@ public final class Page<T extends PageType> {
     * @param value the int value to write
     */
    public void writeInt(final int offset, final int value) {
-      Convert.writeInt(this.data, offset, value);
+      this.data.putInt(offset, value);
    }
 
    /**
@@ -133,7 +322,7 @@ public final class Page<T extends PageType> {
     * @return the read value
     */
    public float readFloat(final int offset) {
-      return Convert.readFloat(this.data, offset);
+      return this.data.getFloat(offset);
    }
 
    /**
@@ -142,7 +331,7 @@ public final class Page<T extends PageType> {
     * @param value the float value to write
     */
    public void writeFloat(final int offset, final float value) {
-      Convert.writeFloat(this.data, offset, value);
+      this.data.putFloat(offset, value);
    }
 
    /**
@@ -153,7 +342,12 @@ public final class Page<T extends PageType> {
     * @return the string
     */
    public String readString(final int offset, final int length) {
-      return Convert.readString(this.data, offset, length);
+      if (this.array != null) {
+         return Convert.readString(this.array, offset, length);
+      }
+      final byte[] bytes = new byte[Math.min(length, this.getSize() - offset)];
+      this.read(offset, bytes, 0, bytes.length);
+      return Convert.readString(bytes, 0, bytes.length);
    }
 
    /**
@@ -163,7 +357,13 @@ public final class Page<T extends PageType> {
     * @param maxLen maximum length of the string on disk
     */
    public void writeString(final int offset, final String value, final int maxLen) {
-      Convert.writeString(this.data, offset, value, maxLen);
+      if (this.array != null) {
+         Convert.writeString(this.array, offset, value, maxLen);
+      } else {
+         final byte[] bytes = new byte[Math.min(maxLen, this.getSize() - offset)];
+         Convert.writeString(bytes, 0, value, maxLen);
+         this.write(offset, bytes, 0, bytes.length);
+      }
    }
 
    /**
@@ -172,7 +372,7 @@ public final class Page<T extends PageType> {
     * @return the page ID
     */
    public PageID readPageID(final int offset) {
-      return PageID.getInstance(Convert.readInt(this.data, offset));
+      return PageID.getInstance(this.data.getInt(offset));
    }
 
    /**
@@ -181,7 +381,7 @@ public final class Page<T extends PageType> {
     * @param value page ID to write
     */
    public void writePageID(final int offset, final PageID value) {
-      Convert.writeInt(this.data, offset, value.getValue());
+      this.data.putInt(offset, value.getValue());
    }
 
    /**
@@ -190,7 +390,7 @@ public final class Page<T extends PageType> {
     * @return the record ID
     */
    public RecordID readRecordID(final int offset) {
-      return new RecordID(this.data, offset);
+      return new RecordID(PageID.getInstance(this.data.getInt(offset)), this.data.getInt(offset + 4));
    }
 
    /**
@@ -199,7 +399,8 @@ public final class Page<T extends PageType> {
     * @param value record ID to write
     */
    public void writeRecordID(final int offset, final RecordID value) {
-      value.writeData(this.data, offset);
+      this.data.putInt(offset, value.getPageID().getValue());
+      this.data.putInt(offset + 4, value.getSlotNo());
    }
 
    /**
@@ -211,26 +412,90 @@ public final class Page<T extends PageType> {
    }
 
    /**
-    * Returns the pin count of this frame.
+    * Acquires the shared (read) latch of this page, blocking while another thread holds the exclusive latch.
+    * Latches protect the page contents between threads that have the page pinned; they are independent of
+    * the pin count, which only keeps the page in the buffer pool.
+    */
+   public void latchShared() {
+      this.latch.readLock().lock();
+   }
+
+   /**
+    * Releases the shared (read) latch of this page.
+    */
+   public void unlatchShared() {
+      this.latch.readLock().unlock();
+   }
+
+   /**
+    * Acquires the exclusive (write) latch of this page, blocking while any other thread holds a latch on it.
+    */
+   public void latchExclusive() {
+      this.latch.writeLock().lock();
+   }
+
+   /**
+    * Releases the exclusive (write) latch of this page.
+    */
+   public void unlatchExclusive() {
+      this.latch.writeLock().unlock();
+   }
+
+   /**
+    * Returns the pin count of this frame, which is {@code -1} if the frame is free or claimed by the buffer
+    * manager.
     *
     * @return The pin count.
     */
    int getPinCount() {
-      return this.pinCount;
+      return this.pinCount.get();
    }
 
    /**
-    * Increments the pin count of this frame descriptor.
+    * Tries to increment the pin count of this frame. This fails if the frame is currently free or claimed by
+    * the buffer manager for eviction or deallocation.
+    *
+    * @return the new pin count, or {@code -1} if the frame could not be pinned
     */
-   void incrementPinCount() {
-      this.pinCount++;
+   int tryIncrementPinCount() {
+      while (true) {
+         final int count = this.pinCount.get();
+         if (count < 0) {
+            return -1;
+         }
+         if (this.pinCount.compareAndSet(count, count + 1)) {
+            return count + 1;
+         }
+      }
    }
 
    /**
     * Decrements the pin count of this frame descriptor.
+    *
+    * @return the new pin count
+    */
+   int decrementPinCount() {
+      return this.pinCount.decrementAndGet();
+   }
+
+   /**
+    * Claims this frame for the buffer manager if its pin count is exactly {@code expected}. While claimed, no
+    * other thread is able to pin the frame.
+    *
+    * @param expected expected pin count
+    * @return {@code true} if the frame was claimed, {@code false} otherwise
     */
-   void decrementPinCount() {
-      this.pinCount--;
+   boolean claim(final int expected) {
+      return this.pinCount.compareAndSet(expected, -1);
+   }
+
+   /**
+    * Releases the claim on this frame and sets its pin count to the given value.
+    *
+    * @param count new pin count
+    */
+   void unclaim(final int count) {
+      this.pinCount.set(count);
    }
 
    /**
@@ -242,6 +507,22 @@ public final class Page<T extends PageType> {
       return this.dirty;
    }
 
+   /**
+    * Queries whether the page writer has written this page back to disk since it was loaded.
+    *
+    * @return {@code true} if the page was cleaned by the page writer, {@code false} otherwise
+    */
+   boolean isCleaned() {
+      return this.cleaned;
+   }
+
+   /**
+    * Marks this page as written back to disk by the page writer.
+    */
+   void setCleaned() {
+      this.cleaned = true;
+   }
+
    /**
     * Sets the dirty status of this page.
     *
@@ -254,15 +535,16 @@ public final class Page<T extends PageType> {
 
    /**
     * Resets this page to represent the disk block with the given ID.
-    * This resets the pin count to {@code 0} and the page's status to clean.
+    * This resets the page's status to clean and leaves the frame claimed by the buffer manager.
     *
     * @param pageID
     *           the ID of the represented page
     */
    void reset(final PageID pageID) {
+      this.pinCount.set(-1);
       this.pageID = pageID;
-      this.pinCount = 0;
       this.dirty = false;
+      this.cleaned = false;
    }
 
    /**
@@ -294,9 +576,9 @@ public final class Page<T extends PageType> {
    @Override
    public String toString() {
       final StringBuilder sb = new StringBuilder("Page#").append(this.getPageID()).append('[');
-      for (int i = 0; i < this.data.length / 32; i++) {
+      for (int i = 0; i < this.getSize() / 32; i++) {
          sb.append("\n   ");
-         final int thisLine = Math.min(this.data.length - i * 32, 32);
+         final int thisLine = Math.min(this.getSize() - i * 32, 32);
          for (int j = 0; j < thisLine / 4; j++) {
             sb.append(String.format(" %08x", this.readInt(i * 32 + j * 4)));
          }
@@ -0,0 +1,74 @@
+/*
+ * @(#)PageWriter.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread of a {@link BufferManager} that periodically writes the dirty pages the replacement
+ * policy is going to pick as victims next back to disk, so that misses rarely have to write a victim before
+ * they can read the requested page. The thread also runs the asynchronous flushes of the buffer pool.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class PageWriter {
+
+   /** Executor running the writer thread. */
+   private final ScheduledExecutorService executor;
+
+   /**
+    * Starts a page writer for the given buffer manager.
+    *
+    * @param bufferManager
+    *           buffer manager whose pages are written
+    * @param batchSize
+    *           maximum number of victim candidates written per round
+    * @param delay
+    *           delay between two rounds
+    * @param unit
+    *           time unit of the delay
+    */
+   PageWriter(final BufferManager bufferManager, final int batchSize, final long delay, final TimeUnit unit) {
+      this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+         final Thread thread = new Thread(task, "minibase-page-writer");
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.executor.scheduleWithFixedDelay(() -> bufferManager.writeVictims(batchSize), delay, delay, unit);
+   }
+
+   /**
+    * Runs the given task on the writer thread.
+    *
+    * @param task
+    *           task to run
+    * @return future that is completed when the task has finished
+    */
+   CompletableFuture<Void> submit(final Runnable task) {
+      return CompletableFuture.runAsync(task, this.executor);
+   }
+
+   /**
+    * Stops the writer thread after all submitted tasks have finished.
+    */
+   void shutdown() {
+      this.executor.shutdown();
+      try {
+         this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (final InterruptedException exc) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -11,6 +11,7 @@
 package minibase.storage.buffer;
 
 import minibase.storage.buffer.policy.ClockPolicy;
+import minibase.storage.buffer.policy.LRUKPolicy;
 import minibase.storage.buffer.policy.LRUPolicy;
 import minibase.storage.buffer.policy.MRUPolicy;
 import minibase.storage.buffer.policy.RandomPolicy;
@@ -42,6 +43,15 @@ public enum ReplacementStrategy {
       }
    },
 
+   /** LRU-K strategy with K = 2, which is resistant to sequential flooding. */
+   LRU_K() {
+
+      @Override
+      ReplacementPolicy newInstance(final int numBuffers) {
+         return new LRUKPolicy(numBuffers, 2);
+      }
+   },
+
    /** Most recently used strategy. */
    MRU() {
 
@@ -71,4 +71,19 @@ public class ClockPolicy implements ReplacementPolicy {
       // error state if the clock can not identify a victim
       return -1;
    }
+
+   @Override
+   public int[] peekVictims(final int max) {
+      // pages are picked in the order in which the clock head passes them
+      final int size = this.pageStates.length;
+      final int[] victims = new int[Math.min(max, size)];
+      int n = 0;
+      for (int i = 1; i <= size && n < victims.length; i++) {
+         final int pos = (this.head + i) % size;
+         if (this.pageStates[pos] != PageState.PINNED) {
+            victims[n++] = pos;
+         }
+      }
+      return Arrays.copyOf(victims, n);
+   }
 }
@@ -0,0 +1,249 @@
+/*
+ * @(#)LRUKPolicy.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer.policy;
+
+import java.util.PriorityQueue;
+
+/**
+ * A replacement policy that implements the <em>LRU-K</em> algorithm by O'Neil, O'Neil and Weikum. The LRU-K
+ * policy evicts the memory page (frame) whose K-th most recent reference lies furthest in the past. Pages
+ * that have been referenced fewer than K times are evicted first, in LRU order. This keeps pages that are
+ * only touched once, e.g. by a sequential scan of a heap file, from flooding the buffer pool.
+ * <p>
+ * The reference history of a frame is forgotten as soon as it is chosen as a victim, since the policy does
+ * not know which page is loaded into it next. Unpinned frames are kept in an indexed binary heap, so state
+ * changes and victim selection run in logarithmic time.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class LRUKPolicy implements ReplacementPolicy {
+
+   /** Marker for frames that are not contained in the heap. */
+   private static final int NOT_IN_HEAP = -1;
+
+   /** Number of references remembered per frame. */
+   private final int k;
+
+   /** Reference history, {@code k} logical timestamps per frame with the most recent one first. */
+   private final long[] history;
+
+   /** Heap of the unpinned frames, ordered by their eviction priority. */
+   private final int[] heap;
+
+   /** Position of every frame in the heap, {@link #NOT_IN_HEAP} for pinned frames. */
+   private final int[] heapPos;
+
+   /** Number of frames in the heap. */
+   private int size;
+
+   /** Logical clock, incremented on every reference. */
+   private long clock;
+
+   /**
+    * Constructs a LRU-K replacement policy.
+    *
+    * @param numBuffers
+    *           size of the buffer pool managed by this buffer policy
+    * @param k
+    *           number of references to consider per page, {@code 1} degrades to LRU
+    */
+   public LRUKPolicy(final int numBuffers, final int k) {
+      if (k < 1) {
+         throw new IllegalArgumentException("K must be positive: " + k);
+      }
+      this.k = k;
+      this.history = new long[numBuffers * k];
+      this.heap = new int[numBuffers];
+      this.heapPos = new int[numBuffers];
+      // add all pages as none are pinned yet
+      for (int i = 0; i < numBuffers; i++) {
+         this.heap[i] = i;
+         this.heapPos[i] = i;
+      }
+      this.size = numBuffers;
+   }
+
+   @Override
+   public void stateChanged(final int pos, final PageState newState) {
+      switch (newState) {
+         case FREE:
+            // free pages have no history and are evicted first
+            this.forget(pos);
+            this.insert(pos);
+            break;
+         case PINNED:
+            // pinning a page counts as a reference
+            this.remove(pos);
+            final int base = pos * this.k;
+            System.arraycopy(this.history, base, this.history, base + 1, this.k - 1);
+            this.history[base] = ++this.clock;
+            break;
+         case UNPINNED:
+         default:
+            this.insert(pos);
+            break;
+      }
+   }
+
+   @Override
+   public int pickVictim() {
+      if (this.size == 0) {
+         // error state if all pages are pinned
+         return -1;
+      }
+      final int victim = this.heap[0];
+      this.remove(victim);
+      this.forget(victim);
+      return victim;
+   }
+
+   @Override
+   public int[] peekVictims(final int max) {
+      // best-first traversal of the heap, the candidates are the children of the entries returned so far
+      final int n = Math.min(max, this.size);
+      final int[] victims = new int[n];
+      final PriorityQueue<Integer> candidates = new PriorityQueue<>(
+            (i, j) -> this.before(this.heap[i], this.heap[j]) ? -1 : 1);
+      if (n > 0) {
+         candidates.add(0);
+      }
+      for (int v = 0; v < n; v++) {
+         final int i = candidates.poll();
+         victims[v] = this.heap[i];
+         for (int child = 2 * i + 1; child <= 2 * i + 2 && child < this.size; child++) {
+            candidates.add(child);
+         }
+      }
+      return victims;
+   }
+
+   /**
+    * Deletes the reference history of the given frame.
+    *
+    * @param pos
+    *           index of the frame
+    */
+   private void forget(final int pos) {
+      final int base = pos * this.k;
+      for (int i = 0; i < this.k; i++) {
+         this.history[base + i] = 0;
+      }
+   }
+
+   /**
+    * Checks if the first frame should be evicted before the second one.
+    *
+    * @param a
+    *           index of the first frame
+    * @param b
+    *           index of the second frame
+    * @return {@code true} if frame {@code a} has a higher eviction priority, {@code false} otherwise
+    */
+   private boolean before(final int a, final int b) {
+      // compare the K-th most recent references, pages with fewer references have timestamp zero
+      final long kthA = this.history[a * this.k + this.k - 1];
+      final long kthB = this.history[b * this.k + this.k - 1];
+      if (kthA != kthB) {
+         return kthA < kthB;
+      }
+      // break ties by the most recent reference, free frames are taken in ascending order
+      final long lastA = this.history[a * this.k];
+      final long lastB = this.history[b * this.k];
+      return lastA < lastB || lastA == lastB && a < b;
+   }
+
+   /**
+    * Inserts the given frame into the heap if it is not already contained in it.
+    *
+    * @param pos
+    *           index of the frame
+    */
+   private void insert(final int pos) {
+      if (this.heapPos[pos] == NOT_IN_HEAP) {
+         this.heap[this.size] = pos;
+         this.heapPos[pos] = this.size;
+         this.siftUp(this.size++);
+      }
+   }
+
+   /**
+    * Removes the given frame from the heap if it is contained in it.
+    *
+    * @param pos
+    *           index of the frame
+    */
+   private void remove(final int pos) {
+      final int i = this.heapPos[pos];
+      if (i != NOT_IN_HEAP) {
+         this.heapPos[pos] = NOT_IN_HEAP;
+         final int last = this.heap[--this.size];
+         if (i < this.size) {
+            this.heap[i] = last;
+            this.heapPos[last] = i;
+            this.siftDown(i);
+            this.siftUp(this.heapPos[last]);
+         }
+      }
+   }
+
+   /**
+    * Moves the frame at the given heap position up until the heap property is restored.
+    *
+    * @param start
+    *           position in the heap
+    */
+   private void siftUp(final int start) {
+      final int pos = this.heap[start];
+      int i = start;
+      while (i > 0) {
+         final int parent = (i - 1) >>> 1;
+         final int other = this.heap[parent];
+         if (!this.before(pos, other)) {
+            break;
+         }
+         this.heap[i] = other;
+         this.heapPos[other] = i;
+         i = parent;
+      }
+      this.heap[i] = pos;
+      this.heapPos[pos] = i;
+   }
+
+   /**
+    * Moves the frame at the given heap position down until the heap property is restored.
+    *
+    * @param start
+    *           position in the heap
+    */
+   private void siftDown(final int start) {
+      final int pos = this.heap[start];
+      int i = start;
+      while (true) {
+         int child = 2 * i + 1;
+         if (child >= this.size) {
+            break;
+         }
+         if (child + 1 < this.size && this.before(this.heap[child + 1], this.heap[child])) {
+            child++;
+         }
+         final int other = this.heap[child];
+         if (!this.before(other, pos)) {
+            break;
+         }
+         this.heap[i] = other;
+         this.heapPos[other] = i;
+         i = child;
+      }
+      this.heap[i] = pos;
+      this.heapPos[pos] = i;
+   }
+}
@@ -10,14 +10,15 @@
  */
 package minibase.storage.buffer.policy;
 
-import java.util.ArrayDeque;
-import java.util.BitSet;
-import java.util.Deque;
-import java.util.Iterator;
+import java.util.Arrays;
 
 /**
  * A replacement policy that implements the <em>LRU</em> algorithm. The LRU policy evicts the
  * memory page (frame) that is least recently used.
+ * <p>
+ * Only pages that are not pinned are kept in the LRU queue, which is an intrusive doubly linked list over
+ * the frame indexes stored in two arrays. This makes both state changes and victim selection run in constant
+ * time.
  *
  * @author Michael Grossniklaus &lt;michael.grossniklaus@uni-konstanz.de&gt;
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
@@ -25,11 +26,17 @@ import java.util.Iterator;
  */
 public class LRUPolicy implements ReplacementPolicy {
 
-   /** Set of indexes of currently pinned pages. */
-   private final BitSet pinned = new BitSet();
+   /** Marker for frames that are not linked into the queue. */
+   private static final int UNLINKED = -1;
 
-   /** Queue to manage the LRU strategy of this replacement policy. */
-   private final Deque<Integer> queue;
+   /** Index of the sentinel node, its successor is the head and its predecessor the tail of the queue. */
+   private final int sentinel;
+
+   /** Predecessors of the frames in the queue, {@link #UNLINKED} for pinned frames. */
+   private final int[] prev;
+
+   /** Successors of the frames in the queue, {@link #UNLINKED} for pinned frames. */
+   private final int[] next;
 
    /**
     * Constructs a LRU replacement policy.
@@ -38,11 +45,17 @@ public class LRUPolicy implements ReplacementPolicy {
     *           size of the buffer pool managed by this buffer policy
     */
    public LRUPolicy(final int numBuffers) {
-      this.queue = new ArrayDeque<>(numBuffers);
+      this.sentinel = numBuffers;
+      this.prev = new int[numBuffers + 1];
+      this.next = new int[numBuffers + 1];
+      Arrays.fill(this.prev, UNLINKED);
+      Arrays.fill(this.next, UNLINKED);
+      this.prev[this.sentinel] = this.sentinel;
+      this.next[this.sentinel] = this.sentinel;
       // add buffer pages in ascending order into the queue
       for (int i = 0; i < numBuffers; i++) {
          // add all pages as none are pinned yet
-         this.queue.add(i);
+         this.linkBefore(i, this.sentinel);
       }
    }
 
@@ -50,36 +63,76 @@ public class LRUPolicy implements ReplacementPolicy {
    public void stateChanged(final int pos, final PageState newState) {
       switch (newState) {
          case FREE:
-            // nothing to do
+            // free pages are evicted first
+            this.unlink(pos);
+            this.linkBefore(pos, this.next[this.sentinel]);
             break;
          case PINNED:
-            this.pinned.set(pos);
+            // pinned pages cannot be evicted
+            this.unlink(pos);
             break;
          case UNPINNED:
          default:
             // move unpinned page to the tail of the queue
-            this.pinned.clear(pos);
-            this.queue.remove(pos);
-            this.queue.add(pos);
+            this.unlink(pos);
+            this.linkBefore(pos, this.sentinel);
             break;
       }
    }
 
    @Override
    public int pickVictim() {
-      // find first page in the queue with pin count zero
-      final Iterator<Integer> iter = this.queue.iterator();
-      while (iter.hasNext()) {
-         final int pos = iter.next();
-         if (!this.pinned.get(pos)) {
-            // move page to the tail of the queue
-            iter.remove();
-            this.queue.add(pos);
-            // return the index of the page
-            return pos;
-         }
+      // the head of the queue is the least recently used page that is not pinned
+      final int pos = this.next[this.sentinel];
+      if (pos == this.sentinel) {
+         // error state if all pages are pinned
+         return -1;
+      }
+      this.unlink(pos);
+      return pos;
+   }
+
+   @Override
+   public int[] peekVictims(final int max) {
+      // walk the queue from its head
+      final int[] victims = new int[max];
+      int n = 0;
+      for (int pos = this.next[this.sentinel]; pos != this.sentinel && n < max; pos = this.next[pos]) {
+         victims[n++] = pos;
+      }
+      return Arrays.copyOf(victims, n);
+   }
+
+   /**
+    * Inserts the given frame into the queue in front of the given successor.
+    *
+    * @param pos
+    *           index of the frame to insert
+    * @param succ
+    *           index of the successor, the sentinel to append at the tail
+    */
+   private void linkBefore(final int pos, final int succ) {
+      final int pred = this.prev[succ];
+      this.prev[pos] = pred;
+      this.next[pos] = succ;
+      this.next[pred] = pos;
+      this.prev[succ] = pos;
+   }
+
+   /**
+    * Removes the given frame from the queue if it is linked into it.
+    *
+    * @param pos
+    *           index of the frame to remove
+    */
+   private void unlink(final int pos) {
+      final int pred = this.prev[pos];
+      if (pred != UNLINKED) {
+         final int succ = this.next[pos];
+         this.next[pred] = succ;
+         this.prev[succ] = pred;
+         this.prev[pos] = UNLINKED;
+         this.next[pos] = UNLINKED;
       }
-      // error state if the clock can not identify a victim
-      return -1;
    }
 }
@@ -11,6 +11,7 @@
 package minibase.storage.buffer.policy;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Deque;
 import java.util.Iterator;
@@ -80,4 +81,18 @@ public class MRUPolicy implements ReplacementPolicy {
       // error state if the clock can not identify a victim
       return -1;
    }
+
+   @Override
+   public int[] peekVictims(final int max) {
+      final int[] victims = new int[Math.min(max, this.stack.size())];
+      int n = 0;
+      final Iterator<Integer> iter = this.stack.iterator();
+      while (iter.hasNext() && n < victims.length) {
+         final int pos = iter.next();
+         if (!this.pinned.get(pos)) {
+            victims[n++] = pos;
+         }
+      }
+      return Arrays.copyOf(victims, n);
+   }
 }
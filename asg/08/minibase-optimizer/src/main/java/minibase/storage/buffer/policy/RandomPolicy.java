@@ -66,4 +66,15 @@ public class RandomPolicy implements ReplacementPolicy {
       }
       return -1;
    }
+
+   @Override
+   public int[] peekVictims(final int max) {
+      // all available pages are equally likely to be picked
+      final int n = Math.min(max, this.list.size());
+      final int[] victims = new int[n];
+      for (int i = 0; i < n; i++) {
+         victims[i] = this.list.get(i);
+      }
+      return victims;
+   }
 }
@@ -48,4 +48,13 @@ public interface ReplacementPolicy {
     * @return the page's index if one could be identified, {@code -1} if all pages are pinned
     */
    int pickVictim();
+
+   /**
+    * Returns the pages that are likely to be picked as the next victims, without changing the state of the
+    * policy. The result is only a hint, e.g. for writing dirty pages back to disk before they are evicted.
+    *
+    * @param max maximum number of pages to return
+    * @return indexes of up to {@code max} unpinned pages, the most likely victim first
+    */
+   int[] peekVictims(int max);
 }
@@ -0,0 +1,102 @@
+/*
+ * @(#)ChannelDiskFile.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.file;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import minibase.Minibase;
+
+/**
+ * A disk file that reads and writes pages using positional I/O on a {@link FileChannel}. Positional reads
+ * and writes do not modify the channel's position, so concurrent accesses to different pages need no lock.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class ChannelDiskFile extends DiskFile {
+
+   /** The opened database file. */
+   private final RandomAccessFile file;
+
+   /** Channel of the database file. */
+   private final FileChannel channel;
+
+   /**
+    * Creates a new disk file instance.
+    *
+    * @param fileName name of the disk file
+    * @param file random-access file
+    * @param numPages number of database pages
+    * @param pageSize size of a page, in bytes
+    */
+   ChannelDiskFile(final File fileName, final RandomAccessFile file, final long numPages,
+         final int pageSize) {
+      super(fileName, numPages, pageSize);
+      this.file = file;
+      this.channel = file.getChannel();
+   }
+
+   @Override
+   public void readPage(final int pageNo, final ByteBuffer data) {
+      this.read(pageNo, data);
+   }
+
+   @Override
+   public void readPages(final int firstPageNo, final int numPages, final ByteBuffer[] data) {
+      // read the whole run with one positional read and distribute it over the pages
+      final byte[] buffer = new byte[numPages * this.getPageSize()];
+      this.read(firstPageNo, ByteBuffer.wrap(buffer));
+      for (int i = 0; i < numPages; i++) {
+         data[i].put(buffer, i * this.getPageSize(), this.getPageSize());
+      }
+   }
+
+   /**
+    * Fills the given buffer with the file contents starting at the given page.
+    *
+    * @param pageNo number of the first page to read
+    * @param buffer buffer to fill
+    */
+   private void read(final int pageNo, final ByteBuffer buffer) {
+      final long offset = 1L * pageNo * this.getPageSize() - buffer.position();
+      try {
+         while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, offset + buffer.position()) < 0) {
+               throw new EOFException("Unexpected end of file in page " + pageNo);
+            }
+         }
+      } catch (final IOException exc) {
+         throw Minibase.haltSystem(exc);
+      }
+   }
+
+   @Override
+   public void writePage(final int pageNo, final ByteBuffer data) {
+      final long offset = 1L * pageNo * this.getPageSize() - data.position();
+      try {
+         while (data.hasRemaining()) {
+            this.channel.write(data, offset + data.position());
+         }
+      } catch (final IOException exc) {
+         throw Minibase.haltSystem(exc);
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      this.file.close();
+   }
+}
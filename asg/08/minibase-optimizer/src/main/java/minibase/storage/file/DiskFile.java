@@ -14,36 +14,38 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 import minibase.Minibase;
 
 /**
- * A database file on disk.
+ * A database file on disk. The way pages are transferred between disk and memory is determined by the
+ * {@link DiskFileBackend} the file was created or opened with.
  *
  * @author Leo Woerteler &t;leonard.woerteler@uni-konstanz.de&gt;
  */
-public final class DiskFile implements Closeable {
+public abstract class DiskFile implements Closeable {
 
    /** The file name. */
    private final File fileName;
 
-   /** The opened database file. */
-   private final RandomAccessFile file;
-
    /** Number of pages this disk file contains. */
    private final long numPages;
 
+   /** Size of the pages of this disk file, in bytes. */
+   private final int pageSize;
+
    /**
     * Creates a new disk file instance.
     *
     * @param fileName name of the disk file
-    * @param file random-access file
     * @param numPages number of database pages
+    * @param pageSize size of a page, in bytes
     */
-   private DiskFile(final File fileName, final RandomAccessFile file, final long numPages) {
+   DiskFile(final File fileName, final long numPages, final int pageSize) {
       this.fileName = fileName;
-      this.file = file;
       this.numPages = numPages;
+      this.pageSize = pageSize;
    }
 
    /**
@@ -56,13 +58,49 @@ public final class DiskFile implements Closeable {
     * @return disk file instance
     */
    public static DiskFile create(final File fileName, final long numPages) {
+      return create(fileName, numPages, DiskFileBackend.RANDOM_ACCESS);
+   }
+
+   /**
+    * Creates a new database file with the given name and number of pages, using the given backend.
+    *
+    * @param fileName
+    *           name o the database file
+    * @param numPages
+    *           number of pages in the file
+    * @param backend
+    *           backend for reading and writing pages
+    * @return disk file instance
+    */
+   public static DiskFile create(final File fileName, final long numPages, final DiskFileBackend backend) {
+      return create(fileName, numPages, DiskManager.DEFAULT_PAGE_SIZE, backend);
+   }
+
+   /**
+    * Creates a new database file with the given name, number of pages and page size, using the given backend.
+    *
+    * @param fileName
+    *           name o the database file
+    * @param numPages
+    *           number of pages in the file
+    * @param pageSize
+    *           size of a page, in bytes, see {@link DiskManager#isValidPageSize(int)}
+    * @param backend
+    *           backend for reading and writing pages
+    * @return disk file instance
+    */
+   public static DiskFile create(final File fileName, final long numPages, final int pageSize,
+         final DiskFileBackend backend) {
       if (numPages < 2) {
          throw new IllegalArgumentException("Database size too small: " + numPages);
       }
+      if (!DiskManager.isValidPageSize(pageSize)) {
+         throw new IllegalArgumentException("Unsupported page size: " + pageSize);
+      }
       try {
          final RandomAccessFile file = new RandomAccessFile(fileName, "rw");
-         file.setLength(numPages * DiskManager.PAGE_SIZE);
-         return new DiskFile(fileName, file, numPages);
+         file.setLength(numPages * pageSize);
+         return backend.newInstance(fileName, file, numPages, pageSize);
       } catch (final IOException exc) {
          throw Minibase.haltSystem(exc);
       }
@@ -76,19 +114,29 @@ public final class DiskFile implements Closeable {
     * @return disk file instance
     */
    public static DiskFile open(final File fileName) {
+      return open(fileName, DiskFileBackend.RANDOM_ACCESS);
+   }
+
+   /**
+    * Opens an existing disk file using the given backend. The page size is read from the file's first page.
+    *
+    * @param fileName
+    *           name of the file
+    * @param backend
+    *           backend for reading and writing pages
+    * @return disk file instance
+    */
+   public static DiskFile open(final File fileName, final DiskFileBackend backend) {
       try {
          final RandomAccessFile file = new RandomAccessFile(fileName, "rw");
-         final long size = file.length();
-         if (size % DiskManager.PAGE_SIZE != 0) {
-            file.close();
-            throw new IOException("Wrong size for database file: " + size);
-         }
-         final long numPages = size / DiskManager.PAGE_SIZE;
-         if (numPages < 2) {
+         final int pageSize;
+         try {
+            pageSize = DiskManager.readPageSize(file);
+         } catch (final IOException exc) {
             file.close();
-            throw new IOException("Database file too small: " + size);
+            throw exc;
          }
-         return new DiskFile(fileName, file, numPages);
+         return backend.newInstance(fileName, file, file.length() / pageSize, pageSize);
       } catch (final IOException exc) {
          throw Minibase.haltSystem(exc);
       }
@@ -112,6 +160,15 @@ public final class DiskFile implements Closeable {
       return this.numPages;
    }
 
+   /**
+    * Size of the pages in this disk file.
+    *
+    * @return page size, in bytes
+    */
+   public int getPageSize() {
+      return this.pageSize;
+   }
+
    /**
     * Reads the contents of the specified page from disk.
     *
@@ -123,12 +180,34 @@ public final class DiskFile implements Closeable {
     *            if pageID is invalid
     */
    public void readPage(final int pageNo, final byte[] data) {
-      // seek to the correct page on disk and read it
-      try {
-         this.file.seek(1L * pageNo * DiskManager.PAGE_SIZE);
-         this.file.readFully(data);
-      } catch (final IOException exc) {
-         Minibase.haltSystem(exc);
+      this.readPage(pageNo, ByteBuffer.wrap(data));
+   }
+
+   /**
+    * Reads the contents of the specified page from disk into the remaining bytes of the given buffer. The
+    * position of the buffer is undefined afterwards.
+    *
+    * @param pageNo
+    *           identifies the page to read
+    * @param data
+    *           output parameter to hold the contents of the page
+    */
+   public abstract void readPage(int pageNo, ByteBuffer data);
+
+   /**
+    * Reads the contents of a run of consecutive pages from disk. The default implementation reads the pages
+    * one by one.
+    *
+    * @param firstPageNo
+    *           number of the first page to read
+    * @param numPages
+    *           number of pages to read
+    * @param data
+    *           output parameter to hold the contents of the pages
+    */
+   public void readPages(final int firstPageNo, final int numPages, final ByteBuffer[] data) {
+      for (int i = 0; i < numPages; i++) {
+         this.readPage(firstPageNo + i, data[i]);
       }
    }
 
@@ -141,17 +220,17 @@ public final class DiskFile implements Closeable {
     *           holds the contents of the page
     */
    public void writePage(final int pageNo, final byte[] data) {
-      // seek to the correct page on disk and write it
-      try {
-         this.file.seek(1L * pageNo * DiskManager.PAGE_SIZE);
-         this.file.write(data);
-      } catch (final IOException exc) {
-         throw Minibase.haltSystem(exc);
-      }
+      this.writePage(pageNo, ByteBuffer.wrap(data));
    }
 
-   @Override
-   public void close() throws IOException {
-      this.file.close();
-   }
+   /**
+    * Writes the remaining bytes of the given buffer to disk as the contents of the given page. The position
+    * of the buffer is undefined afterwards.
+    *
+    * @param pageNo
+    *           identifies the page to write
+    * @param data
+    *           holds the contents of the page
+    */
+   public abstract void writePage(int pageNo, ByteBuffer data);
 }
@@ -0,0 +1,71 @@
+/*
+ * @(#)DiskFileBackend.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Enumeration of the different ways a {@link DiskFile} can read and write its pages.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public enum DiskFileBackend {
+   /** Seeks in a {@link RandomAccessFile} before every read and write, which has to be serialized. */
+   RANDOM_ACCESS() {
+
+      @Override
+      DiskFile newInstance(final File fileName, final RandomAccessFile file, final long numPages,
+            final int pageSize) {
+         return new RandomAccessDiskFile(fileName, file, numPages, pageSize);
+      }
+   },
+
+   /** Uses positional reads and writes of a {@link java.nio.channels.FileChannel}, which can run concurrently. */
+   CHANNEL() {
+
+      @Override
+      DiskFile newInstance(final File fileName, final RandomAccessFile file, final long numPages,
+            final int pageSize) {
+         return new ChannelDiskFile(fileName, file, numPages, pageSize);
+      }
+   },
+
+   /** Maps the whole file into memory and copies pages from and to the mapped regions. */
+   MAPPED() {
+
+      @Override
+      DiskFile newInstance(final File fileName, final RandomAccessFile file, final long numPages,
+            final int pageSize) throws IOException {
+         return new MappedDiskFile(fileName, file, numPages, pageSize);
+      }
+   };
+
+   /**
+    * Factory method that creates a disk file for the given opened file.
+    *
+    * @param fileName
+    *           name of the disk file
+    * @param file
+    *           the opened file, its length has to be a multiple of the page size
+    * @param numPages
+    *           number of database pages
+    * @param pageSize
+    *           size of a page, in bytes
+    * @return the disk file
+    * @throws IOException
+    *            if the file cannot be accessed using this backend
+    */
+   abstract DiskFile newInstance(File fileName, RandomAccessFile file, long numPages, int pageSize)
+         throws IOException;
+}
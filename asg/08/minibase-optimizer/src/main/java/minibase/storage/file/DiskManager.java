@@ -13,6 +13,8 @@ package minibase.storage.file;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.Arrays;
 
@@ -23,7 +25,9 @@ import minibase.util.Convert;
 /**
  * The disk manager is the component of Minibase that takes care of the allocation and deallocation of pages
  * within the database. It also performs reads and writes of pages to and from disk, providing a logical file
- * layer.
+ * layer. All public methods are thread-safe, so that one disk manager can be shared by concurrent threads.
+ * Page reads and writes only hold the disk manager's lock while checking the page ID, the transfer itself is
+ * synchronized by the {@link DiskFile} as required by its {@link DiskFileBackend}.
  *
  * @author Chris Mayfield &lt;mayfiecs@jmu.edu&gt;
  * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
@@ -31,8 +35,14 @@ import minibase.util.Convert;
  */
 public final class DiskManager implements Closeable {
 
-   /** Size of a page, in bytes. */
-   public static final int PAGE_SIZE = 1 << 10;
+   /** Default size of a page, in bytes. */
+   public static final int DEFAULT_PAGE_SIZE = 1 << 10;
+
+   /** Smallest supported page size, in bytes. */
+   public static final int MIN_PAGE_SIZE = 1 << 10;
+
+   /** Largest supported page size, in bytes, offsets inside of heap file pages are stored as shorts. */
+   public static final int MAX_PAGE_SIZE = 1 << 15;
 
    /** Page number of the first page in a database file. */
    private static final int FIRST_PAGE_NO = 0;
@@ -43,9 +53,6 @@ public final class DiskManager implements Closeable {
    /** Block number of the first map page. */
    private static final int FIRST_MAP_PAGE = 1;
 
-   /** Number of actual bits per page. */
-   private static final int BITS_PER_PAGE = DiskManager.PAGE_SIZE * Byte.SIZE;
-
    /** Offset of the next page id. */
    private static final int NEXT_PAGE = 0;
 
@@ -65,10 +72,19 @@ public final class DiskManager implements Closeable {
    private static final int DIR_PAGE_USED_BYTES = 8 + 8;
 
    /** Amount of additional bytes used by the first page. */
-   private static final int FIRST_PAGE_USED_BYTES = DiskManager.DIR_PAGE_USED_BYTES + 4;
+   private static final int FIRST_PAGE_USED_BYTES = DiskManager.DIR_PAGE_USED_BYTES + 8;
+
+   /** Offset for the total number of pages, counted from the end of the first page. */
+   private static final int FIRST_PAGE_NUM_DB_PAGES = 4;
+
+   /** Offset for the page size, counted from the end of the first page. */
+   private static final int FIRST_PAGE_PAGE_SIZE = 8;
 
-   /** Offset for the total number of pages. */
-   private static final int FIRST_PAGE_NUM_DB_PAGES = DiskManager.PAGE_SIZE - 4;
+   /** Size of a page of this database, in bytes. */
+   private final int pageSize;
+
+   /** Number of actual bits per map page. */
+   private final int bitsPerPage;
 
    /** Actual reference to the Minibase file. */
    private DiskFile diskFile;
@@ -110,6 +126,8 @@ public final class DiskManager implements Closeable {
    private DiskManager(final DiskFile diskFile, final long numMapPages, final byte[][] buffer,
          final int[] pageNrs, final int bufferSize) {
       this.diskFile = diskFile;
+      this.pageSize = diskFile.getPageSize();
+      this.bitsPerPage = this.pageSize * Byte.SIZE;
       this.numMapPages = numMapPages;
       this.buffer = buffer;
       this.pageNrs = pageNrs;
@@ -125,9 +143,11 @@ public final class DiskManager implements Closeable {
     */
    public static DiskManager create(final DiskFile diskFile) {
       final long numPages = diskFile.getNumPages();
+      final int pageSize = diskFile.getPageSize();
+      final int bitsPerPage = pageSize * Byte.SIZE;
 
       // create and initialize the first DB page
-      final byte[][] buffer = new byte[PAGE_BUFFER_SIZE][DiskManager.PAGE_SIZE];
+      final byte[][] buffer = new byte[PAGE_BUFFER_SIZE][pageSize];
       final int[] pageNrs = new int[PAGE_BUFFER_SIZE];
       Arrays.fill(pageNrs, (byte) -1);
       final byte[] firstPage = buffer[0];
@@ -138,7 +158,7 @@ public final class DiskManager implements Closeable {
 
       // set the number entries
       final int numEntries =
-            (DiskManager.PAGE_SIZE - DiskManager.FIRST_PAGE_USED_BYTES) / DiskManager.SIZE_OF_FILE_ENTRY;
+            (pageSize - DiskManager.FIRST_PAGE_USED_BYTES) / DiskManager.SIZE_OF_FILE_ENTRY;
       Convert.writeInt(firstPage, DiskManager.NUM_OF_ENTRIES, numEntries);
 
       // initialize the page entries
@@ -147,18 +167,19 @@ public final class DiskManager implements Closeable {
          Convert.writeInt(firstPage, offset, PageID.INVALID.getValue());
       }
 
-      Convert.writeInt(firstPage, DiskManager.FIRST_PAGE_NUM_DB_PAGES, (int) numPages);
+      Convert.writeInt(firstPage, pageSize - DiskManager.FIRST_PAGE_PAGE_SIZE, pageSize);
+      Convert.writeInt(firstPage, pageSize - DiskManager.FIRST_PAGE_NUM_DB_PAGES, (int) numPages);
 
       // calculate how many pages are needed for the space map; reserve
       // pages 0 and 1 and as many additional pages as are needed
       int bufferSize = 1;
-      final long numMapPages = (numPages + BITS_PER_PAGE - 1) / BITS_PER_PAGE;
+      final long numMapPages = (numPages + bitsPerPage - 1) / bitsPerPage;
       long bitsNeeded = numMapPages + 1;
-      final byte[] page = new byte[PAGE_SIZE];
+      final byte[] page = new byte[pageSize];
       for (int i = 0; bitsNeeded > 0; i++) {
          Arrays.fill(page, (byte) 0);
          // this loop actually flips the bits on the current page
-         int bitsThisPage = (int) Math.min(bitsNeeded, DiskManager.BITS_PER_PAGE);
+         int bitsThisPage = (int) Math.min(bitsNeeded, bitsPerPage);
          bitsNeeded -= bitsThisPage;
 
          for (int j = 0; bitsThisPage > 0; j++) {
@@ -168,7 +189,7 @@ public final class DiskManager implements Closeable {
          }
          diskFile.writePage(FIRST_MAP_PAGE + i, page);
          if (bufferSize < PAGE_BUFFER_SIZE) {
-            System.arraycopy(page, 0, buffer[bufferSize], 0, PAGE_SIZE);
+            System.arraycopy(page, 0, buffer[bufferSize], 0, pageSize);
             pageNrs[bufferSize] = FIRST_MAP_PAGE + i;
             bufferSize++;
          }
@@ -185,22 +206,73 @@ public final class DiskManager implements Closeable {
     * @return disk manager
     */
    public static DiskManager open(final DiskFile diskFile) {
-      final byte[][] buffer = new byte[PAGE_BUFFER_SIZE][DiskManager.PAGE_SIZE];
+      final int pageSize = diskFile.getPageSize();
+      final byte[][] buffer = new byte[PAGE_BUFFER_SIZE][pageSize];
       final int[] pageNrs = new int[PAGE_BUFFER_SIZE];
       Arrays.fill(pageNrs, (byte) -1);
 
       // get the total number of pages
       diskFile.readPage(FIRST_PAGE_NO, buffer[0]);
       pageNrs[0] = FIRST_PAGE_NO;
-      final long storedNumPages = Convert.readInt(buffer[0], FIRST_PAGE_NUM_DB_PAGES) & 0xFFFFFFFFL;
+      final long storedNumPages = Convert.readInt(buffer[0], pageSize - FIRST_PAGE_NUM_DB_PAGES) & 0xFFFFFFFFL;
       final long numPages = diskFile.getNumPages();
       if (storedNumPages != numPages) {
          throw new IllegalStateException("Wrong disk file size: " + storedNumPages + " vs. " + numPages);
       }
-      final long numMapPages = (numPages + BITS_PER_PAGE - 1) / BITS_PER_PAGE;
+      final long bitsPerPage = pageSize * Byte.SIZE;
+      final long numMapPages = (numPages + bitsPerPage - 1) / bitsPerPage;
       return new DiskManager(diskFile, numMapPages, buffer, pageNrs, 1);
    }
 
+   /**
+    * Returns the size of the pages of this database.
+    *
+    * @return page size, in bytes
+    */
+   public int getPageSize() {
+      return this.pageSize;
+   }
+
+   /**
+    * Checks whether the given page size is supported, i.e., a power of two between {@link #MIN_PAGE_SIZE} and
+    * {@link #MAX_PAGE_SIZE}.
+    *
+    * @param pageSize
+    *           page size to check
+    * @return {@code true} if the page size is supported, {@code false} otherwise
+    */
+   public static boolean isValidPageSize(final int pageSize) {
+      return pageSize >= MIN_PAGE_SIZE && pageSize <= MAX_PAGE_SIZE && Integer.bitCount(pageSize) == 1;
+   }
+
+   /**
+    * Determines the page size of an existing database file from its first page. Every supported page size
+    * is tried, it is accepted if the first page stores it together with the matching number of pages. Files
+    * created before the page size was stored have no such marker, they use {@link #DEFAULT_PAGE_SIZE}.
+    *
+    * @param file
+    *           the database file
+    * @return the page size
+    * @throws IOException
+    *            if the file cannot be read or its length is not a multiple of any supported page size
+    */
+   static int readPageSize(final RandomAccessFile file) throws IOException {
+      final long length = file.length();
+      for (int pageSize = MIN_PAGE_SIZE; pageSize <= MAX_PAGE_SIZE; pageSize <<= 1) {
+         if (length % pageSize == 0 && length / pageSize >= 2) {
+            file.seek(pageSize - FIRST_PAGE_PAGE_SIZE);
+            if (file.readInt() == pageSize && (file.readInt() & 0xFFFFFFFFL) == length / pageSize) {
+               return pageSize;
+            }
+         }
+      }
+      if (length % DEFAULT_PAGE_SIZE == 0) {
+         // no page size marker, the file was created with the default page size
+         return DEFAULT_PAGE_SIZE;
+      }
+      throw new IOException("Unknown page size of database file with " + length + " bytes");
+   }
+
    /**
     * Returns the database file.
     *
@@ -215,7 +287,7 @@ public final class DiskManager implements Closeable {
     *
     * @return the read count
     */
-   public int getReadCount() {
+   public synchronized int getReadCount() {
       return this.readCount;
    }
 
@@ -224,7 +296,7 @@ public final class DiskManager implements Closeable {
     *
     * @return the write count
     */
-   public int getWriteCount() {
+   public synchronized int getWriteCount() {
       return this.writeCount;
    }
 
@@ -233,12 +305,12 @@ public final class DiskManager implements Closeable {
     *
     * @return the allocation count
     */
-   public int getAllocCount() {
+   public synchronized int getAllocCount() {
       // iterate each page in the space map
       int count = 0;
       for (int i = 0; i < this.numMapPages; i++) {
          final byte[] mapPage = this.getPage(DiskManager.FIRST_MAP_PAGE + i, false);
-         for (int j = 0; j < DiskManager.PAGE_SIZE; j += 4) {
+         for (int j = 0; j < this.pageSize; j += 4) {
             count += Integer.bitCount(Convert.readInt(mapPage, j));
          }
       }
@@ -252,7 +324,7 @@ public final class DiskManager implements Closeable {
     * @throws IllegalStateException
     *            if the database is full
     */
-   public PageID allocatePage() {
+   public synchronized PageID allocatePage() {
       int byteStart = this.lastAllocByte;
 
       // simpler loop for a single page
@@ -264,7 +336,7 @@ public final class DiskManager implements Closeable {
             if (inv != 0) {
                // there is a free spot
                final int freeBit = Integer.numberOfTrailingZeros(inv);
-               final int pageNo = p * DiskManager.BITS_PER_PAGE + b * Byte.SIZE + freeBit;
+               final int pageNo = p * this.bitsPerPage + b * Byte.SIZE + freeBit;
                if (pageNo >= this.diskFile.getNumPages()) {
                   // must be the last page
                   break;
@@ -298,7 +370,7 @@ public final class DiskManager implements Closeable {
     * @throws IllegalStateException
     *            if the database is full
     */
-   public PageID allocatePages(final int runSize) {
+   public synchronized PageID allocatePages(final int runSize) {
       // validate the run size
       if (runSize < 1 || runSize > this.diskFile.getNumPages()) {
          throw new IllegalArgumentException(
@@ -316,8 +388,8 @@ public final class DiskManager implements Closeable {
          final byte[] data = this.getPage(mapPageNo, false);
 
          // get the number of bits on current page
-         int numBitsThisPage = (int) Math.min(this.diskFile.getNumPages() - i * BITS_PER_PAGE,
-               DiskManager.BITS_PER_PAGE);
+         int numBitsThisPage = (int) Math.min(this.diskFile.getNumPages() - i * this.bitsPerPage,
+               this.bitsPerPage);
 
          // Walk the page looking for a sequence of 0 bits of the appropriate length.
          // The outer loop steps through the page's bytes, the inner one steps through each
@@ -372,7 +444,7 @@ public final class DiskManager implements Closeable {
     * @throws IllegalArgumentException
     *            if firstID or runSize is invalid
     */
-   public void deallocatePages(final PageID firstID, final int runSize) {
+   public synchronized void deallocatePages(final PageID firstID, final int runSize) {
       // validate the run size
       if (runSize < 1) {
          throw new IllegalArgumentException("Invalid run size; deallocate aborted");
@@ -382,8 +454,8 @@ public final class DiskManager implements Closeable {
       this.setBits(this.validatePageID(firstID, "deallocate"), runSize, false);
 
       // check if an earlier spot in the file is free now
-      final int mapPage = firstID.getValue() / BITS_PER_PAGE;
-      final int mapByte = (firstID.getValue() % BITS_PER_PAGE) / Byte.SIZE;
+      final int mapPage = firstID.getValue() / this.bitsPerPage;
+      final int mapByte = (firstID.getValue() % this.bitsPerPage) / Byte.SIZE;
       if (this.lastAllocPage > mapPage
             || (this.lastAllocPage == mapPage && this.lastAllocByte > mapByte)) {
          this.lastAllocPage = mapPage;
@@ -402,13 +474,110 @@ public final class DiskManager implements Closeable {
     *            if pageID is invalid
     */
    public void readPage(final PageID pageID, final byte[] data) {
-      // seek to the correct page on disk and read it
-      final int pageNo = this.validatePageID(pageID, "read");
-      if (!this.isAllocated(pageNo)) {
-         throw new IllegalArgumentException("Page with ID " + pageID + " is not allocated.");
+      this.readPage(pageID, ByteBuffer.wrap(data));
+   }
+
+   /**
+    * Reads the contents of the specified page from disk into the remaining bytes of the given buffer. If
+    * the buffer is direct, the contents are transferred without an intermediate copy on the Java heap.
+    *
+    * @param pageID
+    *           identifies the page to read
+    * @param data
+    *           output param to hold the contents of the page
+    * @throws IllegalArgumentException
+    *            if pageID is invalid
+    */
+   public void readPage(final PageID pageID, final ByteBuffer data) {
+      final int pageNo;
+      final DiskFile file;
+      synchronized (this) {
+         pageNo = this.validatePageID(pageID, "read");
+         if (!this.isAllocated(pageNo)) {
+            throw new IllegalArgumentException("Page with ID " + pageID + " is not allocated.");
+         }
+         file = this.diskFile;
+         this.readCount++;
+      }
+      // the transfer itself is left to the disk file, which may run it concurrently to others
+      file.readPage(pageNo, data);
+   }
+
+   /**
+    * Reads the contents of a run of consecutive pages from disk. Depending on the {@link DiskFileBackend},
+    * the pages are transferred with a single system call.
+    *
+    * @param firstID
+    *           identifies the first page to read
+    * @param numPages
+    *           number of pages to read
+    * @param data
+    *           output param to hold the contents of the pages, at least {@code numPages} arrays
+    * @throws IllegalArgumentException
+    *            if one of the page IDs is invalid or the number of pages is not positive
+    */
+   public void readPages(final PageID firstID, final int numPages, final byte[][] data) {
+      final ByteBuffer[] buffers = new ByteBuffer[Math.min(numPages, data.length)];
+      for (int i = 0; i < buffers.length; i++) {
+         buffers[i] = ByteBuffer.wrap(data[i]);
+      }
+      this.readPages(firstID, numPages, buffers);
+   }
+
+   /**
+    * Reads the contents of a run of consecutive pages from disk into the remaining bytes of the given
+    * buffers.
+    *
+    * @param firstID
+    *           identifies the first page to read
+    * @param numPages
+    *           number of pages to read
+    * @param data
+    *           output param to hold the contents of the pages, at least {@code numPages} buffers
+    * @throws IllegalArgumentException
+    *            if one of the page IDs is invalid or the number of pages is not positive
+    */
+   public void readPages(final PageID firstID, final int numPages, final ByteBuffer[] data) {
+      if (numPages < 1 || numPages > data.length) {
+         throw new IllegalArgumentException("Invalid number of pages: " + numPages);
       }
-      this.diskFile.readPage(pageNo, data);
-      this.readCount++;
+      final int firstNo;
+      final DiskFile file;
+      synchronized (this) {
+         firstNo = this.validatePageID(firstID, "read");
+         this.validatePageID(PageID.getInstance(firstNo + numPages - 1), "read");
+         for (int i = 0; i < numPages; i++) {
+            if (!this.isAllocated(firstNo + i)) {
+               throw new IllegalArgumentException("Page with ID " + (firstNo + i) + " is not allocated.");
+            }
+         }
+         file = this.diskFile;
+         this.readCount += numPages;
+      }
+      file.readPages(firstNo, numPages, data);
+   }
+
+   /**
+    * Returns the number of consecutive allocated pages starting at the given page, but at most the given
+    * maximum.
+    *
+    * @param firstID
+    *           identifies the first page of the run
+    * @param maxPages
+    *           maximum length of the run
+    * @return number of allocated pages, {@code 0} if the first page is not allocated or invalid
+    */
+   public synchronized int getAllocatedRunLength(final PageID firstID, final int maxPages) {
+      final int firstNo = firstID.getValue();
+      if (firstNo < DiskManager.FIRST_MAP_PAGE + this.numMapPages) {
+         return 0;
+      }
+      final long end = Math.min(this.diskFile.getNumPages(), (long) firstNo + maxPages);
+      int length = 0;
+      while (firstNo + length < end && this.isAllocated(firstNo + length)) {
+         length++;
+      }
+      return length;
    }
 
    /**
@@ -422,18 +591,37 @@ public final class DiskManager implements Closeable {
     *            if pageno is invalid
     */
    public void writePage(final PageID pageID, final byte[] data) {
-      final int pageNo = this.validatePageID(pageID, "write");
-      if (!this.isAllocated(pageNo)) {
-         throw new IllegalArgumentException("Page with ID " + pageID + " is not allocated.");
+      this.writePage(pageID, ByteBuffer.wrap(data));
+   }
+
+   /**
+    * Writes the remaining bytes of the given buffer to disk as the contents of the given page.
+    *
+    * @param pageID
+    *           identifies the page to write
+    * @param data
+    *           holds the contents of the page
+    * @throws IllegalArgumentException
+    *            if pageno is invalid
+    */
+   public void writePage(final PageID pageID, final ByteBuffer data) {
+      final int pageNo;
+      final DiskFile file;
+      synchronized (this) {
+         pageNo = this.validatePageID(pageID, "write");
+         if (!this.isAllocated(pageNo)) {
+            throw new IllegalArgumentException("Page with ID " + pageID + " is not allocated.");
+         }
+         file = this.diskFile;
+         this.writeCount++;
       }
-      this.diskFile.writePage(pageNo, data);
-      this.writeCount++;
+      file.writePage(pageNo, data);
    }
 
    /**
     * Flushes all buffered pages to disk.
     */
-   public void flushAllPages() {
+   public synchronized void flushAllPages() {
       for (int i = 0; i < this.buffer.length; i++) {
          if (this.pageNrs[i] < -1) {
             this.pageNrs[i] &= 0x7FFFFFFF;
@@ -453,7 +641,7 @@ public final class DiskManager implements Closeable {
     * @throws IllegalArgumentException
     *            if fileName or startPageID is invalid
     */
-   public void addFileEntry(final String fileName, final PageID startPageID) {
+   public synchronized void addFileEntry(final String fileName, final PageID startPageID) {
 
       // validate the arguments
       if (fileName.length() > DiskManager.NAME_MAXLEN) {
@@ -509,7 +697,7 @@ public final class DiskManager implements Closeable {
     * @throws IllegalArgumentException
     *            if fileName is invalid
     */
-   public void deleteFileEntry(final String fileName) {
+   public synchronized void deleteFileEntry(final String fileName) {
       // search the header pages for the entry slot
       int nextHeaderNo = 0;
       do {
@@ -539,7 +727,7 @@ public final class DiskManager implements Closeable {
     *           file name
     * @return PageID of the file's first page, or {@code null} if the file doesn't exist
     */
-   public PageID getFileEntry(final String fileName) {
+   public synchronized PageID getFileEntry(final String fileName) {
       // search the header pages for the entry slot
       int nextHeaderNo = 0;
       do {
@@ -561,7 +749,7 @@ public final class DiskManager implements Closeable {
    }
 
    @Override
-   public String toString() {
+   public synchronized String toString() {
       final StringBuilder sb = new StringBuilder();
       int bitNumber = 0;
 
@@ -574,8 +762,8 @@ public final class DiskManager implements Closeable {
          final byte[] data = this.getPage(i + 1, false);
 
          // how many bits should we examine on this page?
-         int numBitsThisPage = (int) Math.min(this.diskFile.getNumPages() - i * DiskManager.BITS_PER_PAGE,
-               DiskManager.BITS_PER_PAGE);
+         int numBitsThisPage = (int) Math.min(this.diskFile.getNumPages() - i * this.bitsPerPage,
+               this.bitsPerPage);
          sb.append("\n\nnum_bits_this_page = ").append(numBitsThisPage).append("\n\n");
          if (i > 0) {
             sb.append('\t');
@@ -608,7 +796,7 @@ public final class DiskManager implements Closeable {
    }
 
    @Override
-   public void close() {
+   public synchronized void close() {
       if (this.diskFile != null) {
          try {
             this.flushAllPages();
@@ -639,9 +827,9 @@ public final class DiskManager implements Closeable {
     * @return {@code true} if the page is allocated, {@code false} otherwise
     */
    private boolean isAllocated(final int pageNo) {
-      final int mapPageNo = DiskManager.FIRST_MAP_PAGE + pageNo / DiskManager.BITS_PER_PAGE;
+      final int mapPageNo = DiskManager.FIRST_MAP_PAGE + pageNo / this.bitsPerPage;
       final byte[] mapPage = this.getPage(mapPageNo, false);
-      final int bitInPage = pageNo % DiskManager.BITS_PER_PAGE;
+      final int bitInPage = pageNo % this.bitsPerPage;
       final int byt = mapPage[bitInPage / Byte.SIZE];
       final int bitPos = bitInPage % Byte.SIZE;
       return ((byt >>> bitPos) & 1) != 0;
@@ -658,15 +846,15 @@ public final class DiskManager implements Closeable {
     *           value of the bits
     */
    private void setBits(final int startPageNo, final long runSize, final boolean bit) {
-      final int firstMapPage = DiskManager.FIRST_MAP_PAGE + startPageNo / DiskManager.BITS_PER_PAGE;
+      final int firstMapPage = DiskManager.FIRST_MAP_PAGE + startPageNo / this.bitsPerPage;
       final int lastMapPage = (int) (DiskManager.FIRST_MAP_PAGE
-            + (startPageNo + runSize - 1) / DiskManager.BITS_PER_PAGE);
+            + (startPageNo + runSize - 1) / this.bitsPerPage);
       final int numPages = lastMapPage - firstMapPage + 1;
 
       long bitsNeeded = runSize;
-      int firstBitThisPage = startPageNo % DiskManager.BITS_PER_PAGE;
+      int firstBitThisPage = startPageNo % this.bitsPerPage;
       for (int i = 0; i < numPages; i++) {
-         int bitsThisPage = (int) Math.min(bitsNeeded, DiskManager.BITS_PER_PAGE - firstBitThisPage);
+         int bitsThisPage = (int) Math.min(bitsNeeded, this.bitsPerPage - firstBitThisPage);
          bitsNeeded -= bitsThisPage;
 
          // this loop actually flips the bits on the current page
@@ -729,7 +917,7 @@ public final class DiskManager implements Closeable {
       // set the number entries
       final int pageUsedBytes = firstPage ? DiskManager.FIRST_PAGE_USED_BYTES
             : DiskManager.DIR_PAGE_USED_BYTES;
-      final int numEntries = (DiskManager.PAGE_SIZE - pageUsedBytes) / DiskManager.SIZE_OF_FILE_ENTRY;
+      final int numEntries = (this.pageSize - pageUsedBytes) / DiskManager.SIZE_OF_FILE_ENTRY;
       Convert.writeInt(page, DiskManager.NUM_OF_ENTRIES, numEntries);
 
       // initialize the page entries
@@ -0,0 +1,99 @@
+/*
+ * @(#)MappedDiskFile.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A disk file that is mapped into memory. A single mapping is limited to 2 GiB, so the file is split into
+ * regions of {@link #REGION_SIZE} bytes that are mapped separately. Reading and writing a page copies
+ * it from or into the mapped region; the operating system writes modified regions back to disk, at the
+ * latest when the file is closed.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+final class MappedDiskFile extends DiskFile {
+
+   /** Size of each mapped region, in bytes. */
+   static final int REGION_SIZE = 1 << 30;
+
+   /** Number of pages in each mapped region. */
+   private final int pagesPerRegion;
+
+   /** The opened database file. */
+   private final RandomAccessFile file;
+
+   /** The mapped regions of the file. */
+   private final MappedByteBuffer[] regions;
+
+   /**
+    * Creates a new disk file instance and maps the file into memory.
+    *
+    * @param fileName name of the disk file
+    * @param file random-access file
+    * @param numPages number of database pages
+    * @param pageSize size of a page, in bytes
+    * @throws IOException if mapping the file fails
+    */
+   MappedDiskFile(final File fileName, final RandomAccessFile file, final long numPages, final int pageSize)
+         throws IOException {
+      super(fileName, numPages, pageSize);
+      this.file = file;
+      this.pagesPerRegion = REGION_SIZE / pageSize;
+      final FileChannel channel = file.getChannel();
+      final int numRegions = (int) ((numPages + this.pagesPerRegion - 1) / this.pagesPerRegion);
+      this.regions = new MappedByteBuffer[numRegions];
+      for (int i = 0; i < numRegions; i++) {
+         final long firstPage = (long) i * this.pagesPerRegion;
+         final long pages = Math.min(this.pagesPerRegion, numPages - firstPage);
+         this.regions[i] = channel.map(MapMode.READ_WRITE, firstPage * pageSize, pages * pageSize);
+      }
+   }
+
+   /**
+    * Returns a view of the mapped region that covers the given page. The view has its own position, so
+    * concurrent accesses to different pages need no lock.
+    *
+    * @param pageNo page number
+    * @return view of the mapped region
+    */
+   private ByteBuffer view(final int pageNo) {
+      final ByteBuffer view = this.regions[pageNo / this.pagesPerRegion].duplicate();
+      final int offset = pageNo % this.pagesPerRegion * this.getPageSize();
+      view.position(offset).limit(offset + this.getPageSize());
+      return view;
+   }
+
+   @Override
+   public void readPage(final int pageNo, final ByteBuffer data) {
+      data.put(this.view(pageNo));
+   }
+
+   @Override
+   public void writePage(final int pageNo, final ByteBuffer data) {
+      this.view(pageNo).put(data);
+   }
+
+   @Override
+   public void close() throws IOException {
+      for (final MappedByteBuffer region : this.regions) {
+         region.force();
+      }
+      this.file.close();
+   }
+}
@@ -0,0 +1,98 @@
+/*
+ * @(#)RandomAccessDiskFile.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import minibase.Minibase;
+
+/**
+ * A disk file that reads and writes pages by seeking in a {@link RandomAccessFile}. Since the file position
+ * is shared, all accesses are synchronized.
+ *
+ * @author Leo Woerteler &lt;leonard.woerteler@uni-konstanz.de&gt;
+ */
+final class RandomAccessDiskFile extends DiskFile {
+
+   /** The opened database file. */
+   private final RandomAccessFile file;
+
+   /**
+    * Creates a new disk file instance.
+    *
+    * @param fileName name of the disk file
+    * @param file random-access file
+    * @param numPages number of database pages
+    * @param pageSize size of a page, in bytes
+    */
+   RandomAccessDiskFile(final File fileName, final RandomAccessFile file, final long numPages,
+         final int pageSize) {
+      super(fileName, numPages, pageSize);
+      this.file = file;
+   }
+
+   @Override
+   public synchronized void readPage(final int pageNo, final ByteBuffer data) {
+      // seek to the correct page on disk and read it
+      try {
+         this.file.seek(1L * pageNo * this.getPageSize());
+         if (data.hasArray()) {
+            this.file.readFully(data.array(), data.arrayOffset() + data.position(), data.remaining());
+         } else {
+            final byte[] buffer = new byte[data.remaining()];
+            this.file.readFully(buffer);
+            data.put(buffer);
+         }
+      } catch (final IOException exc) {
+         throw Minibase.haltSystem(exc);
+      }
+   }
+
+   @Override
+   public synchronized void readPages(final int firstPageNo, final int numPages, final ByteBuffer[] data) {
+      // seek only once and read all pages with a single call
+      final byte[] buffer = new byte[numPages * this.getPageSize()];
+      try {
+         this.file.seek(1L * firstPageNo * this.getPageSize());
+         this.file.readFully(buffer);
+      } catch (final IOException exc) {
+         throw Minibase.haltSystem(exc);
+      }
+      for (int i = 0; i < numPages; i++) {
+         data[i].put(buffer, i * this.getPageSize(), this.getPageSize());
+      }
+   }
+
+   @Override
+   public synchronized void writePage(final int pageNo, final ByteBuffer data) {
+      // seek to the correct page on disk and write it
+      try {
+         this.file.seek(1L * pageNo * this.getPageSize());
+         if (data.hasArray()) {
+            this.file.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+         } else {
+            final byte[] buffer = new byte[data.remaining()];
+            data.get(buffer);
+            this.file.write(buffer);
+         }
+      } catch (final IOException exc) {
+         throw Minibase.haltSystem(exc);
+      }
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      this.file.close();
+   }
+}
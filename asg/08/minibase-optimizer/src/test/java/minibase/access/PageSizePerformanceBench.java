@@ -0,0 +1,164 @@
+/*
+ * @(#)PageSizePerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.AtomicKeyType;
+import minibase.Minibase;
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.file.FileScan;
+import minibase.access.file.HeapFile;
+import minibase.access.index.IndexEntry;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.util.Convert;
+
+/**
+ * Measures heap file scans and B+-tree lookups on databases with different page sizes using the jmh
+ * framework. The size of the database and of the buffer pool are fixed in bytes, so that larger pages
+ * mean fewer pages and buffer frames. Before running the main method, be sure to build the sources with
+ * something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSizePerformanceBench {
+
+   /** Size of the database file, in bytes. */
+   private static final int DB_BYTES = 64 << 20;
+
+   /** Length of the records in the heap file, in bytes. */
+   private static final int RECORD_LENGTH = 100;
+
+   /** Page size of the database, in bytes. */
+   @Param({ "1024", "4096", "8192", "16384", "32768" })
+   private int pageSize;
+
+   /** Size of the buffer pool, in bytes. */
+   @Param({ "4194304" })
+   private int bufferBytes;
+
+   /** Number of records in the heap file and the index. */
+   @Param({ "100000" })
+   private int numRecords;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Heap file storing the records. */
+   private HeapFile file;
+
+   /** Index on the first field of the records. */
+   private BTreeIndex index;
+
+   /** Random number generator for the lookups. */
+   private Random rng;
+
+   /**
+    * Creates the database, loads the heap file and builds the index.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(PageSizePerformanceBench.class.getSimpleName(),
+            DB_BYTES / this.pageSize, this.pageSize, this.bufferBytes / this.pageSize, ReplacementStrategy.CLOCK);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      this.index = BTreeIndex.createIndex(this.minibase.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      final byte[] record = new byte[RECORD_LENGTH];
+      for (int i = 0; i < this.numRecords; i++) {
+         Convert.writeInt(record, 0, i);
+         final RecordID rid = this.file.insertRecord(record);
+         this.index.insert(new SearchKey(i), rid);
+      }
+      this.rng = new Random(42);
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.index.close();
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Scans the whole heap file.
+    *
+    * @return sum of the first fields of the records, to prevent DCE
+    */
+   @Benchmark
+   public long scan() {
+      long sum = 0;
+      try (FileScan scan = this.file.openScan()) {
+         while (scan.hasNext()) {
+            sum += Convert.readInt(scan.next(), 0);
+         }
+      }
+      return sum;
+   }
+
+   /**
+    * Looks up a random key in the index and fetches the record from the heap file.
+    *
+    * @return first field of the record, to prevent DCE
+    */
+   @Benchmark
+   public int lookup() {
+      final IndexEntry entry = this.index.search(new SearchKey(this.rng.nextInt(this.numRecords))).get();
+      return Convert.readInt(this.file.selectRecord(entry.getRecordID()), 0);
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(PageSizePerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
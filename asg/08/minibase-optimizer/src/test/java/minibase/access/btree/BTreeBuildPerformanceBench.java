@@ -0,0 +1,202 @@
+/*
+ * @(#)BTreeBuildPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.btree;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.AtomicKeyType;
+import minibase.Minibase;
+import minibase.SearchKey;
+import minibase.access.file.FileScan;
+import minibase.access.file.HeapFile;
+import minibase.access.index.IndexEntry;
+import minibase.query.evaluator.TupleIterator;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.util.Convert;
+
+/**
+ * Compares building a B+-tree index on an existing heap file by bulk loading with inserting the entries one by
+ * one using the jmh framework. The height of the built trees is printed after each iteration. Before running
+ * the main method, be sure to build the sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BTreeBuildPerformanceBench {
+
+   /** Length of the records in the heap file, in bytes. */
+   private static final int RECORD_LENGTH = 64;
+
+   /** Number of records in the heap file. */
+   @Param({ "100000", "1000000" })
+   private int numRecords;
+
+   /** Fill factor of the bulk loaded pages. */
+   @Param({ "1.0", "0.7" })
+   private double fillFactor;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Heap file storing the records, with keys in random order. */
+   private HeapFile file;
+
+   /** Height of the last bulk loaded tree. */
+   private int bulkLoadHeight;
+
+   /** Height of the last tree built by insertions. */
+   private int insertHeight;
+
+   /**
+    * Creates the database and loads the heap file.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(BTreeBuildPerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final Random rng = new Random(42);
+      final byte[] record = new byte[RECORD_LENGTH];
+      for (int i = 0; i < this.numRecords; i++) {
+         Convert.writeInt(record, 0, rng.nextInt());
+         this.file.insertRecord(record);
+      }
+   }
+
+   /**
+    * Prints the heights of the trees built in the last iteration.
+    */
+   @TearDown(Level.Iteration)
+   public void printHeights() {
+      System.out.println("height: bulk load " + this.bulkLoadHeight + ", insertions " + this.insertHeight);
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Builds the index by sorting the entries and loading them bottom-up.
+    *
+    * @return number of entries in the index, to prevent DCE
+    */
+   @Benchmark
+   public int bulkLoad() {
+      final BTreeIndex index;
+      try (FileScan scan = this.file.openScan()) {
+         index = BTreeIndex.bulkLoad(this.minibase.getBufferManager(), Optional.empty(), AtomicKeyType.INTEGER,
+               entries(scan), this.fillFactor);
+      }
+      this.bulkLoadHeight = index.getHeight();
+      final int size = index.size();
+      index.delete();
+      return size;
+   }
+
+   /**
+    * Builds the index by inserting the entries one by one.
+    *
+    * @return number of entries in the index, to prevent DCE
+    */
+   @Benchmark
+   public int insert() {
+      final BTreeIndex index = BTreeIndex.createIndex(this.minibase.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      try (FileScan scan = this.file.openScan()) {
+         while (scan.hasNext()) {
+            index.insert(new SearchKey(Convert.readInt(scan.next(), 0)), scan.lastID());
+         }
+      }
+      this.insertHeight = index.getHeight();
+      final int size = index.size();
+      index.delete();
+      return size;
+   }
+
+   /**
+    * Returns an iterator over the index entries of the records returned by the given scan.
+    *
+    * @param scan the scan
+    * @return the entries
+    */
+   private static TupleIterator entries(final FileScan scan) {
+      return new TupleIterator() {
+         @Override
+         public boolean hasNext() {
+            return scan.hasNext();
+         }
+
+         @Override
+         public byte[] next() {
+            final SearchKey key = new SearchKey(Convert.readInt(scan.next(), 0));
+            final byte[] entry = new byte[IndexEntry.getLength(AtomicKeyType.INTEGER.getKeyLength())];
+            new IndexEntry(key, scan.lastID(), AtomicKeyType.INTEGER).writeData(entry, 0);
+            return entry;
+         }
+
+         @Override
+         public void reset() {
+            scan.reset();
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(BTreeBuildPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
@@ -0,0 +1,186 @@
+/*
+ * @(#)BTreeConcurrencyPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.btree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.AtomicKeyType;
+import minibase.Minibase;
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.storage.buffer.PageID;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Measures the throughput of a mix of lookups, insertions and removals on a B+-tree index shared by different
+ * numbers of threads using the jmh framework. The reported time per operation is the inverse of the
+ * throughput. Before running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BTreeConcurrencyPerformanceBench {
+
+   /** Number of operations per invocation, divided among the threads. */
+   private static final int NUM_OPS = 100000;
+
+   /** Number of keys in the index, half of the key range. */
+   @Param({ "1000000" })
+   private int numKeys;
+
+   /** Number of threads running operations on the index. */
+   @Param({ "1", "2", "4", "8" })
+   private int threads;
+
+   /** Percentage of lookups among the operations, the rest are insertions and removals in equal parts. */
+   @Param({ "50", "90" })
+   private int readPercent;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The index. */
+   private BTreeIndex index;
+
+   /** Threads running the operations. */
+   private ExecutorService executor;
+
+   /** Seed of the random operations of the next invocation. */
+   private long seed;
+
+   /**
+    * Creates the database and loads the index with every other key of the key range.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(BTreeConcurrencyPerformanceBench.class.getSimpleName(), 262144,
+            1024, ReplacementStrategy.CLOCK);
+      this.index = BTreeIndex.createIndex(this.minibase.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      for (int key = 0; key < 2 * this.numKeys; key += 2) {
+         this.index.insert(new SearchKey(key), rid(key));
+      }
+      this.executor = Executors.newFixedThreadPool(this.threads);
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.executor.shutdown();
+      this.index.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Runs the operations on random keys, divided among the threads.
+    *
+    * @return number of successful lookups, to prevent DCE
+    * @throws InterruptedException
+    *            if the benchmark thread is interrupted
+    * @throws ExecutionException
+    *            if a worker fails
+    */
+   @Benchmark
+   @OperationsPerInvocation(NUM_OPS)
+   public long mixed() throws InterruptedException, ExecutionException {
+      final List<Future<Long>> results = new ArrayList<>(this.threads);
+      for (int t = 0; t < this.threads; t++) {
+         final Random rng = new Random(this.seed++);
+         final int numOps = NUM_OPS / this.threads;
+         results.add(this.executor.submit(() -> {
+            long found = 0;
+            for (int i = 0; i < numOps; i++) {
+               final int key = rng.nextInt(2 * this.numKeys);
+               final int op = rng.nextInt(100);
+               if (op < this.readPercent) {
+                  if (this.index.search(new SearchKey(key)).isPresent()) {
+                     found++;
+                  }
+               } else if (op % 2 == 0) {
+                  this.index.insert(new SearchKey(key), rid(key));
+               } else {
+                  this.index.remove(new SearchKey(key), rid(key));
+               }
+            }
+            return found;
+         }));
+      }
+      long found = 0;
+      for (final Future<Long> result : results) {
+         found += result.get();
+      }
+      return found;
+   }
+
+   /**
+    * Returns the record ID stored with the given key.
+    *
+    * @param key
+    *           the key
+    * @return the record ID
+    */
+   private static RecordID rid(final int key) {
+      return new RecordID(PageID.getInstance(key / 100), key % 100);
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(BTreeConcurrencyPerformanceBench.class.getSimpleName()).build())
+            .run();
+   }
+}
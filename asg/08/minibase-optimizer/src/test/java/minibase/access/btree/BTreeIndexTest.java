@@ -0,0 +1,514 @@
+/*
+ * @(#)BTreeIndexTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.btree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import minibase.AtomicKeyType;
+import minibase.BaseTest;
+import minibase.CompositeKeyType;
+import minibase.Minibase;
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.SearchKeyType;
+import minibase.TestHelper;
+import minibase.access.index.IndexEntry;
+import minibase.access.index.IndexScan;
+import minibase.query.evaluator.TupleIterator;
+import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.Page;
+import minibase.storage.buffer.PageID;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.storage.buffer.UnpinMode;
+
+/**
+ * Tests the B+-tree index.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class BTreeIndexTest extends BaseTest {
+
+   /** Number of entries in the large indexes. */
+   private static final int NUM_ENTRIES = 20000;
+
+   /** Size of the buffer pool, which has to hold the pages of the external sort. */
+   private static final int BUFFER_POOL_SIZE = 64;
+
+   @Override
+   protected Minibase createMinibaseInstance() throws Exception {
+      return Minibase.createTemporary(this.getClass().getSimpleName(), DB_SIZE, BUFFER_POOL_SIZE,
+            ReplacementStrategy.CLOCK);
+   }
+
+   /**
+    * Bulk loads shuffled entries with different fill factors and compares the trees with one built by inserting
+    * the entries one by one.
+    */
+   @Test
+   public void bulkLoad() {
+      final List<Integer> keys = new ArrayList<>();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         keys.add(i);
+      }
+      Collections.shuffle(keys, this.getRandom());
+
+      final BTreeIndex inserted = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      for (final int key : keys) {
+         inserted.insert(new SearchKey(key), rid(key));
+      }
+      for (final double fillFactor : new double[] { 1.0, 0.7, 0.5, 0.01 }) {
+         final BTreeIndex index = BTreeIndex.bulkLoad(this.getBufferManager(), Optional.empty(),
+               AtomicKeyType.INTEGER, entries(keys), fillFactor);
+         index.checkInvariants();
+         assertEquals(NUM_ENTRIES, index.size());
+         assertTrue(index.getHeight() <= inserted.getHeight());
+         try (IndexScan scan = index.openScan()) {
+            for (int i = 0; i < NUM_ENTRIES; i++) {
+               final IndexEntry entry = scan.next();
+               assertEquals(new SearchKey(i), entry.getSearchKey());
+               assertEquals(rid(i), entry.getRecordID());
+            }
+            assertFalse(scan.hasNext());
+         }
+         assertEquals(rid(1234), index.search(new SearchKey(1234)).get().getRecordID());
+
+         // the tree can be modified afterwards
+         for (int i = 0; i < NUM_ENTRIES; i += 3) {
+            assertTrue(index.remove(new SearchKey(i), rid(i)));
+            index.insert(new SearchKey(NUM_ENTRIES + i), rid(i));
+         }
+         index.checkInvariants();
+         index.delete();
+      }
+      inserted.delete();
+
+      // the smallest sort budget needs many merge passes
+      final BTreeIndex small = BTreeIndex.bulkLoad(this.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER, entries(keys), 1.0, 3);
+      small.checkInvariants();
+      assertEquals(NUM_ENTRIES, small.size());
+      small.delete();
+
+      TestHelper.assertThrows(IllegalArgumentException.class, () -> BTreeIndex.bulkLoad(this.getBufferManager(),
+            Optional.empty(), AtomicKeyType.INTEGER, entries(keys), 0));
+      TestHelper.assertThrows(IllegalArgumentException.class, () -> BTreeIndex.bulkLoad(this.getBufferManager(),
+            Optional.empty(), AtomicKeyType.INTEGER, entries(keys), 1.5));
+      TestHelper.assertThrows(IllegalArgumentException.class, () -> BTreeIndex.bulkLoad(this.getBufferManager(),
+            Optional.empty(), AtomicKeyType.INTEGER, entries(keys), 1.0, 2));
+   }
+
+   /**
+    * Bulk loads strings whose UTF-8 encodings are ordered differently from their UTF-16 characters and checks
+    * that they are stored in the order of a tree built by inserting them.
+    */
+   @Test
+   public void bulkLoadStrings() {
+      final AtomicKeyType.StringKeyType type = AtomicKeyType.StringKeyType.getInstance(8);
+      final List<SearchKey> keys = new ArrayList<>();
+      final List<RecordID> rids = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+         final String prefix = Integer.toString(i % 10);
+         keys.add(new SearchKey(type, prefix + (i % 3 == 0 ? "\uFF21" : "\uD83D\uDE00") + i));
+         rids.add(rid(i));
+      }
+      Collections.shuffle(keys, this.getRandom());
+      final BTreeIndex inserted = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(), type);
+      for (int i = 0; i < keys.size(); i++) {
+         inserted.insert(keys.get(i), rids.get(i));
+      }
+      final BTreeIndex index = BTreeIndex.bulkLoad(this.getBufferManager(), Optional.empty(), type,
+            entries(type, keys, rids), 1.0, 3);
+      index.checkInvariants();
+      assertEquals(keys.size(), index.size());
+      try (IndexScan expected = inserted.openScan(); IndexScan actual = index.openScan()) {
+         while (expected.hasNext()) {
+            assertEquals(expected.next().getSearchKey(), actual.next().getSearchKey());
+         }
+         assertFalse(actual.hasNext());
+      }
+      index.delete();
+      inserted.delete();
+   }
+
+   /**
+    * Stores the entries of an index without prefix compression, with unencoded keys like indexes written before
+    * the format version was introduced and with encoded keys like indexes of the first version, and checks that
+    * the index is converted when it is opened. Unknown format versions are rejected.
+    */
+   @Test
+   public void formatVersion() {
+      final BufferManager bufferManager = this.getBufferManager();
+      final List<Integer> keys = new ArrayList<>();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         keys.add(i - NUM_ENTRIES / 2);
+      }
+      Collections.shuffle(keys, this.getRandom());
+      for (final int version : new int[] { BTreeHeader.VERSION_RAW_KEYS, BTreeHeader.VERSION_ENCODED_KEYS }) {
+         // leaves with at most twice the minimum of entries still fit when their entries are stored uncompressed
+         final BTreeIndex index = BTreeIndex.bulkLoad(bufferManager, Optional.of("old"), AtomicKeyType.INTEGER,
+               entries(keys), 0.01);
+         downgrade(index, version);
+         index.close();
+
+         final BTreeIndex converted = BTreeIndex.openIndex(bufferManager, "old");
+         converted.checkInvariants();
+         assertEquals(NUM_ENTRIES, converted.size());
+         try (IndexScan scan = converted.openScan()) {
+            for (int i = 0; i < NUM_ENTRIES; i++) {
+               final IndexEntry entry = scan.next();
+               assertEquals(new SearchKey(i - NUM_ENTRIES / 2), entry.getSearchKey());
+               assertEquals(rid(i - NUM_ENTRIES / 2), entry.getRecordID());
+            }
+         }
+         assertEquals(rid(-1234), converted.search(new SearchKey(-1234)).get().getRecordID());
+         converted.close();
+         BTreeIndex.dropIndex(bufferManager, "old");
+      }
+
+      final BTreeIndex index = BTreeIndex.createIndex(bufferManager, Optional.of("new"), AtomicKeyType.INTEGER);
+      BTreeHeader.setVersion(index.getHeader(), BTreeHeader.VERSION + 1);
+      index.close();
+      TestHelper.assertThrows(IllegalStateException.class, () -> BTreeIndex.openIndex(bufferManager, "new"));
+      final Page<BTreeHeader> header = bufferManager.pinPage(bufferManager.getDiskManager().getFileEntry("new"));
+      BTreeHeader.setVersion(header, BTreeHeader.VERSION);
+      bufferManager.unpinPage(header, UnpinMode.DIRTY);
+      BTreeIndex.dropIndex(bufferManager, "new");
+   }
+
+   /**
+    * Rewrites the leaf pages of an index of integers in the uncompressed layout of an older format version.
+    *
+    * @param index the index
+    * @param version the older format version
+    */
+   private void downgrade(final BTreeIndex index, final int version) {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int keySize = AtomicKeyType.INTEGER.getKeyLength();
+      Page<BTreePage> page = bufferManager.pinPage(index.getRootID());
+      while (!BTreePage.isLeafPage(page)) {
+         final PageID childID = BTreeBranch.getChildID(BTreeBranch.cast(page), 0);
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+         page = bufferManager.pinPage(childID);
+      }
+      for (Page<BTreeLeaf> leaf = BTreeLeaf.cast(page); leaf != null;) {
+         final List<byte[]> entries = BTreeLeaf.readEntries(leaf, keySize);
+         for (int pos = 0; pos < entries.size(); pos++) {
+            final byte[] entry = entries.get(pos);
+            if (version == BTreeHeader.VERSION_RAW_KEYS) {
+               AtomicKeyType.INTEGER.decodeSortable(entry, 0);
+            }
+            leaf.write(pos * entry.length, entry, 0, entry.length);
+         }
+         final PageID nextID = BTreeLeaf.getNextPage(leaf);
+         bufferManager.unpinPage(leaf, UnpinMode.DIRTY);
+         leaf = nextID.isValid() ? bufferManager.pinPage(nextID) : null;
+      }
+      BTreeHeader.setVersion(index.getHeader(), version);
+   }
+
+   /**
+    * Stores keys that share long prefixes, so that the leaf pages hold more entries than fit uncompressed, and
+    * removes them again, which merges and redistributes the leaf pages by the bytes they use.
+    */
+   @Test
+   public void prefixCompression() {
+      final AtomicKeyType.StringKeyType type = AtomicKeyType.StringKeyType.getInstance(40);
+      final List<SearchKey> keys = new ArrayList<>();
+      for (int i = 0; i < NUM_ENTRIES / 4; i++) {
+         keys.add(new SearchKey(type, String.format("customer/orders/%08d", i)));
+      }
+      Collections.shuffle(keys, this.getRandom());
+      final BTreeIndex index = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(), type);
+      for (int i = 0; i < keys.size(); i++) {
+         index.insert(keys.get(i), rid(i));
+      }
+      index.checkInvariants();
+      final BufferManager bufferManager = this.getBufferManager();
+      Page<BTreePage> page = bufferManager.pinPage(index.getRootID());
+      while (!BTreePage.isLeafPage(page)) {
+         final PageID childID = BTreeBranch.getChildID(BTreeBranch.cast(page), 0);
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+         page = bufferManager.pinPage(childID);
+      }
+      int maxKeys = 0;
+      for (Page<BTreeLeaf> leaf = BTreeLeaf.cast(page); leaf != null;) {
+         assertTrue(BTreeLeaf.getPrefixLength(leaf) >= "customer/orders/".length());
+         maxKeys = Math.max(maxKeys, BTreePage.getNumKeys(leaf));
+         final PageID nextID = BTreeLeaf.getNextPage(leaf);
+         bufferManager.unpinPage(leaf, UnpinMode.CLEAN);
+         leaf = nextID.isValid() ? bufferManager.pinPage(nextID) : null;
+      }
+      assertTrue(maxKeys > index.getMaxLeafKeys());
+
+      for (int i = 0; i < keys.size(); i++) {
+         assertEquals(rid(i), index.search(keys.get(i)).get().getRecordID());
+      }
+      for (int i = 0; i < keys.size(); i += 2) {
+         assertTrue(index.remove(keys.get(i), rid(i)));
+      }
+      index.checkInvariants();
+      try (IndexScan scan = index.openScan()) {
+         SearchKey prev = null;
+         int count = 0;
+         while (scan.hasNext()) {
+            final SearchKey key = scan.next().getSearchKey();
+            assertTrue(prev == null || prev.compareTo(key) < 0);
+            prev = key;
+            count++;
+         }
+         assertEquals(keys.size() / 2, count);
+      }
+      for (int i = 1; i < keys.size(); i += 2) {
+         assertTrue(index.remove(keys.get(i), rid(i)));
+      }
+      index.checkInvariants();
+      assertEquals(0, index.size());
+      index.delete();
+   }
+
+   /**
+    * Bulk loads numbers of entries around the page capacities, which leave the last pages under-full unless
+    * they are balanced, and entries with duplicate keys.
+    */
+   @Test
+   public void bulkLoadSizes() {
+      final BTreeIndex probe = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      final int leaf = probe.getMaxLeafKeys();
+      final int branch = probe.getMaxBranchKeys() + 1;
+      probe.delete();
+      for (final int n : new int[] { 0, 1, leaf, leaf + 1, 2 * leaf + 3, leaf * branch, leaf * branch + 1,
+         leaf * (branch + 1) + 7 }) {
+         for (final double fillFactor : new double[] { 1.0, 0.5 }) {
+            final List<Integer> keys = new ArrayList<>();
+            for (int i = n; --i >= 0;) {
+               keys.add(i);
+            }
+            final BTreeIndex index = BTreeIndex.bulkLoad(this.getBufferManager(), Optional.empty(),
+                  AtomicKeyType.INTEGER, entries(keys), fillFactor);
+            index.checkInvariants();
+            assertEquals(n, index.size());
+            index.delete();
+         }
+      }
+
+      final List<Integer> keys = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+         keys.add(i / 2);
+      }
+      final BTreeIndex index = BTreeIndex.bulkLoad(this.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER, entries(keys), 1.0);
+      index.checkInvariants();
+      assertEquals(500, index.size());
+      index.delete();
+   }
+
+   /**
+    * Inserts keys of different types, whose stored encodings order negative numbers, floating-point numbers,
+    * strings and composite keys like the keys themselves, and checks that they are found and scanned in order.
+    */
+   @Test
+   public void keyOrder() {
+      final int n = 2000;
+      final List<SearchKey> ints = new ArrayList<>();
+      final List<SearchKey> floats = new ArrayList<>();
+      final List<SearchKey> doubles = new ArrayList<>();
+      final List<SearchKey> strings = new ArrayList<>();
+      final List<SearchKey> composites = new ArrayList<>();
+      final AtomicKeyType.StringKeyType stringType = AtomicKeyType.StringKeyType.getInstance(8);
+      final CompositeKeyType compositeType = CompositeKeyType.getInstance(
+            new AtomicKeyType[] { AtomicKeyType.SHORT, stringType });
+      for (int i = 0; i < n; i++) {
+         ints.add(new SearchKey(i * 1000003 - n / 2 * 1000003));
+         floats.add(new SearchKey((i - n / 2) * 0.75f));
+         doubles.add(new SearchKey((i - n / 2) * 1e-3));
+         strings.add(new SearchKey(stringType, Integer.toString(i * 7919, 36)));
+         composites.add(new SearchKey(compositeType, (short) (i % 17 - 8), Integer.toString(i, 36)));
+      }
+      ints.addAll(Arrays.asList(new SearchKey(Integer.MIN_VALUE), new SearchKey(Integer.MAX_VALUE)));
+      floats.addAll(Arrays.asList(new SearchKey(-0.0f), new SearchKey(Float.NEGATIVE_INFINITY),
+            new SearchKey(Float.POSITIVE_INFINITY), new SearchKey(Float.NaN), new SearchKey(Float.MIN_VALUE)));
+      doubles.addAll(Arrays.asList(new SearchKey(-0.0), new SearchKey(-Double.MAX_VALUE),
+            new SearchKey(Double.MAX_VALUE), new SearchKey(-Double.MIN_VALUE)));
+      strings.add(new SearchKey(stringType, ""));
+
+      this.checkKeyOrder(AtomicKeyType.INTEGER, ints);
+      this.checkKeyOrder(AtomicKeyType.FLOAT, floats);
+      this.checkKeyOrder(AtomicKeyType.DOUBLE, doubles);
+      this.checkKeyOrder(stringType, strings);
+      this.checkKeyOrder(compositeType, composites);
+   }
+
+   /**
+    * Inserts the given distinct keys in random order and checks that the index finds and scans them in order.
+    *
+    * @param type type of the keys
+    * @param keys the keys
+    */
+   private void checkKeyOrder(final SearchKeyType type, final List<SearchKey> keys) {
+      final List<SearchKey> sorted = new ArrayList<>(keys);
+      Collections.sort(sorted);
+      Collections.shuffle(keys, this.getRandom());
+      final BTreeIndex index = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(), type);
+      for (int i = 0; i < keys.size(); i++) {
+         index.insert(keys.get(i), rid(i));
+      }
+      index.checkInvariants();
+      assertEquals(keys.size(), index.size());
+      try (IndexScan scan = index.openScan()) {
+         for (final SearchKey key : sorted) {
+            assertEquals(key, scan.next().getSearchKey());
+         }
+         assertFalse(scan.hasNext());
+      }
+      for (int i = 0; i < keys.size(); i++) {
+         assertEquals(rid(i), index.search(keys.get(i)).get().getRecordID());
+         try (IndexScan scan = index.openScan(keys.get(i))) {
+            assertEquals(rid(i), scan.next().getRecordID());
+            assertFalse(scan.hasNext());
+         }
+      }
+      index.delete();
+   }
+
+   /**
+    * Inserts, searches and removes keys from several threads at once and checks the resulting tree.
+    *
+    * @throws Exception if a worker thread fails
+    */
+   @Test
+   public void concurrentUpdates() throws Exception {
+      final int numThreads = 4;
+      final BTreeIndex index = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+      try {
+         final List<Future<?>> results = new ArrayList<>();
+         for (int t = 0; t < numThreads; t++) {
+            final int thread = t;
+            results.add(executor.submit(() -> {
+               final Random rng = new Random(thread);
+               final List<Integer> keys = new ArrayList<>();
+               for (int key = thread; key < NUM_ENTRIES; key += numThreads) {
+                  keys.add(key);
+               }
+               Collections.shuffle(keys, rng);
+               for (final int key : keys) {
+                  index.insert(new SearchKey(key), rid(key));
+                  // keys of other threads are either absent or stored with their record ID
+                  final int other = rng.nextInt(NUM_ENTRIES);
+                  index.search(new SearchKey(other)).ifPresent(e -> assertEquals(rid(other), e.getRecordID()));
+               }
+               for (final int key : keys) {
+                  assertEquals(rid(key), index.search(new SearchKey(key)).get().getRecordID());
+               }
+               for (final int key : keys) {
+                  if (key % 2 == 0) {
+                     assertTrue(index.remove(new SearchKey(key), rid(key)));
+                  }
+               }
+               return null;
+            }));
+         }
+         for (final Future<?> result : results) {
+            result.get();
+         }
+      } finally {
+         executor.shutdown();
+      }
+
+      index.checkInvariants();
+      assertEquals(NUM_ENTRIES / 2, index.size());
+      for (int key = 0; key < NUM_ENTRIES; key++) {
+         assertEquals(key % 2 != 0, index.search(new SearchKey(key)).isPresent());
+      }
+      index.delete();
+   }
+
+   /**
+    * Returns the record ID stored with the given key.
+    *
+    * @param key the key
+    * @return the record ID
+    */
+   private static RecordID rid(final int key) {
+      return new RecordID(PageID.getInstance(key / 100), key % 100);
+   }
+
+   /**
+    * Returns an iterator over the index entries of the given keys.
+    *
+    * @param keys the keys
+    * @return the entries
+    */
+   private static TupleIterator entries(final List<Integer> keys) {
+      final List<SearchKey> searchKeys = new ArrayList<>();
+      final List<RecordID> rids = new ArrayList<>();
+      for (final int key : keys) {
+         searchKeys.add(new SearchKey(key));
+         rids.add(rid(key));
+      }
+      return entries(AtomicKeyType.INTEGER, searchKeys, rids);
+   }
+
+   /**
+    * Returns an iterator over index entries with the given keys and record IDs.
+    * @param type type of the keys
+    * @param keys the keys
+    * @param rids the record IDs
+    * @return the iterator
+    */
+   private static TupleIterator entries(final SearchKeyType type, final List<SearchKey> keys,
+         final List<RecordID> rids) {
+      return new TupleIterator() {
+         /** Position of the next key. */
+         private int pos;
+
+         @Override
+         public boolean hasNext() {
+            return this.pos < keys.size();
+         }
+
+         @Override
+         public byte[] next() {
+            final byte[] entry = new byte[IndexEntry.getLength(type.getKeyLength())];
+            new IndexEntry(keys.get(this.pos), rids.get(this.pos), type).writeData(entry, 0);
+            this.pos++;
+            return entry;
+         }
+
+         @Override
+         public void reset() {
+            this.pos = 0;
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+   }
+}
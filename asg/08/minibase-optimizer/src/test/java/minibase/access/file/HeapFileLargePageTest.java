@@ -0,0 +1,33 @@
+/*
+ * @(#)HeapFileLargePageTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.file;
+
+import minibase.Minibase;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.storage.file.DiskManager;
+
+/**
+ * Runs the heap file test suite on a database with the largest supported page size.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class HeapFileLargePageTest extends HeapFileTest {
+
+   /** Number of pages in the test database, which is as large in bytes as the default test database. */
+   private static final int LARGE_PAGE_DB_SIZE = DB_SIZE / (DiskManager.MAX_PAGE_SIZE / DiskManager.DEFAULT_PAGE_SIZE);
+
+   @Override
+   protected Minibase createMinibaseInstance() throws Exception {
+      return Minibase.createTemporary(this.getClass().getSimpleName(), LARGE_PAGE_DB_SIZE,
+            DiskManager.MAX_PAGE_SIZE, BUF_SIZE, ReplacementStrategy.CLOCK);
+   }
+}
@@ -0,0 +1,31 @@
+/*
+ * @(#)HeapFileOffHeapTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.file;
+
+import minibase.Minibase;
+import minibase.storage.buffer.FrameStorage;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.storage.file.DiskManager;
+
+/**
+ * Runs the heap file test suite on a database whose buffer pool frames are stored off-heap.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class HeapFileOffHeapTest extends HeapFileTest {
+
+   @Override
+   protected Minibase createMinibaseInstance() throws Exception {
+      return Minibase.createTemporary(this.getClass().getSimpleName(), DB_SIZE, DiskManager.DEFAULT_PAGE_SIZE,
+            BUF_SIZE, ReplacementStrategy.CLOCK, FrameStorage.OFF_HEAP);
+   }
+}
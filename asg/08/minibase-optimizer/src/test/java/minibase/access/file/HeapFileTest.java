@@ -13,6 +13,13 @@ package minibase.access.file;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.junit.After;
 import org.junit.Before;
@@ -22,6 +29,7 @@ import minibase.BaseTest;
 import minibase.RecordID;
 import minibase.TestHelper;
 import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.BufferRing;
 import minibase.storage.file.DiskManager;
 import minibase.util.Convert;
 
@@ -102,6 +110,70 @@ public class HeapFileTest extends BaseTest {
       assertEquals(HeapFileTest.FILE_SIZE, i);
    }
 
+   /** Scans the records through a buffer ring. */
+   @Test
+   public void scanWithBufferRing() {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int numPinned = bufferManager.getNumPinned();
+      int i = 0;
+      try (FileScan scan = this.file.openScan(new BufferRing(2))) {
+         for (; scan.hasNext(); i++) {
+            final DummyRecord rec = new DummyRecord(scan.next());
+            assertEquals(i, rec.ival);
+            assertEquals("record" + i, rec.name);
+         }
+      }
+      assertEquals(numPinned, bufferManager.getNumPinned());
+      assertEquals(HeapFileTest.FILE_SIZE, i);
+   }
+
+   /**
+    * Scans the records with sequential and parallel streams.
+    *
+    * @throws Exception
+    *            if a worker of a parallel stream fails
+    */
+   @Test
+   public void stream() throws Exception {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int numPinned = bufferManager.getNumPinned();
+      final int[] i = { 0 };
+      this.file.stream(false).forEach(tuple -> assertEquals(i[0]++, new DummyRecord(tuple).ival));
+      assertEquals(HeapFileTest.FILE_SIZE, i[0]);
+      assertEquals(HeapFileTest.FILE_SIZE, this.file.spliterator().estimateSize());
+
+      final ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         final long sum = pool.submit(() -> this.file.stream(true).mapToLong(t -> new DummyRecord(t).ival).sum())
+               .get();
+         assertEquals((long) HeapFileTest.FILE_SIZE * (HeapFileTest.FILE_SIZE - 1) / 2, sum);
+         final List<byte[]> tuples = pool.submit(() -> this.file.stream(true).filter(t -> new DummyRecord(t).ival
+               % 3 == 0).collect(Collectors.toList())).get();
+         for (int j = 0; j < tuples.size(); j++) {
+            assertEquals(3 * j, new DummyRecord(tuples.get(j)).ival);
+         }
+         assertEquals((HeapFileTest.FILE_SIZE + 2) / 3, tuples.size());
+      } finally {
+         pool.shutdown();
+      }
+      assertEquals(numPinned, bufferManager.getNumPinned());
+   }
+
+   /** Splits a spliterator after it has returned a part of a page. */
+   @Test
+   public void split() {
+      final int numPinned = this.getBufferManager().getNumPinned();
+      final Spliterator<byte[]> suffix = this.file.spliterator();
+      assertTrue(suffix.tryAdvance(tuple -> assertEquals(0, new DummyRecord(tuple).ival)));
+      final Spliterator<byte[]> prefix = suffix.trySplit();
+      assertEquals(HeapFileTest.FILE_SIZE - 1, prefix.estimateSize() + suffix.estimateSize());
+      final int[] i = { 1 };
+      prefix.forEachRemaining(tuple -> assertEquals(i[0]++, new DummyRecord(tuple).ival));
+      suffix.forEachRemaining(tuple -> assertEquals(i[0]++, new DummyRecord(tuple).ival));
+      assertEquals(HeapFileTest.FILE_SIZE, i[0]);
+      assertEquals(numPinned, this.getBufferManager().getNumPinned());
+   }
+
    /** Delete fixed-size records. */
    @Test
    public void delete() {
@@ -170,6 +242,68 @@ public class HeapFileTest extends BaseTest {
       }
    }
 
+   /** Reuses the space of deleted records and data pages. */
+   @Test
+   public void reuseFreeSpace() {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int numPinned = bufferManager.getNumPinned();
+      final int numPages = this.file.getDataPages().size();
+
+      // empty the first quarter of the file and delete every other record of the rest
+      final List<RecordID> rids = new ArrayList<>();
+      final List<byte[]> records = new ArrayList<>();
+      try (FileScan scan = this.file.openScan()) {
+         for (int i = 0; scan.hasNext(); i++) {
+            final byte[] tuple = scan.next();
+            if (i < HeapFileTest.FILE_SIZE / 4 || i % 2 == 0) {
+               rids.add(scan.lastID());
+               records.add(tuple);
+            }
+         }
+      }
+      rids.forEach(this.file::deleteRecord);
+      assertEquals(HeapFileTest.FILE_SIZE - rids.size(), this.file.getRecordCount());
+      assertTrue(this.file.getDataPages().size() < numPages);
+
+      // insert the records again, which fit into the freed space
+      records.forEach(this.file::insertRecord);
+      assertEquals(HeapFileTest.FILE_SIZE, this.file.getRecordCount());
+      assertTrue(this.file.getDataPages().size() <= numPages);
+      final boolean[] seen = new boolean[HeapFileTest.FILE_SIZE];
+      try (FileScan scan = this.file.openScan()) {
+         while (scan.hasNext()) {
+            seen[new DummyRecord(scan.next()).ival] = true;
+         }
+      }
+      for (final boolean s : seen) {
+         assertTrue(s);
+      }
+      assertEquals(numPinned, bufferManager.getNumPinned());
+   }
+
+   /** Rebuilds the free-space map of a reopened file. */
+   @Test
+   public void reopen() {
+      final BufferManager bufferManager = this.getBufferManager();
+      final HeapFile f = HeapFile.create(bufferManager, "reopen");
+      final List<RecordID> rids = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+         rids.add(f.insertRecord(new DummyRecord(i, i, "record" + i).toByteArray()));
+      }
+      final int numPages = f.getDataPages().size();
+      for (int i = 0; i < rids.size(); i += 2) {
+         f.deleteRecord(rids.get(i));
+      }
+
+      final HeapFile g = HeapFile.open(bufferManager, "reopen");
+      for (int i = 0; i < rids.size(); i += 2) {
+         g.insertRecord(new DummyRecord(i, i, "record" + i).toByteArray());
+      }
+      assertEquals(1000, g.getRecordCount());
+      assertTrue(g.getDataPages().size() <= numPages);
+      g.delete();
+   }
+
    /** Test some error conditions. */
    @Test
    public void errorConditions() {
@@ -198,7 +332,7 @@ public class HeapFileTest extends BaseTest {
 
       // Try to insert a record that's too long
       TestHelper.assertThrows(IllegalArgumentException.class,
-            () -> this.file.insertRecord(new byte[DiskManager.PAGE_SIZE + 4]));
+            () -> this.file.insertRecord(new byte[this.getDiskManager().getPageSize() + 4]));
    }
 
    /**
@@ -0,0 +1,134 @@
+/*
+ * @(#)InsertPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.file;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.RecordID;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.util.Convert;
+
+/**
+ * Measures the cost of inserting records into heap files of different sizes using the jmh framework. Each
+ * invocation inserts a batch of records and deletes them again, which also frees data pages, so that the
+ * insertions have to find the space left by earlier deletions. Before running the main method, be sure to
+ * build the sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InsertPerformanceBench {
+
+   /** Number of records inserted and deleted per invocation. */
+   private static final int BATCH_SIZE = 1000;
+
+   /** Length of the records in the heap file, in bytes. */
+   private static final int RECORD_LENGTH = 64;
+
+   /** Number of records in the heap file before the insertions. */
+   @Param({ "10000", "100000", "1000000" })
+   private int numRecords;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Heap file storing the records. */
+   private HeapFile file;
+
+   /** IDs of the records inserted by the current invocation. */
+   private RecordID[] rids;
+
+   /**
+    * Creates the database and loads the heap file.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(InsertPerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] record = new byte[RECORD_LENGTH];
+      for (int i = 0; i < this.numRecords; i++) {
+         Convert.writeInt(record, 0, i);
+         this.file.insertRecord(record);
+      }
+      this.rids = new RecordID[BATCH_SIZE];
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Inserts a batch of records and deletes them again.
+    *
+    * @return number of records in the batch, to prevent DCE
+    */
+   @Benchmark
+   @OperationsPerInvocation(BATCH_SIZE)
+   public int insert() {
+      final byte[] record = new byte[RECORD_LENGTH];
+      for (int i = 0; i < BATCH_SIZE; i++) {
+         Convert.writeInt(record, 0, i);
+         this.rids[i] = this.file.insertRecord(record);
+      }
+      for (final RecordID rid : this.rids) {
+         this.file.deleteRecord(rid);
+      }
+      return this.rids.length;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(InsertPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
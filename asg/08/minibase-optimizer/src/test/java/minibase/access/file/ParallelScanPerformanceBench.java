@@ -0,0 +1,159 @@
+/*
+ * @(#)ParallelScanPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.file;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.storage.buffer.ReplacementStrategy;
+import minibase.util.Convert;
+
+/**
+ * Compares a heap file scan with a sequential and a parallel stream over the page ranges of the file
+ * using the jmh framework. Before running the main method, be sure to build the sources with something
+ * like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelScanPerformanceBench {
+
+   /** Length of the records in the heap file, in bytes. */
+   private static final int RECORD_LENGTH = 64;
+
+   /** Number of records in the heap file. */
+   @Param({ "1000000" })
+   private int numRecords;
+
+   /** Number of worker threads of the parallel stream. */
+   @Param({ "1", "2", "4" })
+   private int workers;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Heap file storing the records. */
+   private HeapFile file;
+
+   /** Pool running the parallel streams. */
+   private ForkJoinPool pool;
+
+   /**
+    * Creates the database and loads the heap file.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(ParallelScanPerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] record = new byte[RECORD_LENGTH];
+      for (int i = 0; i < this.numRecords; i++) {
+         Convert.writeInt(record, 0, i);
+         this.file.insertRecord(record);
+      }
+      this.pool = new ForkJoinPool(this.workers);
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.pool.shutdown();
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Counts the records with an even first field using a file scan.
+    *
+    * @return number of qualifying records, to prevent DCE
+    */
+   @Benchmark
+   public long scan() {
+      long count = 0;
+      try (FileScan scan = this.file.openScan()) {
+         while (scan.hasNext()) {
+            if (Convert.readInt(scan.next(), 0) % 2 == 0) {
+               count++;
+            }
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Counts the records with an even first field using a sequential stream.
+    *
+    * @return number of qualifying records, to prevent DCE
+    */
+   @Benchmark
+   public long sequential() {
+      return this.file.stream(false).filter(t -> Convert.readInt(t, 0) % 2 == 0).count();
+   }
+
+   /**
+    * Counts the records with an even first field using a parallel stream.
+    *
+    * @return number of qualifying records, to prevent DCE
+    * @throws InterruptedException
+    *            if the benchmark thread is interrupted
+    * @throws ExecutionException
+    *            if a worker fails
+    */
+   @Benchmark
+   public long parallel() throws InterruptedException, ExecutionException {
+      return this.pool.submit(() -> this.file.stream(true).filter(t -> Convert.readInt(t, 0) % 2 == 0).count())
+            .get();
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(ParallelScanPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
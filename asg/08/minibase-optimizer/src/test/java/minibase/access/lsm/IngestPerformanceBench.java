@@ -0,0 +1,156 @@
+/*
+ * @(#)IngestPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.lsm;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.AtomicKeyType;
+import minibase.Minibase;
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.index.Index;
+import minibase.storage.buffer.PageID;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Compares the ingest throughput of the log-structured merge index with the one of the B+-tree index, by
+ * inserting entries with random keys one by one, using the jmh framework. Before running the main method, be
+ * sure to build the sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IngestPerformanceBench {
+
+   /** Number of entries to insert. */
+   @Param({ "100000", "1000000" })
+   private int numEntries;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Keys of the entries, in random order. */
+   private int[] keys;
+
+   /**
+    * Creates the database and the keys.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(IngestPerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.keys = new int[this.numEntries];
+      for (int i = 0; i < this.numEntries; i++) {
+         this.keys[i] = rng.nextInt();
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Inserts the entries into a B+-tree index.
+    *
+    * @return number of entries found after the insertions, to prevent DCE
+    */
+   @Benchmark
+   public int btree() {
+      final BTreeIndex index = BTreeIndex.createIndex(this.minibase.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      final int found = this.ingest(index);
+      index.delete();
+      return found;
+   }
+
+   /**
+    * Inserts the entries into a log-structured merge index.
+    *
+    * @return number of entries found after the insertions, to prevent DCE
+    */
+   @Benchmark
+   public int lsm() {
+      try (LSMIndex index = LSMIndex.createTemporary(this.minibase.getBufferManager(), AtomicKeyType.INTEGER)) {
+         return this.ingest(index);
+      }
+   }
+
+   /**
+    * Inserts the entries into the given index and looks up a few of them.
+    *
+    * @param index the index
+    * @return number of entries found
+    */
+   private int ingest(final Index index) {
+      for (int i = 0; i < this.keys.length; i++) {
+         index.insert(new SearchKey(this.keys[i]), new RecordID(PageID.getInstance(i / 100), i % 100));
+      }
+      int found = 0;
+      for (int i = 0; i < this.keys.length; i += this.keys.length / 100) {
+         try {
+            if (index.search(new SearchKey(this.keys[i])).isPresent()) {
+               found++;
+            }
+         } catch (final IOException e) {
+            throw new IllegalStateException(e);
+         }
+      }
+      return found;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(IngestPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
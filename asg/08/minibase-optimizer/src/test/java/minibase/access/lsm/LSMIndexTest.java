@@ -0,0 +1,204 @@
+/*
+ * @(#)LSMIndexTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.access.lsm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import minibase.AtomicKeyType;
+import minibase.BaseTest;
+import minibase.CompositeKeyType;
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.TestHelper;
+import minibase.access.file.RunPage;
+import minibase.access.index.IndexEntry;
+import minibase.access.index.IndexScan;
+import minibase.storage.buffer.PageID;
+
+/**
+ * Tests the log-structured merge index.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class LSMIndexTest extends BaseTest {
+
+   /** Number of entries in the index. */
+   private static final int NUM_ENTRIES = 20000;
+
+   /** Size of the memtable, small enough to create and merge many runs. */
+   private static final int MEMTABLE_SIZE = 100;
+
+   /**
+    * Inserts shuffled keys and checks that they are found and scanned in order.
+    */
+   @Test
+   public void insertAndSearch() {
+      final List<Integer> keys = new ArrayList<>();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         keys.add(2 * i - NUM_ENTRIES);
+      }
+      Collections.shuffle(keys, this.getRandom());
+      try (LSMIndex index = LSMIndex.createTemporary(this.getBufferManager(), AtomicKeyType.INTEGER,
+            MEMTABLE_SIZE)) {
+         for (final int key : keys) {
+            index.insert(new SearchKey(key), rid(key));
+         }
+         index.checkInvariants();
+         assertTrue(index.getNumRuns() > 1);
+         for (final int key : keys) {
+            assertEquals(rid(key), index.search(new SearchKey(key)).get().getRecordID());
+            assertFalse(index.search(new SearchKey(key + 1)).isPresent());
+         }
+         try (IndexScan scan = index.openScan()) {
+            for (int i = 0; i < NUM_ENTRIES; i++) {
+               final IndexEntry entry = scan.next();
+               assertEquals(new SearchKey(2 * i - NUM_ENTRIES), entry.getSearchKey());
+               assertEquals(rid(2 * i - NUM_ENTRIES), entry.getRecordID());
+            }
+            assertFalse(scan.hasNext());
+         }
+         try (IndexScan scan = index.openScan(new SearchKey(42))) {
+            assertEquals(rid(42), scan.next().getRecordID());
+            assertFalse(scan.hasNext());
+         }
+         try (IndexScan scan = index.openScan(new SearchKey(43))) {
+            assertFalse(scan.hasNext());
+         }
+      }
+      TestHelper.assertThrows(IllegalArgumentException.class,
+            () -> LSMIndex.createTemporary(this.getBufferManager(), AtomicKeyType.INTEGER, 0));
+   }
+
+   /**
+    * Runs random insertions, replacements and removals and compares the index with a sorted map.
+    */
+   @Test
+   public void randomUpdates() {
+      final Random rng = this.getRandom();
+      final TreeMap<Integer, RecordID> expected = new TreeMap<>();
+      try (LSMIndex index = LSMIndex.createTemporary(this.getBufferManager(), AtomicKeyType.INTEGER,
+            MEMTABLE_SIZE)) {
+         for (int i = 0; i < 5 * NUM_ENTRIES; i++) {
+            final int key = rng.nextInt(NUM_ENTRIES);
+            if (rng.nextInt(3) == 0) {
+               assertEquals(expected.remove(key) != null, index.remove(new SearchKey(key), rid(key)));
+            } else {
+               final RecordID rid = new RecordID(PageID.getInstance(i), key % 100);
+               expected.put(key, rid);
+               index.insert(new SearchKey(key), rid);
+            }
+         }
+         index.checkInvariants();
+         for (int key = 0; key < NUM_ENTRIES; key++) {
+            final RecordID rid = expected.get(key);
+            assertEquals(rid != null, index.search(new SearchKey(key)).isPresent());
+            if (rid != null) {
+               assertEquals(rid, index.search(new SearchKey(key)).get().getRecordID());
+            }
+         }
+         try (IndexScan scan = index.openScan()) {
+            for (final Map.Entry<Integer, RecordID> entry : expected.entrySet()) {
+               final IndexEntry next = scan.next();
+               assertEquals(new SearchKey(entry.getKey()), next.getSearchKey());
+               assertEquals(entry.getValue(), next.getRecordID());
+            }
+            assertFalse(scan.hasNext());
+         }
+
+         // removed keys stay hidden after the memtable has been flushed
+         for (final int key : expected.keySet()) {
+            assertTrue(index.remove(new SearchKey(key), rid(key)));
+         }
+         index.flush();
+         index.checkInvariants();
+         try (IndexScan scan = index.openScan()) {
+            assertFalse(scan.hasNext());
+         }
+      }
+   }
+
+   /**
+    * Writes a run of composite keys with a low-cardinality first component and checks that prefix compression
+    * stores considerably more entries per page than fit uncompressed, and that the keys are still found.
+    */
+   @Test
+   public void prefixCompression() {
+      final CompositeKeyType type = CompositeKeyType.getInstance(
+            new AtomicKeyType[] { AtomicKeyType.INTEGER, AtomicKeyType.LONG });
+      final int keyLength = type.getKeyLength();
+      final List<byte[]> entries = new ArrayList<>();
+      for (int category = -1; category < 3; category++) {
+         for (long id = 0; id < NUM_ENTRIES / 4; id++) {
+            entries.add(entry(new SearchKey(type, category, id), rid((int) id)));
+         }
+      }
+      final SortedRun run = SortedRun.write(this.getBufferManager(), keyLength, entries.iterator());
+      run.checkInvariants(true);
+      assertEquals(NUM_ENTRIES, run.getLength());
+      final int capacity = RunPage.capacity(this.getBufferManager().getDiskManager().getPageSize(),
+            keyLength + RecordID.BYTES);
+      assertTrue(3 * run.getNumPages() <= 2 * ((NUM_ENTRIES + capacity - 1) / capacity));
+
+      for (final byte[] entry : entries) {
+         assertEquals(new RecordID(entry, keyLength), run.find(Arrays.copyOf(entry, keyLength)));
+      }
+      assertNull(run.find(entry(new SearchKey(type, 0, -1L), rid(0))));
+      assertNull(run.find(entry(new SearchKey(type, 3, 0L), rid(0))));
+      try (SortedRun.Cursor cursor = run.open()) {
+         for (final byte[] entry : entries) {
+            assertArrayEquals(entry, cursor.next());
+         }
+         assertFalse(cursor.hasNext());
+      }
+      run.free();
+   }
+
+   /**
+    * Returns an entry of a run, consisting of the encoded key and the record ID.
+    *
+    * @param key the key
+    * @param rid the record ID
+    * @return the entry
+    */
+   private static byte[] entry(final SearchKey key, final RecordID rid) {
+      final int keyLength = key.getType().getKeyLength();
+      final byte[] entry = new byte[keyLength + RecordID.BYTES];
+      key.writeRawData(entry, 0);
+      key.getType().encodeSortable(entry, 0);
+      rid.writeData(entry, keyLength);
+      return entry;
+   }
+
+   /**
+    * Returns the record ID stored with the given key.
+    *
+    * @param key the key
+    * @return the record ID
+    */
+   private static RecordID rid(final int key) {
+      return new RecordID(PageID.getInstance(Math.abs(key / 100)), key % 100);
+   }
+}
@@ -144,7 +144,7 @@ public final class SailorsCatalogUtil {
     * @return width as a fraction of the page size
     */
    private static double width(final int size) {
-      return (double) size / DiskManager.PAGE_SIZE;
+      return (double) size / DiskManager.DEFAULT_PAGE_SIZE;
    }
 
    /**
@@ -48,7 +48,7 @@ public class TransientSystemCatalogTest extends OptimizerBaseTest {
 
       final ColumnStatistics columnStatistics = new ColumnStatistics(SailorsCatalogUtil.SAILORS_CARD,
             SailorsCatalogUtil.SAILORS_CARD, 0, SailorsCatalogUtil.SAILORS_CARD,
-            (double) 4 / DiskManager.PAGE_SIZE);
+            (double) 4 / DiskManager.DEFAULT_PAGE_SIZE);
       TestHelper.assertThrows(IllegalStateException.class,
             () -> catalog.createColumn(columnStatistics, SailorsCatalogUtil.ATT_SID, DataType.INT, 0,
                   catalog.getTable(SailorsCatalogUtil.TBL_SAILORS).getCatalogID()));
@@ -0,0 +1,183 @@
+/*
+ * @(#)AggregationPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.AggregationType;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Compares hash-based aggregation, with a hash table that holds all groups and with one that has to spill
+ * partitions, to sorting the input and aggregating it with a {@link SortAggregation}, using the jmh framework.
+ * Before running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AggregationPerformanceBench {
+
+   /** Schema of the relation. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("group", DataType.INT, DataType.INT.getSize())
+         .addField("value", DataType.INT, DataType.INT.getSize())
+         .addField("price", DataType.DOUBLE, DataType.DOUBLE.getSize())
+         .addField("payload", DataType.CHAR, 48)
+         .build();
+
+   /** Group columns. */
+   private static final int[] GROUP = { 0 };
+
+   /** Aggregation functions. */
+   private static final AggregationType[] FUNCTIONS = { AggregationType.COUNT, AggregationType.SUM,
+      AggregationType.MAX, AggregationType.AVG };
+
+   /** Aggregated columns. */
+   private static final int[] COLUMNS = { -1, 1, 1, 2 };
+
+   /** Number of tuples in the relation. */
+   @Param({ "1000000" })
+   private int size;
+
+   /** Number of distinct groups. */
+   @Param({ "100", "100000" })
+   private int groups;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The relation. */
+   private HeapFile file;
+
+   /**
+    * Creates the database and loads the relation.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(AggregationPerformanceBench.class.getSimpleName(), 262144, 8192,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < this.size; i++) {
+         SCHEMA.setAllFields(tuple, rng.nextInt(this.groups), rng.nextInt(1000), rng.nextDouble(), "t" + i);
+         this.file.insertRecord(tuple);
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Aggregates with a hash table that holds all groups.
+    *
+    * @return number of groups, to prevent DCE
+    */
+   @Benchmark
+   public int hash() {
+      return count(new HashAggregation(this.minibase.getBufferManager(), new TableScan(SCHEMA, this.file), GROUP,
+            FUNCTIONS, COLUMNS, 4096));
+   }
+
+   /**
+    * Aggregates with a hash table of few pages, which spills the groups that do not fit.
+    *
+    * @return number of groups, to prevent DCE
+    */
+   @Benchmark
+   public int hashSpilling() {
+      return count(new HashAggregation(this.minibase.getBufferManager(), new TableScan(SCHEMA, this.file), GROUP,
+            FUNCTIONS, COLUMNS, 64));
+   }
+
+   /**
+    * Sorts the relation on the group column and aggregates the sorted groups.
+    *
+    * @return number of groups, to prevent DCE
+    */
+   @Benchmark
+   public int sort() {
+      return count(new SortAggregation(new ExternalSort(this.minibase.getBufferManager(),
+            new TableScan(SCHEMA, this.file), new TupleComparator(SCHEMA, GROUP), 64, 16), GROUP, FUNCTIONS,
+            COLUMNS));
+   }
+
+   /**
+    * Counts the tuples returned by an operator.
+    *
+    * @param operator the operator
+    * @return number of tuples
+    */
+   private static int count(final Operator operator) {
+      int count = 0;
+      try (TupleIterator it = operator.open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(AggregationPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
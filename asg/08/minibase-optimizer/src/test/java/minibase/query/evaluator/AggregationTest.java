@@ -0,0 +1,302 @@
+/*
+ * @(#)AggregationTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import minibase.Minibase;
+import minibase.TestHelper;
+import minibase.access.file.File;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.AggregationType;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Tests the hash- and sort-based aggregation and duplicate elimination operators against aggregates that are
+ * computed from the decoded field values.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class AggregationTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 3000;
+
+   /** Size of the buffer pool, which has to hold the pages of the partitions that are written at once. */
+   private static final int BUFFER_POOL_SIZE = 256;
+
+   /** Aggregation functions of the tests. */
+   private static final AggregationType[] FUNCTIONS = { AggregationType.COUNT, AggregationType.SUM,
+      AggregationType.MIN, AggregationType.MAX, AggregationType.AVG };
+
+   @Override
+   protected Minibase createMinibaseInstance() throws Exception {
+      return Minibase.createTemporary(this.getClass().getSimpleName(), DB_SIZE, BUFFER_POOL_SIZE,
+            ReplacementStrategy.CLOCK);
+   }
+
+   /**
+    * Groups the sailors by rating, which fits into the hash table, and with a hash table of one page, which
+    * partitions the input.
+    */
+   @Test
+   public void groupByRating() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final int[] group = S_SAILORS.getColumnIndexes("rating");
+         final int[] columns = { -1, 0, 1, 1, 3 };
+         final Map<List<Object>, List<Object>> expected = reference(sailors, group, columns);
+         assertEquals(11, expected.size());
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         assertAggregates(expected, new HashAggregation(this.getBufferManager(), scan, group, FUNCTIONS, columns));
+         assertAggregates(expected, new HashAggregation(this.getBufferManager(), scan, group, FUNCTIONS, columns,
+               1));
+         assertAggregates(expected, this.sorted(scan, group, columns));
+      }
+   }
+
+   /**
+    * Groups the sailors by their key with a hash table of one page, so that the partitions are partitioned
+    * again until the last round falls back to sorting.
+    */
+   @Test
+   public void groupByKey() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final int[] group = S_SAILORS.getColumnIndexes("sid", "rating");
+         final int[] columns = { -1, 3, 1, 3, 2 };
+         final Map<List<Object>, List<Object>> expected = reference(sailors, group, columns);
+         assertEquals(NUM_SAILORS, expected.size());
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         assertAggregates(expected, new HashAggregation(this.getBufferManager(), scan, group, FUNCTIONS, columns,
+               1));
+         assertAggregates(expected, this.sorted(scan, group, columns));
+      }
+   }
+
+   /**
+    * Aggregates without group columns, which returns one tuple also for an empty input.
+    */
+   @Test
+   public void global() {
+      final int[] columns = { -1, 2, 1, 3, 0 };
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final Map<List<Object>, List<Object>> expected = reference(sailors, new int[0], columns);
+         assertEquals(1, expected.size());
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         assertAggregates(expected, new HashAggregation(this.getBufferManager(), scan, new int[0], FUNCTIONS,
+               columns));
+         assertAggregates(expected, new SortAggregation(scan, new int[0], FUNCTIONS, columns));
+      }
+      try (HeapFile empty = HeapFile.createTemporary(this.getBufferManager())) {
+         final TableScan scan = new TableScan(S_SAILORS, empty);
+         for (final Operator aggregation : new Operator[] {
+            new HashAggregation(this.getBufferManager(), scan, new int[0], FUNCTIONS, columns),
+            new SortAggregation(scan, new int[0], FUNCTIONS, columns) }) {
+            try (TupleIterator it = aggregation.open()) {
+               final byte[] tuple = it.next();
+               assertEquals(0L, aggregation.getSchema().getField(tuple, 0));
+               assertFalse(it.hasNext());
+            }
+         }
+         try (TupleIterator it = new HashAggregation(this.getBufferManager(), scan, new int[] { 2 }, FUNCTIONS,
+               columns).open()) {
+            assertFalse(it.hasNext());
+         }
+      }
+   }
+
+   /**
+    * Eliminates duplicates from projections with few and many distinct tuples.
+    */
+   @Test
+   public void duplicates() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         for (final int[] columns : new int[][] { { 2, 1 }, { 2 } }) {
+            final Projection projection = new Projection(new TableScan(S_SAILORS, sailors), columns);
+            final Set<List<Object>> expected = new HashSet<>();
+            try (TupleIterator it = projection.open()) {
+               while (it.hasNext()) {
+                  expected.add(Arrays.asList(projection.getSchema().getAllFields(it.next())));
+               }
+            }
+            assertTrue(expected.size() < NUM_SAILORS);
+            final Schema schema = projection.getSchema();
+            assertDistinct(expected, new HashDuplicates(this.getBufferManager(), projection));
+            assertDistinct(expected, new HashDuplicates(this.getBufferManager(), projection, 1));
+            assertDistinct(expected, new SortDuplicates(new ExternalSort(this.getBufferManager(), projection,
+                  new TupleComparator(schema, SortDuplicates.allColumns(schema)), 4, 8)));
+         }
+      }
+   }
+
+   /**
+    * Sums {@code BIGINT} values whose sum cannot be represented exactly as a double.
+    */
+   @Test
+   public void bigintSum() {
+      final Schema schema = new SchemaBuilder().addField("value", DataType.BIGINT, DataType.BIGINT.getSize())
+            .build();
+      final long large = (1L << 53) + 1;
+      try (HeapFile values = HeapFile.createTemporary(this.getBufferManager())) {
+         final byte[] tuple = schema.newTuple();
+         for (final long value : new long[] { large, 2 }) {
+            schema.setBigintField(tuple, 0, value);
+            values.insertRecord(tuple);
+         }
+         final TableScan scan = new TableScan(schema, values);
+         final AggregationType[] functions = { AggregationType.SUM };
+         for (final Operator aggregation : new Operator[] {
+            new HashAggregation(this.getBufferManager(), scan, new int[0], functions, new int[] { 0 }),
+            new SortAggregation(scan, new int[0], functions, new int[] { 0 }) }) {
+            try (TupleIterator it = aggregation.open()) {
+               assertEquals(large + 2, aggregation.getSchema().getBigintField(it.next(), 0));
+               assertFalse(it.hasNext());
+            }
+         }
+      }
+   }
+
+   /**
+    * Checks that aggregation functions that are undefined for their columns are rejected.
+    */
+   @Test
+   public void undefined() {
+      try (HeapFile empty = HeapFile.createTemporary(this.getBufferManager())) {
+         final TableScan scan = new TableScan(S_SAILORS, empty);
+         TestHelper.assertThrows(IllegalArgumentException.class, () -> new HashAggregation(
+               this.getBufferManager(), scan, new int[0], new AggregationType[] { AggregationType.SUM },
+               new int[] { 1 }));
+         TestHelper.assertThrows(IllegalArgumentException.class, () -> new SortAggregation(scan, new int[0],
+               new AggregationType[] { AggregationType.MIN }, new int[] { -1 }));
+      }
+   }
+
+   /**
+    * Creates a sort-based aggregation of the sorted input.
+    *
+    * @param input the input
+    * @param group group columns
+    * @param columns aggregated columns
+    * @return the aggregation
+    */
+   private Operator sorted(final Operator input, final int[] group, final int[] columns) {
+      return new SortAggregation(new ExternalSort(this.getBufferManager(), input,
+            new TupleComparator(input.getSchema(), group), 4, 8), group, FUNCTIONS, columns);
+   }
+
+   /**
+    * Computes the aggregates of {@link #FUNCTIONS} from the decoded field values of the sailors.
+    *
+    * @param sailors the sailors
+    * @param group group columns
+    * @param columns aggregated columns
+    * @return aggregates by the values of the group columns
+    */
+   @SuppressWarnings("unchecked")
+   private static Map<List<Object>, List<Object>> reference(final File sailors, final int[] group,
+         final int[] columns) {
+      final Map<List<Object>, Object[]> groups = new HashMap<>();
+      try (TupleIterator it = new TableScan(S_SAILORS, sailors).open()) {
+         while (it.hasNext()) {
+            final Object[] fields = S_SAILORS.getAllFields(it.next());
+            final List<Object> key = new ArrayList<>();
+            for (final int column : group) {
+               key.add(fields[column]);
+            }
+            final Object[] values = groups.computeIfAbsent(key, k -> new Object[] { 0L, 0.0,
+               fields[columns[2]], fields[columns[3]], 0.0 });
+            values[0] = (Long) values[0] + 1;
+            values[1] = (Double) values[1] + ((Number) fields[columns[1]]).doubleValue();
+            if (((Comparable<Object>) fields[columns[2]]).compareTo(values[2]) < 0) {
+               values[2] = fields[columns[2]];
+            }
+            if (((Comparable<Object>) fields[columns[3]]).compareTo(values[3]) > 0) {
+               values[3] = fields[columns[3]];
+            }
+            values[4] = (Double) values[4] + ((Number) fields[columns[4]]).doubleValue();
+         }
+      }
+      final Map<List<Object>, List<Object>> result = new HashMap<>();
+      for (final Map.Entry<List<Object>, Object[]> entry : groups.entrySet()) {
+         final Object[] values = entry.getValue();
+         values[4] = (Double) values[4] / (Long) values[0];
+         result.put(entry.getKey(), Arrays.asList(values));
+      }
+      return result;
+   }
+
+   /**
+    * Checks that an aggregation returns the expected aggregates, also after a reset.
+    *
+    * @param expected expected aggregates by the values of the group columns
+    * @param aggregation the aggregation
+    */
+   private static void assertAggregates(final Map<List<Object>, List<Object>> expected,
+         final Operator aggregation) {
+      final Schema schema = aggregation.getSchema();
+      final int numGroup = schema.getColumnCount() - FUNCTIONS.length;
+      try (TupleIterator it = aggregation.open()) {
+         for (int pass = 0; pass < 2; pass++) {
+            final Set<List<Object>> seen = new HashSet<>();
+            while (it.hasNext()) {
+               final Object[] fields = schema.getAllFields(it.next());
+               final List<Object> key = Arrays.asList(fields).subList(0, numGroup);
+               assertTrue(seen.add(key));
+               final List<Object> values = expected.get(key);
+               assertEquals(values.get(0), fields[numGroup]);
+               assertEquals(((Number) values.get(1)).doubleValue(), ((Number) fields[numGroup + 1]).doubleValue(),
+                     1e-3 * Math.abs(((Number) values.get(1)).doubleValue()) + 1);
+               assertEquals(values.get(2), fields[numGroup + 2]);
+               assertEquals(values.get(3), fields[numGroup + 3]);
+               assertEquals(((Number) values.get(4)).doubleValue(), ((Number) fields[numGroup + 4]).doubleValue(),
+                     1e-3 * Math.abs(((Number) values.get(4)).doubleValue()) + 1);
+            }
+            assertEquals(expected.size(), seen.size());
+            it.reset();
+         }
+      }
+   }
+
+   /**
+    * Checks that a duplicate elimination returns every expected tuple exactly once, also after a reset.
+    *
+    * @param expected expected tuples
+    * @param duplicates the duplicate elimination
+    */
+   private static void assertDistinct(final Set<List<Object>> expected, final Operator duplicates) {
+      try (TupleIterator it = duplicates.open()) {
+         for (int pass = 0; pass < 2; pass++) {
+            final Set<List<Object>> seen = new HashSet<>();
+            while (it.hasNext()) {
+               assertTrue(seen.add(Arrays.asList(duplicates.getSchema().getAllFields(it.next()))));
+            }
+            assertEquals(expected, seen);
+            it.reset();
+         }
+      }
+   }
+}
@@ -0,0 +1,232 @@
+/*
+ * @(#)BatchPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.predicate.Operand;
+import minibase.query.evaluator.predicate.Predicate;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Compares tuple-at-a-time and batch-at-a-time execution of a scan-filter-join pipeline using the jmh
+ * framework. The benchmark is run with the GC profiler, which reports the allocation rate per operation.
+ * Before running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchPerformanceBench {
+
+   /** Schema of both relations. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("key", DataType.INT, DataType.INT.getSize())
+         .addField("value", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 56)
+         .build();
+
+   /** Number of tuples in the probe relation. */
+   @Param({ "1000000" })
+   private int probeSize;
+
+   /** Number of tuples in the build relation. */
+   @Param({ "10000" })
+   private int buildSize;
+
+   /** Percentage of the probe tuples that pass the filter. */
+   @Param({ "10", "50" })
+   private int selectivity;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Probe relation. */
+   private HeapFile probe;
+
+   /** Build relation. */
+   private HeapFile build;
+
+   /** The pipeline. */
+   private Operator pipeline;
+
+   /** Batch the results are read into. */
+   private TupleBatch batch;
+
+   /**
+    * Creates the database, loads both relations and builds the pipeline.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(BatchPerformanceBench.class.getSimpleName(), 262144, 8192,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.probe = this.load(this.probeSize, rng);
+      this.build = this.load(this.buildSize, rng);
+      this.pipeline = new HashEquiJoin(this.minibase.getBufferManager(),
+            new Selection(new TableScan(SCHEMA, this.probe), new ValueBelow(this.selectivity)), 0,
+            new TableScan(SCHEMA, this.build), 0);
+      this.batch = new TupleBatch(this.pipeline.getSchema().getLength());
+   }
+
+   /**
+    * Creates a heap file with random tuples.
+    *
+    * @param size number of tuples
+    * @param rng random number generator
+    * @return the heap file
+    */
+   private HeapFile load(final int size, final Random rng) {
+      final HeapFile file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < size; i++) {
+         SCHEMA.setAllFields(tuple, rng.nextInt(this.buildSize), rng.nextInt(100), "t" + i);
+         file.insertRecord(tuple);
+      }
+      return file;
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.probe.close();
+      this.build.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Evaluates the pipeline one tuple at a time.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int tupleAtATime() {
+      int count = 0;
+      try (TupleIterator it = this.pipeline.open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Evaluates the pipeline one batch at a time.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int batchAtATime() {
+      int count = 0;
+      try (TupleIterator it = this.pipeline.open()) {
+         int n;
+         while ((n = it.nextBatch(this.batch)) > 0) {
+            count += n;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Predicate that checks whether the second column is below a threshold.
+    */
+   private static final class ValueBelow extends Predicate<Boolean> {
+
+      /** Threshold. */
+      private final int threshold;
+
+      /**
+       * Constructor.
+       *
+       * @param threshold the threshold
+       */
+      ValueBelow(final int threshold) {
+         this.threshold = threshold;
+      }
+
+      @Override
+      public Operand<Boolean> evaluate(final byte[] tuple) {
+         return new Operand<>(this.eval(tuple), DataType.INT);
+      }
+
+      @Override
+      public Boolean eval(final byte[] tuple) {
+         return this.eval(tuple, 0);
+      }
+
+      @Override
+      public Boolean eval(final byte[] data, final int offset) {
+         return SCHEMA.getIntegral(data, offset, 1) < this.threshold;
+      }
+
+      @Override
+      public Optional<DataType> validate(final Schema schema) {
+         return Optional.of(DataType.INT);
+      }
+
+      @Override
+      public String toString() {
+         return "value < " + this.threshold;
+      }
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(BatchPerformanceBench.class.getSimpleName())
+            .addProfiler(GCProfiler.class).build()).run();
+   }
+}
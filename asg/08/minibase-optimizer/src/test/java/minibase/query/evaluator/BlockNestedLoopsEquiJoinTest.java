@@ -0,0 +1,110 @@
+/*
+ * @(#)BlockNestedLoopsEquiJoinTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import minibase.access.file.File;
+import minibase.access.file.HeapFile;
+
+/**
+ * Test block nested loops equi join.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class BlockNestedLoopsEquiJoinTest extends EvaluatorBaseTest {
+
+   /**
+    * Tests that empty relations can be joined.
+    */
+   @Test
+   public void testEmpty() {
+      try (HeapFile f = HeapFile.createTemporary(this.getBufferManager());
+            HeapFile o = HeapFile.createTemporary(this.getBufferManager())) {
+         final byte[] data = S_SAILORS.newTuple();
+         S_SAILORS.setAllFields(data, 1, "c", 1, 1.0f);
+         f.insertRecord(data);
+
+         final BlockNestedLoopsEquiJoin bnlj = new BlockNestedLoopsEquiJoin(this.getBufferManager(),
+               new TableScan(S_SAILORS, f), 0, new TableScan(S_SAILORS, o), 0);
+         try (TupleIterator it = bnlj.open()) {
+            assertFalse(it.hasNext());
+         }
+      }
+   }
+
+   /**
+    * Joins the sailors with themselves on different columns and block sizes and compares the result with the
+    * nested loops join.
+    */
+   @Test
+   public void testSelfJoin() {
+      try (File sailors = this.createSailors(1000)) {
+         for (final String name : new String[] { "sid", "sname", "rating" }) {
+            final int column = S_SAILORS.getColumnIndex(name);
+            final int expected = count(new NestedLoopsEquiJoin(this.getBufferManager(),
+                  new TableScan(S_SAILORS, sailors), column, new TableScan(S_SAILORS, sailors), column));
+            for (final int pages : new int[] { 1, 3, BlockNestedLoopsEquiJoin.DEFAULT_BLOCK_PAGES }) {
+               assertEquals(expected, count(new BlockNestedLoopsEquiJoin(this.getBufferManager(),
+                     new TableScan(S_SAILORS, sailors), column, new TableScan(S_SAILORS, sailors), column, pages)));
+            }
+         }
+      }
+   }
+
+   /**
+    * Tests that the join iterator can be reset.
+    */
+   @Test
+   public void testReset() {
+      try (File sailors = this.createSailors(500)) {
+         final int rating = S_SAILORS.getColumnIndex("rating");
+         final BlockNestedLoopsEquiJoin join = new BlockNestedLoopsEquiJoin(this.getBufferManager(),
+               new TableScan(S_SAILORS, sailors), rating, new TableScan(S_SAILORS, sailors), rating, 2);
+         try (TupleIterator it = join.open()) {
+            final int expected = drain(it);
+            it.reset();
+            assertEquals(expected, drain(it));
+         }
+      }
+   }
+
+   /**
+    * Counts the tuples returned by an operator.
+    *
+    * @param operator the operator
+    * @return number of tuples
+    */
+   private static int count(final Operator operator) {
+      try (TupleIterator it = operator.open()) {
+         return drain(it);
+      }
+   }
+
+   /**
+    * Counts the remaining tuples of an iterator.
+    *
+    * @param it the iterator
+    * @return number of tuples
+    */
+   private static int drain(final TupleIterator it) {
+      int count = 0;
+      while (it.hasNext()) {
+         it.next();
+         count++;
+      }
+      return count;
+   }
+}
@@ -0,0 +1,192 @@
+/*
+ * @(#)ExternalSortTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.Test;
+
+import minibase.Minibase;
+import minibase.TestHelper;
+import minibase.access.file.File;
+import minibase.access.file.HeapFile;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Tests the parallel mode of the external sort against the sequential one.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class ExternalSortTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 5000;
+
+   /** Size of the buffer pool, which has to hold the buffer rings of all concurrent merges. */
+   private static final int BUFFER_POOL_SIZE = 1024;
+
+   @Override
+   protected Minibase createMinibaseInstance() throws Exception {
+      return Minibase.createTemporary(this.getClass().getSimpleName(), DB_SIZE, BUFFER_POOL_SIZE,
+            ReplacementStrategy.CLOCK);
+   }
+
+   /**
+    * Tests that an empty relation can be sorted in parallel.
+    */
+   @Test
+   public void testEmpty() {
+      try (HeapFile empty = HeapFile.createTemporary(this.getBufferManager())) {
+         final ExternalSort sort = new ExternalSort(this.getBufferManager(), new TableScan(S_SAILORS, empty),
+               new TupleComparator(S_SAILORS, 0), 4, 8, 4);
+         try (TupleIterator it = sort.open()) {
+            assertFalse(it.hasNext());
+         }
+      }
+   }
+
+   /**
+    * Sorts with few buffer pages and a small fan-in, so that there are many initial runs that are merged
+    * concurrently in several passes.
+    */
+   @Test
+   public void testManyRuns() {
+      this.compareWithSequential(2, 3, 4);
+   }
+
+   /**
+    * Sorts with a fan-in that allows all runs to be merged in the pipelined final merge.
+    */
+   @Test
+   public void testFinalMerge() {
+      this.compareWithSequential(32, 16, 3);
+   }
+
+   /**
+    * Sorts with more workers than buffer pages.
+    */
+   @Test
+   public void testSinglePagePerWorker() {
+      this.compareWithSequential(1, 4, 8);
+   }
+
+   /**
+    * Sorts the sailors by rating, which has many duplicates, and name, sequentially and in parallel, and
+    * checks that the same tuples are returned in the same order of the sort key, also after a reset.
+    *
+    * @param bufferPages number of buffer pages for run generation
+    * @param k fan-in of the merges
+    * @param parallelism number of worker threads
+    */
+   private void compareWithSequential(final int bufferPages, final int k, final int parallelism) {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final TupleComparator comparator = new TupleComparator(S_SAILORS,
+               S_SAILORS.getColumnIndexes("rating", "sname"));
+         final List<byte[]> expected = toList(new ExternalSort(this.getBufferManager(),
+               new TableScan(S_SAILORS, sailors), comparator, bufferPages, Math.max(k, 3)).open());
+         assertEquals(NUM_SAILORS, expected.size());
+
+         final ExternalSort sort = new ExternalSort(this.getBufferManager(), new TableScan(S_SAILORS, sailors),
+               comparator, bufferPages, k, parallelism);
+         try (TupleIterator it = sort.open()) {
+            for (int pass = 0; pass < 2; pass++) {
+               final List<byte[]> actual = new ArrayList<>();
+               while (it.hasNext()) {
+                  actual.add(it.next());
+               }
+               assertEquals(expected.size(), actual.size());
+               // tuples with equal keys may be returned in a different order
+               final List<byte[]> sortedIds = new ArrayList<>();
+               for (int i = 0; i < actual.size(); i++) {
+                  assertEquals(0, comparator.compare(expected.get(i), actual.get(i)));
+                  assertTrue(i == 0 || comparator.compare(actual.get(i - 1), actual.get(i)) <= 0);
+                  sortedIds.add(actual.get(i));
+               }
+               sortedIds.sort(new TupleComparator(S_SAILORS, 0)::compare);
+               for (int i = 0; i < sortedIds.size(); i++) {
+                  assertEquals(i, S_SAILORS.getIntField(sortedIds.get(i), 0));
+               }
+               it.reset();
+            }
+         }
+      }
+   }
+
+   /**
+    * Checks that the iterator over handed-over tuples returns them in order and cannot be reset.
+    */
+   @Test
+   public void testHandoff() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final List<byte[]> input = toList(new TableScan(S_SAILORS, sailors).open());
+         final int recordLength = S_SAILORS.getLength();
+         final BlockingQueue<TupleBatch> filled = new ArrayBlockingQueue<>(NUM_SAILORS + 1);
+         final BlockingQueue<TupleBatch> free = new ArrayBlockingQueue<>(NUM_SAILORS + 1);
+         try (TupleIterator scan = new TableScan(S_SAILORS, sailors).open()) {
+            TupleBatch batch;
+            do {
+               batch = new TupleBatch(recordLength, 100);
+               filled.add(batch);
+            } while (scan.nextBatch(batch) > 0);
+         }
+         try (HandoffIterator it = new HandoffIterator(filled, free)) {
+            for (final byte[] tuple : input) {
+               assertArrayEquals(tuple, it.next());
+            }
+            assertFalse(it.hasNext());
+            TestHelper.assertThrows(UnsupportedOperationException.class, it::reset);
+         }
+      }
+   }
+
+   /**
+    * Reads all tuples of an iterator and closes it.
+    *
+    * @param it the iterator
+    * @return the tuples
+    */
+   private static List<byte[]> toList(final TupleIterator it) {
+      final List<byte[]> tuples = new ArrayList<>();
+      try (TupleIterator iter = it) {
+         while (iter.hasNext()) {
+            tuples.add(iter.next());
+         }
+      }
+      return tuples;
+   }
+
+   /**
+    * Checks that tuples are returned unchanged by a parallel sort of a relation that fits into one run.
+    */
+   @Test
+   public void testSingleRun() {
+      try (File sailors = this.createSailors(10)) {
+         final TupleComparator comparator = new TupleComparator(S_SAILORS, 0);
+         final List<byte[]> input = toList(new TableScan(S_SAILORS, sailors).open());
+         final List<byte[]> sorted = toList(new ExternalSort(this.getBufferManager(),
+               new TableScan(S_SAILORS, sailors), comparator, 64, 8, 2).open());
+         assertEquals(input.size(), sorted.size());
+         for (int i = 0; i < input.size(); i++) {
+            assertArrayEquals(input.get(i), sorted.get(i));
+         }
+      }
+   }
+}
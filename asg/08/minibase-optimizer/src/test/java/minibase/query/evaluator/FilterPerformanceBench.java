@@ -0,0 +1,225 @@
+/*
+ * @(#)FilterPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.predicate.Operand;
+import minibase.query.evaluator.predicate.Predicate;
+import minibase.query.evaluator.predicate.PredicateCompiler;
+import minibase.query.optimizer.operators.element.Comparison.ComparisonOperator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Compares the throughput of a selection with an interpreted predicate, which decodes and boxes the compared
+ * fields, with the same selection using a predicate compiled by the {@link PredicateCompiler}, using the jmh
+ * framework. Before running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FilterPerformanceBench {
+
+   /** Schema of the relation. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("id", DataType.INT, DataType.INT.getSize())
+         .addField("value", DataType.INT, DataType.INT.getSize())
+         .addField("price", DataType.DOUBLE, DataType.DOUBLE.getSize())
+         .addField("name", DataType.CHAR, 48)
+         .build();
+
+   /** Number of tuples in the relation. */
+   @Param({ "4000000" })
+   private int size;
+
+   /** Percentage of the tuples that pass the filter. */
+   @Param({ "1", "50" })
+   private int selectivity;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The relation. */
+   private HeapFile file;
+
+   /** Selection with the interpreted predicate. */
+   private Operator interpreted;
+
+   /** Selection with the compiled predicate. */
+   private Operator compiled;
+
+   /** Batch the results are read into. */
+   private TupleBatch batch;
+
+   /**
+    * Creates the database, loads the relation and builds both selections.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(FilterPerformanceBench.class.getSimpleName(), 262144, 8192,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < this.size; i++) {
+         SCHEMA.setAllFields(tuple, i, rng.nextInt(100), rng.nextDouble() * 100, "t" + i);
+         this.file.insertRecord(tuple);
+      }
+      this.interpreted = new Selection(new TableScan(SCHEMA, this.file), new Interpreted(this.selectivity));
+      this.compiled = new Selection(new TableScan(SCHEMA, this.file), PredicateCompiler.and(
+            PredicateCompiler.compare(SCHEMA, 1, ComparisonOperator.LT, this.selectivity),
+            PredicateCompiler.compare(SCHEMA, 2, ComparisonOperator.GEQ, 0.0)));
+      this.batch = new TupleBatch(SCHEMA.getLength());
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Filters the relation with the interpreted predicate.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int interpreted() {
+      return this.count(this.interpreted);
+   }
+
+   /**
+    * Filters the relation with the compiled predicate.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int compiled() {
+      return this.count(this.compiled);
+   }
+
+   /**
+    * Counts the result tuples of a selection, which are read in batches.
+    *
+    * @param selection the selection
+    * @return number of result tuples
+    */
+   private int count(final Operator selection) {
+      int count = 0;
+      try (TupleIterator it = selection.open()) {
+         int n;
+         while ((n = it.nextBatch(this.batch)) > 0) {
+            count += n;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Interpreted predicate {@code value < threshold AND price >= 0}, which compares the decoded field values
+    * like a tree of generic comparison nodes would.
+    */
+   private static final class Interpreted extends Predicate<Boolean> {
+
+      /** Threshold. */
+      private final Integer threshold;
+
+      /**
+       * Constructor.
+       *
+       * @param threshold the threshold
+       */
+      Interpreted(final int threshold) {
+         this.threshold = threshold;
+      }
+
+      @Override
+      public Operand<Boolean> evaluate(final byte[] tuple) {
+         return new Operand<>(this.eval(tuple), null);
+      }
+
+      @Override
+      public Boolean eval(final byte[] tuple) {
+         return this.eval(tuple, 0);
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public Boolean eval(final byte[] data, final int offset) {
+         final Comparable<Object> value = (Comparable<Object>) SCHEMA.getField(data, offset, 1);
+         final Comparable<Object> price = (Comparable<Object>) SCHEMA.getField(data, offset, 2);
+         return value.compareTo(this.threshold) < 0 && price.compareTo(0.0) >= 0;
+      }
+
+      @Override
+      public Optional<DataType> validate(final Schema schema) {
+         return Optional.empty();
+      }
+
+      @Override
+      public String toString() {
+         return "value < " + this.threshold + " AND price >= 0";
+      }
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(FilterPerformanceBench.class.getSimpleName())
+            .addProfiler(GCProfiler.class).build()).run();
+   }
+}
@@ -0,0 +1,196 @@
+/*
+ * @(#)HashEquiJoinTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.sql.Date;
+
+import org.junit.Test;
+
+import minibase.TestHelper;
+import minibase.access.file.File;
+import minibase.access.file.HeapFile;
+import minibase.query.schema.Schema;
+
+/**
+ * Test hash equi join.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class HashEquiJoinTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 2000;
+
+   /**
+    * Tests that empty relations can be joined.
+    */
+   @Test
+   public void testEmpty() {
+      try (HeapFile f = HeapFile.createTemporary(this.getBufferManager());
+            HeapFile o = HeapFile.createTemporary(this.getBufferManager())) {
+         final byte[] data = S_SAILORS.newTuple();
+         S_SAILORS.setAllFields(data, 1, "c", 1, 1.0f);
+         f.insertRecord(data);
+
+         final HashEquiJoin hj = new HashEquiJoin(this.getBufferManager(),
+               new TableScan(S_SAILORS, f), 0, new TableScan(S_SAILORS, o), 0);
+         try (TupleIterator it = hj.open()) {
+            assertFalse(it.hasNext());
+         }
+         final HashEquiJoin reverse = new HashEquiJoin(this.getBufferManager(),
+               new TableScan(S_SAILORS, o), 0, new TableScan(S_SAILORS, f), 0);
+         try (TupleIterator it = reverse.open()) {
+            assertFalse(it.hasNext());
+         }
+      }
+   }
+
+   /**
+    * Joins sailors with their reservations with a hash table that fits into memory.
+    */
+   @Test
+   public void testInMemory() {
+      this.joinReserves(HashEquiJoin.DEFAULT_BUFFER_PAGES);
+   }
+
+   /**
+    * Joins sailors with their reservations with a hash table that has to be partitioned.
+    */
+   @Test
+   public void testPartitioned() {
+      this.joinReserves(4);
+   }
+
+   /**
+    * Joins sailors with their reservations with a single buffer page, so that the build input is loaded in
+    * chunks after the last partitioning round.
+    */
+   @Test
+   public void testChunked() {
+      this.joinReserves(1);
+   }
+
+   /**
+    * Joins sailors on their names, which are compared by their hash codes, and checks the result against the
+    * nested loops join.
+    */
+   @Test
+   public void testStringColumn() {
+      try (File sailors = this.createSailors(200)) {
+         final int column = S_SAILORS.getColumnIndex("sname");
+         final int expected = count(new NestedLoopsEquiJoin(this.getBufferManager(),
+               new TableScan(S_SAILORS, sailors), column, new TableScan(S_SAILORS, sailors), column));
+         for (final int pages : new int[] { HashEquiJoin.DEFAULT_BUFFER_PAGES, 2 }) {
+            assertEquals(expected, count(new HashEquiJoin(this.getBufferManager(),
+                  new TableScan(S_SAILORS, sailors), column, new TableScan(S_SAILORS, sailors), column, pages)));
+         }
+      }
+   }
+
+   /**
+    * Tests that the join iterator can be reset.
+    */
+   @Test
+   public void testReset() {
+      try (File sailors = this.createSailors(NUM_SAILORS);
+            File reserves = this.createReserves(3 * NUM_SAILORS)) {
+         for (final int pages : new int[] { HashEquiJoin.DEFAULT_BUFFER_PAGES, 4, 1 }) {
+            final HashEquiJoin join = new HashEquiJoin(this.getBufferManager(), new TableScan(S_SAILORS, sailors),
+                  0, new TableScan(S_RESERVES, reserves), 0, pages);
+            try (TupleIterator it = join.open()) {
+               int first = 0;
+               for (int i = 0; i < 100 && it.hasNext(); i++) {
+                  it.next();
+                  first++;
+               }
+               it.reset();
+               int second = 0;
+               while (it.hasNext()) {
+                  it.next();
+                  second++;
+               }
+               assertEquals(100, first);
+               assertEquals(3 * NUM_SAILORS, second);
+            }
+         }
+
+         // the partitions are gone after the iterator has been closed
+         final TupleIterator it = new HashEquiJoin(this.getBufferManager(), new TableScan(S_SAILORS, sailors), 0,
+               new TableScan(S_RESERVES, reserves), 0, 4).open();
+         it.close();
+         TestHelper.assertThrows(IllegalStateException.class, it::reset);
+      }
+   }
+
+   /**
+    * Joins the sailors with their reservations and checks the result against the nested loops join.
+    *
+    * @param bufferPages number of buffer pages of the hash table
+    */
+   private void joinReserves(final int bufferPages) {
+      try (File sailors = this.createSailors(NUM_SAILORS);
+            File reserves = this.createReserves(3 * NUM_SAILORS)) {
+         final HashEquiJoin join = new HashEquiJoin(this.getBufferManager(), new TableScan(S_SAILORS, sailors),
+               0, new TableScan(S_RESERVES, reserves), 0, bufferPages);
+         final Schema schema = join.getSchema();
+         final int reserveSid = S_SAILORS.getColumnCount();
+         int count = 0;
+         try (TupleIterator it = join.open()) {
+            while (it.hasNext()) {
+               final byte[] tuple = it.next();
+               assertEquals(schema.getIntegral(tuple, 0, 0), schema.getIntegral(tuple, 0, reserveSid));
+               count++;
+            }
+         }
+         assertEquals(3 * NUM_SAILORS, count);
+         assertEquals(count(new NestedLoopsEquiJoin(this.getBufferManager(), new TableScan(S_SAILORS, sailors),
+               0, new TableScan(S_RESERVES, reserves), 0)), count);
+      }
+   }
+
+   /**
+    * Returns a heap file containing reservations of random sailors.
+    *
+    * @param num number of reservations
+    * @return heap file of the Reserves relation
+    */
+   private File createReserves(final int num) {
+      final File reserves = HeapFile.createTemporary(this.getBufferManager());
+      for (int i = 0; i < num; i++) {
+         final byte[] tuple = S_RESERVES.newTuple();
+         S_RESERVES.setAllFields(tuple, this.getRandom().nextInt(NUM_SAILORS), this.getRandom().nextInt(100),
+               new Date(0), "r" + i);
+         reserves.insertRecord(tuple);
+      }
+      return reserves;
+   }
+
+   /**
+    * Counts the tuples returned by an operator.
+    *
+    * @param operator the operator
+    * @return number of tuples
+    */
+   private static int count(final Operator operator) {
+      int count = 0;
+      try (TupleIterator it = operator.open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * @(#)IndexJoinPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.AtomicKeyType;
+import minibase.Minibase;
+import minibase.SearchKey;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.file.FileScan;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Measures the index nested loops join with outer batches of a single tuple, which probe the index and fetch
+ * the inner records in the random order of the outer relation, and with large batches, which are sorted
+ * before probing and fetching, using the jmh framework. The buffer pool is smaller than the inner relation, so
+ * random fetches cause page faults. Before running the main method, be sure to build the sources with
+ * something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IndexJoinPerformanceBench {
+
+   /** Schema of both relations. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("id", DataType.INT, DataType.INT.getSize())
+         .addField("ref", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 120)
+         .build();
+
+   /** Number of tuples in each relation. */
+   @Param({ "200000" })
+   private int size;
+
+   /** Number of outer tuples per batch. */
+   @Param({ "1", "1024", "16384" })
+   private int batchSize;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The outer relation. */
+   private HeapFile outer;
+
+   /** The inner relation. */
+   private HeapFile inner;
+
+   /** Index on the key of the inner relation. */
+   private BTreeIndex index;
+
+   /**
+    * Creates the database, loads both relations and indexes the inner one.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(IndexJoinPerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.outer = HeapFile.createTemporary(this.minibase.getBufferManager());
+      this.inner = HeapFile.createTemporary(this.minibase.getBufferManager());
+      this.index = BTreeIndex.createIndex(this.minibase.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < this.size; i++) {
+         SCHEMA.setAllFields(tuple, i, rng.nextInt(this.size), "t" + i);
+         this.outer.insertRecord(tuple);
+         this.inner.insertRecord(tuple);
+      }
+      try (FileScan scan = this.inner.openScan()) {
+         while (scan.hasNext()) {
+            this.index.insert(new SearchKey(SCHEMA.getIntField(scan.next(), 0)), scan.lastID());
+         }
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.index.close();
+      this.outer.close();
+      this.inner.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Joins the references of the outer relation with the keys of the inner relation.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int join() {
+      int count = 0;
+      try (TupleIterator it = new IndexNestedLoopsEquiJoin(new TableScan(SCHEMA, this.outer), 1, this.index,
+            SCHEMA, this.inner, 0, this.batchSize).open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(IndexJoinPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
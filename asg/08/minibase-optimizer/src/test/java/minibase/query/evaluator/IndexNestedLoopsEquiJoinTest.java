@@ -0,0 +1,107 @@
+/*
+ * @(#)IndexNestedLoopsEquiJoinTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import minibase.AtomicKeyType;
+import minibase.SearchKey;
+import minibase.TestHelper;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.file.File;
+import minibase.access.file.FileScan;
+import minibase.query.evaluator.compare.TupleComparator;
+
+/**
+ * Tests the index nested loops join against the hash join.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class IndexNestedLoopsEquiJoinTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 2000;
+
+   /**
+    * Joins the sailors with themselves on their key and the ratings with the keys, with batches of different
+    * sizes.
+    */
+   @Test
+   public void uniqueIndex() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final BTreeIndex index = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(),
+               AtomicKeyType.INTEGER);
+         try (FileScan scan = sailors.openScan()) {
+            while (scan.hasNext()) {
+               index.insert(new SearchKey(S_SAILORS.getIntField(scan.next(), 0)), scan.lastID());
+            }
+         }
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         final int rating = S_SAILORS.getColumnIndex("rating");
+         for (final int batchSize : new int[] { 1, 7, TupleBatch.DEFAULT_CAPACITY }) {
+            this.assertSameJoin(new HashEquiJoin(this.getBufferManager(), scan, 0, scan, 0),
+                  new IndexNestedLoopsEquiJoin(scan, 0, index, S_SAILORS, sailors, 0, batchSize));
+            this.assertSameJoin(new HashEquiJoin(this.getBufferManager(), scan, rating, scan, 0),
+                  new IndexNestedLoopsEquiJoin(scan, rating, index, S_SAILORS, sailors, 0, batchSize));
+         }
+         TestHelper.assertThrows(IllegalArgumentException.class, () -> new IndexNestedLoopsEquiJoin(scan,
+               S_SAILORS.getColumnIndex("sname"), index, S_SAILORS, sailors, 0));
+         index.delete();
+      }
+   }
+
+   /**
+    * Checks that two joins return the same tuples, not necessarily in the same order, also after a reset.
+    *
+    * @param expected join that returns the expected tuples
+    * @param actual join to check
+    */
+   private void assertSameJoin(final Operator expected, final Operator actual) {
+      final List<byte[]> tuples;
+      try (TupleIterator it = expected.open()) {
+         tuples = sort(it, expected);
+      }
+      try (TupleIterator it = actual.open()) {
+         for (int pass = 0; pass < 2; pass++) {
+            final List<byte[]> actualTuples = sort(it, actual);
+            assertEquals(tuples.size(), actualTuples.size());
+            final TupleComparator comparator = new TupleComparator(actual.getSchema(), 0, 4);
+            for (int i = 0; i < tuples.size(); i++) {
+               assertEquals(0, comparator.compare(tuples.get(i), actualTuples.get(i)));
+            }
+            it.reset();
+         }
+      }
+   }
+
+   /**
+    * Reads the tuples of an iterator and sorts them on the keys of both sailors.
+    *
+    * @param it the iterator
+    * @param operator operator of the iterator
+    * @return the sorted tuples
+    */
+   private static List<byte[]> sort(final TupleIterator it, final Operator operator) {
+      final List<byte[]> tuples = new ArrayList<>();
+      while (it.hasNext()) {
+         tuples.add(it.next());
+      }
+      tuples.sort(new TupleComparator(operator.getSchema(), 0, 4)::compare);
+      return tuples;
+   }
+}
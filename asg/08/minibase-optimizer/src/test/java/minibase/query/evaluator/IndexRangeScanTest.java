@@ -0,0 +1,162 @@
+/*
+ * @(#)IndexRangeScanTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import minibase.AtomicKeyType;
+import minibase.RecordID;
+import minibase.SearchKey;
+import minibase.TestHelper;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.file.FileScan;
+import minibase.access.file.HeapFile;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.storage.buffer.PageID;
+
+/**
+ * Tests the index range scan in all its modes against a filtered table scan.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class IndexRangeScanTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 2000;
+
+   /**
+    * Scans ranges of the keys of the sailors, including unbounded and empty ones.
+    */
+   @Test
+   public void ranges() {
+      try (HeapFile sailors = (HeapFile) this.createSailors(NUM_SAILORS)) {
+         final BTreeIndex index = BTreeIndex.createIndex(this.getBufferManager(), Optional.empty(),
+               AtomicKeyType.INTEGER);
+         try (FileScan scan = sailors.openScan()) {
+            while (scan.hasNext()) {
+               index.insert(new SearchKey(S_SAILORS.getIntField(scan.next(), 0)), scan.lastID());
+            }
+         }
+         final Schema keys = Schema.project(S_SAILORS, new int[] { 0 });
+         final TupleComparator order = new TupleComparator(S_SAILORS, 0);
+         final TupleComparator keyOrder = new TupleComparator(keys, 0);
+         for (final int[] range : new int[][] { { 300, 500 }, { 0, NUM_SAILORS }, { 7, 7 }, { -1, 40 },
+            { 1500, -1 }, { -1, -1 }, { NUM_SAILORS, 3000 } }) {
+            final SearchKey low = range[0] < 0 ? null : new SearchKey(range[0]);
+            final SearchKey high = range[1] < 0 ? null : new SearchKey(range[1]);
+            final List<byte[]> expected = new ArrayList<>();
+            final List<byte[]> expectedKeys = new ArrayList<>();
+            try (TupleIterator it = new TableScan(S_SAILORS, sailors).open()) {
+               while (it.hasNext()) {
+                  final byte[] tuple = it.next();
+                  final int value = S_SAILORS.getIntField(tuple, 0);
+                  if ((low == null || value >= range[0]) && (high == null || value <= range[1])) {
+                     expected.add(tuple);
+                     final byte[] key = keys.newTuple();
+                     keys.setField(key, 0, value);
+                     expectedKeys.add(key);
+                  }
+               }
+            }
+            expected.sort(order::compare);
+            expectedKeys.sort(keyOrder::compare);
+            for (final IndexRangeScan.Mode mode : new IndexRangeScan.Mode[] { IndexRangeScan.Mode.ENTRY,
+               IndexRangeScan.Mode.BITMAP }) {
+               assertRange(expected, new IndexRangeScan(S_SAILORS, index, sailors, low, high, mode), order);
+            }
+            assertRange(expectedKeys, new IndexRangeScan(keys, index, null, low, high,
+                  IndexRangeScan.Mode.INDEX_ONLY), keyOrder);
+         }
+         TestHelper.assertThrows(IllegalArgumentException.class, () -> new IndexRangeScan(S_SAILORS, index, null,
+               null, null, IndexRangeScan.Mode.BITMAP));
+         index.delete();
+      }
+   }
+
+   /**
+    * Checks that only the columns of an index cover the needed columns.
+    */
+   @Test
+   public void covers() {
+      assertTrue(IndexRangeScan.covers(new int[] { 2, 0 }, 0, 2));
+      assertTrue(IndexRangeScan.covers(new int[] { 2 }));
+      assertFalse(IndexRangeScan.covers(new int[] { 2, 0 }, 0, 1));
+   }
+
+   /**
+    * Checks that the bitmap groups record IDs by page and returns the slots in ascending order.
+    */
+   @Test
+   public void bitmap() {
+      final RecordIDBitmap bitmap = new RecordIDBitmap();
+      final int[][] ids = { { 9, 130 }, { 4, 3 }, { 9, 0 }, { 4, 1 }, { 9, 64 }, { 7, 63 } };
+      for (final int[] id : ids) {
+         bitmap.add(new RecordID(PageID.getInstance(id[0]), id[1]));
+      }
+      bitmap.build();
+      assertEquals(3, bitmap.getPageCount());
+      assertEquals(4, bitmap.getPageID(0));
+      assertEquals(7, bitmap.getPageID(1));
+      assertEquals(9, bitmap.getPageID(2));
+      assertEquals("[1, 3]", Arrays.toString(bitmap.getSlots(0)));
+      assertEquals("[63]", Arrays.toString(bitmap.getSlots(1)));
+      assertEquals("[0, 64, 130]", Arrays.toString(bitmap.getSlots(2)));
+   }
+
+   /**
+    * Checks that a scan returns the expected tuples in any order, also after a reset and when the
+    * tuples are read in batches.
+    *
+    * @param expected expected tuples, sorted by the given comparator
+    * @param scan the scan
+    * @param order comparator that sorts the tuples
+    */
+   private static void assertRange(final List<byte[]> expected, final IndexRangeScan scan,
+         final TupleComparator order) {
+      try (TupleIterator it = scan.open()) {
+         for (int pass = 0; pass < 2; pass++) {
+            final List<byte[]> actual = new ArrayList<>();
+            if (pass == 0) {
+               while (it.hasNext()) {
+                  actual.add(it.next());
+               }
+            } else {
+               final TupleBatch batch = new TupleBatch(scan.getSchema().getLength(), 7);
+               if (it.hasNext()) {
+                  actual.add(it.next());
+               }
+               while (it.nextBatch(batch) > 0) {
+                  for (int i = 0; i < batch.size(); i++) {
+                     actual.add(batch.get(i));
+                  }
+               }
+            }
+            actual.sort(order::compare);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+               assertEquals(0, order.compare(expected.get(i), actual.get(i)));
+            }
+            it.reset();
+         }
+      }
+   }
+}
@@ -0,0 +1,169 @@
+/*
+ * @(#)IndexScanPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.AtomicKeyType;
+import minibase.Minibase;
+import minibase.SearchKey;
+import minibase.access.btree.BTreeIndex;
+import minibase.access.file.FileScan;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Measures the index range scan that fetches every record when its index entry is reached against the bitmap
+ * heap scan, which visits each heap page once in page order, and the index-only scan, using the jmh framework.
+ * The keys are stored in random order, so fetching by index entry visits the heap pages at random. Before
+ * running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IndexScanPerformanceBench {
+
+   /** Schema of the relation. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("id", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 120)
+         .build();
+
+   /** Schema of the index-only scan. */
+   private static final Schema KEYS = Schema.project(SCHEMA, new int[] { 0 });
+
+   /** Number of tuples in the relation. */
+   @Param({ "200000" })
+   private int size;
+
+   /** Fraction of the keys in the scanned range. */
+   @Param({ "0.01", "0.1" })
+   private double selectivity;
+
+   /** How the records are retrieved. */
+   @Param({ "ENTRY", "BITMAP", "INDEX_ONLY" })
+   private IndexRangeScan.Mode mode;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The relation. */
+   private HeapFile file;
+
+   /** Index on the key of the relation. */
+   private BTreeIndex index;
+
+   /**
+    * Creates the database, loads the relation in random key order and indexes it.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(IndexScanPerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      final int[] keys = new int[this.size];
+      for (int i = 0; i < this.size; i++) {
+         final int j = rng.nextInt(i + 1);
+         keys[i] = keys[j];
+         keys[j] = i;
+      }
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      this.index = BTreeIndex.createIndex(this.minibase.getBufferManager(), Optional.empty(),
+            AtomicKeyType.INTEGER);
+      final byte[] tuple = SCHEMA.newTuple();
+      for (final int key : keys) {
+         SCHEMA.setAllFields(tuple, key, "t" + key);
+         this.file.insertRecord(tuple);
+      }
+      try (FileScan scan = this.file.openScan()) {
+         while (scan.hasNext()) {
+            this.index.insert(new SearchKey(SCHEMA.getIntField(scan.next(), 0)), scan.lastID());
+         }
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.index.close();
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Scans the keys in the middle of the key range.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int scan() {
+      final int low = (int) (this.size * (0.5 - this.selectivity / 2));
+      final int high = low + (int) (this.size * this.selectivity) - 1;
+      final Schema schema = this.mode == IndexRangeScan.Mode.INDEX_ONLY ? KEYS : SCHEMA;
+      int count = 0;
+      try (TupleIterator it = new IndexRangeScan(schema, this.index, this.file, new SearchKey(low),
+            new SearchKey(high), this.mode).open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(IndexScanPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
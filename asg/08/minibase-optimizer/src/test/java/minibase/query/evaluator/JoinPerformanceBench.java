@@ -0,0 +1,201 @@
+/*
+ * @(#)JoinPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Compares the hash join with the (block) nested loops join using the jmh framework. The {@code hashSpilling}
+ * benchmark gives the hash join a budget of only a few pages, so that both inputs are partitioned into
+ * temporary heap files, and the block nested loops join uses the same budget for its blocks. Before running
+ * the main method, be sure to build the sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JoinPerformanceBench {
+
+   /** Schema of both relations. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("key", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 60)
+         .build();
+
+   /** Number of tuples in the outer relation. */
+   @Param({ "2000" })
+   private int outerSize;
+
+   /** Number of tuples in the inner relation. */
+   @Param({ "2000" })
+   private int innerSize;
+
+   /** Number of buffer pages of the spilling hash join and of the blocks of the block nested loops join. */
+   @Param({ "8" })
+   private int spillPages;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Outer relation. */
+   private HeapFile outer;
+
+   /** Inner relation. */
+   private HeapFile inner;
+
+   /**
+    * Creates the database and loads both relations with random keys.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(JoinPerformanceBench.class.getSimpleName(), 16384, 1024,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.outer = this.load(this.outerSize, this.innerSize, rng);
+      this.inner = this.load(this.innerSize, this.innerSize, rng);
+   }
+
+   /**
+    * Creates a heap file with random tuples.
+    *
+    * @param size number of tuples
+    * @param keys number of distinct keys
+    * @param rng random number generator
+    * @return the heap file
+    */
+   private HeapFile load(final int size, final int keys, final Random rng) {
+      final HeapFile file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < size; i++) {
+         SCHEMA.setAllFields(tuple, rng.nextInt(keys), "t" + i);
+         file.insertRecord(tuple);
+      }
+      return file;
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.outer.close();
+      this.inner.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Joins both relations with a hash table that fits into memory.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int hash() {
+      return this.run(new HashEquiJoin(this.minibase.getBufferManager(), new TableScan(SCHEMA, this.outer), 0,
+            new TableScan(SCHEMA, this.inner), 0));
+   }
+
+   /**
+    * Joins both relations with a hash join that has to partition its inputs.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int hashSpilling() {
+      return this.run(new HashEquiJoin(this.minibase.getBufferManager(), new TableScan(SCHEMA, this.outer), 0,
+            new TableScan(SCHEMA, this.inner), 0, this.spillPages));
+   }
+
+   /**
+    * Joins both relations with the block nested loops join.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int blockNestedLoops() {
+      return this.run(new BlockNestedLoopsEquiJoin(this.minibase.getBufferManager(),
+            new TableScan(SCHEMA, this.outer), 0, new TableScan(SCHEMA, this.inner), 0, this.spillPages));
+   }
+
+   /**
+    * Joins both relations with the nested loops join.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int nestedLoops() {
+      return this.run(new NestedLoopsEquiJoin(this.minibase.getBufferManager(),
+            new TableScan(SCHEMA, this.outer), 0, new TableScan(SCHEMA, this.inner), 0));
+   }
+
+   /**
+    * Evaluates a join.
+    *
+    * @param join the join
+    * @return number of result tuples
+    */
+   private int run(final Operator join) {
+      int count = 0;
+      try (TupleIterator it = join.open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(JoinPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
@@ -0,0 +1,152 @@
+/*
+ * @(#)ParallelSortPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Measures how the parallel external sort scales with the number of worker threads, using the jmh framework.
+ * The sorted relation is several times larger than the buffer pool, so runs are written to and merged from
+ * disk. With one worker, the sequential sort is measured.
+ * Before running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelSortPerformanceBench {
+
+   /** Schema of the relation. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("name", DataType.CHAR, 24)
+         .addField("value", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 36)
+         .build();
+
+   /** Sorted fields. */
+   private static final int[] FIELDS = { 0, 1 };
+
+   /** Number of frames in the buffer pool. */
+   private static final int BUFFER_POOL_SIZE = 8192;
+
+   /** Number of buffer pages used for run generation by all workers together. */
+   private static final int BUFFER_PAGES = 2048;
+
+   /** Maximum number of runs merged at once. */
+   private static final int FAN_IN = 16;
+
+   /** Number of tuples in the relation. */
+   @Param({ "1000000" })
+   private int size;
+
+   /** Number of worker threads. */
+   @Param({ "1", "2", "4", "8", "16" })
+   private int parallelism;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The relation. */
+   private HeapFile file;
+
+   /**
+    * Creates the database and loads the relation.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(ParallelSortPerformanceBench.class.getSimpleName(), 262144,
+            BUFFER_POOL_SIZE, ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < this.size; i++) {
+         SCHEMA.setAllFields(tuple, "name" + rng.nextInt(this.size), rng.nextInt(), "t" + i);
+         this.file.insertRecord(tuple);
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Sorts the relation.
+    *
+    * @return number of sorted tuples, to prevent DCE
+    */
+   @Benchmark
+   public int sort() {
+      int count = 0;
+      try (TupleIterator it = new ExternalSort(this.minibase.getBufferManager(), new TableScan(SCHEMA, this.file),
+            new TupleComparator(SCHEMA, FIELDS), BUFFER_PAGES, FAN_IN, this.parallelism).open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(ParallelSortPerformanceBench.class.getSimpleName())
+            .build()).run();
+   }
+}
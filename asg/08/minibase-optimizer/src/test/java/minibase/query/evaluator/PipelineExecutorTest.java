@@ -0,0 +1,225 @@
+/*
+ * @(#)PipelineExecutorTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import minibase.Minibase;
+import minibase.TestHelper;
+import minibase.access.file.File;
+import minibase.access.file.HeapFile;
+import minibase.query.AggregationType;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.evaluator.predicate.PredicateCompiler;
+import minibase.query.optimizer.operators.element.Comparison.ComparisonOperator;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Tests the push-based pipeline executor against the pull-based evaluation of the same operator trees.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class PipelineExecutorTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 3000;
+
+   /** Size of the buffer pool, which has to hold the pages that all workers pin at once. */
+   private static final int BUFFER_POOL_SIZE = 64;
+
+   /** Executors with different numbers of workers and pages per morsel. */
+   private static final PipelineExecutor[] EXECUTORS = { new PipelineExecutor(1), new PipelineExecutor(4, 1),
+      new PipelineExecutor(3) };
+
+   @Override
+   protected Minibase createMinibaseInstance() throws Exception {
+      return Minibase.createTemporary(this.getClass().getSimpleName(), DB_SIZE, BUFFER_POOL_SIZE,
+            ReplacementStrategy.CLOCK);
+   }
+
+   /**
+    * Runs pipelines of scans, selections and projections.
+    */
+   @Test
+   public void scanSelectProject() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         final Selection selection = new Selection(scan, PredicateCompiler.compare(S_SAILORS,
+               S_SAILORS.getColumnIndex("rating"), ComparisonOperator.GT, 5));
+         this.assertSameResult(scan);
+         this.assertSameResult(selection);
+         this.assertSameResult(new Projection(selection, S_SAILORS.getColumnIndexes("age", "sid")));
+         final Projection projection = new Projection(scan, S_SAILORS.getColumnIndexes("rating", "sid"));
+         this.assertSameResult(new Selection(projection, PredicateCompiler.compare(projection.getSchema(), 0,
+               ComparisonOperator.LT, 2)));
+      }
+   }
+
+   /**
+    * Runs pipelines that probe hash tables, also with a hash join on the build side of another one.
+    */
+   @Test
+   public void hashJoins() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         final int rating = S_SAILORS.getColumnIndex("rating");
+         final Selection selection = new Selection(scan, PredicateCompiler.compare(S_SAILORS, rating,
+               ComparisonOperator.GEQ, 9));
+         final HashEquiJoin join = new HashEquiJoin(this.getBufferManager(), scan, 0, selection, 0);
+         this.assertSameResult(join);
+         this.assertSameResult(new HashEquiJoin(this.getBufferManager(), selection, rating, selection, rating));
+         final Projection projection = new Projection(join, 0, 4);
+         this.assertSameResult(new HashEquiJoin(this.getBufferManager(), projection, 1, projection, 0));
+
+         // build inputs that exceed the buffer pages of the join are partitioned
+         this.assertSameResult(new HashEquiJoin(this.getBufferManager(), selection, 0, scan, 0, 1));
+         this.assertSameResult(new HashEquiJoin(this.getBufferManager(), projection, 0,
+               new HashEquiJoin(this.getBufferManager(), scan, 0, scan, 0, 2), 0, 2));
+      }
+   }
+
+   /**
+    * Runs pipeline breakers at the root and inside of pipelines, and operators that are evaluated by pulling.
+    */
+   @Test
+   public void breakers() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         final int[] group = S_SAILORS.getColumnIndexes("rating");
+         final AggregationType[] functions = { AggregationType.COUNT, AggregationType.MAX };
+         final HashAggregation aggregation = new HashAggregation(this.getBufferManager(), scan, group, functions,
+               new int[] { -1, 3 });
+         this.assertSameResult(aggregation);
+         this.assertSameResult(new Selection(aggregation, PredicateCompiler.compare(aggregation.getSchema(), 0,
+               ComparisonOperator.LEQ, 4)));
+         final Projection ratings = new Projection(scan, group);
+         this.assertSameResult(new HashDuplicates(this.getBufferManager(), ratings));
+         this.assertSameResult(new HashEquiJoin(this.getBufferManager(), scan, 2,
+               new HashDuplicates(this.getBufferManager(), ratings), 0));
+         this.assertSameResult(new Projection(new NestedLoopsEquiJoin(this.getBufferManager(), ratings, 0,
+               new HashDuplicates(this.getBufferManager(), ratings), 0), 1));
+
+         // a sort at the root keeps its order
+         final ExternalSort sort = new ExternalSort(this.getBufferManager(), new Selection(scan,
+               PredicateCompiler.compare(S_SAILORS, 2, ComparisonOperator.NEQ, 3)),
+               new TupleComparator(S_SAILORS, 3, 0), 4, 8);
+         final List<byte[]> expected = read(sort.open());
+         for (final PipelineExecutor executor : EXECUTORS) {
+            final List<byte[]> actual = read(executor.execute(sort));
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+               assertArrayEquals(expected.get(i), actual.get(i));
+            }
+         }
+      }
+   }
+
+   /**
+    * Closes streamed results before they have been read completely and resets them, also with a pipeline
+    * breaker at the root and one that is the source of a pipeline.
+    */
+   @Test
+   public void streaming() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         final HashAggregation aggregation = new HashAggregation(this.getBufferManager(), scan,
+               S_SAILORS.getColumnIndexes("sid"), new AggregationType[] { AggregationType.COUNT },
+               new int[] { -1 });
+         final Operator[] operators = { scan, new Selection(aggregation, PredicateCompiler.compare(
+               aggregation.getSchema(), 0, ComparisonOperator.GEQ, 0)), new ExternalSort(this.getBufferManager(),
+                     scan, new TupleComparator(S_SAILORS, 0), 4, 8) };
+         for (final PipelineExecutor executor : EXECUTORS) {
+            for (final Operator operator : operators) {
+               try (TupleIterator it = executor.execute(operator)) {
+                  it.next();
+               }
+               try (TupleIterator it = executor.execute(operator)) {
+                  for (int i = 0; i < NUM_SAILORS / 2; i++) {
+                     it.next();
+                  }
+                  it.reset();
+                  assertEquals(NUM_SAILORS, read(it).size());
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Runs pipelines over an empty relation and checks the parameters of the executor.
+    */
+   @Test
+   public void empty() {
+      try (HeapFile empty = HeapFile.createTemporary(this.getBufferManager())) {
+         final TableScan scan = new TableScan(S_SAILORS, empty);
+         final HashAggregation count = new HashAggregation(this.getBufferManager(), scan, new int[0],
+               new AggregationType[] { AggregationType.COUNT }, new int[] { -1 });
+         for (final PipelineExecutor executor : EXECUTORS) {
+            try (TupleIterator it = executor.execute(new HashEquiJoin(this.getBufferManager(), scan, 0, scan,
+                  0))) {
+               assertFalse(it.hasNext());
+            }
+            try (TupleIterator it = executor.execute(count)) {
+               assertEquals(0L, count.getSchema().getField(it.next(), 0));
+               assertFalse(it.hasNext());
+            }
+         }
+      }
+      TestHelper.assertThrows(IllegalArgumentException.class, () -> new PipelineExecutor(0));
+      TestHelper.assertThrows(IllegalArgumentException.class, () -> new PipelineExecutor(2, 0));
+   }
+
+   /**
+    * Checks that all executors return the same tuples as the pull-based evaluation of an operator, not
+    * necessarily in the same order.
+    *
+    * @param operator the operator
+    */
+   private void assertSameResult(final Operator operator) {
+      final TupleComparator order = new TupleComparator(operator.getSchema(),
+            SortDuplicates.allColumns(operator.getSchema()));
+      final List<byte[]> expected = read(operator.open());
+      expected.sort(order::compare);
+      assertFalse(expected.isEmpty());
+      for (final PipelineExecutor executor : EXECUTORS) {
+         final List<byte[]> actual = read(executor.execute(operator));
+         actual.sort(order::compare);
+         assertEquals(expected.size(), actual.size());
+         for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+         }
+      }
+   }
+
+   /**
+    * Reads and closes an iterator.
+    *
+    * @param iterator the iterator
+    * @return the tuples of the iterator
+    */
+   private static List<byte[]> read(final TupleIterator iterator) {
+      final List<byte[]> tuples = new ArrayList<>();
+      try (TupleIterator it = iterator) {
+         while (it.hasNext()) {
+            tuples.add(it.next());
+         }
+      }
+      return tuples;
+   }
+}
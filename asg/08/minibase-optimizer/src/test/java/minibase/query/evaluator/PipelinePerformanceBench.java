@@ -0,0 +1,157 @@
+/*
+ * @(#)PipelinePerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.AggregationType;
+import minibase.query.evaluator.predicate.PredicateCompiler;
+import minibase.query.optimizer.operators.element.Comparison.ComparisonOperator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.BufferManager;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Measures an analytical query, the aggregation of a selective hash join of two relations, evaluated by
+ * pulling tuples from the root of the operator tree and by the push-based {@link PipelineExecutor} with
+ * different numbers of workers, using the jmh framework. Before running the main method, be sure to build the
+ * sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PipelinePerformanceBench {
+
+   /** Schema of both relations. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("id", DataType.INT, DataType.INT.getSize())
+         .addField("ref", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 120)
+         .build();
+
+   /** Number of tuples in each relation. */
+   @Param({ "200000" })
+   private int size;
+
+   /** Number of workers of the pipeline executor, {@code 0} for the pull-based evaluation. */
+   @Param({ "0", "1", "2", "4", "8" })
+   private int workers;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The outer relation. */
+   private HeapFile outer;
+
+   /** The inner relation. */
+   private HeapFile inner;
+
+   /** The query. */
+   private Operator query;
+
+   /**
+    * Creates the database, loads both relations and builds the query.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(PipelinePerformanceBench.class.getSimpleName(), 262144, 1024,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.outer = HeapFile.createTemporary(this.minibase.getBufferManager());
+      this.inner = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < this.size; i++) {
+         SCHEMA.setAllFields(tuple, i, rng.nextInt(this.size), "t" + i);
+         this.outer.insertRecord(tuple);
+         this.inner.insertRecord(tuple);
+      }
+      final BufferManager bufferManager = this.minibase.getBufferManager();
+      final Operator probe = new Selection(new TableScan(SCHEMA, this.outer), PredicateCompiler.compare(SCHEMA, 1,
+            ComparisonOperator.LT, this.size / 10));
+      final Operator join = new HashEquiJoin(bufferManager, probe, 1, new TableScan(SCHEMA, this.inner), 0,
+            this.size * SCHEMA.getLength() / bufferManager.getDiskManager().getPageSize() + 1);
+      this.query = new HashAggregation(bufferManager, new Projection(join, 1, 3), new int[] { 0 },
+            new AggregationType[] { AggregationType.COUNT }, new int[] { -1 });
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.outer.close();
+      this.inner.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Evaluates the query.
+    *
+    * @return number of result tuples, to prevent DCE
+    */
+   @Benchmark
+   public int query() {
+      int count = 0;
+      try (TupleIterator it = this.workers == 0 ? this.query.open()
+            : new PipelineExecutor(this.workers).execute(this.query)) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(PipelinePerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
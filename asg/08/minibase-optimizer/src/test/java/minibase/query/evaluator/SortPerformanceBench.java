@@ -0,0 +1,167 @@
+/*
+ * @(#)SortPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.HeapFile;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.compare.RecordComparator;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+import minibase.storage.buffer.ReplacementStrategy;
+
+/**
+ * Compares external sorting with the binary {@link TupleComparator} and its normalized keys to sorting with a
+ * comparator that decodes the compared fields into objects, using the jmh framework. The benchmark is run with
+ * the GC profiler, which reports the allocation rate per operation. Before running the main method, be sure to
+ * build the sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SortPerformanceBench {
+
+   /** Schema of the relation. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("name", DataType.CHAR, 24)
+         .addField("value", DataType.INT, DataType.INT.getSize())
+         .addField("payload", DataType.CHAR, 36)
+         .build();
+
+   /** Sorted fields. */
+   private static final int[] FIELDS = { 0, 1 };
+
+   /** Number of tuples in the relation. */
+   @Param({ "1000000" })
+   private int size;
+
+   /** Number of buffer pages used for run generation, {@code 0} for single-page insertion sort. */
+   @Param({ "0", "64" })
+   private int bufferPages;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** The relation. */
+   private HeapFile file;
+
+   /**
+    * Creates the database and loads the relation.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(SortPerformanceBench.class.getSimpleName(), 262144, 8192,
+            ReplacementStrategy.CLOCK);
+      final Random rng = new Random(42);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < this.size; i++) {
+         SCHEMA.setAllFields(tuple, "name" + rng.nextInt(this.size), rng.nextInt(), "t" + i);
+         this.file.insertRecord(tuple);
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Sorts the relation with a comparator that decodes the fields.
+    *
+    * @return number of sorted tuples, to prevent DCE
+    */
+   @Benchmark
+   public int decoding() {
+      return this.sort((a1, o1, a2, o2) -> {
+         final int cmp = SCHEMA.getString(a1, o1, 0).compareTo(SCHEMA.getString(a2, o2, 0));
+         return cmp != 0 ? cmp : Long.compare(SCHEMA.getIntegral(a1, o1, 1), SCHEMA.getIntegral(a2, o2, 1));
+      });
+   }
+
+   /**
+    * Sorts the relation with the binary comparator.
+    *
+    * @return number of sorted tuples, to prevent DCE
+    */
+   @Benchmark
+   public int binary() {
+      return this.sort(new TupleComparator(SCHEMA, FIELDS));
+   }
+
+   /**
+    * Sorts the relation and counts the sorted tuples.
+    *
+    * @param comparator record comparator
+    * @return number of sorted tuples
+    */
+   private int sort(final RecordComparator comparator) {
+      int count = 0;
+      try (TupleIterator it = new ExternalSort(this.minibase.getBufferManager(), new TableScan(SCHEMA, this.file),
+            comparator, this.bufferPages, 16).open()) {
+         while (it.hasNext()) {
+            it.next();
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(SortPerformanceBench.class.getSimpleName())
+            .addProfiler(GCProfiler.class).build()).run();
+   }
+}
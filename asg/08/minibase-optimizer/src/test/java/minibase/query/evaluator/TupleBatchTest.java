@@ -0,0 +1,229 @@
+/*
+ * @(#)TupleBatchTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import minibase.access.file.File;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.compare.TupleComparator;
+import minibase.query.evaluator.predicate.Operand;
+import minibase.query.evaluator.predicate.Predicate;
+import minibase.query.schema.Schema;
+
+/**
+ * Tests the batch-at-a-time execution mode of the evaluator operators against their tuple-at-a-time mode.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class TupleBatchTest extends EvaluatorBaseTest {
+
+   /** Number of sailors. */
+   private static final int NUM_SAILORS = 3000;
+
+   /** Capacity of the batches, which is deliberately not a divisor of the number of tuples per page. */
+   private static final int CAPACITY = 100;
+
+   /**
+    * Tests filling and filtering a batch.
+    */
+   @Test
+   public void batch() {
+      final TupleBatch batch = new TupleBatch(4, 3);
+      for (int i = 0; i < 3; i++) {
+         batch.add(new byte[] { (byte) i, 0, 0, 0 });
+      }
+      assertTrue(batch.isFull());
+      assertEquals(2, batch.retain(offset -> batch.getData()[offset] != 1));
+      assertArrayEquals(new byte[] { 0, 0, 0, 0 }, batch.get(0));
+      assertArrayEquals(new byte[] { 2, 0, 0, 0 }, batch.get(1));
+      batch.add(new byte[] { 1, 2 }, 0, 2, new byte[] { 3, 4 }, 0);
+      assertArrayEquals(new byte[] { 1, 2, 3, 4 }, batch.get(2));
+      batch.clear();
+      assertTrue(batch.isEmpty());
+   }
+
+   /**
+    * Compares batched and tuple-wise heap file scans.
+    */
+   @Test
+   public void tableScan() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         this.assertSameTuples(new TableScan(S_SAILORS, sailors));
+         this.assertSameTuples(new TableScan(S_SAILORS, sailors, 4));
+      }
+   }
+
+   /**
+    * Compares batched and tuple-wise reads of sorted runs.
+    */
+   @Test
+   public void externalSort() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final int rating = S_SAILORS.getColumnIndex("rating");
+         this.assertSameTuples(new ExternalSort(this.getBufferManager(), new TableScan(S_SAILORS, sailors),
+               new TupleComparator(S_SAILORS, rating, 0), 4, 8));
+      }
+   }
+
+   /**
+    * Compares batched and tuple-wise joins.
+    */
+   @Test
+   public void joins() {
+      try (File sailors = this.createSailors(NUM_SAILORS / 3)) {
+         final int rating = S_SAILORS.getColumnIndex("rating");
+         final TableScan scan = new TableScan(S_SAILORS, sailors);
+         this.assertSameTuples(new NestedLoopsEquiJoin(this.getBufferManager(), scan, rating, scan, rating));
+         this.assertSameTuples(new BlockNestedLoopsEquiJoin(this.getBufferManager(), scan, rating, scan, rating, 4));
+         this.assertSameTuples(new HashEquiJoin(this.getBufferManager(), scan, 0, scan, 0));
+         this.assertSameTuples(new HashEquiJoin(this.getBufferManager(), scan, rating, scan, rating, 4));
+      }
+   }
+
+   /**
+    * Compares batched and tuple-wise selections.
+    */
+   @Test
+   public void selection() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final int rating = S_SAILORS.getColumnIndex("rating");
+         final Selection selection = new Selection(new TableScan(S_SAILORS, sailors), new RatingAbove(7));
+         int count = 0;
+         try (TupleIterator it = selection.open()) {
+            while (it.hasNext()) {
+               assertTrue(S_SAILORS.getIntField(it.next(), rating) > 7);
+               count++;
+            }
+         }
+         assertTrue(count > 0 && count < NUM_SAILORS);
+         this.assertSameTuples(selection);
+      }
+   }
+
+   /**
+    * Compares batched and tuple-wise projections with the projected fields.
+    */
+   @Test
+   public void projection() {
+      try (File sailors = this.createSailors(NUM_SAILORS)) {
+         final int[] columns = S_SAILORS.getColumnIndexes("rating", "age", "sid");
+         final Projection projection = new Projection(new TableScan(S_SAILORS, sailors), columns);
+         final Schema schema = projection.getSchema();
+         try (TupleIterator in = new TableScan(S_SAILORS, sailors).open();
+               TupleIterator out = projection.open()) {
+            while (in.hasNext()) {
+               final byte[] tuple = in.next();
+               final byte[] projected = out.next();
+               for (int i = 0; i < columns.length; i++) {
+                  assertEquals(S_SAILORS.getField(tuple, columns[i]), schema.getField(projected, i));
+               }
+            }
+            assertFalse(out.hasNext());
+         }
+         this.assertSameTuples(projection);
+      }
+   }
+
+   /**
+    * Checks that an operator returns the same tuples in both execution modes, and when both modes are mixed.
+    *
+    * @param operator the operator
+    */
+   private void assertSameTuples(final Operator operator) {
+      final List<byte[]> expected = new ArrayList<>();
+      try (TupleIterator it = operator.open()) {
+         while (it.hasNext()) {
+            expected.add(it.next());
+         }
+      }
+      final int length = operator.getSchema().getLength();
+      final TupleBatch batch = new TupleBatch(length, CAPACITY);
+      try (TupleIterator it = operator.open()) {
+         for (int mixed = 0; mixed < 2; mixed++) {
+            final List<byte[]> actual = new ArrayList<>();
+            while (true) {
+               if (mixed == 1 && actual.size() % (2 * CAPACITY) == 0 && it.hasNext()) {
+                  actual.add(it.next());
+               }
+               if (it.nextBatch(batch) == 0) {
+                  break;
+               }
+               assertTrue(batch.size() <= CAPACITY);
+               for (int i = 0; i < batch.size(); i++) {
+                  actual.add(batch.get(i));
+               }
+            }
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+               assertArrayEquals(expected.get(i), actual.get(i));
+            }
+            it.reset();
+         }
+      }
+   }
+
+   /**
+    * Predicate that checks whether the rating of a sailor is above a threshold.
+    */
+   private static final class RatingAbove extends Predicate<Boolean> {
+
+      /** Column of the rating. */
+      private final int column = S_SAILORS.getColumnIndex("rating");
+
+      /** Threshold. */
+      private final int threshold;
+
+      /**
+       * Constructor.
+       *
+       * @param threshold the threshold
+       */
+      RatingAbove(final int threshold) {
+         this.threshold = threshold;
+      }
+
+      @Override
+      public Operand<Boolean> evaluate(final byte[] tuple) {
+         return new Operand<>(this.eval(tuple), DataType.INT);
+      }
+
+      @Override
+      public Boolean eval(final byte[] tuple) {
+         return this.eval(tuple, 0);
+      }
+
+      @Override
+      public Boolean eval(final byte[] data, final int offset) {
+         return S_SAILORS.getIntegral(data, offset, this.column) > this.threshold;
+      }
+
+      @Override
+      public Optional<DataType> validate(final Schema schema) {
+         return Optional.of(DataType.INT);
+      }
+
+      @Override
+      public String toString() {
+         return "rating > " + this.threshold;
+      }
+   }
+}
@@ -0,0 +1,174 @@
+/*
+ * @(#)TupleComparatorTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator.compare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Random;
+
+import org.junit.Test;
+
+import minibase.access.file.File;
+import minibase.catalog.DataType;
+import minibase.query.evaluator.EvaluatorBaseTest;
+import minibase.query.evaluator.ExternalSort;
+import minibase.query.evaluator.TableScan;
+import minibase.query.evaluator.TupleIterator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+
+/**
+ * Tests the binary comparison of tuples and their normalized keys against comparisons of the decoded values.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class TupleComparatorTest extends EvaluatorBaseTest {
+
+   /** Schema with one column of every fixed-length type. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("tiny", DataType.TINYINT, DataType.TINYINT.getSize())
+         .addField("small", DataType.SMALLINT, DataType.SMALLINT.getSize())
+         .addField("int", DataType.INT, DataType.INT.getSize())
+         .addField("big", DataType.BIGINT, DataType.BIGINT.getSize())
+         .addField("float", DataType.FLOAT, DataType.FLOAT.getSize())
+         .addField("double", DataType.DOUBLE, DataType.DOUBLE.getSize())
+         .addField("date", DataType.DATE, DataType.DATE.getSize())
+         .addField("time", DataType.TIME, DataType.TIME.getSize())
+         .addField("datetime", DataType.DATETIME, DataType.DATETIME.getSize())
+         .addField("short", DataType.CHAR, 3)
+         .addField("long", DataType.CHAR, 12)
+         .build();
+
+   /** Number of tuples. */
+   private static final int NUM_TUPLES = 200;
+
+   /**
+    * Creates tuples with values from small domains, including negative numbers and strings that only differ
+    * after their eighth byte.
+    *
+    * @return the tuples
+    */
+   private static byte[][] createTuples() {
+      final Random rng = new Random(42);
+      final byte[][] tuples = new byte[NUM_TUPLES][];
+      for (int i = 0; i < NUM_TUPLES; i++) {
+         final int v = rng.nextInt(7) - 3;
+         tuples[i] = SCHEMA.newTuple();
+         SCHEMA.setAllFields(tuples[i], (byte) (v * 40), (short) (v * 300), rng.nextInt(7) - 3,
+               v * 10_000_000_000L, rng.nextInt(7) / 2f - 1, v / 4.0,
+               Date.valueOf("2016-06-" + (10 + rng.nextInt(5))), Time.valueOf("12:00:0" + rng.nextInt(5)),
+               new Timestamp(1_500_000_000_000L + rng.nextInt(5) - 2),
+               "ab".substring(0, rng.nextInt(3)) + (char) ('a' + rng.nextInt(3)),
+               "abcdefgh".substring(0, 6 + rng.nextInt(3)) + (char) ('a' + rng.nextInt(3)) + "ä");
+      }
+      return tuples;
+   }
+
+   /**
+    * Compares every pair of tuples on every single field in both orders.
+    */
+   @Test
+   public void singleFields() {
+      final byte[][] tuples = createTuples();
+      for (int field = 0; field < SCHEMA.getColumnCount(); field++) {
+         for (final boolean ascending : new boolean[] { true, false }) {
+            final TupleComparator comparator = new TupleComparator(SCHEMA, new int[] { field },
+                  new boolean[] { ascending });
+            for (final byte[] a : tuples) {
+               for (final byte[] b : tuples) {
+                  final int expected = Integer.signum(reference(SCHEMA.getField(a, field),
+                        SCHEMA.getField(b, field)));
+                  final int actual = Integer.signum(comparator.compare(a, b));
+                  assertEquals(ascending ? expected : -expected, actual);
+                  // differing keys have to decide the comparison
+                  final long keyA = comparator.normalizedKey(a, 0);
+                  final long keyB = comparator.normalizedKey(b, 0);
+                  if (keyA != keyB) {
+                     assertEquals(actual, Long.signum(Long.compare(keyA, keyB)));
+                  }
+                  assertEquals(actual, Integer.signum(comparator.compare(keyA, a, 0, keyB, b, 0)));
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Compares fields of different types, for which no normalized keys are available.
+    */
+   @Test
+   public void mixedFields() {
+      final byte[][] tuples = createTuples();
+      final int[] left = { 0, 2, 1, 4, 6, 9 };
+      final int[] right = { 2, 3, 4, 5, 8, 10 };
+      final TupleComparator comparator = new TupleComparator(SCHEMA, left, SCHEMA, right);
+      for (final byte[] a : tuples) {
+         for (final byte[] b : tuples) {
+            int expected = 0;
+            for (int i = 0; i < left.length && expected == 0; i++) {
+               expected = Integer.signum(reference(SCHEMA.getField(a, left[i]), SCHEMA.getField(b, right[i])));
+            }
+            assertEquals(expected, Integer.signum(comparator.compare(a, b)));
+            assertEquals(0, comparator.normalizedKey(a, 0));
+         }
+      }
+   }
+
+   /**
+    * Sorts sailors by name and age with both run generation strategies.
+    */
+   @Test
+   public void externalSort() {
+      try (File sailors = this.createSailors(2000)) {
+         final int[] fields = S_SAILORS.getColumnIndexes("sname", "age");
+         final TupleComparator comparator = new TupleComparator(S_SAILORS, fields, new boolean[] { false, true });
+         for (final int bufferPages : new int[] { 0, 4 }) {
+            int count = 0;
+            try (TupleIterator it = new ExternalSort(this.getBufferManager(), new TableScan(S_SAILORS, sailors),
+                  comparator, bufferPages, 8).open()) {
+               byte[] last = null;
+               while (it.hasNext()) {
+                  final byte[] next = it.next();
+                  assertTrue(last == null || comparator.compare(last, next) <= 0);
+                  last = next;
+                  count++;
+               }
+            }
+            assertEquals(2000, count);
+         }
+      }
+   }
+
+   /**
+    * Compares two decoded values like their encodings are compared.
+    *
+    * @param a first value
+    * @param b second value
+    * @return result of the comparison
+    */
+   private static int reference(final Object a, final Object b) {
+      if (a instanceof Number && b instanceof Number) {
+         if (a instanceof Float || a instanceof Double || b instanceof Float || b instanceof Double) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+         }
+         return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+      }
+      if (a instanceof String) {
+         return ((String) a).compareTo((String) b);
+      }
+      return Long.compare(((java.util.Date) a).getTime(), ((java.util.Date) b).getTime());
+   }
+}
@@ -0,0 +1,228 @@
+/*
+ * @(#)PredicateCompilerTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.query.evaluator.predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import minibase.TestHelper;
+import minibase.catalog.DataType;
+import minibase.query.optimizer.operators.element.Comparison.ComparisonOperator;
+import minibase.query.schema.Schema;
+import minibase.query.schema.SchemaBuilder;
+
+/**
+ * Tests compiled predicates against comparisons of the decoded field values.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class PredicateCompilerTest {
+
+   /** Schema with one column of every fixed-length type and two string columns. */
+   private static final Schema SCHEMA = new SchemaBuilder()
+         .addField("tiny", DataType.TINYINT, DataType.TINYINT.getSize())
+         .addField("small", DataType.SMALLINT, DataType.SMALLINT.getSize())
+         .addField("int", DataType.INT, DataType.INT.getSize())
+         .addField("big", DataType.BIGINT, DataType.BIGINT.getSize())
+         .addField("float", DataType.FLOAT, DataType.FLOAT.getSize())
+         .addField("double", DataType.DOUBLE, DataType.DOUBLE.getSize())
+         .addField("date", DataType.DATE, DataType.DATE.getSize())
+         .addField("time", DataType.TIME, DataType.TIME.getSize())
+         .addField("datetime", DataType.DATETIME, DataType.DATETIME.getSize())
+         .addField("name", DataType.CHAR, 8)
+         .addField("other", DataType.CHAR, 6)
+         .build();
+
+   /** Operators of binary comparisons. */
+   private static final ComparisonOperator[] OPERATORS = { ComparisonOperator.EQ, ComparisonOperator.NEQ,
+      ComparisonOperator.LT, ComparisonOperator.LEQ, ComparisonOperator.GT, ComparisonOperator.GEQ };
+
+   /** Number of tuples. */
+   private static final int NUM_TUPLES = 500;
+
+   /** Tuples, which are stored at an offset in one array. */
+   private final byte[] data = new byte[NUM_TUPLES * SCHEMA.getLength() + 3];
+
+   /**
+    * Constructor, which creates the tuples with values from small domains, so that there are many ties.
+    */
+   public PredicateCompilerTest() {
+      final Random rng = new Random(42);
+      final byte[] tuple = SCHEMA.newTuple();
+      for (int i = 0; i < NUM_TUPLES; i++) {
+         final int v = rng.nextInt(7) - 3;
+         SCHEMA.setAllFields(tuple, (byte) v, (short) (v * 300), rng.nextInt(7) - 3, v * 10_000_000_000L,
+               rng.nextInt(7) / 2f - 1, v / 4.0, Date.valueOf("2016-06-" + (10 + rng.nextInt(5))),
+               Time.valueOf("12:00:0" + rng.nextInt(5)), new Timestamp(1_500_000_000_000L + rng.nextInt(5)),
+               "ab".substring(0, rng.nextInt(3)) + (char) ('a' + rng.nextInt(3)), "ab" + (char) ('a' + v + 3));
+         System.arraycopy(tuple, 0, this.data, this.offset(i), tuple.length);
+      }
+   }
+
+   /**
+    * Returns the offset of a tuple.
+    *
+    * @param index index of the tuple
+    * @return offset of the tuple
+    */
+   private int offset(final int index) {
+      return 3 + index * SCHEMA.getLength();
+   }
+
+   /**
+    * Compares all columns with constants.
+    */
+   @Test
+   public void columnConstant() {
+      final Object[] constants = { (byte) 1, 0, -1L, 10_000_000_000L, 0.5, -0.25f, Date.valueOf("2016-06-12"),
+         Time.valueOf("12:00:02"), new Timestamp(1_500_000_000_002L), "ab", "abd" };
+      for (int column = 0; column < constants.length; column++) {
+         for (final ComparisonOperator op : OPERATORS) {
+            final CompiledPredicate predicate = PredicateCompiler.compare(SCHEMA, column, op, constants[column]);
+            int matches = 0;
+            for (int i = 0; i < NUM_TUPLES; i++) {
+               final int cmp = compare(SCHEMA.getField(this.data, this.offset(i), column), constants[column]);
+               assertEquals(predicate.toString(), expected(op, cmp), predicate.test(this.data, this.offset(i)));
+               matches += expected(op, cmp) ? 1 : 0;
+            }
+            if (op == ComparisonOperator.EQ) {
+               assertTrue(predicate.toString(), matches > 0 && matches < NUM_TUPLES);
+            }
+         }
+      }
+   }
+
+   /**
+    * Compares pairs of columns.
+    */
+   @Test
+   public void columnColumn() {
+      final int[][] pairs = { { 0, 2 }, { 2, 3 }, { 1, 4 }, { 4, 5 }, { 6, 6 }, { 9, 10 }, { 10, 9 } };
+      for (final int[] pair : pairs) {
+         for (final ComparisonOperator op : OPERATORS) {
+            final CompiledPredicate predicate = PredicateCompiler.compareColumns(SCHEMA, pair[0], op, pair[1]);
+            for (int i = 0; i < NUM_TUPLES; i++) {
+               final int cmp = compare(SCHEMA.getField(this.data, this.offset(i), pair[0]),
+                     SCHEMA.getField(this.data, this.offset(i), pair[1]));
+               assertEquals(predicate.toString(), expected(op, cmp), predicate.test(this.data, this.offset(i)));
+            }
+         }
+      }
+   }
+
+   /**
+    * Compares a string column with constants that are longer than the column, which must not be truncated.
+    */
+   @Test
+   public void overlongString() {
+      final byte[] tuple = SCHEMA.newTuple();
+      SCHEMA.setField(tuple, 10, "abcdef");
+      for (final String constant : new String[] { "abcdefg", "abcdeg", "abcdee", "abcdef\u00e4" }) {
+         final int cmp = compare(SCHEMA.getField(tuple, 10), constant);
+         for (final ComparisonOperator op : OPERATORS) {
+            final CompiledPredicate predicate = PredicateCompiler.compare(SCHEMA, 10, op, constant);
+            assertEquals(predicate.toString(), expected(op, cmp), predicate.eval(tuple));
+         }
+      }
+      assertFalse(PredicateCompiler.compare(SCHEMA, 10, ComparisonOperator.EQ, "abcdefg").eval(tuple));
+      assertTrue(PredicateCompiler.compare(SCHEMA, 10, ComparisonOperator.LT, "abcdefg").eval(tuple));
+   }
+
+   /**
+    * Tests the boolean combinators and {@code LIKE}.
+    */
+   @Test
+   public void combinators() {
+      final CompiledPredicate a = PredicateCompiler.compare(SCHEMA, 2, ComparisonOperator.GT, 0);
+      final CompiledPredicate b = PredicateCompiler.compare(SCHEMA, 9, ComparisonOperator.LIKE, "a_");
+      final CompiledPredicate and = PredicateCompiler.and(a, b);
+      final CompiledPredicate or = PredicateCompiler.or(a, PredicateCompiler.not(b));
+      for (int i = 0; i < NUM_TUPLES; i++) {
+         final int offset = this.offset(i);
+         final boolean x = SCHEMA.getIntegral(this.data, offset, 2) > 0;
+         final String name = SCHEMA.getString(this.data, offset, 9);
+         final boolean y = name.length() == 2 && name.charAt(0) == 'a';
+         assertEquals(x, a.test(this.data, offset));
+         assertEquals(y, b.test(this.data, offset));
+         assertEquals(x && y, and.test(this.data, offset));
+         assertEquals(x || !y, or.eval(this.data, offset));
+      }
+      final byte[] tuple = SCHEMA.newTuple();
+      SCHEMA.setField(tuple, 9, "a%b");
+      assertTrue(PredicateCompiler.compare(SCHEMA, 9, ComparisonOperator.LIKE, "a%%b").eval(tuple));
+      assertFalse(PredicateCompiler.compare(SCHEMA, 9, ComparisonOperator.LIKE, "a.b").eval(tuple));
+   }
+
+   /**
+    * Checks that unsupported comparisons are rejected.
+    */
+   @Test
+   public void unsupported() {
+      TestHelper.assertThrows(IllegalArgumentException.class,
+            () -> PredicateCompiler.compare(SCHEMA, 2, ComparisonOperator.IN, Arrays.asList(1, 2)));
+      TestHelper.assertThrows(IllegalArgumentException.class,
+            () -> PredicateCompiler.compare(SCHEMA, 9, ComparisonOperator.LT, 6));
+   }
+
+   /**
+    * Compares two decoded field values like their encodings are compared.
+    *
+    * @param a first value
+    * @param b second value
+    * @return result of the comparison
+    */
+   private static int compare(final Object a, final Object b) {
+      if (a instanceof Number && b instanceof Number) {
+         if (a instanceof Float || a instanceof Double || b instanceof Float || b instanceof Double) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+         }
+         return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+      }
+      if (a instanceof String) {
+         return ((String) a).compareTo((String) b);
+      }
+      return Long.compare(((java.util.Date) a).getTime(), ((java.util.Date) b).getTime());
+   }
+
+   /**
+    * Returns the expected result of a comparison.
+    *
+    * @param op comparison operator
+    * @param cmp result of the three-way comparison
+    * @return expected result
+    */
+   private static boolean expected(final ComparisonOperator op, final int cmp) {
+      switch (op) {
+         case EQ:
+            return cmp == 0;
+         case NEQ:
+            return cmp != 0;
+         case LT:
+            return cmp < 0;
+         case LEQ:
+            return cmp <= 0;
+         case GT:
+            return cmp > 0;
+         default:
+            return cmp >= 0;
+      }
+   }
+}
@@ -22,7 +22,6 @@ import minibase.query.optimizer.LogicalProperties;
 import minibase.query.optimizer.OptimizerBaseTest;
 import minibase.query.optimizer.operators.logical.EquiJoin;
 import minibase.query.optimizer.operators.logical.GetTable;
-import minibase.storage.file.DiskManager;
 
 public class HashJoinTest extends OptimizerBaseTest {
    
@@ -40,11 +39,9 @@ public class HashJoinTest extends OptimizerBaseTest {
       final Cost costs = h.getLocalCost(resultProps, sProps, rProps);
 
       final double leftNumPages =
-            Math.ceil(sProps.getCardinality() * ((LogicalCollectionProperties) sProps).getSchema().getLength()
-                  / DiskManager.PAGE_SIZE);
+            Math.ceil(sProps.getCardinality() * ((LogicalCollectionProperties) sProps).getWidth());
       final double rightNumPages =
-            Math.ceil(rProps.getCardinality() * ((LogicalCollectionProperties) rProps).getSchema().getLength()
-                  / DiskManager.PAGE_SIZE);
+            Math.ceil(rProps.getCardinality() * ((LogicalCollectionProperties) rProps).getWidth());
       assertTrue("I/O costs are too low, every record has to be both written and read at least once.",
             costs.getIO() >= 1.9 * (leftNumPages + rightNumPages) * CostModel.IO_SEQ.getCost());
       assertTrue("I/O costs are too high, you estimate at least 4 I/O operations per record.",
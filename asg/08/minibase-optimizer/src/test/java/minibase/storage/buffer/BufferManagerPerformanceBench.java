@@ -0,0 +1,160 @@
+/*
+ * @(#)BufferManagerPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+
+/**
+ * Multi-threaded throughput benchmark of the {@link BufferManager} using the jmh framework. Every operation
+ * pins a random page of a fixed working set, reads from it and unpins it again. The main method runs the
+ * benchmark with an increasing number of threads to show how the shared buffer pool scales. Before running
+ * it, be sure to build the sources with something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BufferManagerPerformanceBench {
+
+   /** Database size (in pages). */
+   private static final int DB_SIZE = 20000;
+
+   /**
+    * Pins and unpins a random page of the working set.
+    *
+    * @param pool shared buffer pool state
+    * @param thread thread-local state
+    * @return value read from the page, to prevent DCE
+    */
+   @Benchmark
+   public int pinUnpin(final PoolState pool, final ThreadState thread) {
+      final PageID pageID = pool.pageIDs[thread.random.nextInt(pool.pageIDs.length)];
+      final BufferManager bufferManager = pool.minibase.getBufferManager();
+      final Page<?> page = bufferManager.pinPage(pageID);
+      page.latchShared();
+      try {
+         return page.readInt(0);
+      } finally {
+         page.unlatchShared();
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+   }
+
+   /**
+    * Runs the benchmark for one up to twice the number of available processors.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      final int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+      for (int threads = 1; threads <= maxThreads; threads *= 2) {
+         new Runner(new OptionsBuilder()
+               .include(BufferManagerPerformanceBench.class.getSimpleName())
+               .threads(threads).build()).run();
+      }
+   }
+
+   /**
+    * Buffer pool shared by all benchmark threads.
+    *
+    * @author Fabian Klopfer, Simon Suckut
+    * @version 1.0
+    */
+   @State(Scope.Benchmark)
+   public static class PoolState {
+
+      /** Buffer pool size (in pages). */
+      @Param({ "1024" })
+      private int numBuffers;
+
+      /** Size of the working set relative to the buffer pool size, in percent. */
+      @Param({ "50", "200" })
+      private int workingSet;
+
+      /** Replacement strategy of the buffer pool. */
+      @Param({ "CLOCK" })
+      private ReplacementStrategy strategy;
+
+      /** Minibase instance. */
+      private Minibase minibase;
+
+      /** Page IDs of the working set. */
+      private PageID[] pageIDs;
+
+      /**
+       * Creates the database and writes the pages of the working set.
+       */
+      @Setup(Level.Trial)
+      public void setup() {
+         this.minibase = Minibase.createTemporary(BufferManagerPerformanceBench.class.getSimpleName(), DB_SIZE,
+               this.numBuffers, this.strategy);
+         final BufferManager bufferManager = this.minibase.getBufferManager();
+         this.pageIDs = new PageID[this.numBuffers * this.workingSet / 100];
+         for (int i = 0; i < this.pageIDs.length; i++) {
+            final Page<?> page = bufferManager.newPage();
+            page.writeInt(0, i);
+            this.pageIDs[i] = page.getPageID();
+            bufferManager.unpinPage(page, UnpinMode.DIRTY);
+         }
+      }
+
+      /**
+       * Deletes the database.
+       *
+       * @throws IOException if the database file cannot be deleted
+       */
+      @TearDown(Level.Trial)
+      public void tearDown() throws IOException {
+         this.minibase.delete();
+         this.minibase = null;
+      }
+   }
+
+   /**
+    * Per-thread state of the benchmark.
+    *
+    * @author Fabian Klopfer, Simon Suckut
+    * @version 1.0
+    */
+   @State(Scope.Thread)
+   public static class ThreadState {
+      /** Random generator of this thread. */
+      private final Random random = new Random(Thread.currentThread().getId());
+   }
+}
@@ -10,12 +10,25 @@
  */
 package minibase.storage.buffer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
 import minibase.BaseTest;
+import minibase.RecordID;
 import minibase.TestHelper;
+import minibase.storage.file.DiskManager;
+import minibase.util.Convert;
 
 /**
  * Test suite for the buffer manager layer.
@@ -164,4 +177,261 @@ public class BufferManagerTest extends BaseTest {
       TestHelper.assertThrows(IllegalArgumentException.class,
             () -> bufferManager.pinPage(pageID));
    }
+
+   /**
+    * Pins, modifies and unpins pages of a working set larger than the buffer pool from several threads at once
+    * and checks that no update is lost.
+    *
+    * @throws Exception if a worker thread fails
+    */
+   @Test
+   public void concurrentPinUnpin() throws Exception {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int numThreads = 4;
+      final int numOps = 2000;
+      final PageID[] pids = new PageID[2 * BaseTest.BUF_SIZE];
+      for (int i = 0; i < pids.length; i++) {
+         final Page<?> page = bufferManager.newPage();
+         pids[i] = page.getPageID();
+         bufferManager.unpinPage(page, UnpinMode.DIRTY);
+      }
+
+      final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+      try {
+         final List<Future<int[]>> results = new ArrayList<>();
+         for (int t = 0; t < numThreads; t++) {
+            final long seed = t;
+            results.add(executor.submit(() -> {
+               final Random rng = new Random(seed);
+               final int[] increments = new int[pids.length];
+               for (int op = 0; op < numOps; op++) {
+                  final int pos = rng.nextInt(pids.length);
+                  final Page<?> page = bufferManager.pinPage(pids[pos]);
+                  page.latchExclusive();
+                  try {
+                     page.writeInt(0, page.readInt(0) + 1);
+                  } finally {
+                     page.unlatchExclusive();
+                  }
+                  bufferManager.unpinPage(page, UnpinMode.DIRTY);
+                  increments[pos]++;
+               }
+               return increments;
+            }));
+         }
+
+         final int[] expected = new int[pids.length];
+         for (final Future<int[]> result : results) {
+            final int[] increments = result.get();
+            for (int i = 0; i < expected.length; i++) {
+               expected[i] += increments[i];
+            }
+         }
+         for (int i = 0; i < pids.length; i++) {
+            final Page<?> page = bufferManager.pinPage(pids[i]);
+            assertEquals(expected[i], page.readInt(0));
+            bufferManager.freePage(page);
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   /** Checks that a scan through a buffer ring does not evict pages from the rest of the buffer pool. */
+   @Test
+   public void bufferRing() {
+      final BufferManager bufferManager = this.getBufferManager();
+      final int ringSize = 4;
+      final int numHot = BaseTest.BUF_SIZE - ringSize - 1;
+      final int numScanned = 4 * BaseTest.BUF_SIZE;
+
+      // write the hot pages to disk
+      final PageID[] hot = new PageID[numHot];
+      for (int i = 0; i < numHot; i++) {
+         final Page<?> page = bufferManager.newPage();
+         hot[i] = page.getPageID();
+         page.writeInt(0, 1);
+         bufferManager.unpinPage(page, UnpinMode.DIRTY);
+      }
+      bufferManager.flushAllPages();
+
+      // change the hot pages in the buffer pool only, reloading them from disk would undo the change
+      for (final PageID pid : hot) {
+         final Page<?> page = bufferManager.pinPage(pid);
+         page.writeInt(0, 2);
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+
+      // scan many more pages than fit into the buffer pool through the ring
+      final PageID first = bufferManager.getDiskManager().allocatePages(numScanned);
+      final BufferRing ring = new BufferRing(ringSize);
+      for (int i = 0; i < numScanned; i++) {
+         final Page<?> page = bufferManager.pinPage(PageID.getInstance(first.getValue() + i), ring);
+         assertEquals(0, page.readInt(0));
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+
+      // the hot pages must still be in the buffer pool
+      for (final PageID pid : hot) {
+         final Page<?> page = bufferManager.pinPage(pid);
+         assertEquals(2, page.readInt(0));
+         bufferManager.freePage(page);
+      }
+      bufferManager.getDiskManager().deallocatePages(first, numScanned);
+   }
+
+   /** Tests that a buffer ring reads consecutive pages ahead. */
+   @Test
+   public void readAhead() {
+      final BufferManager bufferManager = this.getBufferManager();
+      final DiskManager diskManager = bufferManager.getDiskManager();
+      final int ringSize = 4;
+      final int numScanned = 4 * BaseTest.BUF_SIZE;
+
+      // write the pages directly to disk, so that none of them is in the buffer pool
+      final PageID first = diskManager.allocatePages(numScanned);
+      final byte[] data = new byte[DiskManager.DEFAULT_PAGE_SIZE];
+      for (int i = 0; i < numScanned; i++) {
+         Convert.writeInt(data, 0, i);
+         diskManager.writePage(PageID.getInstance(first.getValue() + i), data);
+      }
+
+      // every miss loads the page and the following three pages
+      final BufferRing ring = new BufferRing(ringSize, ringSize - 1);
+      final int readsBefore = diskManager.getReadCount();
+      for (int i = 0; i < numScanned; i++) {
+         final int reads = diskManager.getReadCount();
+         final Page<?> page = bufferManager.pinPage(PageID.getInstance(first.getValue() + i), ring);
+         assertEquals(i % ringSize == 0 ? reads + ringSize : reads, diskManager.getReadCount());
+         assertEquals(i, page.readInt(0));
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+      assertEquals(readsBefore + numScanned, diskManager.getReadCount());
+      assertEquals(0, bufferManager.getNumPinned());
+
+      // pages beyond the end of the run are not allocated and must not be read
+      final Page<?> last = bufferManager.pinPage(PageID.getInstance(first.getValue() + numScanned - 1),
+            new BufferRing(ringSize, ringSize - 1));
+      assertEquals(numScanned - 1, last.readInt(0));
+      bufferManager.unpinPage(last, UnpinMode.CLEAN);
+      diskManager.deallocatePages(first, numScanned);
+   }
+
+   /**
+    * Tests a buffer pool whose frames are stored off-heap, including eviction and read-ahead.
+    */
+   @Test
+   public void offHeapFrames() {
+      final DiskManager diskManager = this.getBufferManager().getDiskManager();
+      final BufferManager bufferManager = new BufferManager(diskManager, BaseTest.BUF_SIZE, ReplacementStrategy.LRU,
+            FrameStorage.OFF_HEAP);
+      final int numPages = 3 * BaseTest.BUF_SIZE;
+      final PageID[] pageIDs = new PageID[numPages];
+      final byte[] bytes = { 1, 2, 3, 4, 5, 6, 7, 8 };
+      for (int i = 0; i < numPages; i++) {
+         final Page<?> page = bufferManager.newPage();
+         assertTrue(page.isDirect());
+         assertEquals(0, page.readInt(page.getSize() - 4));
+         page.writeInt(0, i);
+         page.writeString(4, "page" + i, 16);
+         page.write(20, bytes, 0, bytes.length);
+         page.move(20, 24, bytes.length);
+         page.writeRecordID(page.getSize() - 8, new RecordID(PageID.getInstance(i), i + 1));
+         pageIDs[i] = page.getPageID();
+         bufferManager.unpinPage(page, UnpinMode.DIRTY);
+      }
+
+      // most pages have been evicted and are read back from disk
+      final byte[] read = new byte[bytes.length + 4];
+      for (int i = 0; i < numPages; i++) {
+         final Page<?> page = bufferManager.pinPage(pageIDs[i]);
+         assertEquals(i, page.readInt(0));
+         assertEquals("page" + i, page.readString(4, 16));
+         page.read(20, read, 0, read.length);
+         assertArrayEquals(new byte[] { 1, 2, 3, 4, 1, 2, 3, 4, 5, 6, 7, 8 }, read);
+         assertEquals(new RecordID(PageID.getInstance(i), i + 1), page.readRecordID(page.getSize() - 8));
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+
+      // read-ahead transfers whole runs into the off-heap frames
+      bufferManager.flushAllPages();
+      final BufferRing ring = new BufferRing(4, 3);
+      for (int i = 0; i < numPages; i++) {
+         final Page<?> page = bufferManager.pinPage(pageIDs[i], ring);
+         assertEquals(i, page.readInt(0));
+         bufferManager.unpinPage(page, UnpinMode.CLEAN);
+      }
+
+      for (final PageID pageID : pageIDs) {
+         bufferManager.freePage(bufferManager.pinPage(pageID));
+      }
+      assertEquals(0, bufferManager.getNumPinned());
+   }
+
+   /**
+    * Tests that the page writer writes victims back to disk ahead of eviction and that asynchronous flushes
+    * complete their future.
+    *
+    * @throws Exception
+    *            exception
+    */
+   @Test
+   public void pageWriter() throws Exception {
+      final BufferManager bufferManager = this.getBufferManager();
+      final DiskManager diskManager = bufferManager.getDiskManager();
+
+      // fill the buffer pool with dirty pages
+      final PageID[] pids = new PageID[BaseTest.BUF_SIZE];
+      for (int i = 0; i < pids.length; i++) {
+         final Page<?> page = bufferManager.newPage();
+         pids[i] = page.getPageID();
+         page.writeInt(0, i);
+         bufferManager.unpinPage(page, UnpinMode.DIRTY);
+      }
+
+      // let the page writer clean all of them
+      final long writes = bufferManager.getBackgroundWriteCount();
+      bufferManager.startPageWriter(BaseTest.BUF_SIZE, 1, TimeUnit.MILLISECONDS);
+      TestHelper.assertThrows(IllegalStateException.class,
+            () -> bufferManager.startPageWriter(BaseTest.BUF_SIZE, 1, TimeUnit.MILLISECONDS));
+      try {
+         final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+         while (bufferManager.getBackgroundWriteCount() < writes + pids.length && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+         }
+      } finally {
+         bufferManager.stopPageWriter();
+      }
+      assertEquals(writes + pids.length, bufferManager.getBackgroundWriteCount());
+
+      // replacing the pages does not write them again
+      final long evictionWrites = bufferManager.getEvictionWriteCount();
+      final long avoided = bufferManager.getAvoidedWriteCount();
+      final Page<?>[] pages = new Page<?>[pids.length];
+      for (int i = 0; i < pages.length; i++) {
+         pages[i] = bufferManager.newPage();
+      }
+      assertEquals(evictionWrites, bufferManager.getEvictionWriteCount());
+      assertEquals(avoided + pids.length, bufferManager.getAvoidedWriteCount());
+      final byte[] data = new byte[DiskManager.DEFAULT_PAGE_SIZE];
+      for (int i = 0; i < pids.length; i++) {
+         diskManager.readPage(pids[i], data);
+         assertEquals(i, Convert.readInt(data, 0));
+      }
+
+      // flush the new pages asynchronously
+      for (final Page<?> page : pages) {
+         page.writeInt(0, 42);
+         bufferManager.unpinPage(page, UnpinMode.DIRTY);
+      }
+      bufferManager.flushAllPagesAsync().get();
+      for (final Page<?> page : pages) {
+         diskManager.readPage(page.getPageID(), data);
+         assertEquals(42, Convert.readInt(data, 0));
+         bufferManager.freePage(bufferManager.pinPage(page.getPageID()));
+      }
+      for (final PageID pid : pids) {
+         diskManager.deallocatePage(pid);
+      }
+   }
 }
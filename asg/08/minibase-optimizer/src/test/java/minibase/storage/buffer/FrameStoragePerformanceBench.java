@@ -0,0 +1,144 @@
+/*
+ * @(#)FrameStoragePerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.Minibase;
+import minibase.access.file.FileScan;
+import minibase.access.file.HeapFile;
+import minibase.util.Convert;
+
+/**
+ * Compares buffer pools with frames on the Java heap and off-heap using the jmh framework. The {@code scan}
+ * benchmark measures a heap file scan that copies every record out of the frames, the {@code gc} benchmark
+ * measures the duration of a full garbage collection with a large buffer pool.
+ * Before running the main method, be sure to build the sources with something like
+ * {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(value = 1, jvmArgs = { "-Xmx2g", "-XX:MaxDirectMemorySize=2g" })
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrameStoragePerformanceBench {
+
+   /** Length of the records in the heap file, in bytes. */
+   private static final int RECORD_LENGTH = 100;
+
+   /** Memory the frames are stored in. */
+   @Param({ "HEAP", "OFF_HEAP" })
+   private FrameStorage storage;
+
+   /** Page size of the database, in bytes. */
+   @Param({ "8192" })
+   private int pageSize;
+
+   /** Buffer pool size (in pages). */
+   @Param({ "65536" })
+   private int numBuffers;
+
+   /** Number of records in the heap file. */
+   @Param({ "1000000" })
+   private int numRecords;
+
+   /** Minibase instance. */
+   private Minibase minibase;
+
+   /** Heap file that is scanned. */
+   private HeapFile file;
+
+   /**
+    * Creates the database and loads the heap file.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.minibase = Minibase.createTemporary(FrameStoragePerformanceBench.class.getSimpleName(),
+            2 * this.numBuffers, this.pageSize, this.numBuffers, ReplacementStrategy.CLOCK, this.storage);
+      this.file = HeapFile.createTemporary(this.minibase.getBufferManager());
+      final byte[] record = new byte[RECORD_LENGTH];
+      for (int i = 0; i < this.numRecords; i++) {
+         Convert.writeInt(record, 0, i);
+         this.file.insertRecord(record);
+      }
+   }
+
+   /**
+    * Deletes the database.
+    *
+    * @throws IOException
+    *            if the database file cannot be deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.file.close();
+      this.minibase.delete();
+      this.minibase = null;
+   }
+
+   /**
+    * Scans the whole heap file.
+    *
+    * @return sum of the first fields of the records, to prevent DCE
+    */
+   @Benchmark
+   public long scan() {
+      long sum = 0;
+      try (FileScan scan = this.file.openScan()) {
+         while (scan.hasNext()) {
+            sum += Convert.readInt(scan.next(), 0);
+         }
+      }
+      return sum;
+   }
+
+   /**
+    * Runs a full garbage collection, which has to trace and move heap frames but not off-heap ones.
+    */
+   @Benchmark
+   public void gc() {
+      System.gc();
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(FrameStoragePerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
@@ -0,0 +1,209 @@
+/*
+ * @(#)ReplacementPolicyPerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import minibase.storage.buffer.policy.ReplacementPolicy;
+import minibase.storage.buffer.policy.ReplacementPolicy.PageState;
+
+/**
+ * Compares the replacement policies using the jmh framework. Every operation replays one page reference of
+ * a synthetic trace against a simulated buffer pool, which only consists of the page table and the
+ * replacement policy, so the measured time is dominated by the policy. The hit ratio of each policy is
+ * printed at the end of each trial. Before running the main method, be sure to build the sources with
+ * something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReplacementPolicyPerformanceBench {
+
+   /** Length of the generated traces. */
+   private static final int TRACE_LENGTH = 1 << 20;
+
+   /** Replacement strategy to measure. */
+   @Param({ "LRU", "LRU_K", "CLOCK", "RANDOM" })
+   private ReplacementStrategy strategy;
+
+   /** Kind of trace to replay. */
+   @Param({ "SCAN", "POINT" })
+   private Trace trace;
+
+   /** Buffer pool size (in pages). */
+   @Param({ "1024" })
+   private int numBuffers;
+
+   /** Replacement policy under test. */
+   private ReplacementPolicy policy;
+
+   /** Frame holding each page, {@code -1} if the page is not in the simulated buffer pool. */
+   private int[] frameOf;
+
+   /** Page held by each frame, {@code -1} for free frames. */
+   private int[] pageOf;
+
+   /** The generated page references. */
+   private int[] references;
+
+   /** Position of the next reference in the trace. */
+   private int next;
+
+   /** Number of references that found their page in the buffer pool. */
+   private long hits;
+
+   /** Total number of references. */
+   private long total;
+
+   /**
+    * Synthetic reference traces.
+    *
+    * @author Fabian Klopfer, Simon Suckut
+    * @version 1.0
+    */
+   public enum Trace {
+      /** Point lookups on a small hot set, interleaved with sequential scans over four times the pool size. */
+      SCAN {
+         @Override
+         int[] generate(final int numBuffers, final Random rng) {
+            final int hot = numBuffers / 4;
+            final int cold = 4 * numBuffers;
+            final int[] refs = new int[TRACE_LENGTH];
+            int scanPos = 0;
+            for (int i = 0; i < refs.length; i++) {
+               if (rng.nextInt(10) < 8) {
+                  refs[i] = hot + scanPos;
+                  scanPos = (scanPos + 1) % cold;
+               } else {
+                  refs[i] = rng.nextInt(hot);
+               }
+            }
+            return refs;
+         }
+      },
+
+      /** Skewed point lookups where 90% of the references go to 10% of the pages. */
+      POINT {
+         @Override
+         int[] generate(final int numBuffers, final Random rng) {
+            final int numPages = 4 * numBuffers;
+            final int hot = numPages / 10;
+            final int[] refs = new int[TRACE_LENGTH];
+            for (int i = 0; i < refs.length; i++) {
+               refs[i] = rng.nextInt(10) < 9 ? rng.nextInt(hot) : hot + rng.nextInt(numPages - hot);
+            }
+            return refs;
+         }
+      };
+
+      /**
+       * Generates a trace of page references.
+       *
+       * @param numBuffers buffer pool size
+       * @param rng random number generator
+       * @return the page references
+       */
+      abstract int[] generate(int numBuffers, Random rng);
+   }
+
+   /**
+    * Generates the trace and sets up the simulated buffer pool.
+    */
+   @Setup(Level.Trial)
+   public void setup() {
+      this.references = this.trace.generate(this.numBuffers, new Random(42));
+      int maxPage = 0;
+      for (final int page : this.references) {
+         maxPage = Math.max(maxPage, page);
+      }
+      this.frameOf = new int[maxPage + 1];
+      Arrays.fill(this.frameOf, -1);
+      this.pageOf = new int[this.numBuffers];
+      Arrays.fill(this.pageOf, -1);
+      this.policy = this.strategy.newInstance(this.numBuffers);
+      this.next = 0;
+      this.hits = 0;
+      this.total = 0;
+   }
+
+   /**
+    * Prints the hit ratio of the trial.
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      System.out.printf("%n%s/%s: hit ratio %.4f%n", this.strategy, this.trace, (double) this.hits / this.total);
+   }
+
+   /**
+    * Pins and unpins the next page of the trace, evicting a page on a miss.
+    *
+    * @return index of the frame holding the page, to prevent DCE
+    */
+   @Benchmark
+   public int reference() {
+      final int page = this.references[this.next];
+      this.next = (this.next + 1) % this.references.length;
+      this.total++;
+      int frame = this.frameOf[page];
+      if (frame >= 0) {
+         this.hits++;
+      } else {
+         frame = this.policy.pickVictim();
+         final int old = this.pageOf[frame];
+         if (old >= 0) {
+            this.frameOf[old] = -1;
+         }
+         this.pageOf[frame] = page;
+         this.frameOf[page] = frame;
+      }
+      this.policy.stateChanged(frame, PageState.PINNED);
+      this.policy.stateChanged(frame, PageState.UNPINNED);
+      return frame;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder()
+            .include(ReplacementPolicyPerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
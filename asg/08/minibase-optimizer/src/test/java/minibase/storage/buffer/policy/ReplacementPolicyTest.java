@@ -0,0 +1,138 @@
+/*
+ * @(#)ReplacementPolicyTest.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.buffer.policy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import minibase.storage.buffer.policy.ReplacementPolicy.PageState;
+
+/**
+ * Tests the victim selection of the replacement policies.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+public class ReplacementPolicyTest {
+
+   /** Number of frames used in the tests. */
+   private static final int NUM_BUFFERS = 4;
+
+   /**
+    * Pins and unpins the given frame once.
+    *
+    * @param policy replacement policy
+    * @param pos index of the frame
+    */
+   private static void touch(final ReplacementPolicy policy, final int pos) {
+      policy.stateChanged(pos, PageState.PINNED);
+      policy.stateChanged(pos, PageState.UNPINNED);
+   }
+
+   /**
+    * Fills all frames of a fresh policy in ascending order, as the buffer manager would.
+    *
+    * @param policy replacement policy
+    */
+   private static void fill(final ReplacementPolicy policy) {
+      for (int i = 0; i < NUM_BUFFERS; i++) {
+         assertEquals(i, policy.pickVictim());
+         touch(policy, i);
+      }
+   }
+
+   /** Checks that LRU evicts the least recently unpinned frame and skips pinned frames. */
+   @Test
+   public void lru() {
+      final ReplacementPolicy policy = new LRUPolicy(NUM_BUFFERS);
+      fill(policy);
+      touch(policy, 0);
+      policy.stateChanged(1, PageState.PINNED);
+      assertEquals(2, policy.pickVictim());
+      touch(policy, 2);
+      assertEquals(3, policy.pickVictim());
+      touch(policy, 3);
+      assertEquals(0, policy.pickVictim());
+      touch(policy, 0);
+
+      // freed frames are reused first
+      policy.stateChanged(1, PageState.FREE);
+      assertEquals(1, policy.pickVictim());
+      policy.stateChanged(1, PageState.PINNED);
+
+      // all frames pinned
+      for (int i = 0; i < NUM_BUFFERS; i++) {
+         policy.stateChanged(i, PageState.PINNED);
+      }
+      assertEquals(-1, policy.pickVictim());
+   }
+
+   /** Checks that LRU-2 keeps frequently used frames while a scan cycles through the others. */
+   @Test
+   public void lruKScanResistance() {
+      final ReplacementPolicy policy = new LRUKPolicy(NUM_BUFFERS, 2);
+      fill(policy);
+      // frames 0 and 1 are hot
+      touch(policy, 0);
+      touch(policy, 1);
+      // a scan only ever replaces frames 2 and 3
+      for (int i = 0; i < 10; i++) {
+         final int victim = policy.pickVictim();
+         assertEquals(2 + i % 2, victim);
+         touch(policy, victim);
+      }
+      // a frame referenced twice is evicted by its second-to-last reference
+      touch(policy, 2);
+      touch(policy, 3);
+      assertEquals(0, policy.pickVictim());
+      assertEquals(1, policy.pickVictim());
+      // the replaced frames have been referenced only once
+      touch(policy, 0);
+      touch(policy, 1);
+      assertEquals(0, policy.pickVictim());
+
+      // all frames pinned
+      for (int i = 0; i < NUM_BUFFERS; i++) {
+         policy.stateChanged(i, PageState.PINNED);
+      }
+      assertEquals(-1, policy.pickVictim());
+   }
+
+   /** Checks that peeking at the next victims skips pinned frames and does not change the policy's state. */
+   @Test
+   public void peekVictims() {
+      final ReplacementPolicy[] policies = { new LRUPolicy(NUM_BUFFERS), new LRUKPolicy(NUM_BUFFERS, 2),
+         new MRUPolicy(NUM_BUFFERS), new ClockPolicy(NUM_BUFFERS), new RandomPolicy(NUM_BUFFERS) };
+      for (final ReplacementPolicy policy : policies) {
+         final String name = policy.getClass().getSimpleName();
+         for (int i = 0; i < NUM_BUFFERS; i++) {
+            touch(policy, i);
+         }
+         touch(policy, 2);
+         touch(policy, 0);
+         policy.stateChanged(1, PageState.PINNED);
+         final int[] victims = policy.peekVictims(NUM_BUFFERS);
+         assertEquals(name, NUM_BUFFERS - 1, victims.length);
+         assertTrue(name, Arrays.stream(victims).noneMatch(v -> v == 1));
+         assertArrayEquals(name, victims, policy.peekVictims(NUM_BUFFERS));
+         assertEquals(name, 1, policy.peekVictims(1).length);
+         if (!(policy instanceof ClockPolicy) && !(policy instanceof RandomPolicy)) {
+            // the clock advances its head while picking, the random policy picks any page
+            assertEquals(name, victims[0], policy.pickVictim());
+         }
+      }
+   }
+}
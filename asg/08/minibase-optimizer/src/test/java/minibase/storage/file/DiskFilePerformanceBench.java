@@ -0,0 +1,166 @@
+/*
+ * @(#)DiskFilePerformanceBench.java   1.0   Oct 17, 2026
+ *
+ * Copyright (c) 1996-1997 University of Wisconsin.
+ * Copyright (c) 2006 Purdue University.
+ * Copyright (c) 2013-2016 University of Konstanz.
+ *
+ * This software is the proprietary information of the above-mentioned institutions.
+ * Use is subject to license terms. Please refer to the included copyright notice.
+ */
+package minibase.storage.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares random and sequential page I/O of the disk file backends using the jmh framework. Every operation
+ * reads or writes a single page. Before running the main method, be sure to build the sources with
+ * something like {@code mvn clean install -DskipTests=true}.
+ *
+ * @author Fabian Klopfer, Simon Suckut
+ * @version 1.0
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DiskFilePerformanceBench {
+
+   /** Backend to measure. */
+   @Param({ "RANDOM_ACCESS", "CHANNEL", "MAPPED" })
+   private DiskFileBackend backend;
+
+   /** Size of the database file (in pages). */
+   @Param({ "65536" })
+   private int numPages;
+
+   /** Temporary database file. */
+   private File file;
+
+   /** Disk file under test. */
+   private DiskFile diskFile;
+
+   /** Page buffer. */
+   private byte[] data;
+
+   /** Random number generator for the random accesses. */
+   private Random rng;
+
+   /** Next page of the sequential accesses. */
+   private int next;
+
+   /**
+    * Creates the database file.
+    *
+    * @throws IOException
+    *            if the temporary file cannot be created
+    */
+   @Setup(Level.Trial)
+   public void setup() throws IOException {
+      this.file = Files.createTempFile("minibase-bench-", ".db").toFile();
+      this.diskFile = DiskFile.create(this.file, this.numPages, this.backend);
+      this.data = new byte[this.diskFile.getPageSize()];
+      for (int i = 0; i < this.numPages; i++) {
+         this.data[i % this.data.length] = (byte) i;
+         this.diskFile.writePage(i, this.data);
+      }
+      this.rng = new Random(42);
+      this.next = 0;
+   }
+
+   /**
+    * Closes and deletes the database file.
+    *
+    * @throws IOException
+    *            if the file cannot be closed or deleted
+    */
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      this.diskFile.close();
+      Files.delete(this.file.toPath());
+   }
+
+   /**
+    * Reads a random page.
+    *
+    * @return a byte of the page, to prevent DCE
+    */
+   @Benchmark
+   public byte randomRead() {
+      this.diskFile.readPage(this.rng.nextInt(this.numPages), this.data);
+      return this.data[0];
+   }
+
+   /**
+    * Writes a random page.
+    */
+   @Benchmark
+   public void randomWrite() {
+      this.diskFile.writePage(this.rng.nextInt(this.numPages), this.data);
+   }
+
+   /**
+    * Reads the next page of a sequential scan over the file.
+    *
+    * @return a byte of the page, to prevent DCE
+    */
+   @Benchmark
+   public byte sequentialRead() {
+      this.diskFile.readPage(this.nextPage(), this.data);
+      return this.data[0];
+   }
+
+   /**
+    * Writes the next page of a sequential scan over the file.
+    */
+   @Benchmark
+   public void sequentialWrite() {
+      this.diskFile.writePage(this.nextPage(), this.data);
+   }
+
+   /**
+    * Returns the next page number of the sequential accesses, wrapping around at the end of the file.
+    *
+    * @return page number
+    */
+   private int nextPage() {
+      final int pageNo = this.next;
+      this.next = (pageNo + 1) % this.numPages;
+      return pageNo;
+   }
+
+   /**
+    * Runs the benchmark.
+    *
+    * @param args
+    *           unused arguments
+    * @throws RunnerException
+    *            if the benchmark harness has problems running the code
+    */
+   public static void main(final String[] args) throws RunnerException {
+      new Runner(new OptionsBuilder().include(DiskFilePerformanceBench.class.getSimpleName()).build()).run();
+   }
+}
@@ -10,9 +10,15 @@
  */
 package minibase.storage.file;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
 import org.junit.Test;
 
 import minibase.BaseTest;
@@ -47,7 +53,7 @@ public class DiskManagerTest extends BaseTest {
       for (int i = 0; i < 20; i++) {
          final String writeStr = "A" + i;
          // leave enough space
-         final byte[] data = new byte[DiskManager.PAGE_SIZE];
+         final byte[] data = new byte[DiskManager.DEFAULT_PAGE_SIZE];
          Convert.writeString(data, 0, writeStr, writeStr.length());
          diskManager.writePage(PageID.getInstance(runStart.getValue() + i), data);
       }
@@ -68,7 +74,7 @@ public class DiskManagerTest extends BaseTest {
 
       // Read stuff back from pages we wrote in test 1
       for (int i = 0; i < 20; i++) {
-         final byte[] data = new byte[DiskManager.PAGE_SIZE];
+         final byte[] data = new byte[DiskManager.DEFAULT_PAGE_SIZE];
          diskManager.readPage(PageID.getInstance(runStart.getValue() + i), data);
 
          final String testStr = "A" + i;
@@ -145,7 +151,7 @@ public class DiskManagerTest extends BaseTest {
       // Add enough file entries that the directory must surpass a page
 
       // This over-counts, but uses only public info.
-      final int count = DiskManager.PAGE_SIZE / DiskManager.NAME_MAXLEN + 1;
+      final int count = DiskManager.DEFAULT_PAGE_SIZE / DiskManager.NAME_MAXLEN + 1;
 
       for (int i = 0; i < count; i++) {
          // Set every file's first page to be page pid, which doesn't cause an error.
@@ -170,4 +176,146 @@ public class DiskManagerTest extends BaseTest {
       // Free the rest of the pages
       diskManager.deallocatePages(firstID, BaseTest.DB_SIZE - 2 - firstID.getValue());
    }
+
+   /**
+    * Writes pages with every disk file backend and reads them back, also after reopening the file with a
+    * different backend.
+    *
+    * @throws IOException
+    *            if the temporary file cannot be created
+    */
+   @Test
+   public void backends() throws IOException {
+      for (final DiskFileBackend backend : DiskFileBackend.values()) {
+         final File file = Files.createTempFile("minibase-", ".db").toFile();
+         try {
+            final PageID runStart;
+            try (DiskManager diskManager = DiskManager.create(DiskFile.create(file, BaseTest.DB_SIZE, backend))) {
+               runStart = diskManager.allocatePages(30);
+               for (int i = 0; i < 30; i++) {
+                  diskManager.writePage(PageID.getInstance(runStart.getValue() + i), page(i));
+               }
+               diskManager.addFileEntry("file", runStart);
+            }
+            for (final DiskFileBackend other : DiskFileBackend.values()) {
+               try (DiskManager diskManager = DiskManager.open(DiskFile.open(file, other))) {
+                  assertEquals(runStart, diskManager.getFileEntry("file"));
+                  final byte[] data = new byte[DiskManager.DEFAULT_PAGE_SIZE];
+                  // read in reverse order to not only test sequential access
+                  for (int i = 29; i >= 0; i--) {
+                     diskManager.readPage(PageID.getInstance(runStart.getValue() + i), data);
+                     assertArrayEquals(backend + "/" + other, page(i), data);
+                  }
+                  assertEquals(30, diskManager.getReadCount());
+
+                  // read all pages at once
+                  final byte[][] run = new byte[30][DiskManager.DEFAULT_PAGE_SIZE];
+                  diskManager.readPages(runStart, 30, run);
+                  for (int i = 0; i < 30; i++) {
+                     assertArrayEquals(backend + "/" + other, page(i), run[i]);
+                  }
+                  assertEquals(60, diskManager.getReadCount());
+                  TestHelper.assertThrows(IllegalArgumentException.class,
+                        () -> diskManager.readPages(runStart, 31, new byte[31][DiskManager.DEFAULT_PAGE_SIZE]));
+               }
+            }
+         } finally {
+            Files.delete(file.toPath());
+         }
+      }
+   }
+
+   /**
+    * Creates databases with every supported page size and checks that the page size is read back from the
+    * header page when they are reopened.
+    *
+    * @throws IOException
+    *            if the temporary file cannot be created
+    */
+   @Test
+   public void pageSizes() throws IOException {
+      for (int pageSize = DiskManager.MIN_PAGE_SIZE; pageSize <= DiskManager.MAX_PAGE_SIZE; pageSize <<= 1) {
+         final File file = Files.createTempFile("minibase-", ".db").toFile();
+         try {
+            final byte[] data = new byte[pageSize];
+            Convert.writeInt(data, pageSize - 4, pageSize);
+            final PageID pageID;
+            try (DiskManager diskManager = DiskManager.create(
+                  DiskFile.create(file, 100, pageSize, DiskFileBackend.RANDOM_ACCESS))) {
+               assertEquals(pageSize, diskManager.getPageSize());
+               pageID = diskManager.allocatePage();
+               diskManager.writePage(pageID, data);
+               diskManager.addFileEntry("file", pageID);
+            }
+            assertEquals(100L * pageSize, file.length());
+            try (DiskManager diskManager = DiskManager.open(DiskFile.open(file))) {
+               assertEquals(pageSize, diskManager.getPageSize());
+               assertEquals(pageID, diskManager.getFileEntry("file"));
+               final byte[] read = new byte[pageSize];
+               diskManager.readPage(pageID, read);
+               assertArrayEquals(data, read);
+            }
+         } finally {
+            Files.delete(file.toPath());
+         }
+      }
+
+      final File file = Files.createTempFile("minibase-", ".db").toFile();
+      try {
+         TestHelper.assertThrows(IllegalArgumentException.class,
+               () -> DiskFile.create(file, 100, 3000, DiskFileBackend.RANDOM_ACCESS));
+         TestHelper.assertThrows(IllegalArgumentException.class,
+               () -> DiskFile.create(file, 100, DiskManager.MAX_PAGE_SIZE << 1, DiskFileBackend.RANDOM_ACCESS));
+      } finally {
+         Files.deleteIfExists(file.toPath());
+      }
+   }
+
+   /**
+    * Removes the page size marker from the header page of a database and checks that it is opened with the
+    * default page size, like a database created before the page size was stored.
+    *
+    * @throws IOException
+    *            if the temporary file cannot be created or modified
+    */
+   @Test
+   public void missingPageSize() throws IOException {
+      final File file = Files.createTempFile("minibase-", ".db").toFile();
+      try {
+         final PageID pageID;
+         try (DiskManager diskManager = DiskManager.create(DiskFile.create(file, 100, DiskFileBackend.RANDOM_ACCESS))) {
+            pageID = diskManager.allocatePage();
+            diskManager.writePage(pageID, page(1));
+            diskManager.addFileEntry("file", pageID);
+         }
+         try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(DiskManager.DEFAULT_PAGE_SIZE - 8);
+            raf.writeInt(0);
+         }
+         try (DiskManager diskManager = DiskManager.open(DiskFile.open(file))) {
+            assertEquals(DiskManager.DEFAULT_PAGE_SIZE, diskManager.getPageSize());
+            assertEquals(pageID, diskManager.getFileEntry("file"));
+            final byte[] read = new byte[DiskManager.DEFAULT_PAGE_SIZE];
+            diskManager.readPage(pageID, read);
+            assertArrayEquals(page(1), read);
+         }
+      } finally {
+         Files.delete(file.toPath());
+      }
+   }
+
+   /**
+    * Creates the contents of a test page.
+    *
+    * @param i
+    *           number of the page
+    * @return page contents
+    */
+   private static byte[] page(final int i) {
+      final byte[] data = new byte[DiskManager.DEFAULT_PAGE_SIZE];
+      final String str = "page" + i;
+      Convert.writeString(data, DiskManager.DEFAULT_PAGE_SIZE - str.length(), str, str.length());
+      Convert.writeInt(data, 0, i);
+      return data;
+   }
 }